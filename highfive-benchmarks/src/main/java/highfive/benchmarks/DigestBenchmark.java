@@ -0,0 +1,73 @@
+package highfive.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import highfive.model.Hasher;
+import highfive.model.HashingMode;
+import highfive.model.Serializer;
+
+// Hashing throughput of each algorithm for the values produced by each
+// serializer, in rows per second (one single-column row per value)
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DigestBenchmark {
+
+  private static final int ROWS = 1024;
+
+  @Param({ "sha-256", "xxh128", "blake2b-256" })
+  public String algorithm;
+
+  @Param({ "ordered", "unordered" })
+  public String mode;
+
+  @Param({ "bigdecimal", "biginteger", "boolean", "bytearray", "double", "integer", "localdate", "localdatetime",
+      "localtime", "long", "offsetdatetime", "string", "zoneddatetime" })
+  public String type;
+
+  private HashingMode hashingMode;
+  private List<byte[]> values;
+
+  @Setup
+  public void setup() throws Exception {
+    this.hashingMode = HashingMode.find(this.mode);
+    Serializer<?> s = Serializer.find(this.type).newInstance();
+    SyntheticResultSet rs = SyntheticResultSet.random(this.type, ROWS);
+    this.values = new ArrayList<>();
+    for (int i = 0; i < ROWS; i++) {
+      rs.next();
+      this.values.add(s.read(rs, 1).clone());
+    }
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(ROWS)
+  public byte[] hashRows() throws Exception {
+    Hasher h = new Hasher(this.hashingMode, this.algorithm);
+    for (byte[] v : this.values) {
+      h.apply(v);
+      h.endRow();
+    }
+    return h.close();
+  }
+
+}
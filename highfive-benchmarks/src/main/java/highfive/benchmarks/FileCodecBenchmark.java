@@ -0,0 +1,133 @@
+package highfive.benchmarks;
+
+import java.io.File;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import highfive.commands.consumer.DumpFileReader;
+import highfive.commands.consumer.DumpFileReader.DumpFileMetaData;
+import highfive.commands.consumer.DumpFileWriter;
+import highfive.commands.consumer.DumpFileWriter.DumpFileFormat;
+import highfive.model.Digest;
+import highfive.model.HashFile;
+import highfive.model.HashingMode;
+import highfive.utils.Utl;
+
+// Encoding and decoding of the files: the hex rendering of the hashes, the
+// hash file (in table lines per second), and the text and binary dump files
+// (in rows per second). The files are written to the temporary directory.
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FileCodecBenchmark {
+
+  private static final int TABLES = 1000;
+  private static final int ROWS = 10000;
+
+  private byte[] hash;
+  private HashFile hashFile;
+  private File hashFileName;
+  private File savedFileName;
+  private File dumpFileName;
+  private File binaryDumpFileName;
+
+  @Setup
+  public void setup() throws Exception {
+    Random r = new Random(1234);
+    this.hash = new byte[32];
+    r.nextBytes(this.hash);
+
+    this.hashFile = new HashFile();
+    byte[] h = new byte[32];
+    for (int i = 0; i < TABLES; i++) {
+      r.nextBytes(h);
+      this.hashFile.add(Utl.toHex(h), false, false, r.nextInt(1000000), "table_" + i);
+    }
+    this.hashFileName = File.createTempFile("highfive-bench-", ".hash");
+    this.hashFile.saveTo(this.hashFileName.getPath());
+    this.savedFileName = File.createTempFile("highfive-bench-", ".hash");
+
+    this.dumpFileName = File.createTempFile("highfive-bench-", ".dump");
+    this.binaryDumpFileName = File.createTempFile("highfive-bench-", ".dump");
+    try (DumpFileWriter w = new DumpFileFormat(Digest.DEFAULT, HashingMode.ORDERED, false, 0).open(this.dumpFileName,
+        new DumpFileMetaData("invoice"));
+        DumpFileWriter bw = new DumpFileFormat(Digest.DEFAULT, HashingMode.ORDERED, true, 0).open(this.binaryDumpFileName,
+            new DumpFileMetaData("invoice"))) {
+      for (int i = 1; i <= ROWS; i++) {
+        r.nextBytes(h);
+        w.write(i, h);
+        bw.write(i, h);
+      }
+    }
+  }
+
+  @TearDown
+  public void tearDown() {
+    this.hashFileName.delete();
+    this.savedFileName.delete();
+    this.dumpFileName.delete();
+    this.binaryDumpFileName.delete();
+  }
+
+  @Benchmark
+  public String toHex() {
+    return Utl.toHex(this.hash);
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(TABLES)
+  public HashFile loadHashFile() throws Exception {
+    return HashFile.loadFrom(this.hashFileName.getPath());
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(TABLES)
+  public void saveHashFile() throws Exception {
+    this.hashFile.saveTo(this.savedFileName.getPath());
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(ROWS)
+  public long readDumpFile() throws Exception {
+    return readAll(this.dumpFileName);
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(ROWS)
+  public long readBinaryDumpFile() throws Exception {
+    return readAll(this.binaryDumpFileName);
+  }
+
+  // As the hashc command: checks each row against a live digest
+
+  private long readAll(final File f) throws Exception {
+    DumpFileReader r = DumpFileReader.open(f);
+    long sum = 0;
+    try {
+      while (r.next()) {
+        sum += r.getRow() + (r.matches(this.hash) ? 1 : 0);
+      }
+    } finally {
+      r.close();
+    }
+    return sum;
+  }
+
+}
@@ -0,0 +1,88 @@
+package highfive.benchmarks;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import highfive.model.ByteSink;
+import highfive.model.Hasher;
+import highfive.model.HashingMode;
+import highfive.utils.Utl;
+
+// The operations of the Hasher on each row: applying a value (as a byte array
+// or from a sink), ending the row, and taking the in-progress digest that the
+// dump files and the hash log write after each row (also rendered as hex). The
+// chained mode is the one of the dump files that avoid copying the digest.
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class HasherBenchmark {
+
+  @Param({ "sha-256", "xxh128", "blake2b-256" })
+  public String algorithm;
+
+  @Param({ "ordered", "unordered", "chained" })
+  public String mode;
+
+  @Param({ "8", "64" })
+  public int size;
+
+  private byte[] value;
+  private ByteSink sink;
+  private Hasher hasher;
+
+  @Setup
+  public void setup() throws Exception {
+    this.value = new byte[this.size];
+    new Random(1234).nextBytes(this.value);
+    this.sink = new ByteSink();
+    this.sink.write(this.value, 0, this.value.length);
+    this.hasher = new Hasher(HashingMode.find(this.mode), this.algorithm);
+  }
+
+  @Benchmark
+  public void apply() {
+    this.hasher.apply(this.value);
+  }
+
+  @Benchmark
+  public void applySink() {
+    this.hasher.apply(this.sink);
+  }
+
+  @Benchmark
+  public void applyAndEndRow() {
+    this.hasher.apply(this.value);
+    this.hasher.endRow();
+  }
+
+  @Benchmark
+  public byte[] getInProgressDigest() throws Exception {
+    this.hasher.apply(this.value);
+    this.hasher.endRow();
+    return this.hasher.getInProgressDigest();
+  }
+
+  @Benchmark
+  public String getOngoingHash() throws Exception {
+    this.hasher.apply(this.value);
+    this.hasher.endRow();
+    return Utl.toHex(this.hasher.getInProgressDigest());
+  }
+
+}
@@ -0,0 +1,83 @@
+package highfive.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import highfive.model.ByteSink;
+import highfive.model.Hasher;
+import highfive.model.Serializer;
+import highfive.serializers.DB2LocalDateSerializer;
+import highfive.serializers.DB2LocalDateTimeSerializer;
+import highfive.serializers.DB2LocalTimeSerializer;
+
+// Reads and hashes one value with each serializer: read() returns a byte
+// array, while readInto() writes into a reusable sink. The db2* types are the
+// serializers the DB2 dialect uses for dates and times. Run it with the GC
+// profiler to see the memory allocated per value (gc.alloc.rate.norm):
+//
+//   java -jar target/benchmarks.jar SerializerBenchmark -prof gc
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SerializerBenchmark {
+
+  @Param({ "bigdecimal", "biginteger", "boolean", "bytearray", "db2localdate", "db2localdatetime", "db2localtime",
+      "double", "integer", "localdate", "localdatetime", "localtime", "long", "offsetdatetime", "string",
+      "zoneddatetime" })
+  public String type;
+
+  private SyntheticResultSet rs;
+  private Serializer<?> serializer;
+  private ByteSink sink;
+  private Hasher hasher;
+
+  @Setup
+  public void setup() throws Exception {
+    this.rs = SyntheticResultSet.random(this.type, 1024);
+    this.serializer = find(this.type);
+    this.sink = new ByteSink();
+    this.hasher = new Hasher();
+  }
+
+  private static Serializer<?> find(final String type) {
+    switch (type) {
+    case "db2localdate":
+      return new DB2LocalDateSerializer();
+    case "db2localdatetime":
+      return new DB2LocalDateTimeSerializer();
+    case "db2localtime":
+      return new DB2LocalTimeSerializer();
+    default:
+      return Serializer.find(type).newInstance();
+    }
+  }
+
+  @Benchmark
+  public void read() throws Exception {
+    this.rs.next();
+    this.hasher.apply(this.serializer.read(this.rs, 1));
+  }
+
+  @Benchmark
+  public void readInto() throws Exception {
+    this.rs.next();
+    this.sink.reset();
+    this.hasher.apply(this.serializer.readInto(this.rs, 1, this.sink) ? this.sink : null);
+  }
+
+}
@@ -4,11 +4,16 @@ import java.io.IOException;
 import java.security.NoSuchAlgorithmException;
 import java.sql.SQLException;
 import java.text.SimpleDateFormat;
+import java.util.Arrays;
 import java.util.Date;
+import java.util.List;
 import java.util.logging.Level;
 
 import highfive.commands.Command;
+import highfive.commands.CompareCommand;
 import highfive.commands.CopyCommand;
+import highfive.commands.DiffCommand;
+import highfive.commands.DrillCommand;
 import highfive.commands.HashCommand;
 import highfive.commands.HashCompareCommand;
 import highfive.commands.HashDumpCommand;
@@ -17,6 +22,8 @@ import highfive.commands.HashDupesCommand;
 import highfive.commands.HashLoggingCommand;
 import highfive.commands.ListColumnsAndCheckCommand;
 import highfive.commands.ListTablesAndCheckCommand;
+import highfive.commands.MultiHashCommand;
+import highfive.commands.PushdownVerifyCommand;
 import highfive.commands.VerifyCommand;
 import highfive.exceptions.ApplicationException;
 import highfive.exceptions.InvalidConfigurationException;
@@ -59,9 +66,23 @@ public class HighFive {
           error(e.getMessage());
           System.exit(1);
         }
-      } else if (args.length == 2 && "hash".equals(args[0])) {
+      } else if ((args.length == 2 || args.length == 3 && "--resume".equals(args[2])) && "hash".equals(args[0])) {
         try {
-          Command c = new HashCommand(args[1]);
+          Command c = new HashCommand(args[1], args.length == 3);
+          c.run();
+          System.exit(0);
+        } catch (ApplicationException e) {
+          error("Could not hash data: " + e.getMessage());
+          System.exit(1);
+        }
+
+        // -- 0--- 1---- 2---- ...
+        // -- hash <ds1> <ds2> [<ds3> ...] [--resume]
+      } else if (args.length >= 3 && "hash".equals(args[0])) {
+        try {
+          boolean resume = "--resume".equals(args[args.length - 1]);
+          List<String> names = Arrays.asList(args).subList(1, resume ? args.length - 1 : args.length);
+          Command c = new MultiHashCommand(names, null, resume);
           c.run();
           System.exit(0);
         } catch (ApplicationException e) {
@@ -140,15 +161,66 @@ public class HighFive {
           System.exit(1);
         }
 
-      } else if (args.length == 3 && "verify".equals(args[0])) {
+      } else if ((args.length == 3 || args.length == 4 && "--resume".equals(args[3])) && "verify".equals(args[0])) {
         try {
-          Command c = new VerifyCommand(args[1], args[2]);
+          Command c = new VerifyCommand(args[1], args[2], args.length == 4);
           c.run();
           System.exit(0);
         } catch (ApplicationException e) {
           error("Could not verify data: " + e.getMessage());
           System.exit(1);
         }
+
+        // -- 0----- 1---- 2---- ... 3--------------
+        // -- verify <ds1> <ds2> ... <baseline-file> [--resume]
+      } else if (args.length >= 4 && "verify".equals(args[0])) {
+        try {
+          boolean resume = "--resume".equals(args[args.length - 1]);
+          int baseline = resume ? args.length - 2 : args.length - 1;
+          List<String> names = Arrays.asList(args).subList(1, baseline);
+          Command c = new MultiHashCommand(names, args[baseline], resume);
+          c.run();
+          System.exit(0);
+        } catch (ApplicationException e) {
+          error("Could not verify data: " + e.getMessage());
+          System.exit(1);
+        }
+      } else if (args.length == 3 && "pushdown".equals(args[0])) {
+        try {
+          Command c = new PushdownVerifyCommand(args[1], args[2]);
+          c.run();
+          System.exit(0);
+        } catch (ApplicationException e) {
+          error("Could not verify data: " + e.getMessage());
+          System.exit(1);
+        }
+      } else if ((args.length == 3 || args.length == 4 && "--count".equals(args[3])) && "compare".equals(args[0])) {
+        try {
+          Command c = new CompareCommand(args[1], args[2], args.length == 4);
+          c.run();
+          System.exit(0);
+        } catch (ApplicationException e) {
+          error("Could not compare data: " + e.getMessage());
+          System.exit(1);
+        }
+      } else if (args.length == 4 && "drill".equals(args[0])) {
+        try {
+          Command c = new DrillCommand(args[1], args[2], args[3]);
+          c.run();
+          System.exit(0);
+        } catch (ApplicationException e) {
+          error("Could not drill down the table: " + e.getMessage());
+          System.exit(1);
+        }
+      } else if (args.length == 4 && "diff".equals(args[0])) {
+        try {
+          Command c = new DiffCommand(args[1], args[2], args[3]);
+          c.run();
+          System.exit(0);
+        } catch (ApplicationException e) {
+          error("Could not diff the table: " + e.getMessage());
+          System.exit(1);
+        }
       } else if (args.length == 3 && "copy".equals(args[0])) {
         try {
           Command c = new CopyCommand(args[1], args[2]);
@@ -167,11 +239,15 @@ public class HighFive {
         info("Usage: java -jar highfive.jar listtables <datasource>");
         info("       java -jar highfive.jar listcolumns <datasource>");
         info("       java -jar highfive.jar copy <from-datasource> <to-datasource>");
-        info("       java -jar highfive.jar hash <datasource>");
-        info("       java -jar highfive.jar verify <datasource> <baseline-hash-file>");
+        info("       java -jar highfive.jar hash <datasource> [<datasource> ...] [--resume]");
+        info("       java -jar highfive.jar verify <datasource> [<datasource> ...] <baseline-hash-file> [--resume]");
+        info("       java -jar highfive.jar pushdown <source-datasource> <target-datasource>");
+        info("       java -jar highfive.jar compare <source-datasource> <target-datasource> [--count]");
         info("       java -jar highfive.jar hashd <datasource> <table> [<start> <end> [<step>]]");
         info("       java -jar highfive.jar hashc <datasource> <table> <baseline-dump-file>");
         info("       java -jar highfive.jar hashl <datasource> <table> <start> <end>");
+        info("       java -jar highfive.jar drill <source-datasource> <target-datasource> <table>");
+        info("       java -jar highfive.jar diff <source-datasource> <target-datasource> <table>");
         System.exit(1);
       }
     } catch (NoSuchAlgorithmException | SQLException | IOException | InvalidConfigurationException
@@ -31,18 +31,29 @@ public abstract class Command {
 
   // Utils
 
+  // Synchronized: worker threads log concurrently and SimpleDateFormat is not
+  // thread-safe
+
   private final SimpleDateFormat DF = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss.SSS");
 
-  protected void info(final String s) {
-    System.out.println(DF.format(new Date()) + " INFO  - " + s);
+  // Tells apart the lines of the commands that run at the same time
+
+  private String logPrefix = "";
+
+  void setLogPrefix(final String logPrefix) {
+    this.logPrefix = logPrefix;
+  }
+
+  protected synchronized void info(final String s) {
+    System.out.println(DF.format(new Date()) + " INFO  - " + this.logPrefix + s);
   }
 
-  protected void error(final String s) {
-    System.out.println(DF.format(new Date()) + " ERROR - " + s);
+  protected synchronized void error(final String s) {
+    System.out.println(DF.format(new Date()) + " ERROR - " + this.logPrefix + s);
   }
 
-  protected void error(final Throwable e) {
-    System.out.print(DF.format(new Date()) + " ERROR - ");
+  protected synchronized void error(final Throwable e) {
+    System.out.print(DF.format(new Date()) + " ERROR - " + this.logPrefix);
     e.printStackTrace(System.out);
   }
 
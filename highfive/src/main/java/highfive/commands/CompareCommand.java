@@ -0,0 +1,312 @@
+package highfive.commands;
+
+import java.security.NoSuchAlgorithmException;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+
+import highfive.commands.consumer.LockstepComparator;
+import highfive.commands.consumer.LockstepComparator.Feeder;
+import highfive.exceptions.CouldNotHashException;
+import highfive.exceptions.InvalidConfigurationException;
+import highfive.exceptions.InvalidHashFileException;
+import highfive.exceptions.InvalidSchemaException;
+import highfive.exceptions.UnsupportedDatabaseTypeException;
+import highfive.model.DataSource;
+import highfive.model.HashingMode;
+import highfive.model.Identifier;
+import highfive.model.RowOrdering;
+import highfive.model.Table;
+
+// Compares a target database with a source database without hash files: each
+// table is read from both databases at the same time, in the hashing ordering,
+// and their rows are compared one by one as they arrive (see
+// LockstepComparator). A table takes the time of the slower scan instead of
+// the time of two scans. The tables are compared in parallel by
+// <source-datasource>.hashing.threads workers, each one with a connection to
+// each database.
+
+public class CompareCommand extends GenericHashCommand {
+
+  private DataSource ds2;
+  private DataSourceHasher target;
+  private boolean countAll;
+
+  private List<String> errors;
+  private int matched;
+  private volatile boolean nonDeterministic;
+
+  public CompareCommand(final String sourceDatasourceName, final String targetDatasourceName,
+      final boolean countAll) throws InvalidConfigurationException, SQLException, UnsupportedDatabaseTypeException {
+    super("Compare", sourceDatasourceName);
+    this.ds2 = DataSource.load(targetDatasourceName);
+    this.target = new DataSourceHasher("Compare", this.ds2);
+    this.countAll = countAll;
+  }
+
+  @Override
+  public void run() throws SQLException, UnsupportedDatabaseTypeException, InvalidSchemaException,
+      NoSuchAlgorithmException, CouldNotHashException, InvalidHashFileException {
+
+    this.ds.show("Source Datasource");
+    info(" ");
+
+    this.ds2.show("Target Datasource");
+    info(" ");
+
+    this.execute();
+
+  }
+
+  @Override
+  public void execute() throws SQLException, UnsupportedDatabaseTypeException, InvalidSchemaException,
+      NoSuchAlgorithmException, CouldNotHashException, InvalidHashFileException {
+
+    if (!this.ds.getHashingAlgorithm().equals(this.ds2.getHashingAlgorithm())) {
+      throw new CouldNotHashException("The source datasource '" + this.ds.getName() + "' uses the '"
+          + this.ds.getHashingAlgorithm() + "' hashing algorithm, but the target datasource '" + this.ds2.getName()
+          + "' uses the '" + this.ds2.getHashingAlgorithm()
+          + "' hashing algorithm (property '<datasource>.hashing.algorithm'); they cannot be compared.");
+    }
+
+    this.errors = Collections.synchronizedList(new ArrayList<>());
+    this.matched = 0;
+    this.nonDeterministic = false;
+
+    // 1. Match tables
+
+    Map<String, Identifier> did = new LinkedHashMap<>();
+    for (Identifier id : this.ds2.getDialect().listTablesNames()) {
+      did.put(id.getGenericName(), id);
+    }
+
+    List<Identifier> sids = new ArrayList<>();
+    List<Identifier> tids = new ArrayList<>();
+    for (Identifier id : this.ds.getDialect().listTablesNames()) {
+      Identifier dt = did.remove(id.getGenericName());
+      if (dt == null) {
+        this.errors
+            .add("Found table '" + id.getGenericName() + "' in the source database, but not in the target database.");
+        continue;
+      }
+      sids.add(id);
+      tids.add(dt);
+    }
+    List<Table> sts = this.ds.getDialect().getTablesMetaData(sids);
+    List<Table> tts = this.ds2.getDialect().getTablesMetaData(tids);
+
+    List<Table> sources = new ArrayList<>();
+    List<TablePair> pairs = new ArrayList<>();
+    for (int i = 0; i < sts.size(); i++) {
+      Table st = sts.get(i);
+      Table tt = tts.get(i);
+      sources.add(st);
+      String sColumns = st.getColumns().stream().map(c -> c.getName()).collect(Collectors.joining(", "));
+      String tColumns = tt.getColumns().stream().map(c -> c.getName()).collect(Collectors.joining(", "));
+      if (!sColumns.equals(tColumns)) {
+        this.errors.add("Table '" + st.getIdentifier().getGenericName() + "' has different columns: (" + sColumns
+            + ") in the source database, and (" + tColumns + ") in the target database.");
+        continue;
+      }
+      RowOrdering ordering;
+      try {
+        ordering = RowOrdering.of(this.ds, st);
+        RowOrdering.of(this.ds2, tt);
+      } catch (CouldNotHashException e) {
+        this.errors.add(e.getMessage());
+        continue;
+      }
+      pairs.add(new TablePair(st, tt, ordering, sources.size()));
+    }
+    for (String name : did.keySet()) {
+      this.errors.add("Found table '" + name + "' in the target database, but not in the source database.");
+    }
+
+    // 2. Count the rows of the source tables, to report the progress
+
+    Map<String, Long> rowCounts = displayRowCount(sources);
+
+    // 3. Compare the tables, largest first
+
+    info(" ");
+    info("Comparing" + (this.countAll ? " (counting all the different rows)" : "") + ":");
+    Collections.sort(pairs, (a, b) -> Long.compare(rowCount(rowCounts, b.source), rowCount(rowCounts, a.source)));
+    int threads = Math.max(1, Math.min(this.ds.getHashingThreads(), pairs.size()));
+    if (threads > 1) {
+      info("  Using " + threads + " comparison threads, each one with a connection to each database");
+    }
+    ProgressMonitor monitor = startMonitor("compared", sources, rowCounts);
+    monitor.startRun();
+    try {
+      compareInParallel(pairs, threads, sources.size());
+    } finally {
+      monitor.endRun();
+    }
+
+    info(" ");
+    for (String err : this.errors) {
+      error("  - " + err);
+    }
+    String warning = this.nonDeterministic
+        ? ", although with warnings, since the hashing ordering was non-deterministic in the source and/or the target databases"
+        : "";
+    if (this.errors.isEmpty()) {
+      info("  All tables match (" + this.matched + " tables) -- The comparison succeeded" + warning + ".");
+    } else {
+      error("  A total of " + this.matched + " tables matched and there were " + this.errors.size()
+          + " difference(s) -- The comparison failed" + warning + ".");
+    }
+
+    monitor.showTimings("Compare");
+
+  }
+
+  private static long rowCount(final Map<String, Long> rowCounts, final Table t) {
+    Long c = rowCounts.get(t.getIdentifier().getGenericName());
+    return c == null ? 0 : c;
+  }
+
+  // Each worker compares one table at a time: it reads the source table, while
+  // a reader thread reads the target table
+
+  private void compareInParallel(final List<TablePair> pairs, final int threads, final int total)
+      throws CouldNotHashException {
+
+    Queue<TablePair> pending = new ConcurrentLinkedQueue<>(pairs);
+    ExecutorService readers = Executors.newFixedThreadPool(threads);
+    ExecutorService executor = Executors.newFixedThreadPool(threads);
+    List<Future<Void>> workers = new ArrayList<>();
+    for (int i = 0; i < threads; i++) {
+      workers.add(executor.submit(() -> {
+        Connection sc = this.ds.openConnection();
+        Connection tc = null;
+        try {
+          tc = this.ds2.openConnection();
+          TablePair p;
+          while ((p = pending.poll()) != null) {
+            compareTable(sc, tc, p, readers, total);
+          }
+        } finally {
+          closeQuietly(sc);
+          closeQuietly(tc);
+        }
+        return null;
+      }));
+    }
+    executor.shutdown();
+
+    Throwable failure = null;
+    for (Future<Void> w : workers) {
+      try {
+        w.get();
+      } catch (ExecutionException e) {
+        pending.clear();
+        if (failure == null) {
+          failure = e.getCause();
+        }
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        failure = e;
+      }
+    }
+    readers.shutdown();
+    if (failure != null) {
+      error(failure);
+      throw new CouldNotHashException("A comparison worker failed: " + failure.getMessage());
+    }
+  }
+
+  private void compareTable(final Connection sc, final Connection tc, final TablePair p,
+      final ExecutorService readers, final int total) throws InterruptedException {
+    String name = p.source.getIdentifier().getGenericName();
+    LockstepComparator comparator = new LockstepComparator(this.countAll, p.ordering);
+    Feeder feeder = comparator.getFeeder();
+
+    Future<Void> reader = readers.submit(() -> {
+      try {
+        this.target.hashOneTable(tc, p.target, null, HashingMode.CHAINED, feeder, p.ordinal, total,
+            this.ds2.getHashingPipeline());
+      } finally {
+        feeder.end(false, true, 0); // when the table could not be read at all
+      }
+      return null;
+    });
+
+    String failure = null;
+    try {
+      hashOneTable(sc, p.source, null, HashingMode.CHAINED, comparator, p.ordinal, total,
+          this.ds.getHashingPipeline());
+    } catch (CouldNotHashException | NoSuchAlgorithmException | SQLException | RuntimeException e) {
+      comparator.stop();
+      failure = "Could not read table '" + name + "' in the source database: " + e.getMessage();
+    }
+    try {
+      reader.get();
+    } catch (ExecutionException e) {
+      if (failure == null) {
+        failure = "Could not read table '" + name + "' in the target database: " + e.getCause().getMessage();
+      }
+    }
+
+    if (failure == null && comparator.getOrderingError() != null) {
+      failure = "Could not compare table '" + name + "': " + comparator.getOrderingError()
+          + ", but the rows are paired by comparing the strings by their characters; declare a binary collation in "
+          + "the properties '" + this.ds.getName() + ".hashing.collation' and '" + this.ds2.getName()
+          + ".hashing.collation'.";
+    }
+    if (failure == null && comparator.isFailed()) {
+      failure = "Could not read table '" + name + "' in the "
+          + (comparator.isSourceFailed() ? "source" : "target") + " database.";
+    }
+    if (comparator.isNonDeterministic()) {
+      this.nonDeterministic = true;
+    }
+    if (failure != null) {
+      this.errors.add(failure);
+    } else if (comparator.getDifferences() == 0) {
+      synchronized (this) {
+        this.matched++;
+      }
+      info("  Table " + name + ": matches (" + DF.format(comparator.getSourceRows()) + " rows)");
+    } else if (this.countAll) {
+      Long targetRows = comparator.getTargetRows();
+      this.errors.add("Table '" + name + "' differs: " + DF.format(comparator.getDifferences())
+          + " missing, extra or changed row(s), paired by key, the first one: " + comparator.getFirstReason() + "; "
+          + DF.format(comparator.getSourceRows()) + " row(s) in the source database"
+          + (targetRows == null ? "" : ", and " + DF.format(targetRows) + " row(s) in the target database") + ".");
+    } else {
+      this.errors.add("Table '" + name + "' differs: " + comparator.getFirstReason()
+          + " (rows numbered in the hashing ordering).");
+    }
+  }
+
+  // The same table in the source and target databases
+
+  private static class TablePair {
+
+    private Table source;
+    private Table target;
+    private RowOrdering ordering;
+    private int ordinal;
+
+    private TablePair(final Table source, final Table target, final RowOrdering ordering, final int ordinal) {
+      this.source = source;
+      this.target = target;
+      this.ordering = ordering;
+      this.ordinal = ordinal;
+    }
+
+  }
+
+}
@@ -1,32 +1,68 @@
 package highfive.commands;
 
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.Queue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.stream.Collectors;
 
 import highfive.exceptions.CouldNotCopyDataException;
+import highfive.exceptions.CouldNotHashException;
 import highfive.exceptions.InvalidConfigurationException;
 import highfive.exceptions.InvalidSchemaException;
 import highfive.exceptions.UnsupportedDatabaseTypeException;
 import highfive.model.Column;
 import highfive.model.Identifier;
+import highfive.model.KeyRange;
+import highfive.model.RowKey;
+import highfive.model.RowOrdering;
+import highfive.model.RowCountMode;
+import highfive.model.RowCounter;
 import highfive.model.Table;
+import highfive.model.TableWriter;
+import highfive.writers.InsertWriter;
 
 public class CopyCommand extends DualDataSourceCommand {
 
   private static final int MAX_BATCH_EXCEPTIONS_TO_DISPLAY = 3;
+  private static final int PIPELINE_MAX_BATCH_ROWS = 1000;
+
+  private AtomicLong copiedRows;
+  private List<String> failures;
+  private Set<String> writers = ConcurrentHashMap.newKeySet();
+  private AtomicBoolean bulkUnavailable = new AtomicBoolean(false);
 
   public CopyCommand(final String sourceDatasourceName, final String destDatasourceName)
       throws InvalidConfigurationException, SQLException, UnsupportedDatabaseTypeException {
     super("Copy Data", sourceDatasourceName, destDatasourceName);
   }
 
+  @Override
+  protected String getRowCountCommand() {
+    return "copy";
+  }
+
   @Override
   public void execute()
       throws SQLException, InvalidSchemaException, CouldNotCopyDataException, UnsupportedDatabaseTypeException {
@@ -55,22 +91,31 @@ public class CopyCommand extends DualDataSourceCommand {
           + ".readonly' to 'false'.");
     }
 
-    // 3. Verify the destination tables are empty
+    // 3. Count the source rows, and verify the destination tables are empty
+
+    RowCountMode mode = this.ds.getRowCountMode(getRowCountCommand());
+    String estimated = mode == RowCountMode.ESTIMATE ? " (~ estimated from the database statistics)" : "";
+    info("Source Database - Row Count" + estimated + ":");
+    RowCounter counter = new RowCounter(this.ds);
+    Map<String, Long> sourceCounts = counter.count(stables, mode);
+    for (Identifier t : stables) {
+      Long count = sourceCounts.get(t.getGenericName());
+      if (count != null) {
+        info("  " + t.getGenericName() + ": " + (counter.isEstimated(t.getGenericName()) ? "~" : "")
+            + DF.format(count) + " rows");
+      }
+    }
 
-    info("Destination Database - Initial Row Count:");
+    info(" ");
+    info("Destination Database - Empty Tables:");
+    RowCounter probe = new RowCounter(this.ds2);
     boolean allEmpty = true;
     for (Identifier t : dtables) {
-      String tid = this.ds2.getDialect().renderSQLTableIdentifier(t);
-      String sql = "select count(*) from " + tid;
-      try (PreparedStatement ps = this.ds2.getConnection().prepareStatement(sql); ResultSet rs = ps.executeQuery();) {
-        if (rs.next()) {
-          long count = rs.getLong(1);
-          if (count > 0) {
-            allEmpty = false;
-          }
-          info("  " + t.getGenericName() + ": " + DF.format(count) + " rows" + (count == 0 ? "" : " -- not empty"));
-        }
+      boolean empty = probe.isEmpty(t);
+      if (!empty) {
+        allEmpty = false;
       }
+      info("  " + t.getGenericName() + ": " + (empty ? "empty" : "not empty"));
     }
     if (!allEmpty) {
       errors
@@ -80,17 +125,6 @@ public class CopyCommand extends DualDataSourceCommand {
     info(" ");
     info("Preparing data copy:");
 
-    class ColumnPair {
-      Column source;
-      Column dest;
-    }
-
-    class TablePair {
-      Identifier source;
-      Identifier dest;
-      List<ColumnPair> columns = new ArrayList<>();
-    }
-
     List<TablePair> pairs = new ArrayList<>();
 
     for (Iterator<String> it = sid.keySet().iterator(); it.hasNext();) {
@@ -115,10 +149,16 @@ public class CopyCommand extends DualDataSourceCommand {
 
     // 2. Match columns on each table
 
-    for (TablePair pair : pairs) {
-      Table st = this.ds.getDialect().getTableMetaData(pair.source);
+    List<Table> sts = this.ds.getDialect()
+        .getTablesMetaData(pairs.stream().map(p -> p.source).collect(Collectors.toList()));
+    List<Table> dts = this.ds2.getDialect()
+        .getTablesMetaData(pairs.stream().map(p -> p.dest).collect(Collectors.toList()));
+    for (int i = 0; i < pairs.size(); i++) {
+      TablePair pair = pairs.get(i);
+      Table st = sts.get(i);
+      pair.table = st;
       Map<String, Column> scols = st.getColumns().stream().collect(Collectors.toMap(c -> c.getName(), c -> c));
-      Table dt = this.ds2.getDialect().getTableMetaData(pair.dest);
+      Table dt = dts.get(i);
       Map<String, Column> dcols = dt.getColumns().stream().collect(Collectors.toMap(c -> c.getName(), c -> c));
       for (Iterator<String> it = scols.keySet().iterator(); it.hasNext();) {
         String name = it.next();
@@ -166,130 +206,595 @@ public class CopyCommand extends DualDataSourceCommand {
       info("  All validation passed.");
     }
 
-    // 4. Copy the data
+    // 4. Split the large tables into partitions
+
+    List<CopyTask> tasks = planTasks(pairs, sourceCounts);
+
+    // 5. Copy the data
 
     info(" ");
-    long grandTotalRows = 0;
+    this.copiedRows = new AtomicLong(0);
+    this.failures = Collections.synchronizedList(new ArrayList<>());
+    int threads = Math.max(1, Math.min(this.ds2.getCopyThreads(), tasks.size()));
+
+    ProgressMonitor monitor = new ProgressMonitor(this::info, "copied",
+        tasks.stream().mapToLong(t -> t.expectedRows).sum(), this.ds.getProgressInterval());
+    monitor.startRun();
+    try {
+      if (threads > 1) {
+        info("Copying tables using " + threads + " copy threads, each one with a connection to each database:");
+        copyInParallel(tasks, threads, monitor);
+      } else {
+        for (CopyTask task : tasks) {
+          info("Copying table " + task.pair.source.renderSQL()
+              + (task.count == 1 ? "" : ", partition #" + (task.index + 1) + "/" + task.count) + ":");
+          long rows = copyTable(this.ds.getConnection(), this.ds2.getConnection(), task.pair, task, monitor);
+          info("  " + DF.format(rows) + " row(s) copied");
+          this.copiedRows.addAndGet(rows);
+        }
+      }
+    } finally {
+      monitor.endRun();
+    }
+
+    if (this.failures.isEmpty()) {
+      info("Copy complete -- Grand total of " + DF.format(this.copiedRows.get()) + " row(s) copied");
+    } else {
+      error("Copy incomplete -- " + this.failures.size() + " table(s) or partition(s) failed; grand total of "
+          + DF.format(this.copiedRows.get()) + " row(s) copied");
+    }
+
+    monitor.showTimings("Insert");
+
+    if (!this.failures.isEmpty()) {
+      throw new CouldNotCopyDataException("Could not copy the table(s) or partition(s): "
+          + String.join(", ", this.failures)
+          + ". These destination tables may be partially copied; empty them before copying them again.");
+    }
+
+  }
 
+  // A table with more rows than <destination>.copy.partition.rows is split
+  // into disjoint partitions that are copied separately: key ranges in the
+  // hashing ordering (as the hash command does), or physical ranges of the
+  // storage when the table has no ordering and the database supports them
+
+  private List<CopyTask> planTasks(final List<TablePair> pairs, final Map<String, Long> sourceCounts)
+      throws SQLException {
+    Long partitionRows = this.ds2.getCopyPartitionRows();
+    DataSourceHasher hasher = null;
+    boolean headerShown = false;
+    List<CopyTask> tasks = new ArrayList<>();
     for (TablePair pair : pairs) {
+      long count = expectedRows(sourceCounts, pair.source.getGenericName());
+      if (partitionRows == null || this.ds2.getMaxRows() != null || count <= partitionRows) {
+        tasks.add(new CopyTask(pair, null, new ArrayList<>(), 0, 1, count));
+        continue;
+      }
+      if (!headerShown) {
+        info(" ");
+        info("Splitting tables into partitions:");
+        headerShown = true;
+      }
+      List<CopyTask> parts = new ArrayList<>();
+      String name = pair.source.getGenericName();
+      if (!pair.table.getPKColumns().isEmpty() || this.ds.getHashingOrderings().containsKey(name)) {
+        RowOrdering ordering;
+        try {
+          ordering = RowOrdering.of(this.ds, pair.table);
+        } catch (CouldNotHashException e) {
+          throw new SQLException("Could not split the table '" + name + "': " + e.getMessage(), e);
+        }
+        if (hasher == null) {
+          hasher = new DataSourceHasher(getCommandName(), this.ds);
+        }
+        List<KeyRange> ranges = KeyRange.split(hasher.findKeyBoundaries(pair.table, ordering, count, partitionRows));
+        for (KeyRange r : ranges) {
+          List<Object> params = new ArrayList<>();
+          String where = ordering.renderRange(r, params);
+          parts.add(new CopyTask(pair, where, params, r.getIndex(), r.getCount(), count / r.getCount()));
+          info("    #" + (r.getIndex() + 1) + ": "
+              + (r.getAfter() == null ? "(start of table)" : "after " + RowKey.render(ordering.encode(r.getAfter())))
+              + " to " + (r.getUpTo() == null ? "(end of table)" : RowKey.render(ordering.encode(r.getUpTo()))));
+        }
+      } else {
+        List<String> ranges = this.ds.getDialect().renderPhysicalRanges(pair.source,
+            (int) Math.min(Integer.MAX_VALUE, (count + partitionRows - 1) / partitionRows));
+        if (ranges == null) {
+          info("  Table " + pair.source.renderSQL()
+              + ": has no primary key or hashing ordering, nor physical ranges -- copying it as a whole");
+        } else {
+          info("  Table " + pair.source.renderSQL() + ": " + ranges.size() + " physical ranges");
+          for (int i = 0; i < ranges.size(); i++) {
+            parts.add(new CopyTask(pair, ranges.get(i), new ArrayList<>(), i, ranges.size(), count / ranges.size()));
+            info("    #" + (i + 1) + ": " + ranges.get(i));
+          }
+        }
+      }
+      if (parts.isEmpty()) {
+        tasks.add(new CopyTask(pair, null, new ArrayList<>(), 0, 1, count));
+      } else {
+        tasks.addAll(parts);
+      }
+    }
+    return tasks;
+  }
 
-      info("Copying table " + pair.source.renderSQL() + ":");
+  // Each worker copies one table or partition at a time, largest first, with
+  // its own connections and serializer instances. A failed one is reported
+  // and the worker moves on to the next one.
+
+  private void copyInParallel(final List<CopyTask> tasks, final int threads, final ProgressMonitor monitor)
+      throws CouldNotCopyDataException {
+
+    List<CopyTask> sorted = new ArrayList<>(tasks);
+    Collections.sort(sorted, (a, b) -> Long.compare(b.expectedRows, a.expectedRows));
+    Queue<CopyTask> pending = new ConcurrentLinkedQueue<>(sorted);
+
+    ExecutorService executor = Executors.newFixedThreadPool(threads);
+    List<Future<Void>> workers = new ArrayList<>();
+    for (int i = 0; i < threads; i++) {
+      workers.add(executor.submit(() -> {
+        Connection sc = this.ds.openConnection();
+        Connection dc = null;
+        try {
+          dc = this.ds2.openConnection();
+          CopyTask task;
+          while ((task = pending.poll()) != null) {
+            if (!sc.isValid(10)) { // replaced after a connection failure
+              closeQuietly(sc);
+              sc = this.ds.openConnection();
+            }
+            if (!dc.isValid(10)) {
+              closeQuietly(dc);
+              dc = this.ds2.openConnection();
+            }
+            String name = task.getName();
+            try {
+              long rows = copyTable(sc, dc, task.pair.duplicate(), task, monitor);
+              this.copiedRows.addAndGet(rows);
+              info("  Table " + name + ": " + DF.format(rows) + " row(s) copied");
+            } catch (SQLException | RuntimeException e) {
+              this.failures.add(name);
+              error("  Table " + name + ": failed -- " + e.getMessage());
+            }
+          }
+        } finally {
+          closeQuietly(sc);
+          closeQuietly(dc);
+        }
+        return null;
+      }));
+    }
+    executor.shutdown();
+
+    Throwable failure = null;
+    for (Future<Void> w : workers) {
+      try {
+        w.get();
+      } catch (ExecutionException e) {
+        pending.clear();
+        if (failure == null) {
+          failure = e.getCause();
+        }
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        failure = e;
+      }
+    }
+    if (failure != null) {
+      error(failure);
+      throw new CouldNotCopyDataException("A copy worker failed: " + failure.getMessage());
+    }
+  }
 
-      String stid = this.ds.getDialect().renderSQLTableIdentifier(pair.source);
-      String pkNames = pair.columns.stream().filter(c -> c.source.getPKPosition() != null)
-          .sorted((a, b) -> a.source.getPKPosition().compareTo(b.source.getPKPosition()))
-          .map(c -> this.ds.getDialect().escapeIdentifierAsNeeded(c.source.getCanonicalName()))
-          .collect(Collectors.joining(", "));
-      String snames = pair.columns.stream()
-          .map(c -> this.ds.getDialect().escapeIdentifierAsNeeded(c.source.getCanonicalName()))
-          .collect(Collectors.joining(", "));
-      String select = "select " + snames + " from " + stid;
+  // Copies a table (or a partition of it) from the source connection to the
+  // destination connection, and returns the number of rows copied
 
-      String dtid = this.ds2.getDialect().renderSQLTableIdentifier(pair.dest);
-      String dnames = pair.columns.stream()
-          .map(c -> this.ds2.getDialect().escapeIdentifierAsNeeded(c.dest.getCanonicalName()))
-          .collect(Collectors.joining(", "));
-      String insert = "insert into " + dtid + " (" + dnames + ") values ("
-          + pair.columns.stream().map(x -> "?").collect(Collectors.joining(", ")) + ")";
+  private long copyTable(final Connection sc, final Connection dc, final TablePair pair, final CopyTask copyTask,
+      final ProgressMonitor monitor) throws SQLException {
 
-      this.ds.getConnection().setAutoCommit(true); // end the current transaction, if any
+    ProgressMonitor.Task task = monitor.start(copyTask.getName(), copyTask.expectedRows, 0);
 
-      this.ds.getConnection().setAutoCommit(this.ds.getSelectAutoCommit());
+    String stid = this.ds.getDialect().renderSQLTableIdentifier(pair.source);
+    String pkNames = pair.columns.stream().filter(c -> c.source.getPKPosition() != null)
+        .sorted((a, b) -> a.source.getPKPosition().compareTo(b.source.getPKPosition()))
+        .map(c -> this.ds.getDialect().escapeIdentifierAsNeeded(c.source.getCanonicalName()))
+        .collect(Collectors.joining(", "));
+    String snames = pair.columns.stream()
+        .map(c -> this.ds.getDialect().escapeIdentifierAsNeeded(c.source.getCanonicalName()))
+        .collect(Collectors.joining(", "));
+    String select = "select " + snames + " from " + stid + (copyTask.where == null ? "" : " where " + copyTask.where);
 
-      try (PreparedStatement selectPS = this.ds.getConnection().prepareStatement(select, ResultSet.TYPE_FORWARD_ONLY,
-          ResultSet.CONCUR_READ_ONLY);) {
+    List<Column> sources = pair.columns.stream().map(c -> c.source).collect(Collectors.toList());
+    List<String> dnames = pair.columns.stream()
+        .map(c -> this.ds2.getDialect().escapeIdentifierAsNeeded(c.dest.getCanonicalName()))
+        .collect(Collectors.toList());
 
-        if (this.ds.getSelectFetchSize() != null) {
-          selectPS.setFetchSize(this.ds.getSelectFetchSize());
-        }
+    sc.setAutoCommit(true); // end the current transaction, if any
 
-        try (
-            PreparedStatement insertPS = this.ds2.getConnection().prepareStatement(insert, ResultSet.TYPE_FORWARD_ONLY,
-                ResultSet.CONCUR_READ_ONLY);
-            ResultSet rs = selectPS.executeQuery();) {
-          int logCount = 0;
-          long currentBatch = 0;
-          int rowsCount = 0;
-          while (rs.next()) {
-            int col = 1;
-            for (ColumnPair cp : pair.columns) {
-              Column c = cp.source;
-              try {
-                c.getSerializer().read(rs, col);
-              } catch (SQLException e) {
-                error("The JDBC driver could not read the value of column '" + c.getCanonicalName() + "' on table '"
-                    + pair.source.getCanonicalName() + "' as a '" + c.getSerializer().getName()
-                    + "' value. The error happened in row #" + (DF.format(rowsCount) + 1)
-                    + " when the table is sorted by the primary key (" + pkNames + ").");
-                throw e;
-              } catch (RuntimeException e) {
-                error("Could not serialize the value for column '" + c.getCanonicalName() + "' on table '"
-                    + pair.source.getCanonicalName() + "'. The error happened in row #" + (DF.format(rowsCount) + 1)
-                    + " when the table is sorted by the primary key (" + pkNames + "). Is '"
-                    + c.getSerializer().getClass().getSimpleName() + "' the correct serializer for this column?");
-                throw e;
-              }
+    sc.setAutoCommit(this.ds.getSelectAutoCommit());
 
-              c.getSerializer().set(insertPS, col);
+    try (PreparedStatement selectPS = sc.prepareStatement(select, ResultSet.TYPE_FORWARD_ONLY,
+        ResultSet.CONCUR_READ_ONLY);) {
 
-              col++;
-            }
+      if (this.ds.getSelectFetchSize() != null) {
+        selectPS.setFetchSize(this.ds.getSelectFetchSize());
+      }
+      RowOrdering.bind(selectPS, copyTask.params);
 
-            insertPS.addBatch();
-            currentBatch++;
-            if (currentBatch >= this.ds2.getInsertBatchSize()) {
-              insertPS.executeBatch();
-              currentBatch = 0;
-            }
+      try (TableWriter writer = openWriter(dc, pair.dest, sources, dnames, copyTask.count > 1);
+          ResultSet rs = selectPS.executeQuery();) {
+        if (this.ds2.getCopyPipeline()) {
+          return copyPipelined(rs, writer, pair, task, pkNames);
+        }
 
-            logCount++;
-            rowsCount++;
-            if (logCount >= 50000) {
-              info("  " + DF.format(rowsCount) + " rows copied");
-              logCount = 0;
-            }
-            if (ds2.getMaxRows() != null && rowsCount >= ds2.getMaxRows()) {
-              info("  - Limit of " + DF.format(ds2.getMaxRows())
-                  + " rows (max.rows) reached when copying this table -- moving on to the next table.");
-              break;
+        Object[] row = new Object[sources.size()];
+        int rowsCount = 0;
+        long bytes = 0;
+
+        // Only two clock readings per row: after fetching it, and after
+        // inserting it
+
+        long fetchNanos = 0;
+        long insertNanos = 0;
+        long t0 = System.nanoTime();
+        while (rs.next()) {
+          long t1 = System.nanoTime();
+          fetchNanos += t1 - t0;
+          task.firstRow();
+          for (int i = 0; i < row.length; i++) {
+            Column c = sources.get(i);
+            try {
+              row[i] = c.getSerializer().fetch(rs, i + 1);
+            } catch (SQLException | RuntimeException e) {
+              reportReadError(pair, c, rowsCount, pkNames, e);
+              throw e;
             }
+            bytes += dataBytes(row[i]);
           }
+          writer.write(row);
+
+          rowsCount++;
+          task.update(rowsCount, bytes);
+          t0 = System.nanoTime();
+          insertNanos += t0 - t1;
+          if (ds2.getMaxRows() != null && rowsCount >= ds2.getMaxRows()) {
+            reportMaxRows(pair);
+            break;
+          }
+        }
 
-          if (currentBatch > 0) {
-            try {
-              insertPS.executeBatch();
-            } catch (SQLException e) {
-              error("Could not copy data to table '" + pair.dest.getCanonicalName() + "'.");
-              error("-- SQL insert statement: " + insert);
-              SQLException oe = e;
-              int cnt = 0;
-              e = e.getNextException();
-              while (e != null) {
-                cnt++;
-                if (cnt <= MAX_BATCH_EXCEPTIONS_TO_DISPLAY) {
-                  e.printStackTrace();
-                  e = e.getNextException();
-                } else {
-                  e = null;
-                }
-              }
-              if (cnt > MAX_BATCH_EXCEPTIONS_TO_DISPLAY) {
-                info("-- Abridged: showing only the first " + MAX_BATCH_EXCEPTIONS_TO_DISPLAY
-                    + " exception(s) of the batch insert.");
+        finishWriter(writer, pair);
+
+        task.addTimes(fetchNanos, insertNanos);
+        return rowsCount;
+
+      }
+    } finally {
+      monitor.finish(task);
+    }
+
+  }
+
+  private void reportReadError(final TablePair pair, final Column c, final int rowsCount, final String pkNames,
+      final Exception e) {
+    if (e instanceof SQLException) {
+      error("The JDBC driver could not read the value of column '" + c.getCanonicalName() + "' on table '"
+          + pair.source.getCanonicalName() + "' as a '" + c.getSerializer().getName()
+          + "' value. The error happened in row #" + (DF.format(rowsCount) + 1)
+          + " when the table is sorted by the primary key (" + pkNames + ").");
+    } else {
+      error("Could not serialize the value for column '" + c.getCanonicalName() + "' on table '"
+          + pair.source.getCanonicalName() + "'. The error happened in row #" + (DF.format(rowsCount) + 1)
+          + " when the table is sorted by the primary key (" + pkNames + "). Is '"
+          + c.getSerializer().getClass().getSimpleName() + "' the correct serializer for this column?");
+    }
+  }
+
+  private void reportMaxRows(final TablePair pair) {
+    info("  - Limit of " + DF.format(ds2.getMaxRows()) + " rows (max.rows) reached when copying the table "
+        + pair.source.renderSQL() + " -- moving on to the next table.");
+  }
+
+  // The bulk writer of the destination database when enabled and available;
+  // batched inserts otherwise
+
+  private TableWriter openWriter(final Connection dc, final Identifier table, final List<Column> sources,
+      final List<String> columns, final boolean partitioned) throws SQLException {
+    TableWriter writer = null;
+    if (this.ds2.getCopyBulk()) {
+      writer = this.ds2.getDialect().openBulkWriter(dc, table, sources, columns, partitioned);
+      if (writer == null && this.bulkUnavailable.compareAndSet(false, true)) {
+        info("  - No bulk load available for the destination database or its driver -- using batched inserts.");
+      }
+    }
+    if (writer == null) {
+      writer = new InsertWriter(dc, this.ds2.getDialect().renderSQLTableIdentifier(table), sources, columns,
+          this.ds2.getInsertBatchSize(), null, false);
+    }
+    if (this.ds2.getCopyBulk() && this.writers.add(writer.getName())) {
+      info("  - Writing with " + writer.getName() + ".");
+    }
+    return writer;
+  }
+
+  private void finishWriter(final TableWriter writer, final TablePair pair) throws SQLException {
+    try {
+      writer.finish();
+    } catch (SQLException e) {
+      error("Could not copy data to table '" + pair.dest.getCanonicalName() + "'.");
+      error("-- SQL statement: " + writer.getStatement());
+      SQLException oe = e;
+      int cnt = 0;
+      e = e.getNextException();
+      while (e != null) {
+        cnt++;
+        if (cnt <= MAX_BATCH_EXCEPTIONS_TO_DISPLAY) {
+          e.printStackTrace();
+          e = e.getNextException();
+        } else {
+          e = null;
+        }
+      }
+      if (cnt > MAX_BATCH_EXCEPTIONS_TO_DISPLAY) {
+        info("-- Abridged: showing only the first " + MAX_BATCH_EXCEPTIONS_TO_DISPLAY
+            + " exception(s) of the batch insert.");
+      }
+      throw oe;
+    }
+  }
+
+  // Pipelined copy: a reader thread fetches the rows into batches while this
+  // thread inserts the previous ones. The batches are reused; there are
+  // <destination>.copy.pipeline.batches of them, each one up to
+  // <destination>.insert.batch.size rows (1000 at most), and the values queued
+  // stay under <destination>.copy.pipeline.memory MB (roughly).
+
+  private long copyPipelined(final ResultSet rs, final TableWriter writer, final TablePair pair,
+      final ProgressMonitor.Task task, final String pkNames) throws SQLException {
+    int columns = pair.columns.size();
+    int batches = this.ds2.getCopyPipelineBatches();
+    int batchRows = (int) Math.min(this.ds2.getInsertBatchSize(), PIPELINE_MAX_BATCH_ROWS);
+    long batchBytes = this.ds2.getCopyPipelineMemory() * 1024L * 1024L / batches;
+    Long maxRows = this.ds2.getMaxRows();
+    Column[] sources = pair.columns.stream().map(c -> c.source).toArray(Column[]::new);
+
+    BlockingQueue<RowBatch> free = new ArrayBlockingQueue<>(batches);
+    BlockingQueue<RowBatch> full = new ArrayBlockingQueue<>(batches + 1);
+    for (int i = 0; i < batches; i++) {
+      free.add(new RowBatch(batchRows, columns));
+    }
+    AtomicBoolean cancelled = new AtomicBoolean(false);
+    long[] readerNanos = new long[2]; // reading, waiting
+
+    Thread reader = new Thread(() -> {
+      int rowsRead = 0;
+      boolean more = true;
+      while (more && !cancelled.get()) {
+        RowBatch b;
+        long waitStart = System.nanoTime();
+        try {
+          b = free.take();
+        } catch (InterruptedException e) {
+          return;
+        }
+        long readStart = System.nanoTime();
+        readerNanos[1] += readStart - waitStart;
+        b.size = 0;
+        b.bytes = 0;
+        long bytes = 0;
+        try {
+          while (b.size < batchRows && bytes < batchBytes && !cancelled.get() && (more = rs.next())) {
+            task.firstRow();
+            Object[] row = b.rows[b.size];
+            for (int i = 0; i < columns; i++) {
+              Column c = sources[i];
+              try {
+                row[i] = c.getSerializer().fetch(rs, i + 1);
+              } catch (SQLException | RuntimeException e) {
+                reportReadError(pair, c, rowsRead, pkNames, e);
+                throw e;
               }
-              throw oe;
+              bytes += estimateBytes(row[i]);
+              b.bytes += dataBytes(row[i]);
             }
+            b.size++;
+            rowsRead++;
+            if (maxRows != null && rowsRead >= maxRows) {
+              reportMaxRows(pair);
+              more = false;
+            }
+          }
+        } catch (Throwable e) {
+          b.failure = e;
+          more = false;
+        }
+        b.last = !more;
+        readerNanos[0] += System.nanoTime() - readStart;
+        full.add(b); // never blocks: there are more slots than batches
+      }
+    }, "highfive-reader-" + pair.source.getGenericName());
+    reader.setDaemon(true);
+    reader.start();
+
+    long insertNanos = 0;
+    long waitNanos = 0;
+    int rowsCount = 0;
+    long bytes = 0;
+    try {
+      boolean active = true;
+      while (active) {
+        long waitStart = System.nanoTime();
+        RowBatch b = full.take();
+        long insertStart = System.nanoTime();
+        waitNanos += insertStart - waitStart;
+        for (int r = 0; r < b.size; r++) {
+          writer.write(b.rows[r]);
+          Arrays.fill(b.rows[r], null); // the batch is kept, but not its values
+        }
+        rowsCount += b.size;
+        bytes += b.bytes;
+        task.update(rowsCount, bytes);
+        if (b.failure != null) {
+          if (b.failure instanceof SQLException) {
+            throw (SQLException) b.failure;
+          } else if (b.failure instanceof RuntimeException) {
+            throw (RuntimeException) b.failure;
           }
+          throw new RuntimeException(b.failure);
+        }
+        active = !b.last;
+        if (active) {
+          free.add(b);
+        } else {
+          finishWriter(writer, pair);
+        }
+        insertNanos += System.nanoTime() - insertStart;
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new SQLException("Interrupted while copying the table '" + pair.source.getGenericName() + "'.", e);
+    } finally {
+      cancelled.set(true);
+      free.clear();
+      free.add(new RowBatch(0, 0)); // wakes up the reader, if waiting
+      try {
+        reader.join();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    }
 
-          info("  " + DF.format(rowsCount) + " row(s) copied");
-          grandTotalRows = grandTotalRows + rowsCount;
+    task.addTimes(readerNanos[0], insertNanos);
+    info("    " + pair.source.getGenericName() + ": stage timings -- read: " + renderSeconds(readerNanos[0])
+        + " (waited " + renderSeconds(readerNanos[1]) + "), insert: " + renderSeconds(insertNanos) + " (waited "
+        + renderSeconds(waitNanos) + ") -- " + (waitNanos > readerNanos[1] ? "reading" : "inserting")
+        + " is the bottleneck");
+    return rowsCount;
+  }
 
-        }
+  // A rough size of a value in memory, to keep the queued batches under the
+  // memory budget
+
+  private static long estimateBytes(final Object value) {
+    if (value == null) {
+      return 8;
+    } else if (value instanceof String) {
+      return 40 + 2L * ((String) value).length();
+    } else if (value instanceof byte[]) {
+      return 16 + ((byte[]) value).length;
+    } else {
+      return 32;
+    }
+  }
+
+  // The size of the data of a value, close to its serialized size when hashed,
+  // for the throughput in MB/s
+
+  private static long dataBytes(final Object value) {
+    if (value == null) {
+      return 0;
+    } else if (value instanceof String) {
+      return ((String) value).length();
+    } else if (value instanceof byte[]) {
+      return ((byte[]) value).length;
+    } else if (value instanceof BigDecimal) {
+      return ((BigDecimal) value).precision() + 1; // hashed as text
+    } else if (value instanceof BigInteger) {
+      return ((BigInteger) value).bitLength() / 8 + 1;
+    } else if (value instanceof Boolean) {
+      return 1;
+    } else if (value instanceof Integer) {
+      return 4;
+    } else {
+      return 8;
+    }
+  }
+
+  private static String renderSeconds(final long nanos) {
+    return String.format("%.3f s", nanos / 1e9);
+  }
+
+  private long expectedRows(final Map<String, Long> sourceCounts, final String genericName) {
+    Long c = sourceCounts.get(genericName);
+    long rows = c == null ? 0 : c;
+    return this.ds2.getMaxRows() == null ? rows : Math.min(rows, this.ds2.getMaxRows());
+  }
+
+  private static class ColumnPair {
+
+    private Column source;
+    private Column dest;
+
+  }
+
+  private static class TablePair {
+
+    private Identifier source;
+    private Identifier dest;
+    private Table table;
+    private List<ColumnPair> columns = new ArrayList<>();
+
+    // The same pair, with its own serializer instances to read the rows
+
+    private TablePair duplicate() {
+      TablePair p = new TablePair();
+      p.source = this.source;
+      p.dest = this.dest;
+      p.table = this.table;
+      for (ColumnPair cp : this.columns) {
+        ColumnPair c = new ColumnPair();
+        c.source = cp.source.duplicate();
+        c.dest = cp.dest;
+        p.columns.add(c);
       }
+      return p;
+    }
+
+  }
 
+  // A batch of rows of the pipelined copy, passed from the reader to the
+  // writer
+
+  private static class RowBatch {
+
+    private Object[][] rows;
+    private int size;
+    private long bytes; // of the data, for the progress
+    private boolean last;
+    private Throwable failure;
+
+    private RowBatch(final int rows, final int columns) {
+      this.rows = new Object[rows][columns];
+    }
+
+  }
+
+  // A table, or a partition of it: the rows that match the condition
+
+  private static class CopyTask {
+
+    private TablePair pair;
+    private String where;
+    private List<Object> params;
+    private int index;
+    private int count;
+    private long expectedRows;
+
+    private CopyTask(final TablePair pair, final String where, final List<Object> params, final int index,
+        final int count, final long expectedRows) {
+      this.pair = pair;
+      this.where = where;
+      this.params = params;
+      this.index = index;
+      this.count = count;
+      this.expectedRows = expectedRows;
     }
 
-    info("Copy complete -- Grand total of " + DF.format(grandTotalRows) + " row(s) copied");
+    private String getName() {
+      return this.pair.source.getGenericName() + (this.count == 1 ? "" : "#" + (this.index + 1) + "/" + this.count);
+    }
 
   }
 
@@ -2,12 +2,12 @@ package highfive.commands;
 
 import java.io.IOException;
 import java.security.NoSuchAlgorithmException;
-import java.sql.PreparedStatement;
-import java.sql.ResultSet;
+import java.sql.Connection;
 import java.sql.SQLException;
-import java.text.DecimalFormat;
 import java.util.List;
+import java.util.Map;
 import java.util.logging.Logger;
+import java.util.stream.Collectors;
 
 import highfive.BuildInformation;
 import highfive.exceptions.CouldNotCopyDataException;
@@ -18,10 +18,14 @@ import highfive.exceptions.InvalidSchemaException;
 import highfive.exceptions.UnsupportedDatabaseTypeException;
 import highfive.model.Column;
 import highfive.model.DataSource;
+import highfive.model.HashingMode;
+import highfive.model.RowCountMode;
+import highfive.model.RowCounter;
 import highfive.model.Table;
 import highfive.model.TableFilter;
 import highfive.model.TableHashingOrdering;
 import highfive.utils.Name;
+import highfive.utils.NumberFormat;
 
 public abstract class DataSourceCommand extends Command {
 
@@ -39,6 +43,13 @@ public abstract class DataSourceCommand extends Command {
     this.ds = DataSource.load(datasourceName);
   }
 
+  // For a command that works on a datasource loaded by another command
+
+  protected DataSourceCommand(final String commandName, final DataSource ds) {
+    super(commandName);
+    this.ds = ds;
+  }
+
   @Override
   public void run() throws SQLException, UnsupportedDatabaseTypeException, InvalidSchemaException,
       NoSuchAlgorithmException, CouldNotHashException, IOException, InvalidHashFileException, CouldNotCopyDataException,
@@ -54,19 +65,37 @@ public abstract class DataSourceCommand extends Command {
       NoSuchAlgorithmException, CouldNotHashException, IOException, InvalidHashFileException, CouldNotCopyDataException,
       InvalidConfigurationException;
 
-  protected static final DecimalFormat DF = new DecimalFormat("#,##0");
+  protected static final NumberFormat DF = new NumberFormat("#,##0");
 
-  protected void displayRowCount(List<Table> tables) throws SQLException {
+  protected Map<String, Long> displayRowCount(List<Table> tables) throws SQLException {
+    RowCountMode mode = this.ds.getRowCountMode(getRowCountCommand());
     info(" ");
-    info("Row Count:");
+    info("Row Count" + (mode == RowCountMode.ESTIMATE ? " (~ estimated from the database statistics)" : "") + ":");
+    RowCounter counter = new RowCounter(this.ds);
+    Map<String, Long> counts = counter.count(
+        tables.stream().map(t -> t.getIdentifier()).collect(Collectors.toList()), mode);
     for (Table t : tables) {
-      String tid = this.ds.getDialect().renderSQLTableIdentifier(t.getIdentifier());
-      String sql = "select count(*) from " + tid;
-      try (PreparedStatement ps = this.ds.getConnection().prepareStatement(sql); ResultSet rs = ps.executeQuery();) {
-        if (rs.next()) {
-          long count = rs.getLong(1);
-          info("  " + t.getIdentifier().getGenericName() + ": " + DF.format(count) + " rows");
-        }
+      String name = t.getIdentifier().getGenericName();
+      Long count = counts.get(name);
+      if (count != null) {
+        info("  " + name + ": " + (counter.isEstimated(name) ? "~" : "") + DF.format(count) + " rows");
+      }
+    }
+    return counts;
+  }
+
+  // The name of the command in the property <datasource>.row.count
+
+  protected String getRowCountCommand() {
+    return getCommandName().toLowerCase().replace(" ", "");
+  }
+
+  protected static void closeQuietly(final Connection conn) {
+    if (conn != null) {
+      try {
+        conn.close();
+      } catch (SQLException e) {
+        // ignore; the connection is probably broken already
       }
     }
   }
@@ -83,6 +112,8 @@ public abstract class DataSourceCommand extends Command {
     int columnsSupported = 0;
     int columnCount = 0;
 
+    boolean unordered = this.ds.getHashingMode() == HashingMode.UNORDERED;
+
     for (Name na : this.ds.getTableFilter().listNotAccepted()) {
       error("  - Table " + na + " not found.");
     }
@@ -112,6 +143,9 @@ public abstract class DataSourceCommand extends Command {
         }
       } else if (hasPK) {
         tablesSortable++;
+      } else if (unordered) {
+        info("  - Table " + t.getIdentifier().getCanonicalName()
+            + " does not have a sorting order; it will be hashed as a whole in the unordered hashing mode.");
       } else {
         error("  - Table " + t.getIdentifier().getCanonicalName() + " does not have a sorting order for hashing. "
             + "Add a primary key or declare a unique criteria for ordering using the property '" + this.ds.getName()
@@ -124,7 +158,7 @@ public abstract class DataSourceCommand extends Command {
     boolean allTablesFound = tf.allTablesFound();
     boolean allTablesSortable = tablesSortable >= tableCount;
     boolean allColumnsSupported = columnsSupported >= columnCount;
-    boolean schemaCanBeHashed = allTablesFound && allTablesSortable && allColumnsSupported;
+    boolean schemaCanBeHashed = allTablesFound && (allTablesSortable || unordered) && allColumnsSupported;
     boolean schemaCanBeCopied = allTablesFound && allColumnsSupported;
 
     if (this.ds.getTableFilter().declared()) {
@@ -132,7 +166,7 @@ public abstract class DataSourceCommand extends Command {
           + (allTablesFound ? "PASS" : "FAIL"));
     }
     info("  Tables have primary key and/or have a declared hashing ordering (" + tablesSortable + "/" + tableCount
-        + ") - " + (allTablesSortable ? "PASS" : "FAIL"));
+        + ") - " + (allTablesSortable ? "PASS" : (unordered ? "NOT REQUIRED (unordered hashing mode)" : "FAIL")));
     info("  Column types are supported (" + columnsSupported + "/" + columnCount + ") - "
         + (allColumnsSupported ? "PASS" : "FAIL"));
     if (schemaCanBeCopied) {
@@ -0,0 +1,18 @@
+package highfive.commands;
+
+import highfive.model.DataSource;
+
+// Hashes the tables of an additional datasource, for the commands that compare
+// two live databases
+
+public class DataSourceHasher extends GenericHashCommand {
+
+  public DataSourceHasher(final String commandName, final DataSource ds) {
+    super(commandName, ds);
+  }
+
+  @Override
+  public void execute() {
+  }
+
+}
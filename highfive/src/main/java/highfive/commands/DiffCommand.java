@@ -0,0 +1,402 @@
+package highfive.commands;
+
+import java.io.BufferedWriter;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import highfive.exceptions.CouldNotHashException;
+import highfive.exceptions.InvalidConfigurationException;
+import highfive.exceptions.InvalidSchemaException;
+import highfive.exceptions.UnsupportedDatabaseTypeException;
+import highfive.model.Column;
+import highfive.model.DataSource;
+import highfive.model.Identifier;
+import highfive.model.RowKey;
+import highfive.model.RowOrdering;
+import highfive.model.RowOrdering.Member;
+import highfive.model.Serializer;
+import highfive.model.Table;
+
+// Lists every row that differs in a table between two databases. Both tables
+// are read at the same time in the hashing ordering, each one by its own
+// thread, and merged by key in a single pass: a key found only in the source
+// table is a missing row, a key found only in the target table is an extra
+// row, and a key found in both with different canonical bytes (as serialized
+// for hashing) in any column is a changed row. Only a few rows are kept in
+// memory at any time.
+//
+// The differences are written to the file <source-datasource>.diff, one per
+// line: "-" (missing), "+" (extra), or "~" (changed), the encoded key, and the
+// names of the changed columns.
+
+public class DiffCommand extends GenericHashCommand {
+
+  private static final int BATCH_ROWS = 512;
+  private static final int QUEUE_BATCHES = 16;
+  private static final int DISPLAYED_DIFFERENCES = 20;
+  private static final int LOG_ROWS = 100000;
+
+  private DataSource ds2;
+  private String tableName;
+
+  private Table st;
+  private Table tt;
+  private RowOrdering so;
+
+  private long missing;
+  private long extra;
+  private long changed;
+  private long[] changedColumns;
+  private List<String> displayed;
+
+  public DiffCommand(final String sourceDatasourceName, final String targetDatasourceName, final String tableName)
+      throws InvalidConfigurationException, SQLException, UnsupportedDatabaseTypeException {
+    super("Diff", sourceDatasourceName);
+    this.ds2 = DataSource.load(targetDatasourceName);
+    this.tableName = tableName;
+  }
+
+  @Override
+  public void run() throws SQLException, UnsupportedDatabaseTypeException, InvalidSchemaException,
+      CouldNotHashException, IOException {
+
+    this.ds.show("Source Datasource");
+    info(" ");
+
+    this.ds2.show("Target Datasource");
+    info(" ");
+
+    this.execute();
+
+  }
+
+  @Override
+  public void execute()
+      throws SQLException, UnsupportedDatabaseTypeException, InvalidSchemaException, CouldNotHashException, IOException {
+
+    Identifier sn = findTable(this.tableName, this.ds.getDialect().listTablesNames());
+    if (sn == null) {
+      throw new CouldNotHashException("Could not find the table '" + this.tableName + "' in the source database.");
+    }
+    Identifier tn = findTable(this.tableName, this.ds2.getDialect().listTablesNames());
+    if (tn == null) {
+      throw new CouldNotHashException("Could not find the table '" + this.tableName + "' in the target database.");
+    }
+    this.st = this.ds.getDialect().getTableMetaData(sn);
+    this.tt = this.ds2.getDialect().getTableMetaData(tn);
+
+    String sColumns = this.st.getColumns().stream().map(c -> c.getName()).collect(Collectors.joining(", "));
+    String tColumns = this.tt.getColumns().stream().map(c -> c.getName()).collect(Collectors.joining(", "));
+    if (!sColumns.equals(tColumns)) {
+      throw new CouldNotHashException("Table '" + this.tableName + "' has different columns: (" + sColumns
+          + ") in the source database, and (" + tColumns + ") in the target database.");
+    }
+
+    // Both tables must be sorted by the same columns, in the same directions
+
+    this.so = RowOrdering.of(this.ds, this.st);
+    RowOrdering to = RowOrdering.of(this.ds2, this.tt);
+    String sKey = renderMembers(this.so);
+    String tKey = renderMembers(to);
+    if (!sKey.equals(tKey)) {
+      throw new CouldNotHashException("Table '" + this.tableName + "' has a different hashing ordering: (" + sKey
+          + ") in the source database, and (" + tKey + ") in the target database.");
+    }
+    if (!this.so.isUnique()) {
+      info("The hashing ordering (" + sKey + ") does not identify each row; the rows with the same key are paired in "
+          + "the order they are read, so a changed row can be displayed as a missing and an extra row.");
+    }
+
+    this.missing = 0;
+    this.extra = 0;
+    this.changed = 0;
+    this.changedColumns = new long[this.st.getColumns().size()];
+    this.displayed = new ArrayList<>();
+
+    info("Diffing table " + this.tableName + " by (" + sKey + "):");
+    long rows = 0;
+    try (RowStream source = new RowStream(this.ds, this.st, this.so, "source");
+        RowStream target = new RowStream(this.ds2, this.tt, to, "target");
+        BufferedWriter w = new BufferedWriter(new FileWriter(this.ds.getDiffFileName()))) {
+
+      w.write("# highfive-diff table=" + this.tableName + " source=" + this.ds.getName() + " target="
+          + this.ds2.getName() + " key=(" + sKey + ")\n");
+      source.start();
+      target.start();
+
+      Row s = source.next();
+      Row t = target.next();
+      while (s != null || t != null) {
+        int c = s == null ? 1 : (t == null ? -1 : this.so.compare(s.key, t.key));
+        if (c < 0) {
+          this.missing++;
+          write(w, "-", s, null);
+          s = source.next();
+        } else if (c > 0) {
+          this.extra++;
+          write(w, "+", t, null);
+          t = target.next();
+        } else {
+          List<String> columns = null;
+          for (int i = 0; i < s.values.length; i++) {
+            if (!Arrays.equals(s.values[i], t.values[i])) {
+              if (columns == null) {
+                columns = new ArrayList<>();
+              }
+              columns.add(this.st.getColumns().get(i).getName());
+              this.changedColumns[i]++;
+            }
+          }
+          if (columns != null) {
+            this.changed++;
+            write(w, "~", s, columns);
+          }
+          s = source.next();
+          t = target.next();
+        }
+        rows++;
+        if (rows % LOG_ROWS == 0) {
+          info("  " + DF.format(rows) + " keys merged -- " + DF.format(this.missing + this.extra + this.changed)
+              + " difference(s)");
+        }
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new CouldNotHashException("Interrupted while reading the table '" + this.tableName + "'.");
+    }
+
+    info(" ");
+    long total = this.missing + this.extra + this.changed;
+    if (total == 0) {
+      info("  No differences found in table " + this.tableName + " (" + DF.format(rows)
+          + " keys merged) -- The table matches.");
+      return;
+    }
+    for (String d : this.displayed) {
+      error("  - " + d);
+    }
+    if (total > this.displayed.size()) {
+      error("  Only the first " + this.displayed.size() + " differences were displayed.");
+    }
+    error("  " + DF.format(this.missing) + " missing row(s) (source only), " + DF.format(this.extra)
+        + " extra row(s) (target only), and " + DF.format(this.changed) + " changed row(s) in table "
+        + this.tableName + " -- The table does not match.");
+    Map<String, Long> byColumn = new LinkedHashMap<>();
+    for (int i = 0; i < this.changedColumns.length; i++) {
+      if (this.changedColumns[i] > 0) {
+        byColumn.put(this.st.getColumns().get(i).getName(), this.changedColumns[i]);
+      }
+    }
+    if (!byColumn.isEmpty()) {
+      error("  Changed rows by column: " + byColumn.entrySet().stream()
+          .map(e -> e.getKey() + " (" + DF.format(e.getValue()) + ")").collect(Collectors.joining(", ")));
+    }
+    info("  All the differences were written to: " + this.ds.getDiffFileName());
+
+  }
+
+  private void write(final BufferedWriter w, final String kind, final Row r, final List<String> columns)
+      throws IOException {
+    String key = this.so.encode(r.key);
+    w.write(kind + " " + key + (columns == null ? "" : " " + String.join(",", columns)) + "\n");
+    if (this.displayed.size() < DISPLAYED_DIFFERENCES) {
+      String k = RowKey.render(key);
+      if ("-".equals(kind)) {
+        this.displayed.add("Row with key " + k + " found in the source database only.");
+      } else if ("+".equals(kind)) {
+        this.displayed.add("Row with key " + k + " found in the target database only.");
+      } else {
+        this.displayed.add("Row with key " + k + " has different values in the column(s): " + String.join(", ", columns));
+      }
+    }
+  }
+
+  private static String renderMembers(final RowOrdering ordering) {
+    return ordering.getMembers().stream()
+        .map(m -> m.getColumn().getName() + (m.isAscending() ? "" : " desc")
+            + (m.getNullsFirst() == null ? "" : (m.getNullsFirst() ? " nulls first" : " nulls last")))
+        .collect(Collectors.joining(", "));
+  }
+
+  // A row: its key and the canonical bytes of its values (null for a null)
+
+  private static class Row {
+
+    private RowKey key;
+    private byte[][] values;
+
+    private Row(final RowKey key, final byte[][] values) {
+      this.key = key;
+      this.values = values;
+    }
+
+  }
+
+  // Reads a table in a thread of its own, in batches of rows that the merge
+  // takes in order. It also checks that the database returns the rows in the
+  // order of RowOrdering.compare(), since the merge depends on it.
+
+  private class RowStream implements AutoCloseable {
+
+    private DataSource ds;
+    private Table t;
+    private RowOrdering ordering;
+    private String side;
+
+    private BlockingQueue<List<Row>> queue;
+    private Thread reader;
+    private volatile boolean closed;
+    private volatile Exception failure;
+
+    private List<Row> batch;
+    private int index;
+    private boolean ended;
+
+    private RowStream(final DataSource ds, final Table t, final RowOrdering ordering, final String side) {
+      this.ds = ds;
+      this.t = t;
+      this.ordering = ordering;
+      this.side = side;
+      this.queue = new ArrayBlockingQueue<>(QUEUE_BATCHES);
+      this.closed = false;
+      this.failure = null;
+      this.batch = null;
+      this.ended = false;
+    }
+
+    private void start() {
+      this.reader = new Thread(() -> {
+        try {
+          read();
+        } catch (Exception e) {
+          this.failure = e;
+        } finally {
+          try {
+            put(new ArrayList<>()); // end of the table
+          } catch (InterruptedException e) {
+            // closed
+          }
+        }
+      }, "highfive-diff-" + this.side);
+      this.reader.setDaemon(true);
+      this.reader.start();
+    }
+
+    private void read() throws SQLException, CouldNotHashException, InterruptedException {
+      List<Column> columns = this.t.getColumns();
+      String names = columns.stream().map(c -> this.ds.getDialect().escapeIdentifierAsNeeded(c.getCanonicalName()))
+          .collect(Collectors.joining(", "));
+      String sql = "select " + names + " from " + this.ds.getDialect().renderSQLTableIdentifier(this.t.getIdentifier())
+          + " order by " + this.ordering.renderOrderBy();
+      if (this.ds.getLogSQL()) {
+        info("    * sql: " + sql);
+      }
+
+      List<Member> members = this.ordering.getMembers();
+      Serializer<?>[] serializers = columns.stream().map(c -> c.getSerializer()).toArray(Serializer<?>[]::new);
+      int[] keyIndexes = members.stream().mapToInt(m -> m.getOrdinal() - 1).toArray();
+
+      Connection conn = this.ds.openConnection();
+      try {
+        conn.setAutoCommit(this.ds.getSelectAutoCommit());
+        try (PreparedStatement ps = conn.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY,
+            ResultSet.CONCUR_READ_ONLY);) {
+          if (this.ds.getSelectFetchSize() != null) {
+            ps.setFetchSize(this.ds.getSelectFetchSize());
+          }
+          try (ResultSet rs = ps.executeQuery();) {
+            List<Row> rows = new ArrayList<>(BATCH_ROWS);
+            RowKey previous = null;
+            while (!this.closed && rs.next()) {
+              byte[][] values = new byte[serializers.length][];
+              Object[] keyValues = new Object[keyIndexes.length];
+              for (int i = 0; i < values.length; i++) {
+                byte[] bytes = serializers[i].read(rs, i + 1);
+                values[i] = bytes == null ? null : bytes.clone(); // the serializers reuse their buffers
+              }
+              for (int m = 0; m < keyIndexes.length; m++) {
+                keyValues[m] = values[keyIndexes[m]] == null ? null : serializers[keyIndexes[m]].getValue();
+              }
+              RowKey key = new RowKey(keyValues);
+              if (previous != null && this.ordering.compare(previous, key) > 0) {
+                throw new CouldNotHashException("The " + this.side + " database sorts the key "
+                    + RowKey.render(this.ordering.encode(key)) + " after the key "
+                    + RowKey.render(this.ordering.encode(previous)) + " in table '" + tableName
+                    + "', but the merge compares the strings by their characters; declare a binary collation in "
+                    + "the property '" + this.ds.getName() + ".hashing.collation'.");
+              }
+              previous = key;
+              rows.add(new Row(key, values));
+              if (rows.size() == BATCH_ROWS) {
+                put(rows);
+                rows = new ArrayList<>(BATCH_ROWS);
+              }
+            }
+            if (!rows.isEmpty()) {
+              put(rows);
+            }
+          }
+        }
+      } finally {
+        closeQuietly(conn);
+      }
+    }
+
+    private void put(final List<Row> rows) throws InterruptedException {
+      while (!this.closed) {
+        if (this.queue.offer(rows, 100, TimeUnit.MILLISECONDS)) {
+          return;
+        }
+      }
+    }
+
+    // The next row, or null after the last one
+
+    private Row next() throws InterruptedException, SQLException, CouldNotHashException {
+      while (true) {
+        if (this.batch != null && this.index < this.batch.size()) {
+          return this.batch.get(this.index++);
+        }
+        if (this.ended) {
+          return null;
+        }
+        this.batch = this.queue.take();
+        this.index = 0;
+        if (this.batch.isEmpty()) {
+          this.ended = true;
+          if (this.failure instanceof SQLException) {
+            throw (SQLException) this.failure;
+          } else if (this.failure instanceof CouldNotHashException) {
+            throw (CouldNotHashException) this.failure;
+          } else if (this.failure != null) {
+            throw new CouldNotHashException("Could not read the table '" + tableName + "' in the " + this.side
+                + " database: " + this.failure.getMessage());
+          }
+        }
+      }
+    }
+
+    @Override
+    public void close() {
+      this.closed = true;
+      if (this.reader != null) {
+        this.reader.interrupt();
+      }
+    }
+
+  }
+
+}
@@ -0,0 +1,350 @@
+package highfive.commands;
+
+import java.security.NoSuchAlgorithmException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import highfive.commands.consumer.HashCollector;
+import highfive.exceptions.CouldNotHashException;
+import highfive.exceptions.InvalidConfigurationException;
+import highfive.exceptions.InvalidHashFileException;
+import highfive.exceptions.InvalidSchemaException;
+import highfive.exceptions.UnsupportedDatabaseTypeException;
+import highfive.model.Column;
+import highfive.model.DataSource;
+import highfive.model.Digest;
+import highfive.model.HashingMode;
+import highfive.model.Identifier;
+import highfive.model.KeyRange;
+import highfive.model.RowKey;
+import highfive.model.RowOrdering;
+import highfive.model.RowOrdering.Member;
+import highfive.model.Serializer;
+import highfive.model.Table;
+
+// Finds the rows that differ in a table between two databases. The table is
+// split in two halves by the key at its middle row and each half is hashed on
+// both databases; only the halves with different hashes are split again. Once
+// a range has no more than <source-datasource>.drill.rows rows, its rows are
+// read and compared one by one.
+
+public class DrillCommand extends GenericHashCommand {
+
+  private static final int MAX_DIFFERENCES = 1000;
+
+  private DataSource ds2;
+  private DataSourceHasher target;
+  private String tableName;
+
+  private Table st;
+  private Table tt;
+  private RowOrdering so;
+  private RowOrdering to;
+  private int rangesHashed;
+  private List<String> differences;
+
+  public DrillCommand(final String sourceDatasourceName, final String targetDatasourceName, final String tableName)
+      throws InvalidConfigurationException, SQLException, UnsupportedDatabaseTypeException {
+    super("Drill", sourceDatasourceName);
+    this.ds2 = DataSource.load(targetDatasourceName);
+    this.target = new DataSourceHasher("Drill", this.ds2);
+    this.tableName = tableName;
+  }
+
+  @Override
+  public void run() throws SQLException, UnsupportedDatabaseTypeException, InvalidSchemaException,
+      NoSuchAlgorithmException, CouldNotHashException, InvalidHashFileException {
+
+    this.ds.show("Source Datasource");
+    info(" ");
+
+    this.ds2.show("Target Datasource");
+    info(" ");
+
+    this.execute();
+
+  }
+
+  @Override
+  public void execute() throws SQLException, UnsupportedDatabaseTypeException, InvalidSchemaException,
+      NoSuchAlgorithmException, CouldNotHashException, InvalidHashFileException {
+
+    if (!this.ds.getHashingAlgorithm().equals(this.ds2.getHashingAlgorithm())) {
+      throw new CouldNotHashException("The source datasource '" + this.ds.getName() + "' uses the '"
+          + this.ds.getHashingAlgorithm() + "' hashing algorithm, but the target datasource '" + this.ds2.getName()
+          + "' uses the '" + this.ds2.getHashingAlgorithm()
+          + "' hashing algorithm (property '<datasource>.hashing.algorithm'); they cannot be compared.");
+    }
+
+    Identifier sn = findTable(this.tableName, this.ds.getDialect().listTablesNames());
+    if (sn == null) {
+      throw new CouldNotHashException("Could not find the table '" + this.tableName + "' in the source database.");
+    }
+    Identifier tn = findTable(this.tableName, this.ds2.getDialect().listTablesNames());
+    if (tn == null) {
+      throw new CouldNotHashException("Could not find the table '" + this.tableName + "' in the target database.");
+    }
+    this.st = this.ds.getDialect().getTableMetaData(sn);
+    this.tt = this.ds2.getDialect().getTableMetaData(tn);
+
+    String sColumns = this.st.getColumns().stream().map(c -> c.getName()).collect(Collectors.joining(", "));
+    String tColumns = this.tt.getColumns().stream().map(c -> c.getName()).collect(Collectors.joining(", "));
+    if (!sColumns.equals(tColumns)) {
+      throw new CouldNotHashException("Table '" + this.tableName + "' has different columns: (" + sColumns
+          + ") in the source database, and (" + tColumns + ") in the target database.");
+    }
+
+    this.so = RowOrdering.of(this.ds, this.st);
+    this.to = RowOrdering.of(this.ds2, this.tt);
+    this.rangesHashed = 0;
+    this.differences = new ArrayList<>();
+
+    long sourceRows = countRows(this.ds, this.st);
+    long targetRows = countRows(this.ds2, this.tt);
+    info("Drilling down table " + this.tableName + " (" + DF.format(sourceRows) + " rows in the source database, "
+        + DF.format(targetRows) + " rows in the target database):");
+    drill(new Segment(new KeyRange(null, null, 0, 1), new KeyRange(null, null, 0, 1), sourceRows, targetRows));
+
+    info(" ");
+    if (this.differences.isEmpty()) {
+      info("  No differences found in table " + this.tableName + " (" + this.rangesHashed
+          + " key ranges hashed) -- The table matches.");
+    } else {
+      for (String d : this.differences) {
+        error("  - " + d);
+      }
+      if (this.differences.size() >= MAX_DIFFERENCES) {
+        error("  Only the first " + MAX_DIFFERENCES + " differences were displayed.");
+      }
+      error("  A total of " + this.differences.size() + " difference(s) found in table " + this.tableName + " ("
+          + this.rangesHashed + " key ranges hashed) -- The table does not match.");
+    }
+
+  }
+
+  private void drill(final Segment segment)
+      throws SQLException, CouldNotHashException, NoSuchAlgorithmException, InvalidHashFileException {
+    if (this.differences.size() >= MAX_DIFFERENCES) {
+      return;
+    }
+    if (Math.max(segment.sourceRows, segment.targetRows) <= this.ds.getDrillRows()) {
+      compareRows(segment);
+      return;
+    }
+
+    // The middle key is taken from the database with more rows in the range
+
+    boolean fromSource = segment.sourceRows >= segment.targetRows;
+    RowKey middle = fromSource ? findMiddleKey(this, this.st, this.so, segment.source, segment.sourceRows)
+        : findMiddleKey(this.target, this.tt, this.to, segment.target, segment.targetRows);
+    if (middle == null) { // all the rows have the same key
+      compareRows(segment);
+      return;
+    }
+    RowKey sMiddle = fromSource ? middle : this.so.decode(this.to.encode(middle));
+    RowKey tMiddle = fromSource ? this.to.decode(this.so.encode(middle)) : middle;
+
+    List<Segment> halves = new ArrayList<>();
+    halves.add(new Segment(new KeyRange(segment.source.getAfter(), sMiddle, 0, 2),
+        new KeyRange(segment.target.getAfter(), tMiddle, 0, 2), 0, 0));
+    halves.add(new Segment(new KeyRange(sMiddle, segment.source.getUpTo(), 1, 2),
+        new KeyRange(tMiddle, segment.target.getUpTo(), 1, 2), 0, 0));
+
+    for (Segment h : halves) {
+      HashCollector sh = new HashCollector();
+      hashOneTable(this.ds.getConnection(), this.st, h.source, HashingMode.UNORDERED, sh, null, null, false);
+      HashCollector th = new HashCollector();
+      this.target.hashOneTable(this.ds2.getConnection(), this.tt, h.target, HashingMode.UNORDERED, th, null, null,
+          false);
+      if (sh.isFailed() || th.isFailed()) {
+        throw new CouldNotHashException("Could not hash the key range " + renderKeys(h.source) + " of table '"
+            + this.tableName + "'.");
+      }
+      this.rangesHashed++;
+      h.sourceRows = sh.getRowCount();
+      h.targetRows = th.getRowCount();
+      boolean matches = sh.getHash().equals(th.getHash());
+      info("  Range " + renderKeys(h.source) + ": " + DF.format(h.sourceRows) + " / " + DF.format(h.targetRows)
+          + " rows -- " + (matches ? "matches" : "different"));
+      if (!matches) {
+        drill(h);
+      }
+    }
+  }
+
+  private RowKey findMiddleKey(final GenericHashCommand hasher, final Table t, final RowOrdering ordering,
+      final KeyRange range, final long rows) throws SQLException {
+    List<RowKey> boundaries = hasher.findKeyBoundaries(t, ordering, range, rows, (rows + 1) / 2);
+    if (boundaries.isEmpty()) {
+      return null;
+    }
+    RowKey middle = boundaries.get(0);
+    if (range.getUpTo() != null && ordering.encode(middle).equals(ordering.encode(range.getUpTo()))) {
+      return null;
+    }
+    return middle;
+  }
+
+  // Reads the rows of a small range on both databases and compares them by key
+
+  private void compareRows(final Segment segment) throws SQLException, NoSuchAlgorithmException {
+    info("  Range " + renderKeys(segment.source) + ": comparing " + DF.format(segment.sourceRows) + " / "
+        + DF.format(segment.targetRows) + " rows");
+    Map<String, List<byte[][]>> sRows = readRows(this.ds, this.st, this.so, segment.source);
+    Map<String, List<byte[][]>> tRows = readRows(this.ds2, this.tt, this.to, segment.target);
+
+    Set<String> keys = new LinkedHashSet<>(sRows.keySet());
+    keys.addAll(tRows.keySet());
+    for (String k : keys) {
+      if (this.differences.size() >= MAX_DIFFERENCES) {
+        return;
+      }
+      List<byte[][]> s = sRows.get(k);
+      List<byte[][]> t = tRows.get(k);
+      String key = RowKey.render(k);
+      if (t == null) {
+        this.differences.add(renderRowCount(s.size()) + " with key " + key + " found in the source database only.");
+      } else if (s == null) {
+        this.differences.add(renderRowCount(t.size()) + " with key " + key + " found in the target database only.");
+      } else if (s.size() == 1 && t.size() == 1) {
+        List<String> columns = new ArrayList<>();
+        for (int i = 0; i < this.st.getColumns().size(); i++) {
+          if (!Arrays.equals(s.get(0)[i], t.get(0)[i])) {
+            columns.add(this.st.getColumns().get(i).getName());
+          }
+        }
+        if (!columns.isEmpty()) {
+          this.differences
+              .add("Row with key " + key + " has different values in the column(s): " + String.join(", ", columns));
+        }
+      } else {
+        List<byte[][]> unmatched = new ArrayList<>(t);
+        int sourceOnly = 0;
+        for (byte[][] row : s) {
+          Iterator<byte[][]> it = unmatched.iterator();
+          boolean found = false;
+          while (it.hasNext() && !found) {
+            if (Arrays.deepEquals(row, it.next())) {
+              it.remove();
+              found = true;
+            }
+          }
+          if (!found) {
+            sourceOnly++;
+          }
+        }
+        if (sourceOnly > 0 || !unmatched.isEmpty()) {
+          this.differences.add("Rows with key " + key + " differ: " + DF.format(sourceOnly)
+              + " found in the source database only, and " + DF.format(unmatched.size())
+              + " found in the target database only.");
+        }
+      }
+    }
+  }
+
+  // Each row is kept as the digests of its values, grouped by key
+
+  private Map<String, List<byte[][]>> readRows(final DataSource ds, final Table t, final RowOrdering ordering,
+      final KeyRange range) throws SQLException, NoSuchAlgorithmException {
+    List<Column> columns = t.getColumns();
+    String names = columns.stream().map(c -> ds.getDialect().escapeIdentifierAsNeeded(c.getCanonicalName()))
+        .collect(Collectors.joining(", "));
+    List<Object> params = new ArrayList<>();
+    String where = ordering.renderRange(range, params);
+    String sql = "select " + names + " from " + ds.getDialect().renderSQLTableIdentifier(t.getIdentifier())
+        + (where == null ? "" : " where " + where) + " order by " + ordering.renderOrderBy();
+    if (ds.getLogSQL()) {
+      info("    * sql: " + sql);
+    }
+
+    Digest digest = Digest.find(ds.getHashingAlgorithm());
+    if (digest == null) {
+      throw new NoSuchAlgorithmException("Unsupported hashing algorithm '" + ds.getHashingAlgorithm() + "'.");
+    }
+    digest = digest.newInstance();
+
+    List<Member> members = ordering.getMembers();
+    List<Serializer<?>> keySerializers = ordering.getSerializers();
+
+    Connection conn = ds.getConnection();
+    conn.setAutoCommit(true); // end the current transaction, if any
+    conn.setAutoCommit(ds.getSelectAutoCommit());
+
+    Map<String, List<byte[][]>> rows = new LinkedHashMap<>();
+    try (PreparedStatement ps = conn.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);) {
+      if (ds.getSelectFetchSize() != null) {
+        ps.setFetchSize(ds.getSelectFetchSize());
+      }
+      RowOrdering.bind(ps, params);
+      try (ResultSet rs = ps.executeQuery();) {
+        while (rs.next()) {
+          byte[][] values = new byte[columns.size()][];
+          Object[] keyValues = new Object[members.size()];
+          for (int i = 0; i < values.length; i++) {
+            Serializer<?> s = columns.get(i).getSerializer();
+            byte[] bytes = s.read(rs, i + 1);
+            if (bytes != null) {
+              digest.reset();
+              digest.update(bytes);
+              values[i] = digest.digest();
+            }
+            for (int m = 0; m < keyValues.length; m++) {
+              if (members.get(m).getOrdinal() == i + 1) {
+                keyValues[m] = bytes == null ? null : s.getValue();
+              }
+            }
+          }
+          String key = new RowKey(keyValues).encode(keySerializers);
+          rows.computeIfAbsent(key, k -> new ArrayList<>()).add(values);
+        }
+      }
+    }
+    return rows;
+  }
+
+  private long countRows(final DataSource ds, final Table t) throws SQLException {
+    String sql = "select count(*) from " + ds.getDialect().renderSQLTableIdentifier(t.getIdentifier());
+    try (PreparedStatement ps = ds.getConnection().prepareStatement(sql); ResultSet rs = ps.executeQuery();) {
+      return rs.next() ? rs.getLong(1) : 0;
+    }
+  }
+
+  private String renderKeys(final KeyRange range) {
+    return (range.getAfter() == null ? "(start of table)" : RowKey.render(this.so.encode(range.getAfter()))) + " to "
+        + (range.getUpTo() == null ? "(end of table)" : RowKey.render(this.so.encode(range.getUpTo())));
+  }
+
+  private String renderRowCount(final int count) {
+    return count == 1 ? "Row" : DF.format(count) + " rows";
+  }
+
+  // The same key range in the source and target databases
+
+  private static class Segment {
+
+    private KeyRange source;
+    private KeyRange target;
+    private long sourceRows;
+    private long targetRows;
+
+    private Segment(KeyRange source, KeyRange target, long sourceRows, long targetRows) {
+      this.source = source;
+      this.target = target;
+      this.sourceRows = sourceRows;
+      this.targetRows = targetRows;
+    }
+
+  }
+
+}
@@ -2,35 +2,75 @@ package highfive.commands;
 
 import java.io.IOException;
 import java.security.NoSuchAlgorithmException;
+import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.ArrayList;
-import java.util.Collection;
-import java.util.HashMap;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 
+import highfive.commands.consumer.CheckpointConsumer;
+import highfive.commands.consumer.CheckpointJournal;
+import highfive.commands.consumer.CheckpointJournal.Checkpoint;
+import highfive.commands.consumer.CheckpointJournal.Progress;
+import highfive.commands.consumer.DumpFileWriter.DumpFileFormat;
 import highfive.commands.consumer.HashConsumer;
+import highfive.commands.consumer.HashFileWriter;
 import highfive.exceptions.CouldNotHashException;
 import highfive.exceptions.InvalidConfigurationException;
 import highfive.exceptions.InvalidHashFileException;
 import highfive.exceptions.InvalidSchemaException;
 import highfive.exceptions.UnsupportedDatabaseTypeException;
-import highfive.exceptions.UnsupportedSQLFeatureException;
+import highfive.model.ByteSink;
 import highfive.model.Column;
+import highfive.model.DataSource;
+import highfive.model.HashFile;
 import highfive.model.Hasher;
+import highfive.model.HashingMode;
 import highfive.model.Identifier;
+import highfive.model.KeyRange;
+import highfive.model.RangeHash;
+import highfive.model.RowKey;
+import highfive.model.RowOrdering;
+import highfive.model.Serializer;
 import highfive.model.Table;
-import highfive.model.TableHashingMember;
-import highfive.model.TableHashingOrdering;
+import highfive.model.TableHash;
+import highfive.utils.Utl;
 
 public abstract class GenericHashCommand extends DataSourceCommand {
 
   private static final int MAX_ORDERING_ERRORS = 3;
 
+  // Resume the interrupted run recorded in the checkpoint journal
+
+  protected boolean resume = false;
+
+  private static final long RETRY_DELAY = 1000;
+  private static final long RETRY_MAX_DELAY = 60000;
+
+  private Map<String, Integer> retriedTables = Collections.synchronizedMap(new LinkedHashMap<>());
+
+  // Only whole schema runs report their progress
+
+  private ProgressMonitor monitor = null;
+  private Map<String, Long> rowCounts = null;
+
 //  @Deprecated
 //  protected HashFile hashFile;
 
@@ -39,7 +79,15 @@ public abstract class GenericHashCommand extends DataSourceCommand {
     super(commandName, datasourceName);
   }
 
-  protected void hashOneSchema(final HashConsumer hc)
+  protected GenericHashCommand(final String commandName, final DataSource ds) {
+    super(commandName, ds);
+  }
+
+  // The baseline, when present, decides which tables are hashed by key ranges
+  // and where the ranges start and end, so both hash files can be compared
+  // range by range
+
+  protected void hashOneSchema(final HashFileWriter hw, final HashFile baseline)
       throws SQLException, UnsupportedDatabaseTypeException, InvalidSchemaException, CouldNotHashException,
       NoSuchAlgorithmException, InvalidHashFileException, InvalidConfigurationException, IOException {
 
@@ -55,39 +103,345 @@ public abstract class GenericHashCommand extends DataSourceCommand {
               .map(n -> n.toString()).collect(Collectors.joining(", ")));
     }
 
-    List<Table> tables = new ArrayList<>();
-    for (Identifier tn : tableNames) {
-      Table t = this.ds.getDialect().getTableMetaData(tn);
-      tables.add(t);
-      String ro = renderOrdering(t);
-      if (ro == null) {
-        throw new CouldNotHashException(
-            "  - Table " + tn.getCanonicalName() + " does not have a sorting order for hashing. "
-                + "Add a primary key or declare a unique criteria for ordering using the property '" + this.ds.getName()
-                + ".hashing.ordering'.");
+    List<Table> tables = this.ds.getDialect().getTablesMetaData(tableNames);
+    for (Table t : tables) {
+      if (this.ds.getHashingMode() == HashingMode.ORDERED) {
+        RowOrdering.of(this.ds, t);
       }
     }
 
     // 2. Display Row Count
 
-    displayRowCount(tables);
+    Map<String, Long> rowCounts = displayRowCount(tables);
 
     // 3. Check Hashing Preconditions
 
     checkIfHashingAndCopyingIsSupported(tables);
 
-    // 4. Hash the schema
+    // 4. Open the checkpoint journal
+
+    CheckpointJournal journal = new CheckpointJournal(this.ds.getHashFileName());
+    Progress progress = null;
+    if (this.resume) {
+      if (!journal.exists()) {
+        throw new CouldNotHashException("Could not resume the run: the checkpoint journal '" + journal.getFileName()
+            + "' was not found.");
+      }
+      progress = journal.load(this.ds.getHashingMode(), this.ds.getHashingAlgorithm());
+      info(" ");
+      info("Resuming the run recorded in the checkpoint journal: " + journal.getFileName());
+    } else if (journal.exists()) {
+      info(" ");
+      info("Discarding the checkpoint journal of a previous run: " + journal.getFileName());
+    }
+    journal.open(progress != null, this.ds.getHashingMode(), this.ds.getHashingAlgorithm());
+    hw.setJournal(journal, progress);
+
+    // 5. Split the large tables into key ranges
+
+    List<HashingTask> tasks = planTasks(tables, rowCounts, hw, baseline, progress);
+
+    // 6. Hash the schema
 
     info(" ");
     info("Hashing:");
-    int cnt = 1;
-    for (Table t : tables) {
-      hashOneTable(t, hc, cnt, tables.size());
-      cnt++;
+    hw.setTableOrder(tables.stream().map(t -> t.getIdentifier().getGenericName()).collect(Collectors.toList()));
+    startMonitor("hashed", tables, rowCounts);
+    if (progress != null) {
+      List<HashingTask> pending = new ArrayList<>();
+      for (HashingTask task : tasks) {
+        String name = task.table.getIdentifier().getGenericName();
+        Integer rangeIndex = task.range == null ? null : task.range.getIndex();
+        if (hw.restore(name, rangeIndex)) {
+          this.monitor.skip(progress.getDone(name, rangeIndex).getRowCount());
+          info("  Table " + task.table.getIdentifier().renderSQL() + (task.range == null ? ""
+              : " -- key range " + (task.range.getIndex() + 1) + "/" + task.range.getCount())
+              + " was hashed by the previous run -- skipped");
+        } else {
+          pending.add(task);
+        }
+      }
+      tasks = pending;
+    }
+    int threads = Math.min(this.ds.getHashingThreads(), tasks.size());
+    this.monitor.startRun();
+    try {
+      if (threads > 1) {
+        hashInParallel(tasks, hw, threads, tables.size());
+      } else {
+        for (HashingTask task : tasks) {
+          HashConsumer consumer = task.range == null ? hw : hw.newRangeWorker(task.range.getIndex());
+          hashOneTable(this.ds.getConnection(), task.table, task.range, this.ds.getHashingMode(), consumer,
+              task.ordinal, tables.size(), this.ds.getHashingPipeline());
+        }
+      }
+    } finally {
+      this.monitor.endRun();
     }
 
+    if (!this.retriedTables.isEmpty()) {
+      synchronized (this.retriedTables) {
+        info("  Transient errors were retried in " + this.retriedTables.size() + " table(s) or key range(s): "
+            + this.retriedTables.entrySet().stream().map(e -> e.getKey() + " (" + e.getValue() + " retries)")
+                .collect(Collectors.joining(", ")));
+      }
+    }
+    hw.complete();
     info("  Data hashes generated to: " + this.ds.getHashFileName());
 
+    this.monitor.showTimings("Digest");
+
+  }
+
+  // Reports the progress of the tables hashed by this command; the row counts
+  // are the expected rows
+
+  protected ProgressMonitor startMonitor(final String verb, final List<Table> tables,
+      final Map<String, Long> rowCounts) {
+    this.rowCounts = rowCounts;
+    this.monitor = new ProgressMonitor(this::info, verb,
+        tables.stream().mapToLong(t -> expectedRows(t.getIdentifier().getGenericName(), null)).sum(),
+        this.ds.getProgressInterval());
+    return this.monitor;
+  }
+
+  private static class HashingTask {
+
+    private Table table;
+    private int ordinal;
+    private KeyRange range;
+    private long estimatedRows;
+
+    private HashingTask(Table table, int ordinal, KeyRange range, long estimatedRows) {
+      this.table = table;
+      this.ordinal = ordinal;
+      this.range = range;
+      this.estimatedRows = estimatedRows;
+    }
+
+  }
+
+  private List<HashingTask> planTasks(final List<Table> tables, final Map<String, Long> rowCounts,
+      final HashFileWriter hw, final HashFile baseline, final Progress progress)
+      throws CouldNotHashException, InvalidHashFileException, SQLException, IOException {
+
+    Long partitionRows = this.ds.getHashingPartitionRows();
+    boolean headerShown = false;
+    List<HashingTask> tasks = new ArrayList<>();
+    int ordinal = 1;
+    for (Table t : tables) {
+      String name = t.getIdentifier().getGenericName();
+      long count = rowCount(rowCounts, t);
+      RowOrdering ordering = findOrdering(t);
+      List<RowKey> boundaries = null;
+      List<String> upTos = null;
+      List<String> resumed = progress == null ? null : progress.getRanges(name);
+
+      if (baseline != null) {
+        TableHash bh = baseline.get(name);
+        if (bh != null && bh.isPartitioned()) {
+          if (ordering == null) {
+            ordering = RowOrdering.of(this.ds, t);
+          }
+          boundaries = new ArrayList<>();
+          upTos = new ArrayList<>();
+          for (RangeHash rh : bh.getRanges()) {
+            if (rh.getUpTo() != null) {
+              boundaries.add(ordering.decode(rh.getUpTo()));
+            }
+            upTos.add(rh.getUpTo());
+          }
+        }
+      } else if (resumed != null && ordering != null) {
+        boundaries = new ArrayList<>();
+        upTos = resumed;
+        for (String upTo : upTos) {
+          if (upTo != null) {
+            boundaries.add(ordering.decode(upTo));
+          }
+        }
+      } else if (ordering != null && partitionRows != null && this.ds.getMaxRows() == null
+          && count > partitionRows) {
+        if (!headerShown) {
+          info(" ");
+          info("Splitting tables into key ranges:");
+          headerShown = true;
+        }
+        boundaries = findKeyBoundaries(t, ordering, count, partitionRows);
+        if (boundaries.isEmpty()) {
+          boundaries = null;
+        } else {
+          upTos = new ArrayList<>();
+          for (RowKey k : boundaries) {
+            upTos.add(ordering.encode(k));
+          }
+          upTos.add(null);
+        }
+      }
+
+      if (boundaries == null) {
+        tasks.add(new HashingTask(t, ordinal, null, count));
+      } else {
+        hw.setKeyRanges(name, upTos);
+        for (KeyRange r : KeyRange.split(boundaries)) {
+          tasks.add(new HashingTask(t, ordinal, r, count / r.getCount()));
+        }
+        if (baseline != null) {
+          info("  Table " + t.getIdentifier().renderSQL() + " will be hashed in " + upTos.size()
+              + " key ranges, as in the baseline hash file");
+        } else if (resumed != null) {
+          info("  Table " + t.getIdentifier().renderSQL() + " will be hashed in " + upTos.size()
+              + " key ranges, as in the previous run");
+        }
+      }
+      ordinal++;
+    }
+    return tasks;
+  }
+
+  // The unordered mode can hash tables that have no ordering, but they
+  // cannot be split into key ranges
+
+  private RowOrdering findOrdering(final Table t) throws CouldNotHashException {
+    try {
+      return RowOrdering.of(this.ds, t);
+    } catch (CouldNotHashException e) {
+      if (this.ds.getHashingMode() == HashingMode.ORDERED) {
+        throw e;
+      }
+      return null;
+    }
+  }
+
+  // Finds the upper key (inclusive) of each range but the last one, so every
+  // range gets about the same number of rows
+
+  protected List<RowKey> findKeyBoundaries(final Table t, final RowOrdering ordering, final long rowCount,
+      final long partitionRows) throws SQLException {
+    List<RowKey> boundaries = findKeyBoundaries(t, ordering, null, rowCount, partitionRows);
+    long ranges = (rowCount + partitionRows - 1) / partitionRows;
+    info("  Table " + t.getIdentifier().renderSQL() + ": " + (boundaries.size() + 1) + " key ranges of about "
+        + DF.format((rowCount + ranges - 1) / ranges) + " rows each");
+    return boundaries;
+  }
+
+  // Same, but only within a key range of the table (null for the whole table)
+
+  protected List<RowKey> findKeyBoundaries(final Table t, final RowOrdering ordering, final KeyRange range,
+      final long rowCount, final long partitionRows) throws SQLException {
+    long ranges = (rowCount + partitionRows - 1) / partitionRows;
+    long step = (rowCount + ranges - 1) / ranges;
+
+    List<Object> params = new ArrayList<>();
+    String where = range == null ? null : ordering.renderRange(range, params);
+    String columns = ordering.renderColumns();
+    String tid = this.ds.getDialect().renderSQLTableIdentifier(t.getIdentifier());
+    String sql = "select " + columns + " from (select " + columns + ", row_number() over (order by "
+        + ordering.renderOrderBy() + ") as hf_rn from " + tid + (where == null ? "" : " where " + where) + ") x where "
+        + this.ds.getDialect().renderModulo("hf_rn", "" + step) + " = 0 order by hf_rn";
+    if (this.ds.getLogSQL()) {
+      info("    * sql: " + sql);
+    }
+
+    Connection conn = this.ds.getConnection();
+    conn.setAutoCommit(true); // end the current transaction, if any
+    conn.setAutoCommit(this.ds.getSelectAutoCommit());
+
+    List<RowKey> boundaries = new ArrayList<>();
+    List<String> encoded = new ArrayList<>();
+    try (PreparedStatement ps = conn.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);) {
+      if (this.ds.getSelectFetchSize() != null) {
+        ps.setFetchSize(this.ds.getSelectFetchSize());
+      }
+      RowOrdering.bind(ps, params);
+      try (ResultSet rs = ps.executeQuery();) {
+        while (rs.next() && boundaries.size() < ranges - 1) {
+          RowKey k = ordering.readKey(rs, 1);
+          String e = ordering.encode(k);
+          if (encoded.isEmpty() || !encoded.get(encoded.size() - 1).equals(e)) {
+            boundaries.add(k);
+            encoded.add(e);
+          }
+        }
+      }
+    }
+    return boundaries;
+  }
+
+  // Parallel hashing: each worker owns a connection and takes the next pending
+  // table or key range, largest first; each one is read using its own
+  // serializer instances
+
+  private void hashInParallel(final List<HashingTask> tasks, final HashFileWriter hw, final int threads,
+      final int total) throws CouldNotHashException {
+
+    List<HashingTask> sorted = new ArrayList<>(tasks);
+    Collections.sort(sorted, (a, b) -> Long.compare(b.estimatedRows, a.estimatedRows));
+    Queue<HashingTask> pending = new ConcurrentLinkedQueue<>(sorted);
+
+    info("  Using " + threads + " hashing threads");
+
+    ExecutorService executor = Executors.newFixedThreadPool(threads);
+    List<Future<Void>> workers = new ArrayList<>();
+    for (int i = 0; i < threads; i++) {
+      workers.add(executor.submit(() -> {
+        Connection conn = this.ds.openConnection();
+        try {
+          HashingTask task;
+          while ((task = pending.poll()) != null) {
+            if (!conn.isValid(10)) { // replaced after a connection failure
+              closeQuietly(conn);
+              conn = this.ds.openConnection();
+            }
+            HashConsumer consumer = task.range == null ? hw.newWorker() : hw.newRangeWorker(task.range.getIndex());
+            hashOneTable(conn, task.table.duplicate(), task.range, this.ds.getHashingMode(), consumer, task.ordinal,
+                total, this.ds.getHashingPipeline());
+          }
+        } finally {
+          closeQuietly(conn);
+        }
+        return null;
+      }));
+    }
+    executor.shutdown();
+
+    Throwable failure = null;
+    for (Future<Void> w : workers) {
+      try {
+        w.get();
+      } catch (ExecutionException e) {
+        pending.clear();
+        if (failure == null) {
+          failure = e.getCause();
+        }
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        failure = e;
+      }
+    }
+    if (failure != null) {
+      error(failure);
+      throw new CouldNotHashException("A hashing worker failed: " + failure.getMessage());
+    }
+  }
+
+  // The rows of a table (or of a key range of it, approximately) that will be
+  // read
+
+  private long expectedRows(final String genericName, final KeyRange range) {
+    Long c = this.rowCounts.get(genericName);
+    long rows = c == null ? 0 : (range == null ? c : c / range.getCount());
+    return this.ds.getMaxRows() == null ? rows : Math.min(rows, this.ds.getMaxRows());
+  }
+
+  private long rowCount(final Map<String, Long> rowCounts, final Table t) {
+    Long c = rowCounts.get(t.getIdentifier().getGenericName());
+    return c == null ? 0 : c;
+  }
+
+  protected DumpFileFormat dumpFileFormat() {
+    return new DumpFileFormat(this.ds.getHashingAlgorithm(), this.ds.getHashDumpMode(), this.ds.isHashDumpBinary(),
+        this.ds.getHashDumpWidth());
   }
 
   protected Identifier findTable(String tableName, List<Identifier> tableNames) {
@@ -101,369 +455,922 @@ public abstract class GenericHashCommand extends DataSourceCommand {
 
   protected void hashOneTable(Table t, HashConsumer consumer)
       throws CouldNotHashException, NoSuchAlgorithmException, SQLException {
-    this.hashOneTable(t, consumer, null, null);
+    this.hashOneTable(this.ds.getConnection(), t, null, consumer.getHashingMode(), consumer, null, null, false);
   }
 
-  protected void hashOneTable(Table t, HashConsumer consumer, Integer cnt, Integer total)
-      throws CouldNotHashException, NoSuchAlgorithmException, SQLException {
+  // The pipeline is only used to hash whole schemas; the single table commands
+  // inspect the values as they are read
+
+  protected void hashOneTable(Connection conn, Table t, KeyRange range, HashingMode mode, HashConsumer consumer,
+      Integer cnt, Integer total, boolean pipelined) throws CouldNotHashException, NoSuchAlgorithmException, SQLException {
     Identifier tn = t.getIdentifier();
+    String rangeName = range == null ? "" : (" -- key range " + (range.getIndex() + 1) + "/" + range.getCount());
+    String progress = this.ds.getHashingThreads() > 1
+        ? ("    " + tn.getGenericName() + (range == null ? "" : "#" + (range.getIndex() + 1)) + ": ")
+        : "    ";
 
     if (cnt == null) {
-      info("  Hashing table: " + tn.renderSQL());
+      info("  Hashing table: " + tn.renderSQL() + rangeName);
     } else {
-      info("  Hashing table (" + cnt + "/" + total + "): " + tn.renderSQL());
+      info("  Hashing table (" + cnt + "/" + total + "): " + tn.renderSQL() + rangeName);
     }
 
     String names = t.getColumns().stream().map(c -> this.ds.getDialect().escapeIdentifierAsNeeded(c.getCanonicalName()))
         .collect(Collectors.joining(", "));
 
-    String selectOrdering = renderOrdering(t);
-    RowComparator rowComparator = getRowComparator(t);
+    // The unordered mode does not sort the rows; the ordering is only needed to
+    // select a key range. The chained mode sorts them, as the ordered mode.
 
-    String tid = this.ds.getDialect().renderSQLTableIdentifier(tn);
-    String sql = "select" + this.ds.getDialect().renderHeadLimit(ds.getMaxRows()) + " " + names + " from " + tid
-        + " order by " + selectOrdering + this.ds.getDialect().renderTailLimit(ds.getMaxRows());
-    if (this.ds.getLogSQL()) {
-      info("    * sql: " + sql);
-    }
-    Hasher h = new Hasher();
+    boolean ordered = mode != HashingMode.UNORDERED;
+    RowOrdering ordering = ordered || range != null ? RowOrdering.of(this.ds, t) : null;
+    String selectOrdering = ordered ? ordering.renderOrderBy() : null;
+    String sortedBy = ordered ? " when the table is sorted by the columns: " + selectOrdering : "";
 
-    consumer.initializeHasher(h);
+    // Rows cannot tie in a unique ordering (primary key, unique key or all
+    // columns), so they're only checked for other orderings, or when declared
+    // for the table
 
-    this.ds.getConnection().setAutoCommit(true); // end the current transaction, if any
+    boolean checkOrdering = ordered
+        && (!ordering.isUnique() || this.ds.getHashingOrderingCheck().contains(tn.getGenericName()));
+    RowComparator rowComparator = checkOrdering ? new RowComparator(t, ordering) : null;
 
-    this.ds.getConnection().setAutoCommit(this.ds.getSelectAutoCommit());
+    // Mid-table checkpoints are taken at the end of keyset chunks, so the
+    // table can be read again from the last key. Keyset reading needs an
+    // ordering where each key identifies a single row.
 
-    int row = 0;
-    int orderingErrors = 0;
-    boolean tableConsumed = false;
+    Long keysetRows = ordered ? this.ds.getHashingKeysetRows() : null;
+    Long checkpointRows = consumer instanceof CheckpointConsumer ? this.ds.getHashingCheckpointRows() : null;
+    if (checkpointRows != null) {
+      if (ordering == null) {
+        ordering = findOrdering(t);
+      }
+      if (keysetRows == null) {
+        keysetRows = checkpointRows;
+      }
+    }
+    if (keysetRows != null && (ordering == null || !ordering.includesPrimaryKey())) {
+      info(progress + "- The hashing ordering does not include the primary key -- reading the table with a single query"
+          + (checkpointRows == null ? "." : ", with no mid-table checkpoints."));
+      keysetRows = null;
+      checkpointRows = null;
+    }
 
-    try (PreparedStatement ps = this.ds.getConnection().prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY,
-        ResultSet.CONCUR_READ_ONLY);) {
+    // Only a resumable hasher can save its state, but it can be slower
 
-      if (this.ds.getSelectFetchSize() != null) {
-        ps.setFetchSize(this.ds.getSelectFetchSize());
+    Hasher h = new Hasher(mode, this.ds.getHashingAlgorithm(), checkpointRows != null);
+    Checkpoint checkpoint = checkpointRows == null ? null
+        : ((CheckpointConsumer) consumer).getCheckpoint(tn.getGenericName());
+    RowKey resumeAfter = null;
+    if (checkpoint != null) {
+      try {
+        resumeAfter = ordering.decode(checkpoint.getKey());
+        h.restoreState(checkpoint.getState());
+        info(progress + "- Resuming after row #" + DF.format(checkpoint.getRowCount()) + " (last checkpoint)");
+      } catch (InvalidHashFileException | IllegalArgumentException e) {
+        info(progress + "- Could not resume from the last checkpoint (" + e.getMessage()
+            + ") -- hashing from the start of the table.");
+        h = new Hasher(mode, this.ds.getHashingAlgorithm(), true);
+        checkpoint = null;
+        resumeAfter = null;
       }
+    }
 
-      try (ResultSet rs = ps.executeQuery();) {
-        int logCount = 0;
-        row = 0;
-        orderingErrors = 0;
-        boolean active = true;
-
-        while (rs.next() && active) {
-          logCount++;
-          row++;
-          if (logCount >= 100000) {
-            info("    " + DF.format(row) + " rows read");
-            logCount = 0;
+    consumer.initializeHasher(h);
+
+    // Transient errors are retried on a new connection, after a pause that
+    // doubles each time. The rows are read again after the last keyset chunk
+    // digested, or from the start of the table (or key range) when it's read
+    // with a single query.
+
+    int maxRetries = consumer instanceof CheckpointConsumer ? this.ds.getHashingRetries() : 0;
+    RestorePoint restorePoint = new RestorePoint(checkpoint == null ? 0 : checkpoint.getRowCount(), resumeAfter,
+        maxRetries == 0 ? null : h.copy());
+    int retries = 0;
+    Connection opened = null; // replaces the connection of a worker thread
+    ProgressMonitor.Task task = this.monitor == null ? null
+        : this.monitor.start(tn.getGenericName() + (range == null ? "" : "#" + (range.getIndex() + 1)),
+            expectedRows(tn.getGenericName(), range), restorePoint.row);
+
+    try {
+      while (true) {
+        RowDigester d = null;
+        boolean tableConsumed = false;
+        try {
+
+          if (retries > 0) {
+            if (conn == this.ds.getConnection()) {
+              conn = this.ds.reconnect();
+            } else {
+              closeQuietly(opened);
+              opened = this.ds.openConnection();
+              conn = opened;
+            }
           }
 
-          consumer.consumeValueHeader(row);
-          int col = 1;
-          byte[] bytes = null;
-          for (Column c : t.getColumns()) {
-            try {
-              bytes = c.getSerializer().read(rs, col);
-              Object v = c.getSerializer().getValue();
-              rowComparator.setColumn(col, v);
-            } catch (SQLException e) {
-              error("The JDBC driver could not read the value of column '" + c.getCanonicalName() + "' on table '"
-                  + tn.getCanonicalName() + "' as a '" + c.getSerializer().getName()
-                  + "' value. The error happened in row #" + DF.format(row)
-                  + " when the table is sorted by the columns: " + selectOrdering + ".");
-              throw e;
-            } catch (RuntimeException e) {
-              error("Could not serialize the value for column '" + c.getCanonicalName() + "' on table '"
-                  + tn.getCanonicalName() + "'. The error happened in row #" + DF.format(row)
-                  + " when the table is sorted by the columns: " + selectOrdering + ". Is '"
-                  + c.getSerializer().getClass().getSimpleName() + "' the correct serializer for this column?");
-              throw e;
+          conn.setAutoCommit(true); // end the current transaction, if any
+
+          conn.setAutoCommit(this.ds.getSelectAutoCommit());
+
+          RowCursor cursor;
+          if (keysetRows == null) {
+            List<Object> params = new ArrayList<>();
+            String where = range == null ? null : ordering.renderRange(range, params);
+
+            String tid = this.ds.getDialect().renderSQLTableIdentifier(tn);
+            String sql = "select" + this.ds.getDialect().renderHeadLimit(ds.getMaxRows()) + " " + names + " from "
+                + tid + (where == null ? "" : " where " + where) + (ordered ? " order by " + selectOrdering : "")
+                + this.ds.getDialect().renderTailLimit(ds.getMaxRows());
+            if (this.ds.getLogSQL()) {
+              info("    * sql: " + sql);
             }
-            h.apply(bytes);
+            cursor = new QueryCursor(conn, sql, params);
+          } else {
+            cursor = new KeysetCursor(conn, t, ordering, names, range, keysetRows, restorePoint.key, restorePoint.row);
+          }
 
-            consumer.consumeValue(row, c, bytes, h);
-            col++;
+          d = new RowDigester(t, h, consumer, rowComparator, progress, sortedBy, cursor.getFirstOrdinal());
+          if (consumer.needsRowKeys()) {
+            d.keyIndexes = ordering.getMembers().stream().mapToInt(m -> m.getOrdinal() - 1).toArray();
           }
-          if (ds.getMaxRows() != null && row >= ds.getMaxRows()) {
-            info("    - Limit of " + ds.getMaxRows()
-                + " rows (max.rows) reached when reading this table -- moving on to the next table.");
-            break;
+          if (keysetRows != null && (checkpointRows != null || maxRetries > 0)) {
+            d.chunkEnds = new ConcurrentLinkedQueue<>();
+            ((KeysetCursor) cursor).chunkEnds = d.chunkEnds;
+            d.ordering = ordering;
+            d.restorePoint = maxRetries > 0 ? restorePoint : null;
+            if (checkpointRows != null) {
+              d.checkpoints = (CheckpointConsumer) consumer;
+              d.checkpointRows = checkpointRows;
+            }
+          }
+          d.row = restorePoint.row;
+          d.lastCheckpoint = d.row;
+          d.task = task;
+
+          try (RowCursor c = cursor;) {
+            if (pipelined) {
+              digestPipelined(c, d);
+            } else {
+
+              // Only two clock readings per row: after fetching it, and after
+              // digesting it
+
+              long fetchNanos = 0;
+              long digestNanos = 0;
+              long t0 = System.nanoTime();
+              boolean active = true;
+              while (active) {
+                boolean more = c.next();
+                long t1 = System.nanoTime();
+                fetchNanos += t1 - t0;
+                if (!more) {
+                  break;
+                }
+                if (task != null) {
+                  task.firstRow();
+                }
+                active = d.readAndDigest(c.getResultSet());
+                t0 = System.nanoTime();
+                digestNanos += t0 - t1;
+              }
+              if (task != null) {
+                task.addTimes(fetchNanos, digestNanos);
+              }
+            }
           }
 
-          boolean hasValidOrdering = rowComparator.hasValidOrdering();
-          if (!hasValidOrdering) {
-            orderingErrors++;
-            if (orderingErrors <= MAX_ORDERING_ERRORS) {
-              error("Non-deterministic hashing ordering found in table '" + tn.getCanonicalName() + "' (#"
-                  + orderingErrors + "); found at least two rows with the same value in the ordering columns ("
-                  + rowComparator.getOrderingColumns().stream().collect(Collectors.joining(", "))
-                  + "), but different values in the rest of the columns:");
-              error(" * Previous row: " + rowComparator.renderPreviousRow());
-              error(" * Current row: " + rowComparator.renderCurrentRow());
+          int orderingErrors = d.getOrderingErrors();
+          if (orderingErrors > 0) {
+            error("The hashing computation won't be predictable for the table '" + tn.getCanonicalName()
+                + "' and can result in false positives or false negatives.");
+          }
+          if (orderingErrors > MAX_ORDERING_ERRORS) {
+            error("A total of " + orderingErrors + " non-deterministic hashing ordering issues were found in table '"
+                + tn.getCanonicalName() + "'; only the first " + MAX_ORDERING_ERRORS + " were displayed.");
+          }
+
+          consumer.consumeTable(t.getIdentifier().getGenericName(), orderingErrors > 0, false, d.getRow());
+          tableConsumed = true;
+
+          info(progress + DF.format(d.getRow()) + " row(s) read");
+          return;
+
+        } catch (Throwable e) {
+          SQLException se = findSQLException(e);
+          if (!tableConsumed && retries < maxRetries && se != null && this.ds.getDialect().isTransient(se)) {
+            retries++;
+            if (d != null && d.restorePoint != null) {
+              restorePoint = d.restorePoint;
+            }
+            long delay = Math.min(RETRY_MAX_DELAY, RETRY_DELAY << (retries - 1));
+            info(progress + "- Transient error: " + se.getMessage() + " -- retrying from row #"
+                + DF.format(restorePoint.row + 1) + " in " + (delay / 1000) + " s (retry " + retries + "/"
+                + maxRetries + ")");
+            h = restorePoint.hasher.copy();
+            consumer.initializeHasher(h);
+            try {
+              Thread.sleep(delay);
+              continue;
+            } catch (InterruptedException e2) {
+              Thread.currentThread().interrupt();
+            }
+          }
+          if (d == null && e instanceof SQLException) {
+            throw (SQLException) e;
+          }
+          e.printStackTrace(System.out);
+          info("tableConsumed=" + tableConsumed);
+          if (!tableConsumed) {
+            try {
+              consumer.consumeTable(t.getIdentifier().getGenericName(), d != null && d.getOrderingErrors() > 0, true,
+                  d == null ? restorePoint.row : d.getRow());
+            } catch (InvalidHashFileException e1) {
+              error("Could not save hash for table '" + t.getIdentifier().getGenericName() + "'.");
+              e.printStackTrace(System.out);
             }
           }
+          info("    Failed to read table " + tn.getGenericName()
+              + (retries == 0 ? "" : " after " + retries + " retries") + " -- skipped");
+          return;
+        }
+      }
+    } finally {
+      closeQuietly(opened);
+      if (task != null) {
+        this.monitor.finish(task);
+      }
+      if (retries > 0) {
+        this.retriedTables.put(tn.getGenericName() + (range == null ? "" : "#" + (range.getIndex() + 1)), retries);
+      }
+    }
+  }
+
+  private static SQLException findSQLException(final Throwable e) {
+    for (Throwable t = e; t != null; t = t.getCause()) {
+      if (t instanceof SQLException) {
+        return (SQLException) t;
+      }
+    }
+    return null;
+  }
+
+  // The state of the hashing after a row, to read the rest of the rows again
+
+  private static class RestorePoint {
+
+    private long row;
+    private RowKey key;
+    private Hasher hasher;
 
-          rowComparator.next();
-          active = consumer.consumeRow(row, h);
+    private RestorePoint(final long row, final RowKey key, final Hasher hasher) {
+      this.row = row;
+      this.key = key;
+      this.hasher = hasher;
+    }
+
+  }
+
+  // Reads and digests the rows of a table, one at a time. The reading
+  // (fetch) and the digesting (digest) can run in different threads, but the
+  // rows must be digested in order by a single thread.
+
+  private class RowDigester {
+
+    private Table t;
+    private Column[] columns;
+    private Serializer<?>[] serializers;
+    private ByteSink sink;
+    private Hasher h;
+    private HashConsumer consumer;
+    private RowComparator rowComparator;
+    private String progress;
+    private String sortedBy;
+    private int firstOrdinal;
+
+    private long row;
+    private int logCount;
+    private int orderingErrors;
+    private Object[] fetchedValues;
+
+    private CheckpointConsumer checkpoints;
+    private long checkpointRows;
+    private Queue<ChunkEnd> chunkEnds;
+    private long lastCheckpoint;
+    private RowOrdering ordering;
+    private RestorePoint restorePoint;
+    private ProgressMonitor.Task task;
+    private long bytes;
+    private int[] keyIndexes; // the ordering columns, when the consumer needs the keys
+
+    private RowDigester(Table t, Hasher h, HashConsumer consumer, RowComparator rowComparator, String progress,
+        String sortedBy, int firstOrdinal) {
+      this.t = t;
+      this.columns = t.getColumns().toArray(new Column[0]);
+      this.serializers = t.getColumns().stream().map(c -> c.getSerializer()).toArray(Serializer<?>[]::new);
+      this.sink = new ByteSink();
+      this.h = h;
+      this.consumer = consumer;
+      this.rowComparator = rowComparator;
+      this.progress = progress;
+      this.sortedBy = sortedBy;
+      this.firstOrdinal = firstOrdinal;
+      this.row = 0;
+      this.logCount = 0;
+      this.orderingErrors = 0;
+      this.checkpoints = null;
+      this.chunkEnds = null;
+      this.lastCheckpoint = 0;
+      this.task = null;
+      this.bytes = 0;
+      this.keyIndexes = null;
+    }
 
+    public long getRow() {
+      return row;
+    }
+
+    public int getOrderingErrors() {
+      return orderingErrors;
+    }
+
+    // Reads and digests the current row of the result set. The values are
+    // serialized into a reusable sink, so no memory is allocated for them.
+    // Returns false when no more rows should be read.
+
+    public boolean readAndDigest(final ResultSet rs) throws Exception {
+      startRow();
+      for (int i = 0; i < this.columns.length; i++) {
+        Serializer<?> s = this.serializers[i];
+        this.sink.reset();
+        boolean notNull;
+        try {
+          notNull = s.readInto(rs, this.firstOrdinal + i, this.sink);
+        } catch (SQLException e) {
+          throw readError(this.columns[i], this.row, e);
+        } catch (RuntimeException e) {
+          throw serializationError(this.columns[i], this.row, e);
+        }
+        if (this.rowComparator != null) {
+          this.rowComparator.setColumn(i + 1, notNull ? this.sink : null);
         }
+        digestValue(this.columns[i], notNull ? this.sink : null);
+      }
+      return endRow();
+    }
+
+    // Pipelined hashing: the reader thread fetches the values of the current
+    // row, and the hashing thread digests them
+
+    public void fetch(final ResultSet rs, final Object[] values, final long rowNumber) throws SQLException {
+      for (int i = 0; i < this.columns.length; i++) {
+        try {
+          values[i] = this.serializers[i].fetch(rs, this.firstOrdinal + i);
+        } catch (SQLException e) {
+          throw readError(this.columns[i], rowNumber, e);
+        } catch (RuntimeException e) {
+          throw serializationError(this.columns[i], rowNumber, e);
+        }
+      }
+    }
 
-        if (orderingErrors > 0) {
-          error("The hashing computation won't be predictable for the table '" + tn.getCanonicalName()
-              + "' and can result in false positives or false negatives.");
+    public boolean digest(final Object[] values) throws Exception {
+      this.fetchedValues = values;
+      startRow();
+      for (int i = 0; i < this.columns.length; i++) {
+        Object v = values[i];
+        byte[] bytes;
+        try {
+          bytes = this.serializers[i].serializeValue(v);
+        } catch (RuntimeException e) {
+          throw serializationError(this.columns[i], this.row, e);
         }
-        if (orderingErrors > MAX_ORDERING_ERRORS) {
-          error("A total of " + orderingErrors + " non-deterministic hashing ordering issues were found in table '"
-              + tn.getCanonicalName() + "'; only the first " + MAX_ORDERING_ERRORS + " were displayed.");
+        this.sink.reset();
+        if (bytes != null) {
+          this.sink.write(bytes);
         }
+        if (this.rowComparator != null) {
+          this.rowComparator.setColumn(i + 1, bytes == null ? null : this.sink);
+        }
+        digestValue(this.columns[i], bytes == null ? null : this.sink);
+      }
+      return endRow();
+    }
 
-        consumer.consumeTable(t.getIdentifier().getGenericName(), orderingErrors > 0, false, row);
-        tableConsumed = true;
+    private void startRow() {
+      this.logCount++;
+      this.row++;
+      if (this.logCount >= 100000 && this.task == null) {
+        info(this.progress + DF.format(this.row) + " rows read");
+        this.logCount = 0;
+      }
+      this.consumer.consumeValueHeader(this.row);
+    }
+
+    private void digestValue(final Column c, final ByteSink bytes) throws CloneNotSupportedException {
+      if (bytes != null) {
+        this.bytes += bytes.size();
+      }
+      this.h.apply(bytes);
+      this.consumer.consumeValue(this.row, c, bytes, this.h);
+    }
+
+    private boolean endRow() throws Exception {
+      this.h.endRow();
+      if (this.task != null) {
+        this.task.update(this.row, this.bytes);
+      }
+      if (ds.getMaxRows() != null && this.row >= ds.getMaxRows()) {
+        info(this.progress + "- Limit of " + ds.getMaxRows()
+            + " rows (max.rows) reached when reading this table -- moving on to the next table.");
+        return false;
+      }
+
+      if (this.rowComparator != null) {
+        boolean hasValidOrdering = this.rowComparator.hasValidOrdering();
+        if (!hasValidOrdering) {
+          this.orderingErrors++;
+          if (this.orderingErrors <= MAX_ORDERING_ERRORS) {
+            error("Non-deterministic hashing ordering found in table '" + this.t.getIdentifier().getCanonicalName()
+                + "' (#" + this.orderingErrors
+                + "); found at least two rows with the same value in the ordering columns ("
+                + this.rowComparator.getOrderingColumns().stream().collect(Collectors.joining(", "))
+                + "), but different values in the rest of the columns:");
+            error(" * Ordering values: " + renderOrderingValues());
+            error(" * Previous row (serialized): " + renderDifferentValues(false));
+            error(" * Current row: " + renderDifferentValues(true));
+          }
+        }
+        this.rowComparator.next();
+      }
 
-        info("    " + DF.format(row) + " row(s) read");
+      // The reader can be ahead when pipelined, so the chunk ends are queued
 
-      } catch (Throwable e) {
-        e.printStackTrace(System.out);
-        info("tableConsumed=" + tableConsumed);
-        if (!tableConsumed) {
-          try {
-            consumer.consumeTable(t.getIdentifier().getGenericName(), orderingErrors > 0, true, row);
-          } catch (InvalidHashFileException e1) {
-            error("Could not save hash for table '" + t.getIdentifier().getGenericName() + "'.");
-            e.printStackTrace(System.out);
+      if (this.chunkEnds != null) {
+        ChunkEnd e = this.chunkEnds.peek();
+        if (e != null && e.row == this.row) {
+          this.chunkEnds.poll();
+          if (this.restorePoint != null) {
+            this.restorePoint = new RestorePoint(this.row, e.key, this.h.copy());
           }
+          if (this.checkpoints != null && this.row - this.lastCheckpoint >= this.checkpointRows) {
+            this.checkpoints.checkpoint(this.t.getIdentifier().getGenericName(),
+                new Checkpoint(this.row, this.h.saveState(), this.ordering.encode(e.key)));
+            this.lastCheckpoint = this.row;
+          }
+        }
+      }
+
+      if (this.keyIndexes != null) {
+        Object[] values = new Object[this.keyIndexes.length];
+        for (int i = 0; i < values.length; i++) {
+          values[i] = currentValue(this.keyIndexes[i]);
         }
-        info("    Failed to read table " + tn.getGenericName() + " -- skipped");
+        this.consumer.consumeRowKey(this.row, new RowKey(values));
       }
+
+      return this.consumer.consumeRow(this.row, this.h);
     }
+
+    // The values are only read back to report an ordering error, or to build
+    // the row keys
+
+    private Object currentValue(final int index) {
+      return this.fetchedValues != null ? this.fetchedValues[index] : this.serializers[index].getValue();
+    }
+
+    private String renderOrderingValues() {
+      return Arrays.stream(this.rowComparator.getOrderingIndexes())
+          .mapToObj(i -> this.rowComparator.getColumnName(i) + "=" + currentValue(i))
+          .collect(Collectors.joining(", "));
+    }
+
+    private String renderDifferentValues(final boolean current) {
+      return Arrays.stream(this.rowComparator.getDifferentIndexes()).mapToObj(i -> {
+        String name = this.rowComparator.getColumnName(i);
+        if (!current) {
+          return name + "=" + this.rowComparator.renderPrevious(i);
+        }
+        Object v = currentValue(i);
+        return name + "=" + (v == null ? "null" : v + " (" + this.rowComparator.renderCurrent(i) + ")");
+      }).collect(Collectors.joining(", "));
+    }
+
+    private SQLException readError(final Column c, final long rowNumber, final SQLException e) {
+      error("The JDBC driver could not read the value of column '" + c.getCanonicalName() + "' on table '"
+          + this.t.getIdentifier().getCanonicalName() + "' as a '" + c.getSerializer().getName()
+          + "' value. The error happened in row #" + DF.format(rowNumber) + this.sortedBy + ".");
+      return e;
+    }
+
+    private RuntimeException serializationError(final Column c, final long rowNumber, final RuntimeException e) {
+      error("Could not serialize the value for column '" + c.getCanonicalName() + "' on table '"
+          + this.t.getIdentifier().getCanonicalName() + "'. The error happened in row #" + DF.format(rowNumber)
+          + this.sortedBy + ". Is '" + c.getSerializer().getClass().getSimpleName()
+          + "' the correct serializer for this column?");
+      return e;
+    }
+
   }
 
-  private String renderOrdering(Table t) throws CouldNotHashException {
-    String selectOrdering = null;
-    TableHashingOrdering tho = this.ds.getHashingOrderings().get(t.getIdentifier().getGenericName());
-    if (tho != null) {
+  // Pipelined hashing: a reader thread fetches the rows into batches while
+  // this thread digests them, in order. The batches are reused, and the
+  // reader waits when all of them are full (backpressure).
 
-      try {
-        tho.validate(this.ds, t);
-      } catch (InvalidConfigurationException e) {
-        throw new CouldNotHashException(e.getMessage());
-      }
+  private static final int PIPELINE_BATCHES = 4;
+  private static final int PIPELINE_BATCH_ROWS = 512;
 
-      Collection<TableHashingMember> thms = tho.getMembers().values();
+  private static class RowBatch {
 
-      if (thms.isEmpty()) { // declared: *
+    private Object[][] rows;
+    private int size;
+    private boolean last;
+    private Throwable failure;
 
-        StringBuilder sb = new StringBuilder();
-        boolean first = true;
-        for (Column c : t.getColumns()) {
-          if (first) {
-            first = false;
-          } else {
-            sb.append(", ");
+    private RowBatch(final int columns) {
+      this.rows = new Object[PIPELINE_BATCH_ROWS][columns];
+      this.size = 0;
+      this.last = false;
+      this.failure = null;
+    }
+
+  }
+
+  private void digestPipelined(final RowCursor cursor, final RowDigester d) throws Exception {
+    int columns = d.columns.length;
+    BlockingQueue<RowBatch> free = new ArrayBlockingQueue<>(PIPELINE_BATCHES);
+    BlockingQueue<RowBatch> full = new ArrayBlockingQueue<>(PIPELINE_BATCHES + 1);
+    for (int i = 0; i < PIPELINE_BATCHES; i++) {
+      free.add(new RowBatch(columns));
+    }
+    AtomicBoolean cancelled = new AtomicBoolean(false);
+    long[] readerNanos = new long[2]; // reading, waiting
+
+    Thread reader = new Thread(() -> {
+      long rowNumber = 0;
+      boolean more = true;
+      while (more && !cancelled.get()) {
+        RowBatch b;
+        long waitStart = System.nanoTime();
+        try {
+          b = free.take();
+        } catch (InterruptedException e) {
+          return;
+        }
+        long readStart = System.nanoTime();
+        readerNanos[1] += readStart - waitStart;
+        b.size = 0;
+        try {
+          while (b.size < PIPELINE_BATCH_ROWS && !cancelled.get() && (more = cursor.next())) {
+            rowNumber++;
+            if (rowNumber == 1 && d.task != null) {
+              d.task.firstRow();
+            }
+            d.fetch(cursor.getResultSet(), b.rows[b.size], rowNumber);
+            b.size++;
           }
-          String cm = this.ds.getDialect().escapeIdentifierAsNeeded(c.getCanonicalName());
-          if (c.getSerializer().canUseACollation() && this.ds.getHashingCollation() != null) {
-            cm = this.ds.getDialect().addCollation(cm, this.ds.getHashingCollation());
+        } catch (Throwable e) {
+          b.failure = e;
+          more = false;
+        }
+        b.last = !more;
+        readerNanos[0] += System.nanoTime() - readStart;
+        full.add(b); // never blocks: there are more slots than batches
+      }
+    }, "highfive-reader-" + d.t.getIdentifier().getGenericName());
+    reader.setDaemon(true);
+    reader.start();
+
+    long digestNanos = 0;
+    long waitNanos = 0;
+    try {
+      boolean active = true;
+      while (active) {
+        long waitStart = System.nanoTime();
+        RowBatch b = full.take();
+        long digestStart = System.nanoTime();
+        waitNanos += digestStart - waitStart;
+        for (int i = 0; i < b.size && active; i++) {
+          active = d.digest(b.rows[i]);
+        }
+        digestNanos += System.nanoTime() - digestStart;
+        if (b.failure != null) {
+          if (b.failure instanceof Exception) {
+            throw (Exception) b.failure;
           }
-          sb.append(cm);
+          throw new RuntimeException(b.failure);
         }
-        selectOrdering = sb.toString();
+        active = active && !b.last;
+        free.add(b);
+      }
+    } finally {
+      cancelled.set(true);
+      free.clear();
+      free.add(new RowBatch(0)); // wakes up the reader, if waiting
+      reader.join();
+    }
 
-      } else { // declared: columns
+    if (d.task != null) {
+      d.task.addTimes(readerNanos[0], digestNanos);
+    }
+    info(d.progress + "stage timings -- read: " + renderSeconds(readerNanos[0]) + " (waited "
+        + renderSeconds(readerNanos[1]) + "), digest: " + renderSeconds(digestNanos) + " (waited "
+        + renderSeconds(waitNanos) + ") -- " + (waitNanos > readerNanos[1] ? "reading" : "digesting")
+        + " is the bottleneck");
+  }
 
-        StringBuilder sb = new StringBuilder();
-        boolean first = true;
-        for (TableHashingMember m : thms) {
-          Column col = t.findColumn(m.getGenericColumnName());
-          if (col == null) {
-            throw new CouldNotHashException("Could not find column '" + m.getGenericColumnName()
-                + "' specified in the hashing ordering in the table '" + t.getIdentifier().getCanonicalName() + "'.");
-          }
-          if (first) {
-            first = false;
-          } else {
-            sb.append(", ");
-          }
+  private static String renderSeconds(final long nanos) {
+    return String.format("%.3f s", nanos / 1e9);
+  }
 
-          String cm = this.ds.getDialect().escapeIdentifierAsNeeded(m.getGenericColumnName());
-          if (col.getSerializer().canUseACollation() && this.ds.getHashingCollation() != null) {
-            cm = this.ds.getDialect().addCollation(cm, this.ds.getHashingCollation());
-          }
+  // The rows of a table (or key range), read by one or more queries
 
-          sb.append(cm);
-          if (!m.isAscending()) {
-            sb.append(" desc");
-          }
-          if (m.getNullsFirst() != null) {
-            try {
-              sb.append(this.ds.getDialect().renderNullsOrdering(m.getNullsFirst()));
-            } catch (UnsupportedSQLFeatureException e) {
-              throw new CouldNotHashException(
-                  "The schema is not supported since the table '" + t.getIdentifier().getGenericName()
-                      + "' ordering includes NULLS FIRST or NULLS LAST and this is not supported by this database.");
+  private interface RowCursor extends AutoCloseable {
+
+    boolean next() throws SQLException;
+
+    ResultSet getResultSet();
+
+    // Ordinal of the first column of the table in the result set
+
+    int getFirstOrdinal();
+
+    @Override
+    void close() throws SQLException;
+
+  }
+
+  private class QueryCursor implements RowCursor {
+
+    private PreparedStatement ps;
+    private List<Object> params;
+    private ResultSet rs;
+
+    private QueryCursor(final Connection conn, final String sql, final List<Object> params) throws SQLException {
+      this.ps = conn.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+      if (ds.getSelectFetchSize() != null) {
+        this.ps.setFetchSize(ds.getSelectFetchSize());
+      }
+      this.params = params;
+      this.rs = null;
+    }
+
+    @Override
+    public boolean next() throws SQLException {
+      if (this.rs == null) {
+        RowOrdering.bind(this.ps, this.params);
+        this.rs = this.ps.executeQuery();
+      }
+      return this.rs.next();
+    }
+
+    @Override
+    public ResultSet getResultSet() {
+      return this.rs;
+    }
+
+    @Override
+    public int getFirstOrdinal() {
+      return 1;
+    }
+
+    @Override
+    public void close() throws SQLException {
+      try {
+        if (this.rs != null) {
+          this.rs.close();
+        }
+      } finally {
+        this.ps.close();
+      }
+    }
+
+  }
+
+  // Keyset reading: the rows are read in chunks, each one a short query that
+  // starts after the last key of the previous chunk and runs in its own
+  // transaction, so no cursor or snapshot is kept open for the whole table.
+  // The key columns are selected first, so the columns of each row are still
+  // read from left to right.
+
+  private class KeysetCursor implements RowCursor {
+
+    private Connection conn;
+    private RowOrdering ordering;
+    private List<Serializer<?>> keySerializers;
+    private RowKey upTo;
+    private long chunkRows;
+    private String select;
+    private String from;
+
+    private String preparedSQL;
+    private PreparedStatement ps;
+    private ResultSet rs;
+    private RowKey lastKey;
+    private long chunkRowCount;
+    private long rows;
+    private boolean finished;
+    private Queue<ChunkEnd> chunkEnds; // null when no checkpoints are taken
+
+    // Resumes after a key, when the rows before it were already read
+
+    private KeysetCursor(final Connection conn, final Table t, final RowOrdering ordering, final String names,
+        final KeyRange range, final long chunkRows, final RowKey resumeAfter, final long resumedRows) {
+      this.conn = conn;
+      this.ordering = ordering;
+      this.keySerializers = ordering.getSerializers().stream().map(s -> s.newInstance()).collect(Collectors.toList());
+      this.upTo = range == null ? null : range.getUpTo();
+      this.lastKey = resumeAfter != null ? resumeAfter : (range == null ? null : range.getAfter());
+      this.rows = resumedRows;
+      this.chunkEnds = null;
+      this.chunkRows = chunkRows;
+      this.select = "select" + ds.getDialect().renderHeadLimit(chunkRows) + " " + ordering.renderColumns() + ", "
+          + names;
+      this.from = " from " + ds.getDialect().renderSQLTableIdentifier(t.getIdentifier());
+      this.finished = false;
+    }
+
+    @Override
+    public boolean next() throws SQLException {
+      while (!this.finished) {
+        if (this.rs != null) {
+          if (this.rs.next()) {
+            this.chunkRowCount++;
+            this.rows++;
+            if (this.chunkRowCount == this.chunkRows) {
+              this.lastKey = readKey();
+              if (this.chunkEnds != null) {
+                this.chunkEnds.add(new ChunkEnd(this.rows, this.lastKey));
+              }
             }
+            return true;
           }
+          this.rs.close();
+          this.rs = null;
+          this.finished = this.chunkRowCount < this.chunkRows;
+        }
+        if (!this.finished) {
+          openChunk();
         }
-        selectOrdering = sb.toString();
-
       }
+      return false;
+    }
 
-    } else { // primary key
+    private void openChunk() throws SQLException {
+      List<Object> params = new ArrayList<>();
+      String where = this.ordering.renderRange(new KeyRange(this.lastKey, this.upTo, 0, 1), params);
+      String sql = this.select + this.from + (where == null ? "" : " where " + where) + " order by "
+          + this.ordering.renderOrderBy() + ds.getDialect().renderTailLimit(this.chunkRows);
 
-      List<Column> pkColumns = t.getPKColumns();
-      if (pkColumns.isEmpty()) {
-        throw new CouldNotHashException(
-            "The schema is not supported since the table '" + t.getIdentifier().getGenericName()
-                + "' has no primary key and no hashing ordering was declared using the property '" + this.ds.getName()
-                + ".hashing.ordering'.");
-      }
+      // All chunks but (possibly) the first one use the same query
 
-      StringBuilder sb = new StringBuilder();
-      boolean first = true;
-      for (Column c : pkColumns) {
-        if (first) {
-          first = false;
-        } else {
-          sb.append(", ");
+      if (!sql.equals(this.preparedSQL)) {
+        if (this.ps != null) {
+          this.ps.close();
         }
-        String cm = this.ds.getDialect().escapeIdentifierAsNeeded(c.getCanonicalName());
-        if (c.getSerializer().canUseACollation() && this.ds.getHashingCollation() != null) {
-          cm = this.ds.getDialect().addCollation(cm, this.ds.getHashingCollation());
+        if (ds.getLogSQL()) {
+          info("    * sql: " + sql);
         }
-        sb.append(cm);
+        this.ps = this.conn.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+        if (ds.getSelectFetchSize() != null) {
+          this.ps.setFetchSize(ds.getSelectFetchSize());
+        }
+        this.preparedSQL = sql;
       }
-      selectOrdering = sb.toString();
 
+      this.conn.setAutoCommit(true); // end the transaction of the previous chunk
+      this.conn.setAutoCommit(ds.getSelectAutoCommit());
+
+      RowOrdering.bind(this.ps, params);
+      this.rs = this.ps.executeQuery();
+      this.chunkRowCount = 0;
     }
-    return selectOrdering;
-  }
 
-  private RowComparator getRowComparator(Table t) {
+    private RowKey readKey() throws SQLException {
+      Object[] values = new Object[this.keySerializers.size()];
+      for (int i = 0; i < values.length; i++) {
+        Serializer<?> s = this.keySerializers.get(i);
+        values[i] = s.read(this.rs, i + 1) == null ? null : s.getValue();
+      }
+      return new RowKey(values);
+    }
 
-    Map<String, Integer> ordinals = new HashMap<>();
-    int ordinal = 1;
-    for (Column c : t.getColumns()) {
-      ordinals.put(c.getCanonicalName(), ordinal);
-      ordinal++;
+    @Override
+    public ResultSet getResultSet() {
+      return this.rs;
     }
 
-    List<String> columnNames = t.getColumns().stream().map(c -> c.getName()).collect(Collectors.toList());
-    List<Integer> orderingColumnsOrdinals;
+    @Override
+    public int getFirstOrdinal() {
+      return this.keySerializers.size() + 1;
+    }
 
-    TableHashingOrdering tho = this.ds.getHashingOrderings().get(t.getIdentifier().getGenericName());
-    if (tho == null) { // ordering not declared -- use the PK
-      orderingColumnsOrdinals = t.getColumns().stream().filter(c -> c.getPKPosition() != null)
-          .map(c -> ordinals.get(c.getCanonicalName())).collect(Collectors.toList());
-    } else {
-      Collection<TableHashingMember> thms = tho.getMembers().values();
-      if (thms.isEmpty()) { // ordering declared as: *
-        orderingColumnsOrdinals = IntStream.range(1, t.getColumns().size() + 1).boxed().collect(Collectors.toList());
-      } else { // ordering declared as a list of columns
-        orderingColumnsOrdinals = new ArrayList<>();
-        for (TableHashingMember m : thms) {
-          Column col = t.findColumn(m.getGenericColumnName());
-          orderingColumnsOrdinals.add(ordinals.get(col.getCanonicalName()));
+    @Override
+    public void close() throws SQLException {
+      try {
+        if (this.rs != null) {
+          this.rs.close();
+        }
+      } finally {
+        if (this.ps != null) {
+          this.ps.close();
         }
       }
     }
 
-    return new RowComparator(columnNames, orderingColumnsOrdinals);
   }
 
-  private static class RowComparator {
+  // The last row of a keyset chunk, and its key
 
-    private int numberOfColumns;
-    private String[] columnNames;
+  private static class ChunkEnd {
 
-    private boolean firstRow;
-    private boolean[] usedForOrdering;
-    private String[] previousRow;
-    private String[] currentRow;
+    private long row;
+    private RowKey key;
 
-    private List<String> orderingColumns;
+    private ChunkEnd(final long row, final RowKey key) {
+      this.row = row;
+      this.key = key;
+    }
+
+  }
 
-    public RowComparator(List<String> columnNames, List<Integer> orderingColumnsOrdinals) {
+  // Detects non-deterministic orderings: two consecutive rows with the same
+  // values in the ordering columns, but different values in the rest of the
+  // columns. It keeps the serialized values of the last two rows in reusable
+  // buffers, and compares the rest of the columns only when the ordering
+  // columns tie.
 
-      this.numberOfColumns = columnNames.size();
-      this.columnNames = columnNames.toArray(new String[0]);
+  private static class RowComparator {
 
-      this.firstRow = true;
-      this.usedForOrdering = new boolean[this.numberOfColumns];
-      this.previousRow = new String[this.numberOfColumns];
-      this.currentRow = new String[this.numberOfColumns];
-      for (int i = 0; i < this.numberOfColumns; i++) {
-        this.usedForOrdering[i] = false;
-        this.previousRow[i] = null;
-        this.currentRow[i] = null;
-      }
+    private String[] columnNames;
+    private int[] orderingIndexes;
+    private int[] restIndexes;
+    private List<String> orderingColumns;
 
-      this.orderingColumns = orderingColumnsOrdinals.stream().map(o -> this.columnNames[o - 1])
+    private boolean firstRow;
+    private RowValues previousRow;
+    private RowValues currentRow;
+
+    public RowComparator(Table t, RowOrdering ordering) {
+      this.columnNames = t.getColumns().stream().map(c -> c.getName()).toArray(String[]::new);
+      this.orderingIndexes = ordering.getMembers().stream().mapToInt(m -> m.getOrdinal() - 1).toArray();
+      Set<Integer> used = Arrays.stream(this.orderingIndexes).boxed().collect(Collectors.toSet());
+      this.restIndexes = IntStream.range(0, this.columnNames.length).filter(i -> !used.contains(i)).toArray();
+      this.orderingColumns = Arrays.stream(this.orderingIndexes).mapToObj(i -> this.columnNames[i])
           .collect(Collectors.toList());
-
-      for (Integer ordinal : orderingColumnsOrdinals) {
-        this.usedForOrdering[ordinal - 1] = true;
-      }
+      this.firstRow = true;
+      this.previousRow = new RowValues(this.columnNames.length);
+      this.currentRow = new RowValues(this.columnNames.length);
     }
 
-    public void setColumn(int ordinal, Object value) {
-      this.currentRow[ordinal - 1] = value == null ? null : ("" + value);
+    // The columns are set in order; null bytes stand for a null value
+
+    public void setColumn(int ordinal, ByteSink bytes) {
+      this.currentRow.set(ordinal - 1, bytes);
     }
 
     public boolean hasValidOrdering() {
       if (this.firstRow) {
         this.firstRow = false;
         return true;
-      } else {
-
-        boolean equalOrdering = true;
-        boolean equalRest = true;
-
-        for (int i = 0; i < this.numberOfColumns; i++) {
-          boolean indf = isNotDistinctFrom(this.currentRow[i], this.previousRow[i]);
-//          System.out.println(">> comparing " + this.currentRow[i] + " and " + this.previousRow[i] + " --> " + indf);
-          if (this.usedForOrdering[i]) {
-            equalOrdering = equalOrdering && indf;
-          } else {
-            equalRest = equalRest && indf;
-          }
-        }
-
-        if (equalOrdering) {
-          return equalRest;
-        } else {
+      }
+      for (int i : this.orderingIndexes) {
+        if (!this.currentRow.isNotDistinctFrom(this.previousRow, i)) {
           return true;
         }
       }
-    }
-
-    private boolean isNotDistinctFrom(String a, String b) {
-      return a == null ? b == null : a.equals(b);
+      for (int i : this.restIndexes) {
+        if (!this.currentRow.isNotDistinctFrom(this.previousRow, i)) {
+          return false;
+        }
+      }
+      return true;
     }
 
     public void next() {
-//      System.out.println("--next line");
+      RowValues r = this.previousRow;
       this.previousRow = this.currentRow;
-      this.currentRow = new String[this.numberOfColumns];
+      this.currentRow = r;
+      this.currentRow.reset();
     }
 
-    public String renderCurrentRow() {
-      return this.renderRow(this.currentRow);
+    public int[] getOrderingIndexes() {
+      return orderingIndexes;
     }
 
-    public String renderPreviousRow() {
-      return this.renderRow(this.previousRow);
+    public int[] getDifferentIndexes() {
+      return Arrays.stream(this.restIndexes).filter(i -> !this.currentRow.isNotDistinctFrom(this.previousRow, i))
+          .toArray();
     }
 
-    private String renderRow(String[] values) {
-      StringBuilder sb = new StringBuilder();
-      for (int i = 0; i < this.numberOfColumns; i++) {
-        if (i > 0) {
-          sb.append(", ");
-        }
-        sb.append(this.columnNames[i] + "=" + values[i]);
-      }
-      return sb.toString();
+    public String getColumnName(int index) {
+      return this.columnNames[index];
+    }
+
+    public String renderPrevious(int index) {
+      return this.previousRow.renderHex(index);
+    }
+
+    public String renderCurrent(int index) {
+      return this.currentRow.renderHex(index);
     }
 
     public List<String> getOrderingColumns() {
@@ -472,4 +1379,60 @@ public abstract class GenericHashCommand extends DataSourceCommand {
 
   }
 
+  // The serialized values of a row, stored one after the other in a single
+  // buffer
+
+  private static class RowValues {
+
+    private ByteSink bytes;
+    private int[] offsets;
+    private int[] lengths;
+
+    private RowValues(int numberOfColumns) {
+      this.bytes = new ByteSink();
+      this.offsets = new int[numberOfColumns];
+      this.lengths = new int[numberOfColumns];
+    }
+
+    private void reset() {
+      this.bytes.reset();
+    }
+
+    private void set(int index, ByteSink value) {
+      this.offsets[index] = this.bytes.size();
+      if (value == null) {
+        this.lengths[index] = -1;
+      } else {
+        this.lengths[index] = value.size();
+        this.bytes.write(value.getBuffer(), 0, value.size());
+      }
+    }
+
+    private boolean isNotDistinctFrom(RowValues other, int index) {
+      int length = this.lengths[index];
+      if (length != other.lengths[index]) {
+        return false;
+      }
+      byte[] a = this.bytes.getBuffer();
+      byte[] b = other.bytes.getBuffer();
+      int pa = this.offsets[index];
+      int pb = other.offsets[index];
+      for (int i = 0; i < length; i++) {
+        if (a[pa + i] != b[pb + i]) {
+          return false;
+        }
+      }
+      return true;
+    }
+
+    private String renderHex(int index) {
+      if (this.lengths[index] == -1) {
+        return "null";
+      }
+      int offset = this.offsets[index];
+      return Utl.toHex(Arrays.copyOfRange(this.bytes.getBuffer(), offset, offset + this.lengths[index]));
+    }
+
+  }
+
 }
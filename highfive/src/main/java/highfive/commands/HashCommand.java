@@ -10,12 +10,32 @@ import highfive.exceptions.InvalidConfigurationException;
 import highfive.exceptions.InvalidHashFileException;
 import highfive.exceptions.InvalidSchemaException;
 import highfive.exceptions.UnsupportedDatabaseTypeException;
+import highfive.model.DataSource;
+import highfive.model.HashFile;
 
 public class HashCommand extends GenericHashCommand {
 
+  private HashFile baseline;
+
   public HashCommand(final String datasourceName)
       throws InvalidConfigurationException, SQLException, UnsupportedDatabaseTypeException {
+    this(datasourceName, false);
+  }
+
+  public HashCommand(final String datasourceName, final boolean resume)
+      throws InvalidConfigurationException, SQLException, UnsupportedDatabaseTypeException {
     super("Hash", datasourceName);
+    this.resume = resume;
+    this.baseline = null;
+  }
+
+  // One of the datasources hashed at the same time by a MultiHashCommand; the
+  // baseline, when present, decides the key ranges of the tables
+
+  HashCommand(final DataSource ds, final HashFile baseline, final boolean resume) {
+    super("Hash", ds);
+    this.resume = resume;
+    this.baseline = baseline;
   }
 
   @Override
@@ -23,8 +43,9 @@ public class HashCommand extends GenericHashCommand {
       throws NoSuchAlgorithmException, SQLException, UnsupportedDatabaseTypeException, InvalidSchemaException,
       CouldNotHashException, IOException, InvalidHashFileException, InvalidConfigurationException {
 
-    try (HashFileWriter hw = new HashFileWriter(this.ds.getHashFileName())) {
-      super.hashOneSchema(hw);
+    try (HashFileWriter hw = new HashFileWriter(this.ds.getHashFileName(), this.ds.getHashingMode(),
+        this.ds.getHashingAlgorithm())) {
+      super.hashOneSchema(hw, this.baseline);
     } catch (Exception e) {
       e.printStackTrace(System.out);
       throw new CouldNotHashException(e.getMessage());
@@ -8,6 +8,7 @@ import java.util.List;
 
 import highfive.commands.consumer.DumpFileReader.DumpFileIOException;
 import highfive.commands.consumer.DumpFileReader.InvalidDumpFileException;
+import highfive.commands.consumer.DumpFileWriter.DumpFileFormat;
 import highfive.commands.consumer.HashConsumer;
 import highfive.commands.consumer.HashConsumer.ExecutionStatus;
 import highfive.commands.consumer.HashDumpWriterFactory;
@@ -49,7 +50,7 @@ public class HashDumpCommand extends GenericHashCommand {
 
     File f = new File(this.ds.getHashDumpFileName());
 
-    try (HashConsumer hc = hashDumpConfig.getHashConsumer(f)) {
+    try (HashConsumer hc = hashDumpConfig.getHashConsumer(f, dumpFileFormat())) {
       super.hashOneTable(t, hc);
       ExecutionStatus status = hc.getStatus();
       if (!status.successful()) {
@@ -171,8 +172,9 @@ public class HashDumpCommand extends GenericHashCommand {
       return st;
     }
 
-    public HashConsumer getHashConsumer(File f) throws IOException, InvalidDumpFileException, DumpFileIOException {
-      return this.factory.getInstance(this, f);
+    public HashConsumer getHashConsumer(File f, DumpFileFormat format)
+        throws IOException, InvalidDumpFileException, DumpFileIOException {
+      return this.factory.getInstance(this, f, format);
     }
 
     // Getters
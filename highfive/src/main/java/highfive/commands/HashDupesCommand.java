@@ -49,13 +49,12 @@ public class HashDupesCommand extends DataSourceCommand {
 
     info(" ");
 
-    for (Identifier tn : tableNames) {
+    for (Table t : this.ds.getDialect().getTablesMetaData(tableNames)) {
 
       this.ds.getConnection().setAutoCommit(true); // end the current transaction, if any
       this.ds.getConnection().setAutoCommit(this.ds.getSelectAutoCommit());
 
-      String tid = this.ds.getDialect().renderSQLTableIdentifier(tn);
-      Table t = this.ds.getDialect().getTableMetaData(tn);
+      String tid = this.ds.getDialect().renderSQLTableIdentifier(t.getIdentifier());
       String sql = "select count(*) as dupes, sum(cnt) as occurrences from (select count(*) as cnt from " + tid
           + " group by " + getOrderingColumns(t) + " having count(*) > 1) x";
 
@@ -43,7 +43,7 @@ public class HashLoggingCommand extends GenericHashCommand {
 
     File f = new File(this.ds.getHashDumpFileName());
 
-    try (HashConsumer hc = hashDumpConfig.getHashConsumer(f)) {
+    try (HashConsumer hc = hashDumpConfig.getHashConsumer(f, dumpFileFormat())) {
       super.hashOneTable(t, hc);
       ExecutionStatus status = hc.getStatus();
       if (status.successful()) {
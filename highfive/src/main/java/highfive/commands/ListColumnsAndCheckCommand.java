@@ -1,9 +1,6 @@
 package highfive.commands;
 
-import java.sql.PreparedStatement;
-import java.sql.ResultSet;
 import java.sql.SQLException;
-import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.TreeMap;
@@ -36,12 +33,10 @@ public class ListColumnsAndCheckCommand extends DataSourceCommand {
 
     Map<String, Integer> typeCount = new TreeMap<>();
 
-    List<Table> tables = new ArrayList<>();
-    for (Identifier tn : tableNames) {
-      Table t = this.ds.getDialect().getTableMetaData(tn);
-      tables.add(t);
+    List<Table> tables = this.ds.getDialect().getTablesMetaData(tableNames);
+    for (Table t : tables) {
       info(" ");
-      info("Table " + tn.getGenericName() + " (" + t.getColumns().size() + " columns):");
+      info("Table " + t.getIdentifier().getGenericName() + " (" + t.getColumns().size() + " columns):");
       for (Column c : t.getColumns()) {
         String key = c.getRenderedType() + " [" + (c.getSerializer() == null ? "N/A" : c.getSerializer().getName())
             + "]";
@@ -58,18 +53,7 @@ public class ListColumnsAndCheckCommand extends DataSourceCommand {
       info("  " + t + ": " + typeCount.get(t));
     }
 
-    info(" ");
-    info("Row Count:");
-    for (Identifier tn : tableNames) {
-      String tid = this.ds.getDialect().renderSQLTableIdentifier(tn);
-      String sql = "select count(*) from " + tid;
-      try (PreparedStatement ps = this.ds.getConnection().prepareStatement(sql); ResultSet rs = ps.executeQuery();) {
-        if (rs.next()) {
-          long count = rs.getLong(1);
-          info("  " + tn.getGenericName() + ": " + count + " rows");
-        }
-      }
-    }
+    displayRowCount(tables);
 
     // 3. Check if all tables have PK and all columns are supported
 
@@ -1,7 +1,6 @@
 package highfive.commands;
 
 import java.sql.SQLException;
-import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.TreeMap;
@@ -47,10 +46,8 @@ public class ListTablesAndCheckCommand extends DataSourceCommand {
 
     Map<String, Integer> typeCount = new TreeMap<>();
 
-    List<Table> tables = new ArrayList<>();
-    for (Identifier tn : tableNames) {
-      Table t = this.ds.getDialect().getTableMetaData(tn);
-      tables.add(t);
+    List<Table> tables = this.ds.getDialect().getTablesMetaData(tableNames);
+    for (Table t : tables) {
       for (Column c : t.getColumns()) {
         String key = c.getRenderedType() + " [" + (c.getSerializer() == null ? "N/A" : c.getSerializer().getName())
             + "]";
@@ -0,0 +1,184 @@
+package highfive.commands;
+
+import java.io.IOException;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import highfive.BuildInformation;
+import highfive.exceptions.CouldNotHashException;
+import highfive.exceptions.InvalidConfigurationException;
+import highfive.exceptions.InvalidHashFileException;
+import highfive.exceptions.UnsupportedDatabaseTypeException;
+import highfive.model.DataSource;
+import highfive.model.HashFile;
+import highfive.model.HashFile.ComparisonResult;
+
+// Hashes several datasources at the same time in one process, each one on its
+// own thread and with its own <datasource>.hashing.threads workers, so the run
+// takes about the time of the slowest datasource instead of the sum of them.
+// Each datasource writes its own hash file, as the hash command. The hash
+// files are then compared all together; when verifying, the baseline hash
+// file is compared with them too, and decides the key ranges of the tables.
+
+public class MultiHashCommand extends Command {
+
+  private static final String BASELINE = "baseline";
+
+  private List<DataSource> dss;
+  private String baselineFile;
+  private boolean resume;
+
+  public MultiHashCommand(final List<String> datasourceNames, final String baselineFile, final boolean resume)
+      throws InvalidConfigurationException, SQLException, UnsupportedDatabaseTypeException {
+    super(baselineFile == null ? "Hash" : "Verify");
+    info("HighFive " + BuildInformation.VERSION + " - build " + BuildInformation.BUILD_ID + " - Command: "
+        + super.getCommandName() + " (" + datasourceNames.size() + " datasources)");
+    info(" ");
+    this.dss = new ArrayList<>();
+    Set<String> names = new HashSet<>();
+    for (String name : datasourceNames) {
+      if (!names.add(name)) {
+        throw new InvalidConfigurationException("The datasource '" + name + "' is listed more than once.");
+      }
+      this.dss.add(DataSource.load(name));
+    }
+    this.baselineFile = baselineFile;
+    this.resume = resume;
+  }
+
+  @Override
+  public void run() throws SQLException, UnsupportedDatabaseTypeException, CouldNotHashException, IOException,
+      InvalidHashFileException {
+
+    for (int i = 0; i < this.dss.size(); i++) {
+      this.dss.get(i).show("DataSource " + (i + 1) + "/" + this.dss.size());
+      info(" ");
+    }
+
+    HashFile baseline = this.baselineFile == null ? null : HashFile.loadFrom(this.baselineFile);
+    checkComparable(baseline);
+
+    // 1. Hash all the datasources at the same time
+
+    info("Hashing " + this.dss.size() + " datasources at the same time:");
+    info(" ");
+    long start = System.nanoTime();
+    ExecutorService executor = Executors.newFixedThreadPool(this.dss.size());
+    List<Future<Long>> runs = new ArrayList<>();
+    for (DataSource ds : this.dss) {
+      HashCommand c = new HashCommand(ds, baseline, this.resume);
+      c.setLogPrefix("[" + ds.getName() + "] ");
+      runs.add(executor.submit(() -> {
+        long s = System.nanoTime();
+        c.execute();
+        return System.nanoTime() - s;
+      }));
+    }
+    executor.shutdown();
+
+    List<String> names = new ArrayList<>();
+    List<HashFile> files = new ArrayList<>();
+    if (baseline != null) {
+      names.add(BASELINE);
+      files.add(baseline);
+    }
+    List<String> failed = new ArrayList<>();
+    List<String> times = new ArrayList<>();
+    for (int i = 0; i < this.dss.size(); i++) {
+      DataSource ds = this.dss.get(i);
+      try {
+        long nanos = runs.get(i).get();
+        times.add("  " + ds.getName() + ": " + renderSeconds(nanos) + " -- " + ds.getHashFileName());
+        names.add(ds.getName());
+        files.add(HashFile.loadFrom(ds.getHashFileName()));
+      } catch (ExecutionException e) {
+        failed.add(ds.getName());
+        times.add("  " + ds.getName() + ": failed -- " + e.getCause().getMessage());
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        executor.shutdownNow();
+        throw new CouldNotHashException("Interrupted while hashing the datasources.");
+      }
+    }
+
+    info(" ");
+    info("Hashing times (" + renderSeconds(System.nanoTime() - start) + " in total):");
+    for (String t : times) {
+      info(t);
+    }
+
+    // 2. Compare all the hash files together
+
+    if (files.size() > 1) {
+      info(" ");
+      info("Comparing " + files.size() + " hash files (" + String.join(", ", names) + "):");
+      ComparisonResult result = HashFile.compareAll(names, files);
+      for (String err : result.getErrors()) {
+        error("  - " + err);
+      }
+      String warning = result.isNonDeterministic()
+          ? ", although with warnings, since the hashing ordering was non-deterministic in some of the databases"
+          : "";
+      if (result.getErrors().isEmpty()) {
+        info("  All data hashes match (" + result.getMatched() + " tables) -- The "
+            + (baseline == null ? "comparison" : "verification") + " succeeded" + warning + ".");
+      } else {
+        error("  A total of " + result.getMatched() + " tables matched and there were " + result.getErrors().size()
+            + " difference(s) in the hashes -- The " + (baseline == null ? "comparison" : "verification") + " failed"
+            + warning + ".");
+      }
+    }
+
+    if (!failed.isEmpty()) {
+      throw new CouldNotHashException("Could not hash the datasource(s): " + String.join(", ", failed));
+    }
+
+  }
+
+  // The hash files can only be compared when they use the same mode and
+  // algorithm
+
+  private void checkComparable(final HashFile baseline) throws CouldNotHashException {
+    DataSource first = this.dss.get(0);
+    if (baseline != null) {
+      if (baseline.getMode() != first.getHashingMode()) {
+        throw new CouldNotHashException("The baseline hash file was computed using the '"
+            + baseline.getMode().getName() + "' hashing mode, but the datasource '" + first.getName()
+            + "' uses the '" + first.getHashingMode().getName() + "' hashing mode (property '" + first.getName()
+            + ".hashing.mode'); they cannot be compared.");
+      }
+      if (!baseline.getAlgorithm().equals(first.getHashingAlgorithm())) {
+        throw new CouldNotHashException("The baseline hash file was computed using the '" + baseline.getAlgorithm()
+            + "' hashing algorithm, but the datasource '" + first.getName() + "' uses the '"
+            + first.getHashingAlgorithm() + "' hashing algorithm (property '" + first.getName()
+            + ".hashing.algorithm'); they cannot be compared.");
+      }
+    }
+    for (DataSource ds : this.dss) {
+      if (ds.getHashingMode() != first.getHashingMode()) {
+        throw new CouldNotHashException("The datasource '" + first.getName() + "' uses the '"
+            + first.getHashingMode().getName() + "' hashing mode, but the datasource '" + ds.getName()
+            + "' uses the '" + ds.getHashingMode().getName()
+            + "' hashing mode (property '<datasource>.hashing.mode'); they cannot be compared.");
+      }
+      if (!ds.getHashingAlgorithm().equals(first.getHashingAlgorithm())) {
+        throw new CouldNotHashException("The datasource '" + first.getName() + "' uses the '"
+            + first.getHashingAlgorithm() + "' hashing algorithm, but the datasource '" + ds.getName()
+            + "' uses the '" + ds.getHashingAlgorithm()
+            + "' hashing algorithm (property '<datasource>.hashing.algorithm'); they cannot be compared.");
+      }
+    }
+  }
+
+  private static String renderSeconds(final long nanos) {
+    return String.format("%.3f s", nanos / 1e9);
+  }
+
+}
@@ -0,0 +1,221 @@
+package highfive.commands;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+import highfive.utils.NumberFormat;
+
+// Reports the progress of a run at a fixed time interval: the rows processed,
+// the throughput, and the estimated time to complete each table and the whole
+// run, based on the row counts taken at the start. Each table is processed by
+// a single thread that only updates its own counters (ordered writes, with no
+// locking), so the reading loops are not slowed down; a background thread
+// reads them.
+
+public class ProgressMonitor {
+
+  private static final NumberFormat DF = new NumberFormat("#,##0");
+  private static final NumberFormat PF = new NumberFormat("0.0");
+
+  private Consumer<String> log;
+  private String verb;
+  private long totalRows;
+  private long intervalMillis;
+  private AtomicLong skippedRows;
+  private List<Task> active;
+  private List<Task> finished;
+  private long startNanos;
+  private Thread reporter;
+
+  public ProgressMonitor(final Consumer<String> log, final String verb, final long totalRows,
+      final int intervalSeconds) {
+    this.log = log;
+    this.verb = verb;
+    this.totalRows = totalRows;
+    this.intervalMillis = intervalSeconds * 1000L;
+    this.skippedRows = new AtomicLong(0);
+    this.active = new ArrayList<>();
+    this.finished = new ArrayList<>();
+  }
+
+  public void startRun() {
+    this.startNanos = System.nanoTime();
+    this.reporter = new Thread(() -> {
+      try {
+        while (true) {
+          Thread.sleep(this.intervalMillis);
+          report();
+        }
+      } catch (InterruptedException e) {
+        // the run ended
+      }
+    }, "highfive-progress");
+    this.reporter.setDaemon(true);
+    this.reporter.start();
+  }
+
+  public void endRun() {
+    if (this.reporter != null) {
+      this.reporter.interrupt();
+      try {
+        this.reporter.join();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+      this.reporter = null;
+    }
+  }
+
+  // Rows processed by a previous run (when resuming)
+
+  public void skip(final long rows) {
+    this.skippedRows.addAndGet(rows);
+  }
+
+  public synchronized Task start(final String name, final long expectedRows, final long initialRows) {
+    Task t = new Task(name, expectedRows, initialRows);
+    this.active.add(t);
+    return t;
+  }
+
+  public synchronized void finish(final Task t) {
+    t.endNanos = System.nanoTime();
+    this.active.remove(t);
+    this.finished.add(t);
+  }
+
+  private synchronized void report() {
+    long now = System.nanoTime();
+    long done = this.skippedRows.get();
+    long processed = 0;
+    long bytes = 0;
+    for (Task t : this.finished) {
+      done += t.rows.get();
+      processed += t.rows.get() - t.initialRows;
+      bytes += t.bytes.get();
+    }
+    List<String> lines = new ArrayList<>();
+    for (Task t : this.active) {
+      long rows = t.rows.get();
+      done += rows;
+      processed += rows - t.initialRows;
+      bytes += t.bytes.get();
+      double rate = rate(rows - t.initialRows, now - t.startNanos);
+      lines.add("    " + t.name + ": " + DF.format(rows) + " of " + DF.format(t.expectedRows) + " rows"
+          + renderPercent(rows, t.expectedRows) + " -- " + DF.format(rate) + " rows/s -- ETA "
+          + renderETA(t.expectedRows - rows, rate));
+    }
+    double rate = rate(processed, now - this.startNanos);
+    double mbRate = rate(bytes, now - this.startNanos) / (1024 * 1024);
+    this.log.accept("  Progress: " + DF.format(done) + " of " + DF.format(this.totalRows) + " rows " + this.verb
+        + renderPercent(done, this.totalRows) + " -- " + DF.format(rate) + " rows/s"
+        + (bytes > 0 ? ", " + PF.format(mbRate) + " MB/s" : "") + " -- ETA "
+        + renderETA(this.totalRows - done, rate));
+    for (String l : lines) {
+      this.log.accept(l);
+    }
+  }
+
+  // Final table: the time to the first row, the time spent fetching the rows,
+  // and the time spent processing them
+
+  public synchronized void showTimings(final String processLabel) {
+    if (this.finished.isEmpty()) {
+      return;
+    }
+    int width = 5;
+    for (Task t : this.finished) {
+      width = Math.max(width, t.name.length());
+    }
+    String format = "    %-" + width + "s %14s %10s %10s %10s %10s %12s";
+    this.log.accept(" ");
+    this.log.accept("Timings:");
+    this.log.accept(String.format(format, "Table", "Rows", "First row", "Fetch", processLabel, "Total", "Rows/s"));
+    for (Task t : this.finished) {
+      long rows = t.rows.get() - t.initialRows;
+      long total = t.endNanos - t.startNanos;
+      this.log.accept(String.format(format, t.name, DF.format(rows),
+          t.firstRowNanos < 0 ? "-" : renderSeconds(t.firstRowNanos), renderSeconds(t.fetchNanos),
+          renderSeconds(t.processNanos), renderSeconds(total), DF.format(rate(rows, total))));
+    }
+  }
+
+  private static double rate(final long count, final long nanos) {
+    return nanos <= 0 ? 0 : count * 1e9 / nanos;
+  }
+
+  private static String renderPercent(final long count, final long total) {
+    return total <= 0 ? "" : " (" + PF.format(Math.min(100.0, 100.0 * count / total)) + "%)";
+  }
+
+  private static String renderETA(final long remaining, final double rate) {
+    if (remaining <= 0) {
+      return "0s";
+    }
+    if (rate <= 0) {
+      return "unknown";
+    }
+    long s = (long) Math.ceil(remaining / rate);
+    if (s >= 3600) {
+      return String.format("%dh %02dm %02ds", s / 3600, (s / 60) % 60, s % 60);
+    }
+    if (s >= 60) {
+      return String.format("%dm %02ds", s / 60, s % 60);
+    }
+    return s + "s";
+  }
+
+  private static String renderSeconds(final long nanos) {
+    return String.format("%.3f s", nanos / 1e9);
+  }
+
+  // A table (or key range). The counters are written by the thread that
+  // processes it; the rows include the initial rows, processed by a previous
+  // run or attempt.
+
+  public static class Task {
+
+    private String name;
+    private long expectedRows;
+    private long initialRows;
+    private AtomicLong rows;
+    private AtomicLong bytes;
+    private long startNanos;
+    private long endNanos;
+    private long firstRowNanos;
+    private long fetchNanos;
+    private long processNanos;
+
+    private Task(final String name, final long expectedRows, final long initialRows) {
+      this.name = name;
+      this.expectedRows = expectedRows;
+      this.initialRows = initialRows;
+      this.rows = new AtomicLong(initialRows);
+      this.bytes = new AtomicLong(0);
+      this.startNanos = System.nanoTime();
+      this.firstRowNanos = -1;
+      this.fetchNanos = 0;
+      this.processNanos = 0;
+    }
+
+    public void update(final long rows, final long bytes) {
+      this.rows.lazySet(rows);
+      this.bytes.lazySet(bytes);
+    }
+
+    public void firstRow() {
+      if (this.firstRowNanos < 0) {
+        this.firstRowNanos = System.nanoTime() - this.startNanos;
+      }
+    }
+
+    public void addTimes(final long fetchNanos, final long processNanos) {
+      this.fetchNanos += fetchNanos;
+      this.processNanos += processNanos;
+    }
+
+  }
+
+}
@@ -0,0 +1,425 @@
+package highfive.commands;
+
+import java.security.NoSuchAlgorithmException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import highfive.commands.consumer.HashCollector;
+import highfive.exceptions.CouldNotHashException;
+import highfive.exceptions.InvalidConfigurationException;
+import highfive.exceptions.InvalidHashFileException;
+import highfive.exceptions.InvalidSchemaException;
+import highfive.exceptions.UnsupportedDatabaseTypeException;
+import highfive.exceptions.UnsupportedSQLFeatureException;
+import highfive.model.DataSource;
+import highfive.model.HashingMode;
+import highfive.model.Identifier;
+import highfive.model.KeyRange;
+import highfive.model.PushdownChecksum;
+import highfive.model.RowKey;
+import highfive.model.RowOrdering;
+import highfive.model.Table;
+
+// Verifies a target database against a source database using pushdown
+// hashing: each database computes the checksum of each chunk of rows, so only
+// the checksums cross the network. The tables are split into chunks by key
+// ranges, as the hash command does. The canonical text of a value could still
+// differ between vendors, so the chunks with different checksums are hashed
+// again, client-side, on both databases; only a difference in these hashes is
+// reported.
+
+public class PushdownVerifyCommand extends GenericHashCommand {
+
+  private static final long DEFAULT_CHUNK_ROWS = 1000000;
+
+  private DataSource ds2;
+  private DataSourceHasher target;
+
+  public PushdownVerifyCommand(final String sourceDatasourceName, final String targetDatasourceName)
+      throws InvalidConfigurationException, SQLException, UnsupportedDatabaseTypeException {
+    super("Pushdown Verify", sourceDatasourceName);
+    this.ds2 = DataSource.load(targetDatasourceName);
+    this.target = new DataSourceHasher("Pushdown Verify", this.ds2);
+  }
+
+  @Override
+  protected String getRowCountCommand() {
+    return "pushdown";
+  }
+
+  @Override
+  public void run() throws SQLException, UnsupportedDatabaseTypeException, InvalidSchemaException,
+      NoSuchAlgorithmException, CouldNotHashException, InvalidHashFileException {
+
+    this.ds.show("Source Datasource");
+    info(" ");
+
+    this.ds2.show("Target Datasource");
+    info(" ");
+
+    this.execute();
+
+  }
+
+  @Override
+  public void execute() throws SQLException, UnsupportedDatabaseTypeException, InvalidSchemaException,
+      NoSuchAlgorithmException, CouldNotHashException, InvalidHashFileException {
+
+    if (!this.ds.getHashingAlgorithm().equals(this.ds2.getHashingAlgorithm())) {
+      throw new CouldNotHashException("The source datasource '" + this.ds.getName() + "' uses the '"
+          + this.ds.getHashingAlgorithm() + "' hashing algorithm, but the target datasource '" + this.ds2.getName()
+          + "' uses the '" + this.ds2.getHashingAlgorithm()
+          + "' hashing algorithm (property '<datasource>.hashing.algorithm'); they cannot be compared.");
+    }
+
+    List<String> errors = Collections.synchronizedList(new ArrayList<>());
+
+    // 1. Match tables
+
+    Map<String, Identifier> did = new LinkedHashMap<>();
+    for (Identifier id : this.ds2.getDialect().listTablesNames()) {
+      did.put(id.getGenericName(), id);
+    }
+
+    List<Identifier> sids = new ArrayList<>();
+    List<Identifier> tids = new ArrayList<>();
+    for (Identifier id : this.ds.getDialect().listTablesNames()) {
+      Identifier dt = did.remove(id.getGenericName());
+      if (dt == null) {
+        errors.add("Found table '" + id.getGenericName() + "' in the source database, but not in the target database.");
+      } else {
+        sids.add(id);
+        tids.add(dt);
+      }
+    }
+    List<Table> sources = this.ds.getDialect().getTablesMetaData(sids);
+    Map<String, Table> targets = new HashMap<>();
+    for (Table t : this.ds2.getDialect().getTablesMetaData(tids)) {
+      targets.put(t.getIdentifier().getGenericName(), t);
+    }
+    for (String name : did.keySet()) {
+      errors.add("Found table '" + name + "' in the target database, but not in the source database.");
+    }
+
+    // 2. Count the rows of the source tables, to split them into chunks
+
+    Map<String, Long> rowCounts = displayRowCount(sources);
+
+    // 3. Compare the checksums of the chunks, on <source>.hashing.threads
+    // workers, each one with a connection to each database
+
+    info(" ");
+    info("Verifying checksums:");
+    List<TableCheck> checks = new ArrayList<>();
+    List<ChunkCheck> chunks = new ArrayList<>();
+    for (Table st : sources) {
+      String name = st.getIdentifier().getGenericName();
+      Long count = rowCounts.get(name);
+      TableCheck check = planTable(st, targets.get(name), count == null ? 0 : count, errors);
+      if (check != null) {
+        checks.add(check);
+        chunks.addAll(check.chunks);
+      }
+    }
+    int threads = Math.max(1, Math.min(this.ds.getHashingThreads(), chunks.size()));
+    if (threads > 1) {
+      info("  Using " + threads + " verification threads, each one with a connection to each database");
+      verifyInParallel(chunks, threads, errors);
+    } else {
+      for (ChunkCheck c : chunks) {
+        verifyChunk(this.ds.getConnection(), this.ds2.getConnection(), c, errors);
+      }
+    }
+    int matched = (int) checks.stream().filter(c -> !c.failed).count();
+
+    info(" ");
+    for (String err : errors) {
+      error("  - " + err);
+    }
+    if (errors.isEmpty()) {
+      info("  All data checksums match (" + matched + " tables) -- The verification succeeded.");
+    } else {
+      error("  A total of " + matched + " tables matched and there were " + errors.size()
+          + " difference(s) -- The verification failed.");
+    }
+
+  }
+
+  // Splits a table into the chunks to verify; null when it cannot be verified
+
+  private TableCheck planTable(final Table st, final Table tt, final long count, final List<String> errors)
+      throws SQLException {
+
+    String name = st.getIdentifier().getGenericName();
+    String sColumns = st.getColumns().stream().map(c -> c.getName()).collect(Collectors.joining(", "));
+    String tColumns = tt.getColumns().stream().map(c -> c.getName()).collect(Collectors.joining(", "));
+    if (!sColumns.equals(tColumns)) {
+      errors.add("Table '" + name + "' has different columns: (" + sColumns + ") in the source database, and ("
+          + tColumns + ") in the target database.");
+      return null;
+    }
+
+    TableCheck check = new TableCheck(st, tt);
+    try {
+      PushdownChecksum.renderSQL(this.ds.getDialect(), st, null);
+      PushdownChecksum.renderSQL(this.ds2.getDialect(), tt, null);
+    } catch (UnsupportedSQLFeatureException e) {
+      info("  Table " + name + ": " + e.getMessage() + " Hashing it client-side.");
+      check.add(null, null, true);
+      return check;
+    }
+
+    // The key ranges of the source table are used for the target table as well
+
+    long chunkRows = this.ds.getHashingPartitionRows() == null ? DEFAULT_CHUNK_ROWS
+        : this.ds.getHashingPartitionRows();
+    if (count > chunkRows && (!st.getPKColumns().isEmpty()
+        || this.ds.getHashingOrderings().containsKey(st.getIdentifier().getGenericName()))) {
+      try {
+        check.so = RowOrdering.of(this.ds, st);
+        List<RowKey> boundaries = findKeyBoundaries(st, check.so, count, chunkRows);
+        if (!boundaries.isEmpty()) {
+          check.to = RowOrdering.of(this.ds2, tt);
+          List<RowKey> tBoundaries = new ArrayList<>();
+          for (RowKey k : boundaries) {
+            tBoundaries.add(check.to.decode(check.so.encode(k)));
+          }
+          List<KeyRange> sRanges = KeyRange.split(boundaries);
+          List<KeyRange> tRanges = KeyRange.split(tBoundaries);
+          for (int i = 0; i < sRanges.size(); i++) {
+            check.add(sRanges.get(i), tRanges.get(i), false);
+          }
+          return check;
+        }
+      } catch (CouldNotHashException | InvalidHashFileException e) {
+        errors.add("Could not split table '" + name + "' into chunks: " + e.getMessage());
+        return null;
+      }
+    }
+    check.add(null, null, false);
+    return check;
+  }
+
+  // Each worker owns a connection to each database, replaced after a
+  // connection failure, and takes the next pending chunk
+
+  private void verifyInParallel(final List<ChunkCheck> chunks, final int threads, final List<String> errors)
+      throws CouldNotHashException {
+
+    Queue<ChunkCheck> pending = new ConcurrentLinkedQueue<>(chunks);
+    ExecutorService executor = Executors.newFixedThreadPool(threads);
+    List<Future<Void>> workers = new ArrayList<>();
+    for (int i = 0; i < threads; i++) {
+      workers.add(executor.submit(() -> {
+        Connection sc = this.ds.openConnection();
+        Connection tc = null;
+        try {
+          tc = this.ds2.openConnection();
+          ChunkCheck c;
+          while ((c = pending.poll()) != null) {
+            if (!sc.isValid(10)) {
+              closeQuietly(sc);
+              sc = this.ds.openConnection();
+            }
+            if (!tc.isValid(10)) {
+              closeQuietly(tc);
+              tc = this.ds2.openConnection();
+            }
+            verifyChunk(sc, tc, c, errors);
+          }
+        } finally {
+          closeQuietly(sc);
+          closeQuietly(tc);
+        }
+        return null;
+      }));
+    }
+    executor.shutdown();
+
+    Throwable failure = null;
+    for (Future<Void> w : workers) {
+      try {
+        w.get();
+      } catch (ExecutionException e) {
+        pending.clear();
+        if (failure == null) {
+          failure = e.getCause();
+        }
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        failure = e;
+      }
+    }
+    if (failure != null) {
+      error(failure);
+      throw new CouldNotHashException("A verification worker failed: " + failure.getMessage());
+    }
+  }
+
+  // Compares the checksums of a chunk, and hashes it client-side when they
+  // differ (or cannot be computed). A failure is reported as an error of the
+  // table.
+
+  private void verifyChunk(final Connection sconn, final Connection tconn, final ChunkCheck c,
+      final List<String> errors) {
+    TableCheck t = c.table;
+    String name = t.st.getIdentifier().getGenericName();
+    String chunk = c.sr == null ? "" : " chunk " + (c.index + 1) + "/" + t.chunks.size();
+    boolean matches = true;
+    try {
+      if (c.clientSide) {
+        matches = recheck(sconn, tconn, t, null, null, chunk, errors);
+      } else {
+        PushdownChecksum sc = null;
+        PushdownChecksum tc = null;
+        try {
+          sc = computeChecksum(sconn, this.ds, t.st, c.sr, t.so);
+          tc = computeChecksum(tconn, this.ds2, t.tt, c.tr, t.to);
+        } catch (SQLException e) {
+          error("  Table " + name + chunk + ": could not compute the checksum in the database: " + e.getMessage());
+          info("    Hashing it client-side.");
+          matches = recheck(sconn, tconn, t, c.sr, c.tr, chunk, errors);
+        }
+        if (sc != null && tc != null && !sc.matches(tc)) {
+          info("  Table " + name + chunk + ": the checksums differ -- hashing it client-side");
+          matches = recheck(sconn, tconn, t, c.sr, c.tr, chunk, errors);
+          if (matches) {
+            info("    The client-side hashes match; only the canonical text of some values differs between the databases.");
+          }
+        }
+      }
+    } catch (SQLException | CouldNotHashException | NoSuchAlgorithmException | RuntimeException e) {
+      errors.add("Could not verify table '" + name + "'" + chunk + ": " + e.getMessage());
+      matches = false;
+    }
+    if (!matches) {
+      t.failed = true;
+    }
+    if (t.remaining.decrementAndGet() == 0 && !t.failed) {
+      info("  Table " + name + ": " + (t.chunks.size() == 1 ? "matches" : "all " + t.chunks.size() + " chunks match"));
+    }
+  }
+
+  private PushdownChecksum computeChecksum(final Connection conn, final DataSource ds, final Table t,
+      final KeyRange range, final RowOrdering ordering) throws SQLException {
+    List<Object> params = new ArrayList<>();
+    String where = range == null ? null : ordering.renderRange(range, params);
+    String sql;
+    try {
+      sql = PushdownChecksum.renderSQL(ds.getDialect(), t, where);
+    } catch (UnsupportedSQLFeatureException e) {
+      throw new SQLException(e.getMessage());
+    }
+    if (ds.getLogSQL()) {
+      info("    * sql: " + sql);
+    }
+
+    conn.setAutoCommit(true); // end the current transaction, if any
+    conn.setAutoCommit(ds.getSelectAutoCommit());
+
+    try (PreparedStatement ps = conn.prepareStatement(sql);) {
+      RowOrdering.bind(ps, params);
+      try (ResultSet rs = ps.executeQuery();) {
+        if (!rs.next()) {
+          throw new SQLException("The checksum query returned no rows.");
+        }
+        return PushdownChecksum.read(rs);
+      }
+    }
+  }
+
+  // Hashes a chunk client-side on both databases, in the unordered mode, so
+  // the rows don't need to be sorted
+
+  private boolean recheck(final Connection sconn, final Connection tconn, final TableCheck t, final KeyRange sr,
+      final KeyRange tr, final String chunk, final List<String> errors)
+      throws SQLException, CouldNotHashException, NoSuchAlgorithmException {
+    String name = t.st.getIdentifier().getGenericName();
+
+    HashCollector sh = new HashCollector();
+    hashOneTable(sconn, t.st.duplicate(), sr, HashingMode.UNORDERED, sh, null, null, false);
+    HashCollector th = new HashCollector();
+    this.target.hashOneTable(tconn, t.tt.duplicate(), tr, HashingMode.UNORDERED, th, null, null, false);
+
+    String keys = sr == null ? "" : " (" + renderKeys(sr, t.so) + ")";
+    if (sh.isFailed() || th.isFailed()) {
+      errors.add("Could not hash table '" + name + "'" + chunk + keys + " client-side.");
+      return false;
+    }
+    if (!sh.getHash().equals(th.getHash())) {
+      errors.add("Different data found in table '" + name + "'" + chunk + keys + ": " + DF.format(sh.getRowCount())
+          + " row(s) in the source database, and " + DF.format(th.getRowCount()) + " row(s) in the target database.");
+      return false;
+    }
+    return true;
+  }
+
+  private String renderKeys(final KeyRange range, final RowOrdering ordering) {
+    return (range.getAfter() == null ? "from the start of the table"
+        : "keys after " + RowKey.render(ordering.encode(range.getAfter())))
+        + (range.getUpTo() == null ? " to the end of the table"
+            : " up to " + RowKey.render(ordering.encode(range.getUpTo())));
+  }
+
+  // A table to verify, and the state of its chunks
+
+  private static class TableCheck {
+
+    private Table st;
+    private Table tt;
+    private RowOrdering so;
+    private RowOrdering to;
+    private List<ChunkCheck> chunks = new ArrayList<>();
+    private AtomicInteger remaining = new AtomicInteger();
+    private volatile boolean failed = false;
+
+    private TableCheck(final Table st, final Table tt) {
+      this.st = st;
+      this.tt = tt;
+    }
+
+    private void add(final KeyRange sr, final KeyRange tr, final boolean clientSide) {
+      this.chunks.add(new ChunkCheck(this, sr, tr, this.chunks.size(), clientSide));
+      this.remaining.incrementAndGet();
+    }
+
+  }
+
+  // A key range of a table, in both databases; the whole table when null
+
+  private static class ChunkCheck {
+
+    private TableCheck table;
+    private KeyRange sr;
+    private KeyRange tr;
+    private int index;
+    private boolean clientSide;
+
+    private ChunkCheck(final TableCheck table, final KeyRange sr, final KeyRange tr, final int index,
+        final boolean clientSide) {
+      this.table = table;
+      this.sr = sr;
+      this.tr = tr;
+      this.index = index;
+      this.clientSide = clientSide;
+    }
+
+  }
+
+}
@@ -20,8 +20,14 @@ public class VerifyCommand extends GenericHashCommand {
 
   public VerifyCommand(final String datasourceName, final String baselineFile)
       throws InvalidConfigurationException, SQLException, UnsupportedDatabaseTypeException {
+    this(datasourceName, baselineFile, false);
+  }
+
+  public VerifyCommand(final String datasourceName, final String baselineFile, final boolean resume)
+      throws InvalidConfigurationException, SQLException, UnsupportedDatabaseTypeException {
     super("Verify", datasourceName);
     this.baselineFile = baselineFile;
+    this.resume = resume;
   }
 
   @Override
@@ -30,10 +36,23 @@ public class VerifyCommand extends GenericHashCommand {
       UnsupportedDatabaseTypeException, InvalidSchemaException, CouldNotHashException, InvalidConfigurationException {
 
     HashFile existing = HashFile.loadFrom(this.baselineFile);
+    if (existing.getMode() != this.ds.getHashingMode()) {
+      throw new CouldNotHashException("The baseline hash file was computed using the '" + existing.getMode().getName()
+          + "' hashing mode, but the datasource '" + this.ds.getName() + "' uses the '"
+          + this.ds.getHashingMode().getName() + "' hashing mode (property '" + this.ds.getName()
+          + ".hashing.mode'); they cannot be compared.");
+    }
+    if (!existing.getAlgorithm().equals(this.ds.getHashingAlgorithm())) {
+      throw new CouldNotHashException("The baseline hash file was computed using the '" + existing.getAlgorithm()
+          + "' hashing algorithm, but the datasource '" + this.ds.getName() + "' uses the '"
+          + this.ds.getHashingAlgorithm() + "' hashing algorithm (property '" + this.ds.getName()
+          + ".hashing.algorithm'); they cannot be compared.");
+    }
     HashFile hashFile;
 
-    try (HashFileWriter hw = new HashFileWriter(this.ds.getHashFileName())) {
-      super.hashOneSchema(hw);
+    try (HashFileWriter hw = new HashFileWriter(this.ds.getHashFileName(), this.ds.getHashingMode(),
+        this.ds.getHashingAlgorithm())) {
+      super.hashOneSchema(hw, existing);
       hashFile = hw.getHashFile();
     } catch (Exception e) {
       e.printStackTrace(System.out);
@@ -0,0 +1,357 @@
+package highfive.commands.consumer;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+import highfive.utils.Utl;
+
+// The binary format (big-endian):
+//
+// - header: "HFDB", version (int), length of the header line (int), the header
+//   line of the text format (UTF-8), digest width in bytes (int), and rows per
+//   block (int)
+// - blocks: each one lists its rows as the difference with the previous row
+//   number (a variable-length integer, zero for the first row) followed by the
+//   first <width> bytes of the digest; a block is compressed with deflate when
+//   that makes it smaller
+// - index: for each block, its first row (long), row count (int), offset
+//   (long), stored length (int), and whether it's deflated (byte)
+// - trailer: index offset (long), block count (int), row count (long), and
+//   "HFDX"
+//
+// The blocks are read from memory-mapped windows of the file. A seek finds the
+// block in the index and only decompresses that block.
+
+public class BinaryDumpFileReader extends DumpFileReader {
+
+  static final byte[] MAGIC = { 'H', 'F', 'D', 'B' };
+  static final byte[] INDEX_MAGIC = { 'H', 'F', 'D', 'X' };
+  static final int VERSION = 1;
+  static final int BLOCK_ROWS = 4096;
+  static final byte STORED = 0;
+  static final byte DEFLATED = 1;
+
+  private static final int TRAILER_LENGTH = 24;
+  private static final int INDEX_ENTRY_LENGTH = 25;
+  private static final long WINDOW_LENGTH = 64L * 1024 * 1024;
+
+  private File f;
+  private FileChannel channel;
+  private long size;
+  private int width;
+
+  private int blocks;
+  private long[] firstRows;
+  private int[] counts;
+  private long[] offsets;
+  private int[] lengths;
+  private boolean[] deflated;
+
+  private MappedByteBuffer window;
+  private long windowStart;
+  private long windowEnd;
+
+  private Inflater inflater;
+  private byte[] compressed;
+  private byte[] data;
+  private int dataSize;
+
+  private int block;
+  private int entry;
+  private int pos;
+  private int digestPos;
+  private long row;
+  private boolean eof;
+
+  public static boolean isBinary(final File f) throws DumpFileIOException {
+    byte[] b = new byte[MAGIC.length];
+    try (FileInputStream in = new FileInputStream(f)) {
+      int n = 0;
+      while (n < b.length) {
+        int r = in.read(b, n, b.length - n);
+        if (r < 0) {
+          return false;
+        }
+        n += r;
+      }
+    } catch (IOException e) {
+      throw new DumpFileIOException(e);
+    }
+    return Arrays.equals(b, MAGIC);
+  }
+
+  public BinaryDumpFileReader(final File f) throws InvalidDumpFileException, DumpFileIOException {
+    this.f = f;
+    try {
+      this.channel = FileChannel.open(f.toPath(), StandardOpenOption.READ);
+      this.size = this.channel.size();
+      readHeader();
+      readIndex();
+    } catch (IOException e) {
+      closeQuietly();
+      throw new DumpFileIOException(e);
+    } catch (InvalidDumpFileException e) {
+      closeQuietly();
+      throw e;
+    }
+    this.compressed = new byte[0];
+    this.data = new byte[BLOCK_ROWS * (10 + this.width)];
+    this.block = -1;
+    this.row = -1;
+    this.eof = false;
+  }
+
+  private void readHeader() throws IOException, InvalidDumpFileException {
+    ByteBuffer h = read(0, 20);
+    if (h.getInt(4) != VERSION) {
+      throw new InvalidDumpFileException(
+          "Unsupported version " + h.getInt(4) + " of the binary dump file '" + this.f + "'.");
+    }
+    int length = h.getInt(8);
+    if (length < 0 || 20 + (long) length > this.size) {
+      throw new InvalidDumpFileException("Invalid header in the binary dump file '" + this.f + "'.");
+    }
+    ByteBuffer line = read(12, length + 8);
+    this.metadata = DumpFileMetaData
+        .parseHeader(new String(line.array(), 0, length, StandardCharsets.UTF_8));
+    this.width = line.getInt(length);
+    if (this.width < 1 || line.getInt(length + 4) < 1) {
+      throw new InvalidDumpFileException("Invalid header in the binary dump file '" + this.f + "'.");
+    }
+  }
+
+  private void readIndex() throws IOException, InvalidDumpFileException {
+    if (this.size < TRAILER_LENGTH) {
+      throw incomplete();
+    }
+    ByteBuffer t = read(this.size - TRAILER_LENGTH, TRAILER_LENGTH);
+    long indexOffset = t.getLong(0);
+    this.blocks = t.getInt(8);
+    if (!Arrays.equals(Arrays.copyOfRange(t.array(), 20, 24), INDEX_MAGIC) || this.blocks < 0
+        || indexOffset + (long) this.blocks * INDEX_ENTRY_LENGTH != this.size - TRAILER_LENGTH) {
+      throw incomplete();
+    }
+    ByteBuffer ib = read(indexOffset, this.blocks * INDEX_ENTRY_LENGTH);
+    this.firstRows = new long[this.blocks];
+    this.counts = new int[this.blocks];
+    this.offsets = new long[this.blocks];
+    this.lengths = new int[this.blocks];
+    this.deflated = new boolean[this.blocks];
+    for (int i = 0; i < this.blocks; i++) {
+      int p = i * INDEX_ENTRY_LENGTH;
+      this.firstRows[i] = ib.getLong(p);
+      this.counts[i] = ib.getInt(p + 8);
+      this.offsets[i] = ib.getLong(p + 12);
+      this.lengths[i] = ib.getInt(p + 20);
+      this.deflated[i] = ib.get(p + 24) == DEFLATED;
+    }
+  }
+
+  private InvalidDumpFileException incomplete() {
+    return new InvalidDumpFileException("The binary dump file '" + this.f
+        + "' is incomplete; it does not end with the index of its blocks. Was the hashd command interrupted?");
+  }
+
+  private ByteBuffer read(final long offset, final int length) throws IOException, InvalidDumpFileException {
+    if (offset + length > this.size) {
+      throw incomplete();
+    }
+    ByteBuffer b = ByteBuffer.allocate(length);
+    while (b.hasRemaining()) {
+      if (this.channel.read(b, offset + b.position()) < 0) {
+        throw incomplete();
+      }
+    }
+    return b;
+  }
+
+  private void loadBlock(final int b) throws InvalidDumpFileException, DumpFileIOException {
+    long offset = this.offsets[b];
+    int length = this.lengths[b];
+    try {
+      if (this.window == null || offset < this.windowStart || offset + length > this.windowEnd) {
+        this.windowStart = offset;
+        this.windowEnd = Math.min(this.size, offset + Math.max(WINDOW_LENGTH, length));
+        this.window = this.channel.map(FileChannel.MapMode.READ_ONLY, this.windowStart,
+            this.windowEnd - this.windowStart);
+      }
+    } catch (IOException e) {
+      throw new DumpFileIOException(e);
+    }
+    ByteBuffer src = this.window.duplicate();
+    ((Buffer) src).position((int) (offset - this.windowStart)); // Buffer: runs on Java 8
+    if (this.deflated[b]) {
+      if (this.compressed.length < length) {
+        this.compressed = new byte[length];
+      }
+      src.get(this.compressed, 0, length);
+      inflate(b, length);
+    } else {
+      if (this.data.length < length) {
+        this.data = new byte[length];
+      }
+      src.get(this.data, 0, length);
+      this.dataSize = length;
+    }
+    this.block = b;
+    this.entry = 0;
+    this.pos = 0;
+  }
+
+  private void inflate(final int b, final int length) throws InvalidDumpFileException {
+    if (this.inflater == null) {
+      this.inflater = new Inflater();
+    }
+    this.inflater.reset();
+    this.inflater.setInput(this.compressed, 0, length);
+    this.dataSize = 0;
+    try {
+      while (!this.inflater.finished()) {
+        if (this.dataSize == this.data.length) {
+          this.data = Arrays.copyOf(this.data, this.data.length * 2);
+        }
+        int n = this.inflater.inflate(this.data, this.dataSize, this.data.length - this.dataSize);
+        if (n == 0 && (this.inflater.needsInput() || this.inflater.needsDictionary())) {
+          throw new InvalidDumpFileException("Block #" + (b + 1) + " of the binary dump file '" + this.f
+              + "' is truncated.");
+        }
+        this.dataSize += n;
+      }
+    } catch (DataFormatException e) {
+      throw new InvalidDumpFileException(
+          "Block #" + (b + 1) + " of the binary dump file '" + this.f + "' is corrupted: " + e.getMessage());
+    }
+  }
+
+  @Override
+  public boolean next() throws InvalidDumpFileException, DumpFileIOException {
+    if (this.eof) {
+      throw new InvalidDumpFileException(
+          "Could not read the baseline file '" + this.f + "'; the end of the file was already reached.");
+    }
+    if (this.block == -1 || this.entry == this.counts[this.block]) {
+      if (this.block + 1 >= this.blocks) {
+        this.row = -1;
+        this.eof = true;
+        return false;
+      }
+      loadBlock(this.block + 1);
+    }
+    long delta = readVarLong();
+    this.row = this.entry == 0 ? this.firstRows[this.block] : this.row + delta;
+    this.digestPos = this.pos;
+    this.pos += this.width;
+    this.entry++;
+    if (this.pos > this.dataSize) {
+      throw new InvalidDumpFileException(
+          "Block #" + (this.block + 1) + " of the binary dump file '" + this.f + "' is shorter than expected.");
+    }
+    return true;
+  }
+
+  private long readVarLong() throws InvalidDumpFileException {
+    long v = 0;
+    for (int shift = 0; shift < 64; shift += 7) {
+      if (this.pos >= this.dataSize) {
+        break;
+      }
+      byte b = this.data[this.pos++];
+      v |= (long) (b & 0x7F) << shift;
+      if (b >= 0) {
+        return v;
+      }
+    }
+    throw new InvalidDumpFileException(
+        "Block #" + (this.block + 1) + " of the binary dump file '" + this.f + "' is corrupted.");
+  }
+
+  // Uses the index to skip the blocks before the row
+
+  @Override
+  public boolean seek(final long row) throws InvalidDumpFileException, DumpFileIOException {
+    if (this.eof) {
+      return false;
+    }
+    if (this.row >= row) {
+      return true;
+    }
+    int b = findBlock(row);
+    if (b > this.block && b < this.blocks) {
+      loadBlock(b);
+    }
+    while (this.row < row) {
+      if (!next()) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  // The last block that starts at or before the row
+
+  private int findBlock(final long row) {
+    int i = Arrays.binarySearch(this.firstRows, row);
+    return i >= 0 ? i : Math.max(0, -i - 2);
+  }
+
+  @Override
+  public boolean matches(final byte[] digest) {
+    for (int i = 0; i < this.width; i++) {
+      if (this.data[this.digestPos + i] != digest[i]) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  @Override
+  public int getWidth() {
+    return this.width;
+  }
+
+  @Override
+  public boolean atStart() {
+    return this.block == -1;
+  }
+
+  @Override
+  public long getRow() {
+    return this.row;
+  }
+
+  @Override
+  public String getHash() {
+    return this.row < 0 ? null
+        : Utl.toHex(Arrays.copyOfRange(this.data, this.digestPos, this.digestPos + this.width));
+  }
+
+  @Override
+  public void close() throws IOException {
+    if (this.inflater != null) {
+      this.inflater.end();
+    }
+    this.window = null;
+    this.channel.close();
+  }
+
+  private void closeQuietly() {
+    try {
+      if (this.channel != null) {
+        this.channel.close();
+      }
+    } catch (IOException e) {
+      // ignore
+    }
+  }
+
+}
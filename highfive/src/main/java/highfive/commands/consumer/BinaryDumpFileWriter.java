@@ -0,0 +1,145 @@
+package highfive.commands.consumer;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.Deflater;
+
+import highfive.commands.consumer.DumpFileReader.DumpFileMetaData;
+import highfive.model.ByteSink;
+import highfive.model.Digest;
+
+// Writes the binary format (see BinaryDumpFileReader). The rows are grouped in
+// blocks that are compressed on their own; the index of the blocks is written
+// at the end.
+
+public class BinaryDumpFileWriter extends DumpFileWriter {
+
+  private DataOutputStream out;
+  private long position;
+  private int width;
+
+  private ByteSink block;
+  private int blockRows;
+  private long blockFirstRow;
+  private long lastRow;
+
+  private ByteSink index;
+  private int blocks;
+  private long rows;
+
+  private Deflater deflater;
+  private byte[] compressed;
+  private ByteSink packed;
+
+  public BinaryDumpFileWriter(final File f, final DumpFileMetaData m, final int width) throws IOException {
+    int length = Digest.find(m.getAlgorithm()).getLength();
+    this.width = width == 0 ? length : Math.min(width, length);
+    this.out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(f), 1 << 16));
+    this.position = 0;
+
+    byte[] header = m.render().getBytes(StandardCharsets.UTF_8);
+    this.out.write(BinaryDumpFileReader.MAGIC);
+    this.out.writeInt(BinaryDumpFileReader.VERSION);
+    this.out.writeInt(header.length);
+    this.out.write(header);
+    this.out.writeInt(this.width);
+    this.out.writeInt(BinaryDumpFileReader.BLOCK_ROWS);
+    this.position = this.out.size();
+
+    this.block = new ByteSink(BinaryDumpFileReader.BLOCK_ROWS * (10 + this.width));
+    this.blockRows = 0;
+    this.lastRow = -1;
+    this.index = new ByteSink(1024);
+    this.blocks = 0;
+    this.rows = 0;
+    this.deflater = new Deflater(Deflater.BEST_SPEED);
+    this.compressed = new byte[1 << 16];
+    this.packed = new ByteSink(this.block.getBuffer().length);
+  }
+
+  // Each row is stored as the difference with the previous row number (a
+  // variable-length integer) followed by the first bytes of the digest
+
+  @Override
+  public void write(final long row, final byte[] digest) throws IOException {
+    if (row <= this.lastRow) {
+      throw new IOException("Rows must be written in increasing order, but row #" + row + " follows row #"
+          + this.lastRow + ".");
+    }
+    if (this.blockRows == 0) {
+      this.blockFirstRow = row;
+      writeVarLong(this.block, 0);
+    } else {
+      writeVarLong(this.block, row - this.lastRow);
+    }
+    this.block.write(digest, 0, this.width);
+    this.lastRow = row;
+    this.blockRows++;
+    this.rows++;
+    if (this.blockRows == BinaryDumpFileReader.BLOCK_ROWS) {
+      flushBlock();
+    }
+  }
+
+  private static void writeVarLong(final ByteSink s, long v) {
+    while ((v & ~0x7FL) != 0) {
+      s.write((byte) ((v & 0x7F) | 0x80));
+      v >>>= 7;
+    }
+    s.write((byte) v);
+  }
+
+  private void flushBlock() throws IOException {
+    if (this.blockRows == 0) {
+      return;
+    }
+    this.deflater.reset();
+    this.deflater.setInput(this.block.getBuffer(), 0, this.block.size());
+    this.deflater.finish();
+    this.packed.reset();
+    while (!this.deflater.finished()) {
+      int n = this.deflater.deflate(this.compressed);
+      this.packed.write(this.compressed, 0, n);
+    }
+
+    // The digests do not compress; the block is stored as is unless deflate
+    // saves at least one eighth of it
+    boolean deflated = this.packed.size() <= this.block.size() - this.block.size() / 8;
+    ByteSink stored = deflated ? this.packed : this.block;
+    this.out.write(stored.getBuffer(), 0, stored.size());
+
+    this.index.writeLong(this.blockFirstRow);
+    this.index.writeInt(this.blockRows);
+    this.index.writeLong(this.position);
+    this.index.writeInt(stored.size());
+    this.index.write(deflated ? BinaryDumpFileReader.DEFLATED : BinaryDumpFileReader.STORED);
+    this.position += stored.size();
+    this.blocks++;
+    this.block.reset();
+    this.blockRows = 0;
+  }
+
+  @Override
+  public void close() throws IOException {
+    if (this.out == null) {
+      return;
+    }
+    try {
+      flushBlock();
+      this.out.write(this.index.getBuffer(), 0, this.index.size());
+      this.out.writeLong(this.position);
+      this.out.writeInt(this.blocks);
+      this.out.writeLong(this.rows);
+      this.out.write(BinaryDumpFileReader.INDEX_MAGIC);
+    } finally {
+      this.deflater.end();
+      this.out.close();
+      this.out = null;
+    }
+  }
+
+}
@@ -0,0 +1,16 @@
+package highfive.commands.consumer;
+
+import java.io.IOException;
+
+import highfive.commands.consumer.CheckpointJournal.Checkpoint;
+
+// A consumer that can save the state of a table in the middle of it, and
+// resume it from there in a later run
+
+public interface CheckpointConsumer {
+
+  Checkpoint getCheckpoint(String genericName);
+
+  void checkpoint(String genericName, Checkpoint c) throws IOException;
+
+}
@@ -0,0 +1,276 @@
+package highfive.commands.consumer;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import highfive.exceptions.InvalidHashFileException;
+import highfive.model.HashingMode;
+import highfive.model.RowKey;
+import highfive.utils.Utl;
+
+// Records the progress of a hash run in the file <hash-file>.checkpoint, so an
+// interrupted run can be resumed. A line is appended (and flushed) when:
+//
+// - a table is split into key ranges: ranges <count> <up-to-key|->... <table>
+// - a table or key range is hashed: done <range|-> <hash>[*] <rows> <table>
+// - a chunk of a table is hashed: chunk <range|-> <rows> <state> <key> <table>
+//
+// where the state is the hex-encoded state of the hasher after the row with
+// the key. The journal is deleted once the hash file is saved.
+
+public class CheckpointJournal {
+
+  private static final String HEADER = "# highfive-checkpoint version=1";
+
+  private static final Pattern HEADER_PATTERN = Pattern
+      .compile("^" + HEADER + " mode=(\\S+) algorithm=(\\S+)$");
+  private static final Pattern RANGES_PATTERN = Pattern.compile("^ranges ([0-9]+) (.+)$");
+  private static final Pattern DONE_PATTERN = Pattern
+      .compile("^done (-|[0-9]+) ([0-9a-f]+)(\\*?) ([0-9]+) (.+)$");
+  private static final Pattern CHUNK_PATTERN = Pattern
+      .compile("^chunk (-|[0-9]+) ([0-9]+) ([0-9a-f]+) (\\S+) (.+)$");
+
+  private File file;
+  private Writer w;
+
+  public CheckpointJournal(final String hashFileName) {
+    this.file = new File(hashFileName + ".checkpoint");
+  }
+
+  public String getFileName() {
+    return this.file.getPath();
+  }
+
+  public boolean exists() {
+    return this.file.exists();
+  }
+
+  // Starts a new journal, or appends to the existing one when resuming
+
+  public synchronized void open(final boolean append, final HashingMode mode, final String algorithm)
+      throws IOException {
+    this.w = new BufferedWriter(new FileWriter(this.file, append));
+    if (!append) {
+      write(HEADER + " mode=" + mode.getName() + " algorithm=" + algorithm);
+    }
+  }
+
+  public synchronized void ranges(final String genericName, final List<String> upTos) throws IOException {
+    StringBuilder sb = new StringBuilder("ranges " + upTos.size());
+    for (String upTo : upTos) {
+      sb.append(" ").append(upTo == null ? "-" : upTo);
+    }
+    write(sb.append(" ").append(genericName).toString());
+  }
+
+  public synchronized void done(final String genericName, final Integer rangeIndex, final String hash,
+      final boolean nonDeterministic, final long rowCount) throws IOException {
+    write("done " + renderIndex(rangeIndex) + " " + hash + (nonDeterministic ? "*" : "") + " " + rowCount + " "
+        + genericName);
+  }
+
+  public synchronized void chunk(final String genericName, final Integer rangeIndex, final Checkpoint c)
+      throws IOException {
+    write("chunk " + renderIndex(rangeIndex) + " " + c.getRowCount() + " " + Utl.toHex(c.getState()) + " "
+        + c.getKey() + " " + genericName);
+  }
+
+  private void write(final String line) throws IOException {
+    this.w.write(line + "\n");
+    this.w.flush();
+  }
+
+  private static String renderIndex(final Integer rangeIndex) {
+    return rangeIndex == null ? "-" : "" + rangeIndex;
+  }
+
+  public synchronized void close() throws IOException {
+    if (this.w != null) {
+      this.w.close();
+      this.w = null;
+    }
+  }
+
+  public void delete() throws IOException {
+    close();
+    if (this.file.exists() && !this.file.delete()) {
+      throw new IOException("Could not delete the checkpoint journal '" + this.file.getPath() + "'.");
+    }
+  }
+
+  // Reads the progress of the previous run. The last line can be incomplete,
+  // if the run was interrupted while writing it.
+
+  public Progress load(final HashingMode mode, final String algorithm) throws IOException, InvalidHashFileException {
+    List<String> lines = new ArrayList<>();
+    try (BufferedReader r = new BufferedReader(new FileReader(this.file))) {
+      String line;
+      while ((line = r.readLine()) != null) {
+        lines.add(line);
+      }
+    }
+    if (lines.isEmpty()) {
+      throw new InvalidHashFileException("The checkpoint journal '" + this.file.getPath() + "' is empty.");
+    }
+    Matcher hm = HEADER_PATTERN.matcher(lines.get(0));
+    if (!hm.matches()) {
+      throw new InvalidHashFileException(
+          "The checkpoint journal '" + this.file.getPath() + "' has an invalid header: " + lines.get(0));
+    }
+    if (!hm.group(1).equals(mode.getName()) || !hm.group(2).equals(algorithm)) {
+      throw new InvalidHashFileException("The checkpoint journal '" + this.file.getPath()
+          + "' was written using the '" + hm.group(1) + "' hashing mode and the '" + hm.group(2)
+          + "' hashing algorithm, but the datasource uses the '" + mode.getName() + "' hashing mode and the '"
+          + algorithm + "' hashing algorithm.");
+    }
+
+    Progress p = new Progress();
+    for (int i = 1; i < lines.size(); i++) {
+      String line = lines.get(i);
+      try {
+        parse(p, line);
+      } catch (RuntimeException | InvalidHashFileException e) {
+        if (i < lines.size() - 1) {
+          throw new InvalidHashFileException("Line #" + (i + 1) + " of the checkpoint journal '" + this.file.getPath()
+              + "' is invalid: " + line);
+        }
+      }
+    }
+    return p;
+  }
+
+  private void parse(final Progress p, final String line) throws InvalidHashFileException {
+    Matcher m = DONE_PATTERN.matcher(line);
+    if (m.matches()) {
+      p.done.put(taskId(m.group(5), parseIndex(m.group(1))),
+          new Done(m.group(2), !m.group(3).isEmpty(), Long.parseLong(m.group(4))));
+      return;
+    }
+    m = CHUNK_PATTERN.matcher(line);
+    if (m.matches()) {
+      if (!RowKey.isValid(m.group(4))) {
+        throw new InvalidHashFileException("Invalid key '" + m.group(4) + "'.");
+      }
+      p.chunks.put(taskId(m.group(5), parseIndex(m.group(1))),
+          new Checkpoint(Long.parseLong(m.group(2)), Utl.fromHex(m.group(3)), m.group(4)));
+      return;
+    }
+    m = RANGES_PATTERN.matcher(line);
+    if (m.matches()) {
+      int count = Integer.parseInt(m.group(1));
+      String[] parts = m.group(2).split(" ", count + 1);
+      if (parts.length != count + 1) {
+        throw new InvalidHashFileException("Invalid key ranges.");
+      }
+      List<String> upTos = new ArrayList<>();
+      for (String upTo : Arrays.asList(parts).subList(0, count)) {
+        if (!"-".equals(upTo) && !RowKey.isValid(upTo)) {
+          throw new InvalidHashFileException("Invalid key '" + upTo + "'.");
+        }
+        upTos.add("-".equals(upTo) ? null : upTo);
+      }
+      p.ranges.put(parts[count], upTos);
+      return;
+    }
+    throw new InvalidHashFileException("Invalid line.");
+  }
+
+  private static Integer parseIndex(final String s) {
+    return "-".equals(s) ? null : Integer.valueOf(s);
+  }
+
+  private static String taskId(final String genericName, final Integer rangeIndex) {
+    return renderIndex(rangeIndex) + " " + genericName;
+  }
+
+  public static class Progress {
+
+    private Map<String, List<String>> ranges = new HashMap<>();
+    private Map<String, Done> done = new HashMap<>();
+    private Map<String, Checkpoint> chunks = new HashMap<>();
+
+    // The upper keys of the key ranges of a table (the last one is null), or
+    // null if it was not split
+
+    public List<String> getRanges(final String genericName) {
+      return this.ranges.get(genericName);
+    }
+
+    public Done getDone(final String genericName, final Integer rangeIndex) {
+      return this.done.get(taskId(genericName, rangeIndex));
+    }
+
+    public Checkpoint getCheckpoint(final String genericName, final Integer rangeIndex) {
+      return this.done.containsKey(taskId(genericName, rangeIndex)) ? null
+          : this.chunks.get(taskId(genericName, rangeIndex));
+    }
+
+  }
+
+  public static class Done {
+
+    private String hash;
+    private boolean nonDeterministic;
+    private long rowCount;
+
+    private Done(String hash, boolean nonDeterministic, long rowCount) {
+      this.hash = hash;
+      this.nonDeterministic = nonDeterministic;
+      this.rowCount = rowCount;
+    }
+
+    public String getHash() {
+      return hash;
+    }
+
+    public boolean isNonDeterministic() {
+      return nonDeterministic;
+    }
+
+    public long getRowCount() {
+      return rowCount;
+    }
+
+  }
+
+  // The state of a table (or key range) after the row with the (encoded) key
+
+  public static class Checkpoint {
+
+    private long rowCount;
+    private byte[] state;
+    private String key;
+
+    public Checkpoint(long rowCount, byte[] state, String key) {
+      this.rowCount = rowCount;
+      this.state = state;
+      this.key = key;
+    }
+
+    public long getRowCount() {
+      return rowCount;
+    }
+
+    public byte[] getState() {
+      return state;
+    }
+
+    public String getKey() {
+      return key;
+    }
+
+  }
+
+}
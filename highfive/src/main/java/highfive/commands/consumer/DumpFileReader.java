@@ -1,96 +1,53 @@
 package highfive.commands.consumer;
 
-import java.io.BufferedReader;
 import java.io.File;
-import java.io.FileReader;
 import java.io.IOException;
-import java.util.logging.Logger;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
-public class DumpFileReader {
-
-  private static final Logger log = Logger.getLogger(DumpFileReader.class.getName());
-
-  private File f;
-  private BufferedReader r;
-
-  private DumpFileMetaData metadata;
-  private long lineNo;
-  private boolean eof;
-  private boolean error;
-
-  private long row;
-  private String hash;
-
-  public DumpFileReader(File f) throws InvalidDumpFileException, DumpFileIOException {
-    log.fine("init");
-    this.f = f;
-    this.lineNo = 0;
-    this.eof = false;
-    this.error = false;
-    this.row = -1;
-    this.hash = null;
-    try {
-      this.r = new BufferedReader(new FileReader(this.f));
-      this.metadata = readHeader();
-    } catch (IOException e) {
-      throw new DumpFileIOException(e);
-    }
-  }
+import highfive.model.Digest;
+import highfive.model.HashingMode;
 
-  private DumpFileMetaData readHeader() throws InvalidDumpFileException, DumpFileIOException {
-    String txt;
-    try {
-      txt = this.r.readLine();
-    } catch (IOException e) {
-      throw new DumpFileIOException(e);
-    }
-    if (txt == null) {
-      this.eof = true;
-      throw new InvalidDumpFileException(
-          "Could not read the dump file '" + this.f + "'; it does not have the first comment line.");
-    }
-    this.lineNo++;
-    return DumpFileMetaData.parseHeader(txt);
-  }
+public abstract class DumpFileReader {
 
-  public boolean next() throws InvalidDumpFileException, DumpFileIOException {
-    if (this.eof) {
-      throw new InvalidDumpFileException(
-          "Could not read the baseline file '" + this.f + "'; the end of the file was already reached.");
-    } else if (this.error) {
-      throw new InvalidDumpFileException(
-          "Could not read the baseline file '" + this.f + "'; an error had been previously detected.");
-    } else {
-      String txt;
-      try {
-        txt = this.r.readLine();
-      } catch (IOException e) {
-        throw new DumpFileIOException(e);
-      }
-      if (txt == null) {
-        this.hash = null;
-        this.row = -1;
-        this.eof = true;
-        return false;
-      } else {
-        this.lineNo++;
-        if (txt.length() < 64 + 1 + 1) {
-          this.hash = null;
-          this.row = -1;
-          this.error = true;
-          throw new InvalidDumpFileException(
-              "Could not read the file '" + this.f + "'; Invalid format of line #" + this.lineNo + ": " + txt);
-        } else {
-          this.hash = txt.substring(0, 64);
-          this.row = Long.parseLong(txt.substring(65));
-          return true;
-        }
-      }
+  protected DumpFileMetaData metadata;
+
+  // Opens a text or binary dump file, detecting its format from its first
+  // bytes
+
+  public static DumpFileReader open(final File f) throws InvalidDumpFileException, DumpFileIOException {
+    if (BinaryDumpFileReader.isBinary(f)) {
+      return new BinaryDumpFileReader(f);
     }
+    return new TextDumpFileReader(f);
   }
 
+  // Moves to the next row; returns false at the end of the file
+
+  public abstract boolean next() throws InvalidDumpFileException, DumpFileIOException;
+
+  // Moves to the first row equal or greater than the given one, skipping the
+  // rows before it; returns false if there's no such row
+
+  public abstract boolean seek(long row) throws InvalidDumpFileException, DumpFileIOException;
+
+  // Checks the hash of the current row against a digest; a binary dump file
+  // can keep only the first bytes of the digest
+
+  public abstract boolean matches(byte[] digest);
+
+  // The number of bytes of the digest kept for each row
+
+  public abstract int getWidth();
+
+  public abstract boolean atStart();
+
+  public abstract long getRow();
+
+  public abstract String getHash();
+
+  public abstract void close() throws IOException;
+
   public static enum DumpFileType {
     FULL, RANGED, STEPPED
   };
@@ -102,6 +59,8 @@ public class DumpFileReader {
     private Long start;
     private Long end;
     private Long step;
+    private String algorithm = Digest.DEFAULT;
+    private HashingMode mode = HashingMode.ORDERED;
 
     public DumpFileMetaData(String table) {
       this.type = DumpFileType.FULL;
@@ -147,6 +106,54 @@ public class DumpFileReader {
       return step;
     }
 
+    public String getAlgorithm() {
+      return algorithm;
+    }
+
+    public HashingMode getMode() {
+      return mode;
+    }
+
+    // The algorithm is only written when it's not the default one
+
+    public static String renderAlgorithm(final String algorithm) {
+      return Digest.DEFAULT.equals(algorithm) ? "" : ", algorithm " + algorithm;
+    }
+
+    DumpFileMetaData withAlgorithm(final String algorithm) {
+      if (algorithm != null) {
+        this.algorithm = algorithm;
+      }
+      return this;
+    }
+
+    DumpFileMetaData withMode(final HashingMode mode) {
+      this.mode = mode;
+      return this;
+    }
+
+    private DumpFileMetaData withMode(final String chained) {
+      return withMode(chained == null ? HashingMode.ORDERED : HashingMode.CHAINED);
+    }
+
+    private String renderOptions() {
+      return renderAlgorithm(this.algorithm) + (this.mode == HashingMode.CHAINED ? ", chained" : "");
+    }
+
+    // The header line of the file, that parseHeader() reads back
+
+    public String render() {
+      switch (this.type) {
+      case RANGED:
+        return "# table: " + this.table + " (rows " + this.start + "-" + this.end + renderOptions() + ")";
+      case STEPPED:
+        return "# table: " + this.table + " (rows " + this.start + "-" + this.end + ", step " + this.step
+            + renderOptions() + ")";
+      default:
+        return "# table: " + this.table + " (whole table" + renderOptions() + ")";
+      }
+    }
+
     public static DumpFileMetaData parseHeader(final String header) throws InvalidDumpFileException {
       DumpFileMetaData m;
       m = isWholeTable(header);
@@ -167,8 +174,13 @@ public class DumpFileReader {
     // # table: employee (whole table)
     // # table: employee (rows 1000-2000)
     // # table: employee (rows 1000-2000, step 100)
+    // # table: employee (whole table, algorithm xxh128)
+    // # table: employee (whole table, chained)
 
-    private static final Pattern WHOLE_TABLE = Pattern.compile("^# table: (.*) \\(whole table\\)$");
+    private static final String OPTIONS = "(?:, algorithm ([a-z0-9\\-]+))?(, chained)?";
+
+    private static final Pattern WHOLE_TABLE = Pattern
+        .compile("^# table: (.*) \\(whole table" + OPTIONS + "\\)$");
 
     public static DumpFileMetaData isWholeTable(final String header) {
       Matcher m = WHOLE_TABLE.matcher(header);
@@ -176,11 +188,12 @@ public class DumpFileReader {
         return null;
       } else {
         String table = m.group(1);
-        return new DumpFileMetaData(table);
+        return new DumpFileMetaData(table).withAlgorithm(m.group(2)).withMode(m.group(3));
       }
     }
 
-    private static final Pattern RANGED_TABLE = Pattern.compile("^# table: (.*) \\(rows (\\d+)\\-(\\d+)\\)$");
+    private static final Pattern RANGED_TABLE = Pattern
+        .compile("^# table: (.*) \\(rows (\\d+)\\-(\\d+)" + OPTIONS + "\\)$");
 
     public static DumpFileMetaData isRangedTable(final String header) {
       Matcher m = RANGED_TABLE.matcher(header);
@@ -190,12 +203,12 @@ public class DumpFileReader {
         String table = m.group(1);
         Long start = Long.parseLong(m.group(2));
         Long end = Long.parseLong(m.group(3));
-        return new DumpFileMetaData(table, start, end);
+        return new DumpFileMetaData(table, start, end).withAlgorithm(m.group(4)).withMode(m.group(5));
       }
     }
 
     private static final Pattern STEPPED_TABLE = Pattern
-        .compile("^# table: (.*) \\(rows (\\d+)\\-(\\d+), step (\\d+)\\)$");
+        .compile("^# table: (.*) \\(rows (\\d+)\\-(\\d+), step (\\d+)" + OPTIONS + "\\)$");
 
     public static DumpFileMetaData isSteppedTable(final String header) {
       Matcher m = STEPPED_TABLE.matcher(header);
@@ -206,14 +219,14 @@ public class DumpFileReader {
         Long start = Long.parseLong(m.group(2));
         Long end = Long.parseLong(m.group(3));
         Long step = Long.parseLong(m.group(4));
-        return new DumpFileMetaData(table, start, end, step);
+        return new DumpFileMetaData(table, start, end, step).withAlgorithm(m.group(5)).withMode(m.group(6));
       }
     }
 
     @Override
     public String toString() {
       return "DumpFileMetaData [type=" + type + ", table=" + table + ", start=" + start + ", end=" + end + ", step="
-          + step + "]";
+          + step + ", algorithm=" + algorithm + ", mode=" + mode.getName() + "]";
     }
 
   }
@@ -224,18 +237,6 @@ public class DumpFileReader {
     return metadata;
   }
 
-  public boolean atStart() {
-    return this.lineNo == 0;
-  }
-
-  public long getRow() {
-    return row;
-  }
-
-  public String getHash() {
-    return hash;
-  }
-
   // Exception
 
   public static class InvalidDumpFileException extends Exception {
@@ -258,8 +259,4 @@ public class DumpFileReader {
 
   }
 
-  public void close() throws IOException {
-    this.r.close();
-  }
-
 }
@@ -0,0 +1,56 @@
+package highfive.commands.consumer;
+
+import java.io.File;
+import java.io.IOException;
+
+import highfive.commands.consumer.DumpFileReader.DumpFileMetaData;
+import highfive.model.HashingMode;
+
+public abstract class DumpFileWriter implements AutoCloseable {
+
+  // Writes the hash of a row; the rows must be written in increasing order
+
+  public abstract void write(long row, byte[] digest) throws IOException;
+
+  @Override
+  public abstract void close() throws IOException;
+
+  // The format of the dump files: text (the default), or binary, that can keep
+  // only the first bytes of each digest. The hashes of the rows are the running
+  // hash of the table (ordered mode) or the chained row digests (chained mode).
+
+  public static class DumpFileFormat {
+
+    private String algorithm;
+    private HashingMode mode;
+    private boolean binary;
+    private int width;
+
+    // A width of zero keeps the whole digest
+
+    public DumpFileFormat(final String algorithm, final HashingMode mode, final boolean binary, final int width) {
+      this.algorithm = algorithm;
+      this.mode = mode;
+      this.binary = binary;
+      this.width = width;
+    }
+
+    public DumpFileWriter open(final File f, final DumpFileMetaData m) throws IOException {
+      m.withAlgorithm(this.algorithm).withMode(this.mode);
+      if (this.binary) {
+        return new BinaryDumpFileWriter(f, m, this.width);
+      }
+      return new TextDumpFileWriter(f, m);
+    }
+
+    public String getAlgorithm() {
+      return algorithm;
+    }
+
+    public HashingMode getMode() {
+      return mode;
+    }
+
+  }
+
+}
@@ -1,23 +1,30 @@
 package highfive.commands.consumer;
 
-import java.io.BufferedWriter;
 import java.io.File;
-import java.io.FileWriter;
 import java.io.IOException;
 
+import highfive.commands.consumer.DumpFileReader.DumpFileMetaData;
+import highfive.commands.consumer.DumpFileWriter.DumpFileFormat;
 import highfive.exceptions.InvalidHashFileException;
+import highfive.model.ByteSink;
 import highfive.model.Column;
 import highfive.model.Hasher;
-import highfive.utils.Utl;
+import highfive.model.HashingMode;
 
 public class FullHashDumpWriter implements HashConsumer {
 
-  private BufferedWriter w;
+  private DumpFileWriter w;
+  private HashingMode mode;
 
-  public FullHashDumpWriter(String tableName, File f) throws IOException {
+  public FullHashDumpWriter(String tableName, File f, DumpFileFormat format) throws IOException {
     super();
-    this.w = new BufferedWriter(new FileWriter(f));
-    this.w.write("# table: " + tableName + " (whole table)\n");
+    this.w = format.open(f, new DumpFileMetaData(tableName));
+    this.mode = format.getMode();
+  }
+
+  @Override
+  public HashingMode getHashingMode() {
+    return this.mode;
   }
 
   @Override
@@ -30,12 +37,12 @@ public class FullHashDumpWriter implements HashConsumer {
   }
 
   @Override
-  public void consumeValue(long row, Column c, byte[] bytes, Hasher h) throws CloneNotSupportedException {
+  public void consumeValue(long row, Column c, ByteSink bytes, Hasher h) throws CloneNotSupportedException {
   }
 
   @Override
   public boolean consumeRow(long row, Hasher hasher) throws IOException, CloneNotSupportedException {
-    this.w.write(Utl.toHex(hasher.getInProgressDigest()) + " " + row + "\n");
+    this.w.write(row, hasher.getInProgressDigest());
     return true;
   }
 
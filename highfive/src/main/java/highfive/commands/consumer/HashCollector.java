@@ -0,0 +1,69 @@
+package highfive.commands.consumer;
+
+import java.io.IOException;
+
+import highfive.exceptions.InvalidHashFileException;
+import highfive.model.ByteSink;
+import highfive.model.Column;
+import highfive.model.Hasher;
+import highfive.utils.Utl;
+
+// Keeps the hash of a single table (or key range) instead of writing it to a
+// file
+
+public class HashCollector implements HashConsumer {
+
+  private Hasher hasher;
+  private String hash;
+  private boolean failed;
+  private long rowCount;
+
+  @Override
+  public void initializeHasher(Hasher h) {
+    this.hasher = h;
+  }
+
+  @Override
+  public void consumeValueHeader(long row) {
+  }
+
+  @Override
+  public void consumeValue(long row, Column c, ByteSink bytes, Hasher h) throws CloneNotSupportedException {
+  }
+
+  @Override
+  public boolean consumeRow(long row, Hasher hasher) throws IOException {
+    this.hasher = hasher;
+    return true;
+  }
+
+  @Override
+  public void consumeTable(String genericName, boolean nonDeterministic, boolean failed, long rowCount)
+      throws InvalidHashFileException {
+    this.hash = Utl.toHex(this.hasher.close());
+    this.failed = failed;
+    this.rowCount = rowCount;
+  }
+
+  public String getHash() {
+    return hash;
+  }
+
+  public boolean isFailed() {
+    return failed;
+  }
+
+  public long getRowCount() {
+    return rowCount;
+  }
+
+  @Override
+  public void close() throws Exception {
+  }
+
+  @Override
+  public ExecutionStatus getStatus() {
+    return ExecutionStatus.success("Hash computed.");
+  }
+
+}
@@ -2,14 +2,18 @@ package highfive.commands.consumer;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.Arrays;
 import java.util.logging.Logger;
 
 import highfive.commands.consumer.DumpFileReader.DumpFileIOException;
 import highfive.commands.consumer.DumpFileReader.DumpFileType;
 import highfive.commands.consumer.DumpFileReader.InvalidDumpFileException;
 import highfive.exceptions.InvalidHashFileException;
+import highfive.model.ByteSink;
 import highfive.model.Column;
 import highfive.model.Hasher;
+import highfive.model.HashingMode;
+import highfive.utils.Utl;
 
 public class HashComparator implements HashConsumer {
 
@@ -24,17 +28,29 @@ public class HashComparator implements HashConsumer {
   private Long lastMatchedRow;
   private ExecutionStatus status;
 
-  public HashComparator(String tableName, File baseline, File current)
+  public HashComparator(String tableName, File baseline, File current, String algorithm)
       throws InvalidDumpFileException, DumpFileIOException {
     log.fine("init");
     this.tableName = tableName;
     this.baseline = baseline;
-    this.b = new DumpFileReader(baseline);
+    this.b = DumpFileReader.open(baseline);
+    if (!this.b.getMetadata().getAlgorithm().equals(algorithm)) {
+      throw new InvalidDumpFileException("The baseline dump file was computed using the '"
+          + this.b.getMetadata().getAlgorithm() + "' hashing algorithm, but the live table is hashed using the '"
+          + algorithm + "' hashing algorithm; they cannot be compared.");
+    }
     this.beof = false;
     this.lastMatchedRow = null;
     this.status = null;
   }
 
+  // The live rows are hashed as the baseline ones
+
+  @Override
+  public HashingMode getHashingMode() {
+    return this.b.getMetadata().getMode();
+  }
+
   @Override
   public void initializeHasher(Hasher h) {
     // Nothing to do
@@ -45,7 +61,7 @@ public class HashComparator implements HashConsumer {
   }
 
   @Override
-  public void consumeValue(long row, Column c, byte[] bytes, Hasher h) throws CloneNotSupportedException {
+  public void consumeValue(long row, Column c, ByteSink bytes, Hasher h) throws CloneNotSupportedException {
   }
 
   @Override
@@ -54,8 +70,8 @@ public class HashComparator implements HashConsumer {
     if (this.status != null) {
       return false;
     }
-    while (!this.beof && (b.atStart() || b.getRow() < liveRow)) {
-      nextBaseline();
+    if (!this.beof && (b.atStart() || b.getRow() < liveRow) && !b.seek(liveRow)) {
+      this.beof = true;
     }
     if (this.beof) {
       if (b.getMetadata().getType() == DumpFileType.FULL) {
@@ -73,9 +89,9 @@ public class HashComparator implements HashConsumer {
     if (b.getRow() > liveRow) {
       return true;
     } else { // line == this.line
-      String liveHash = hasher.getOngoingHash();
-      if (!liveHash.equals(b.getHash())) {
-        computeErrorStatus(liveRow, liveHash);
+      byte[] liveDigest = hasher.getInProgressDigest();
+      if (!b.matches(liveDigest)) {
+        computeErrorStatus(liveRow, Utl.toHex(Arrays.copyOf(liveDigest, b.getWidth())));
         nextBaseline();
         return false;
       }
@@ -135,6 +151,14 @@ public class HashComparator implements HashConsumer {
     if (this.status != null) {
       return;
     }
+    if (!this.beof && b.getRow() < 0) { // no live rows
+      try {
+        nextBaseline();
+      } catch (InvalidDumpFileException | DumpFileIOException e) {
+        this.status = ExecutionStatus.failure("Could not read the baseline file: " + e.getMessage());
+        return;
+      }
+    }
     if (!this.beof) {
       this.status = ExecutionStatus.failure("Found more rows in the baseline file than in the live table '"
           + this.tableName + "'; the table does not a row #" + b.getRow());
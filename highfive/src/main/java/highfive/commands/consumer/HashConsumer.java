@@ -5,16 +5,35 @@ import java.io.IOException;
 import highfive.commands.consumer.DumpFileReader.DumpFileIOException;
 import highfive.commands.consumer.DumpFileReader.InvalidDumpFileException;
 import highfive.exceptions.InvalidHashFileException;
+import highfive.model.ByteSink;
 import highfive.model.Column;
 import highfive.model.Hasher;
+import highfive.model.HashingMode;
+import highfive.model.RowKey;
 
 public interface HashConsumer extends AutoCloseable {
 
+  // The hashing mode of the single table commands
+
+  default HashingMode getHashingMode() {
+    return HashingMode.ORDERED;
+  }
+
   void initializeHasher(Hasher h);
 
   void consumeValueHeader(long row);
 
-  void consumeValue(long row, Column c, byte[] bytes, Hasher h) throws CloneNotSupportedException;
+  void consumeValue(long row, Column c, ByteSink bytes, Hasher h) throws CloneNotSupportedException;
+
+  // The consumers that pair the rows of two tables by their ordering key get
+  // the key of each row before consumeRow()
+
+  default boolean needsRowKeys() {
+    return false;
+  }
+
+  default void consumeRowKey(long row, RowKey key) {
+  }
 
   boolean consumeRow(long row, Hasher hasher)
       throws IOException, CloneNotSupportedException, InvalidDumpFileException, DumpFileIOException;
@@ -6,10 +6,11 @@ import java.io.IOException;
 import highfive.commands.HashDumpCommand.HashDumpConfig;
 import highfive.commands.consumer.DumpFileReader.DumpFileIOException;
 import highfive.commands.consumer.DumpFileReader.InvalidDumpFileException;
+import highfive.commands.consumer.DumpFileWriter.DumpFileFormat;
 
 public interface HashDumpWriterFactory {
 
-  public HashConsumer getInstance(HashDumpConfig config, File f)
+  public HashConsumer getInstance(HashDumpConfig config, File f, DumpFileFormat format)
       throws IOException, InvalidDumpFileException, DumpFileIOException;
 
   public static class HashDumpComparatorFactory implements HashDumpWriterFactory {
@@ -21,9 +22,9 @@ public interface HashDumpWriterFactory {
     }
 
     @Override
-    public HashConsumer getInstance(HashDumpConfig config, File current)
+    public HashConsumer getInstance(HashDumpConfig config, File current, DumpFileFormat format)
         throws IOException, InvalidDumpFileException, DumpFileIOException {
-      return new HashComparator(config.getTableName(), this.baseline, current);
+      return new HashComparator(config.getTableName(), this.baseline, current, format.getAlgorithm());
     }
 
   }
@@ -39,7 +40,7 @@ public interface HashDumpWriterFactory {
     }
 
     @Override
-    public HashConsumer getInstance(HashDumpConfig config, File current)
+    public HashConsumer getInstance(HashDumpConfig config, File current, DumpFileFormat format)
         throws IOException, InvalidDumpFileException, DumpFileIOException {
       return new HashLogger(config.getTableName(), this.start, this.end);
     }
@@ -49,8 +50,8 @@ public interface HashDumpWriterFactory {
   public static class FullHashDumpWriterFactory implements HashDumpWriterFactory {
 
     @Override
-    public HashConsumer getInstance(HashDumpConfig config, File f) throws IOException {
-      return new FullHashDumpWriter(config.getTableName(), f);
+    public HashConsumer getInstance(HashDumpConfig config, File f, DumpFileFormat format) throws IOException {
+      return new FullHashDumpWriter(config.getTableName(), f, format);
     }
 
   }
@@ -58,8 +59,8 @@ public interface HashDumpWriterFactory {
   public static class RangeHashDumpWriterFactory implements HashDumpWriterFactory {
 
     @Override
-    public HashConsumer getInstance(HashDumpConfig config, File f) throws IOException {
-      return new RangeHashDumpWriter(config.getTableName(), f, config.getStart(), config.getEnd());
+    public HashConsumer getInstance(HashDumpConfig config, File f, DumpFileFormat format) throws IOException {
+      return new RangeHashDumpWriter(config.getTableName(), f, config.getStart(), config.getEnd(), format);
     }
 
   }
@@ -67,9 +68,9 @@ public interface HashDumpWriterFactory {
   public static class SteppedHashDumpWriterFactory implements HashDumpWriterFactory {
 
     @Override
-    public HashConsumer getInstance(HashDumpConfig config, File f) throws IOException {
+    public HashConsumer getInstance(HashDumpConfig config, File f, DumpFileFormat format) throws IOException {
       return new SteppedRangeHashDumpWriter(config.getTableName(), f, config.getStart(), config.getEnd(),
-          config.getStep());
+          config.getStep(), format);
     }
 
   }
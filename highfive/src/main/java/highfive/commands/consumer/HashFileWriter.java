@@ -1,28 +1,172 @@
 package highfive.commands.consumer;
 
 import java.io.IOException;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
+import highfive.commands.consumer.CheckpointJournal.Checkpoint;
+import highfive.commands.consumer.CheckpointJournal.Done;
+import highfive.commands.consumer.CheckpointJournal.Progress;
 import highfive.exceptions.InvalidHashFileException;
+import highfive.model.ByteSink;
 import highfive.model.Column;
 import highfive.model.HashFile;
 import highfive.model.Hasher;
+import highfive.model.HashingMode;
+import highfive.model.RangeHash;
+import highfive.model.TableHash;
 import highfive.utils.Utl;
 
-public class HashFileWriter implements HashConsumer {
+public class HashFileWriter implements HashConsumer, CheckpointConsumer {
 
   private String filename;
-  private HashFile hashFile;
-  private Hasher lastHasher;
+  private HashingMode mode;
+  private String algorithm;
+  private Set<String> tableOrder;
+  private Map<String, TableHash> hashes;
+  private Map<String, RangeHash[]> ranges;
+  private Map<String, List<String>> rangeKeys;
+  private Worker serial;
+  private CheckpointJournal journal;
+  private Progress progress;
+  private volatile boolean failures;
+  private boolean completed;
 
-  public HashFileWriter(String filename) {
+  public HashFileWriter(String filename, HashingMode mode, String algorithm) {
     this.filename = filename;
-    this.hashFile = new HashFile();
-    this.lastHasher = null;
+    this.mode = mode;
+    this.algorithm = algorithm;
+    this.tableOrder = new LinkedHashSet<>();
+    this.hashes = new HashMap<>();
+    this.ranges = new HashMap<>();
+    this.rangeKeys = new HashMap<>();
+    this.serial = new Worker(null);
+    this.journal = null;
+    this.progress = null;
+    this.failures = false;
+    this.completed = false;
+  }
+
+  // The journal records the progress of the run; the progress of a previous
+  // run (null if not resuming) provides the tables and key ranges already
+  // hashed, and the last checkpoint of the rest
+
+  public void setJournal(CheckpointJournal journal, Progress progress) {
+    this.journal = journal;
+    this.progress = progress;
+  }
+
+  // Tables can be hashed in any order by parallel workers; the hash file lists
+  // them in the declared order, as a serial run would.
+
+  public synchronized void setTableOrder(List<String> genericNames) {
+    this.tableOrder.addAll(genericNames);
+  }
+
+  public HashConsumer newWorker() {
+    return new Worker(null);
+  }
+
+  // A partitioned table is hashed by key ranges, possibly by different workers.
+  // The table hash is computed over the range hashes, in key order, once all
+  // of them are in.
+
+  public synchronized void setKeyRanges(String genericName, List<String> upTos) throws IOException {
+    this.rangeKeys.put(genericName, upTos);
+    this.ranges.put(genericName, new RangeHash[upTos.size()]);
+    if (this.journal != null) {
+      this.journal.ranges(genericName, upTos);
+    }
+  }
+
+  // Adds a table (or key range) hashed by the previous run; returns false if
+  // it wasn't
+
+  public boolean restore(String genericName, Integer rangeIndex) throws InvalidHashFileException {
+    Done d = this.progress == null ? null : this.progress.getDone(genericName, rangeIndex);
+    if (d == null) {
+      return false;
+    }
+    if (rangeIndex == null) {
+      add(genericName, d.getHash(), d.isNonDeterministic(), false, d.getRowCount());
+    } else {
+      addRange(genericName, rangeIndex, d.getHash(), d.isNonDeterministic(), false, d.getRowCount());
+    }
+    return true;
+  }
+
+  // The journal is only deleted when all tables were hashed with no failures
+
+  public void complete() {
+    this.completed = true;
+  }
+
+  public HashConsumer newRangeWorker(int index) {
+    return new Worker(index);
+  }
+
+  private synchronized void addRange(String genericName, int index, String hash, boolean nonDeterministic,
+      boolean failed, long rowCount) throws InvalidHashFileException {
+    RangeHash[] rhs = this.ranges.get(genericName);
+    if (rhs == null || index >= rhs.length) {
+      throw new InvalidHashFileException("Undeclared key range #" + (index + 1) + " for table '" + genericName + "'.");
+    }
+    if (rhs[index] != null) {
+      throw new InvalidHashFileException("Duplicate key range #" + (index + 1) + " for table '" + genericName + "'.");
+    }
+    rhs[index] = new RangeHash(hash, nonDeterministic, failed, rowCount, this.rangeKeys.get(genericName).get(index));
+    if (Arrays.stream(rhs).allMatch(rh -> rh != null)) {
+      List<RangeHash> all = new ArrayList<>(Arrays.asList(rhs));
+      try {
+        Hasher root = new Hasher(HashingMode.ORDERED, this.algorithm);
+        for (RangeHash rh : all) {
+          root.apply(Utl.fromHex(rh.getHash()));
+        }
+        if (this.hashes.containsKey(genericName)) {
+          throw new InvalidHashFileException("Duplicate table '" + genericName + "'.");
+        }
+        this.tableOrder.add(genericName);
+        this.hashes.put(genericName,
+            new TableHash(Utl.toHex(root.close()), all.stream().anyMatch(rh -> rh.isNonDeterministic()),
+                all.stream().anyMatch(rh -> rh.isFailed()), all.stream().mapToLong(rh -> rh.getRowCount()).sum(),
+                all));
+      } catch (NoSuchAlgorithmException e) {
+        throw new InvalidHashFileException("Could not compute the hash of table '" + genericName + "': " + e.getMessage());
+      }
+    }
+  }
+
+  private synchronized void add(String genericName, String hash, boolean nonDeterministic, boolean failed,
+      long rowCount) throws InvalidHashFileException {
+    if (this.hashes.containsKey(genericName)) {
+      throw new InvalidHashFileException("Duplicate table '" + genericName + "'.");
+    }
+    this.tableOrder.add(genericName);
+    this.hashes.put(genericName, new TableHash(hash, nonDeterministic, failed, rowCount));
+  }
+
+  public synchronized HashFile getHashFile() throws InvalidHashFileException {
+    HashFile hashFile = new HashFile();
+    hashFile.setMode(this.mode);
+    hashFile.setAlgorithm(this.algorithm);
+    for (String table : this.tableOrder) {
+      TableHash h = this.hashes.get(table);
+      if (h != null) {
+        hashFile.add(table, h);
+      }
+    }
+    return hashFile;
   }
 
   @Override
   public void initializeHasher(Hasher h) {
-    this.lastHasher = h;
+    this.serial.initializeHasher(h);
   }
 
   @Override
@@ -30,30 +174,41 @@ public class HashFileWriter implements HashConsumer {
   }
 
   @Override
-  public void consumeValue(long row, Column c, byte[] bytes, Hasher h) throws CloneNotSupportedException {
+  public void consumeValue(long row, Column c, ByteSink bytes, Hasher h) throws CloneNotSupportedException {
   }
 
   @Override
   public boolean consumeRow(long row, Hasher hasher) throws IOException {
-    this.lastHasher = hasher;
-    return true;
-  }
-
-  public HashFile getHashFile() {
-    return hashFile;
+    return this.serial.consumeRow(row, hasher);
   }
 
   @Override
   public void consumeTable(String genericName, boolean nonDeterministic, boolean failed, long rowCount)
       throws InvalidHashFileException {
-    String hash = Utl.toHex(this.lastHasher.close());
-    hashFile.add(hash, nonDeterministic, failed, rowCount, genericName);
+    this.serial.consumeTable(genericName, nonDeterministic, failed, rowCount);
+  }
+
+  @Override
+  public Checkpoint getCheckpoint(String genericName) {
+    return this.serial.getCheckpoint(genericName);
+  }
+
+  @Override
+  public void checkpoint(String genericName, Checkpoint c) throws IOException {
+    this.serial.checkpoint(genericName, c);
   }
 
   @Override
   public void close() throws Exception {
 //    System.out.println(">> HashFileWriter.close()");
-    this.hashFile.saveTo(this.filename);
+    this.getHashFile().saveTo(this.filename);
+    if (this.journal != null) {
+      if (this.completed && !this.failures) {
+        this.journal.delete();
+      } else {
+        this.journal.close();
+      }
+    }
   }
 
   @Override
@@ -61,4 +216,78 @@ public class HashFileWriter implements HashConsumer {
     return ExecutionStatus.success("Hash file generated.");
   }
 
-}
\ No newline at end of file
+  // Worker -- keeps the state of the table (or key range) being hashed by a
+  // single thread
+
+  private class Worker implements HashConsumer, CheckpointConsumer {
+
+    private Integer rangeIndex;
+    private Hasher lastHasher;
+
+    private Worker(Integer rangeIndex) {
+      this.rangeIndex = rangeIndex;
+    }
+
+    @Override
+    public void initializeHasher(Hasher h) {
+      this.lastHasher = h;
+    }
+
+    @Override
+    public void consumeValueHeader(long row) {
+    }
+
+    @Override
+    public void consumeValue(long row, Column c, ByteSink bytes, Hasher h) throws CloneNotSupportedException {
+    }
+
+    @Override
+    public boolean consumeRow(long row, Hasher hasher) throws IOException {
+      this.lastHasher = hasher;
+      return true;
+    }
+
+    @Override
+    public void consumeTable(String genericName, boolean nonDeterministic, boolean failed, long rowCount)
+        throws InvalidHashFileException {
+      String hash = Utl.toHex(this.lastHasher.close());
+      if (this.rangeIndex == null) {
+        add(genericName, hash, nonDeterministic, failed, rowCount);
+      } else {
+        addRange(genericName, this.rangeIndex, hash, nonDeterministic, failed, rowCount);
+      }
+      if (failed) {
+        failures = true;
+      } else if (journal != null) {
+        try {
+          journal.done(genericName, this.rangeIndex, hash, nonDeterministic, rowCount);
+        } catch (IOException e) {
+          throw new InvalidHashFileException("Could not write to the checkpoint journal: " + e.getMessage());
+        }
+      }
+    }
+
+    @Override
+    public Checkpoint getCheckpoint(String genericName) {
+      return progress == null ? null : progress.getCheckpoint(genericName, this.rangeIndex);
+    }
+
+    @Override
+    public void checkpoint(String genericName, Checkpoint c) throws IOException {
+      if (journal != null) {
+        journal.chunk(genericName, this.rangeIndex, c);
+      }
+    }
+
+    @Override
+    public void close() throws Exception {
+    }
+
+    @Override
+    public ExecutionStatus getStatus() {
+      return ExecutionStatus.success("Table hashed.");
+    }
+
+  }
+
+}
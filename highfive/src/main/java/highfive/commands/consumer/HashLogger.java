@@ -6,6 +6,7 @@ import java.util.logging.Logger;
 import highfive.commands.consumer.DumpFileReader.DumpFileIOException;
 import highfive.commands.consumer.DumpFileReader.InvalidDumpFileException;
 import highfive.exceptions.InvalidHashFileException;
+import highfive.model.ByteSink;
 import highfive.model.Column;
 import highfive.model.Hasher;
 import highfive.utils.Utl;
@@ -43,11 +44,11 @@ public class HashLogger implements HashConsumer {
   }
 
   @Override
-  public void consumeValue(long row, Column c, byte[] bytes, Hasher h) throws CloneNotSupportedException {
+  public void consumeValue(long row, Column c, ByteSink bytes, Hasher h) throws CloneNotSupportedException {
     if (row >= this.start && row <= this.end) {
       byte[] d = h.getInProgressDigest();
-      log.info("      " + c.getName() + ": '" + c.getSerializer().getValue() + "' - encoded: " + Utl.toHex(bytes)
-          + " -- hash: " + Utl.toHex(d));
+      log.info("      " + c.getName() + ": '" + c.getSerializer().getValue() + "' - encoded: "
+          + Utl.toHex(bytes == null ? null : bytes.toByteArray()) + " -- hash: " + Utl.toHex(d));
     }
   }
 
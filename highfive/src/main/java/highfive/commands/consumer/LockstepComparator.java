@@ -0,0 +1,440 @@
+package highfive.commands.consumer;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import highfive.exceptions.InvalidHashFileException;
+import highfive.model.ByteSink;
+import highfive.model.Column;
+import highfive.model.Hasher;
+import highfive.model.HashingMode;
+import highfive.model.RowKey;
+import highfive.model.RowOrdering;
+
+// Compares a table in two live databases while both are read at the same time,
+// each one by its own thread and in the hashing ordering. The target side (the
+// feeder) queues the digests of its rows in batches, and the source side
+// compares each of its rows with the next queued one. The rows are digested in
+// the chained mode, that keeps the digest of each row.
+//
+// It stops at the first different row, or counts all of them. To count them
+// the rows are paired by their ordering key, as the diff command does, so a
+// missing or an extra row is counted once and the rows after it are still
+// paired with their counterparts; the rows with the same key are paired in
+// the order they are read.
+
+public class LockstepComparator implements HashConsumer {
+
+  private static final int BATCH_ROWS = 1024;
+  private static final int QUEUE_BATCHES = 64;
+  private static final long WAIT_MILLIS = 100;
+
+  private boolean countAll;
+  private RowOrdering ordering; // null when the rows are paired by position
+  private BlockingQueue<Batch> queue;
+  private volatile boolean stopped;
+  private Feeder feeder;
+
+  private Batch batch;
+  private int index;
+  private boolean targetEnded;
+  private boolean targetFailed;
+  private boolean targetNonDeterministic;
+  private long targetRows;
+
+  private boolean sourceFailed;
+  private boolean sourceNonDeterministic;
+  private long sourceRows;
+  private RowKey sourceKey;
+  private RowKey previousSourceKey;
+
+  private long differences;
+  private long firstDifference;
+  private String firstReason;
+  private volatile String orderingError;
+
+  // The ordering of the source table pairs the rows when counting all of them
+
+  public LockstepComparator(final boolean countAll, final RowOrdering ordering) {
+    this.countAll = countAll;
+    this.ordering = countAll ? ordering : null;
+    this.queue = new ArrayBlockingQueue<>(QUEUE_BATCHES);
+    this.stopped = false;
+    this.feeder = new Feeder();
+    this.batch = null;
+    this.targetEnded = false;
+    this.differences = 0;
+    this.firstDifference = -1;
+  }
+
+  // The consumer of the target table
+
+  public Feeder getFeeder() {
+    return feeder;
+  }
+
+  // Both sides stop reading, e.g. when the other side failed
+
+  public void stop() {
+    this.stopped = true;
+  }
+
+  @Override
+  public HashingMode getHashingMode() {
+    return HashingMode.CHAINED;
+  }
+
+  @Override
+  public void initializeHasher(final Hasher h) {
+  }
+
+  @Override
+  public void consumeValueHeader(final long row) {
+  }
+
+  @Override
+  public void consumeValue(final long row, final Column c, final ByteSink bytes, final Hasher h) {
+  }
+
+  @Override
+  public boolean needsRowKeys() {
+    return this.ordering != null;
+  }
+
+  @Override
+  public void consumeRowKey(final long row, final RowKey key) {
+    this.previousSourceKey = this.sourceKey;
+    this.sourceKey = key;
+  }
+
+  @Override
+  public boolean consumeRow(final long row, final Hasher hasher) throws IOException {
+    this.sourceRows = row;
+    if (this.ordering != null) {
+      return consumeRowByKey(row, hasher);
+    }
+    boolean more = hasTarget();
+    if (this.targetFailed || this.stopped) {
+      stop();
+      return false;
+    }
+    if (!more) {
+      return different(row, "the target table ends after row #" + (row - 1));
+    }
+    if (!Arrays.equals(hasher.getRowDigest(), this.batch.digests[this.index++])) {
+      return different(row, "row #" + row + " has different values");
+    }
+    return true;
+  }
+
+  // Skips (and counts) the target rows with lower keys, and compares the row
+  // with the next target row when they have the same key
+
+  private boolean consumeRowByKey(final long row, final Hasher hasher) throws IOException {
+    if (this.previousSourceKey != null && this.ordering.compare(this.previousSourceKey, this.sourceKey) > 0) {
+      this.orderingError = outOfOrder("source", this.sourceKey, this.previousSourceKey);
+      stop();
+      return false;
+    }
+    while (true) {
+      boolean more = hasTarget();
+      if (this.targetFailed || this.stopped) {
+        stop();
+        return false;
+      }
+      int c = more ? this.ordering.compare(this.sourceKey, this.batch.keys[this.index]) : -1;
+      if (c < 0) {
+        return different(row, "row #" + row + " " + render(this.sourceKey) + " is missing in the target table");
+      }
+      RowKey targetKey = this.batch.keys[this.index];
+      byte[] t = this.batch.digests[this.index++];
+      if (c > 0) {
+        if (!different(row, "the target table has an extra row " + render(targetKey) + " before row #" + row)) {
+          return false;
+        }
+        continue;
+      }
+      if (!Arrays.equals(hasher.getRowDigest(), t)) {
+        return different(row, "row #" + row + " " + render(this.sourceKey) + " has different values");
+      }
+      return true;
+    }
+  }
+
+  private String render(final RowKey key) {
+    return "with key " + RowKey.render(this.ordering.encode(key));
+  }
+
+  private String outOfOrder(final String side, final RowKey key, final RowKey previous) {
+    return "the " + side + " database sorts the key " + RowKey.render(this.ordering.encode(key)) + " after the key "
+        + RowKey.render(this.ordering.encode(previous));
+  }
+
+  private boolean different(final long row, final String reason) {
+    this.differences++;
+    if (this.firstDifference < 0) {
+      this.firstDifference = row;
+      this.firstReason = reason;
+    }
+    if (!this.countAll) {
+      stop();
+      return false;
+    }
+    return true;
+  }
+
+  // Whether the target table has a next row, at this.index of this.batch; it
+  // waits for it when the target side is behind, until the comparison stops
+
+  private boolean hasTarget() throws IOException {
+    while (true) {
+      if (this.batch != null && this.index < this.batch.size) {
+        return true;
+      }
+      if (this.targetEnded) {
+        return false;
+      }
+      try {
+        this.batch = this.queue.poll(WAIT_MILLIS, TimeUnit.MILLISECONDS);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new IOException("Interrupted while waiting for the rows of the target table.");
+      }
+      if (this.batch == null) {
+        if (this.stopped) {
+          return false;
+        }
+        continue;
+      }
+      this.index = 0;
+      if (this.batch.end) {
+        this.targetEnded = true;
+        this.targetFailed = this.batch.failed;
+        this.targetNonDeterministic = this.batch.nonDeterministic;
+        this.targetRows = this.batch.rows;
+        this.batch = null;
+      }
+    }
+  }
+
+  // The rows of the target table that are left after the last source row are
+  // different too
+
+  @Override
+  public void consumeTable(final String genericName, final boolean nonDeterministic, final boolean failed,
+      final long rowCount) throws InvalidHashFileException {
+    this.sourceFailed = failed;
+    this.sourceNonDeterministic = nonDeterministic;
+    this.sourceRows = rowCount;
+    if (failed) {
+      stop();
+      return;
+    }
+    try {
+      while (!this.stopped && hasTarget()) {
+        RowKey targetKey = this.ordering == null ? null : this.batch.keys[this.index];
+        this.index++;
+        different(rowCount + 1, targetKey == null ? "the source table ends after row #" + rowCount
+            : "the target table has an extra row " + render(targetKey) + " after the last row #" + rowCount);
+      }
+    } catch (IOException e) {
+      this.sourceFailed = true;
+      stop();
+    }
+  }
+
+  public boolean isFailed() {
+    return this.sourceFailed || this.targetFailed || this.orderingError != null;
+  }
+
+  // When counting, a side that returns the rows in a different order than
+  // RowOrdering.compare() cannot be paired by key, e.g. with a non binary
+  // collation; null otherwise
+
+  public String getOrderingError() {
+    return orderingError;
+  }
+
+  public boolean isSourceFailed() {
+    return sourceFailed;
+  }
+
+  public boolean isNonDeterministic() {
+    return this.sourceNonDeterministic || this.targetNonDeterministic;
+  }
+
+  public long getDifferences() {
+    return differences;
+  }
+
+  public long getFirstDifference() {
+    return firstDifference;
+  }
+
+  public String getFirstReason() {
+    return firstReason;
+  }
+
+  public long getSourceRows() {
+    return sourceRows;
+  }
+
+  // The row count of the target table; only known when it was read in full
+
+  public Long getTargetRows() {
+    return this.targetEnded && !this.targetFailed ? this.targetRows : null;
+  }
+
+  @Override
+  public void close() throws Exception {
+  }
+
+  @Override
+  public ExecutionStatus getStatus() {
+    if (isFailed()) {
+      return ExecutionStatus.failure("Could not read the table.");
+    }
+    if (this.differences > 0) {
+      return ExecutionStatus.failure("Found different rows in the table.");
+    }
+    return ExecutionStatus.success("The table matches.");
+  }
+
+  // The consumer of the target table: it queues the digests of the rows, and
+  // waits when the source side is behind
+
+  public class Feeder implements HashConsumer {
+
+    private Batch current;
+    private boolean ended;
+    private RowKey key;
+    private RowKey previousKey;
+
+    private Feeder() {
+      this.current = new Batch(ordering != null);
+      this.ended = false;
+    }
+
+    @Override
+    public HashingMode getHashingMode() {
+      return HashingMode.CHAINED;
+    }
+
+    @Override
+    public void initializeHasher(final Hasher h) {
+    }
+
+    @Override
+    public void consumeValueHeader(final long row) {
+    }
+
+    @Override
+    public void consumeValue(final long row, final Column c, final ByteSink bytes, final Hasher h) {
+    }
+
+    @Override
+    public boolean needsRowKeys() {
+      return ordering != null;
+    }
+
+    @Override
+    public void consumeRowKey(final long row, final RowKey key) {
+      this.previousKey = this.key;
+      this.key = key;
+    }
+
+    @Override
+    public boolean consumeRow(final long row, final Hasher hasher) throws IOException {
+      if (ordering != null) {
+        if (this.previousKey != null && ordering.compare(this.previousKey, this.key) > 0) {
+          orderingError = outOfOrder("target", this.key, this.previousKey);
+          stop();
+          return false;
+        }
+        this.current.keys[this.current.size] = this.key;
+      }
+      this.current.digests[this.current.size++] = hasher.getRowDigest();
+      if (this.current.size == BATCH_ROWS) {
+        if (!put(this.current)) {
+          return false;
+        }
+        this.current = new Batch(ordering != null);
+      }
+      return !stopped;
+    }
+
+    @Override
+    public void consumeTable(final String genericName, final boolean nonDeterministic, final boolean failed,
+        final long rowCount) throws InvalidHashFileException {
+      end(nonDeterministic, failed, rowCount);
+    }
+
+    // Also called when the target table could not be read at all
+
+    public void end(final boolean nonDeterministic, final boolean failed, final long rowCount) {
+      if (this.ended) {
+        return;
+      }
+      this.ended = true;
+      try {
+        if (this.current.size > 0 && !failed) {
+          put(this.current);
+        }
+        Batch end = new Batch(false);
+        end.end = true;
+        end.failed = failed;
+        end.nonDeterministic = nonDeterministic;
+        end.rows = rowCount;
+        put(end);
+      } catch (IOException e) {
+        stop();
+      }
+    }
+
+    // Returns false when the comparison stopped
+
+    private boolean put(final Batch b) throws IOException {
+      try {
+        while (!queue.offer(b, WAIT_MILLIS, TimeUnit.MILLISECONDS)) {
+          if (stopped) {
+            return false;
+          }
+        }
+        return true;
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new IOException("Interrupted while queueing the rows of the target table.");
+      }
+    }
+
+    @Override
+    public void close() throws Exception {
+    }
+
+    @Override
+    public ExecutionStatus getStatus() {
+      return ExecutionStatus.success("Rows queued.");
+    }
+
+  }
+
+  private static class Batch {
+
+    private byte[][] digests = new byte[BATCH_ROWS][];
+    private RowKey[] keys;
+    private int size = 0;
+    private boolean end = false;
+    private boolean failed = false;
+    private boolean nonDeterministic = false;
+    private long rows = 0;
+
+    private Batch(final boolean withKeys) {
+      this.keys = withKeys ? new RowKey[BATCH_ROWS] : null;
+    }
+
+  }
+
+}
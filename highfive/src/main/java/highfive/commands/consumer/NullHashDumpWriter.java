@@ -3,6 +3,7 @@ package highfive.commands.consumer;
 import java.io.IOException;
 
 import highfive.exceptions.InvalidHashFileException;
+import highfive.model.ByteSink;
 import highfive.model.Column;
 import highfive.model.Hasher;
 
@@ -18,7 +19,7 @@ public class NullHashDumpWriter implements HashConsumer {
   }
 
   @Override
-  public void consumeValue(long row, Column c, byte[] bytes, Hasher h) throws CloneNotSupportedException {
+  public void consumeValue(long row, Column c, ByteSink bytes, Hasher h) throws CloneNotSupportedException {
   }
 
   @Override
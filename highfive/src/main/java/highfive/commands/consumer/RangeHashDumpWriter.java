@@ -1,28 +1,36 @@
 package highfive.commands.consumer;
 
-import java.io.BufferedWriter;
 import java.io.File;
-import java.io.FileWriter;
 import java.io.IOException;
 
+import highfive.commands.consumer.DumpFileReader.DumpFileMetaData;
+import highfive.commands.consumer.DumpFileWriter.DumpFileFormat;
 import highfive.exceptions.InvalidHashFileException;
+import highfive.model.ByteSink;
 import highfive.model.Column;
 import highfive.model.Hasher;
-import highfive.utils.Utl;
+import highfive.model.HashingMode;
 
 public class RangeHashDumpWriter implements HashConsumer {
 
-  private BufferedWriter w;
+  private DumpFileWriter w;
+  private HashingMode mode;
   private long start;
   private long end;
 
-  public RangeHashDumpWriter(String tableName, File f, long start, long end) throws IOException {
-    this.w = new BufferedWriter(new FileWriter(f));
-    this.w.write("# table: " + tableName + " (rows " + start + "-" + end + ")\n");
+  public RangeHashDumpWriter(String tableName, File f, long start, long end, DumpFileFormat format)
+      throws IOException {
+    this.w = format.open(f, new DumpFileMetaData(tableName, start, end));
+    this.mode = format.getMode();
     this.start = start;
     this.end = end;
   }
 
+  @Override
+  public HashingMode getHashingMode() {
+    return this.mode;
+  }
+
   @Override
   public void initializeHasher(Hasher h) {
     // Nothing to do
@@ -33,13 +41,13 @@ public class RangeHashDumpWriter implements HashConsumer {
   }
 
   @Override
-  public void consumeValue(long row, Column c, byte[] bytes, Hasher h) throws CloneNotSupportedException {
+  public void consumeValue(long row, Column c, ByteSink bytes, Hasher h) throws CloneNotSupportedException {
   }
 
   @Override
   public boolean consumeRow(long row, Hasher hasher) throws IOException, CloneNotSupportedException {
     if (row >= this.start && row <= this.end) {
-      this.w.write(Utl.toHex(hasher.getInProgressDigest()) + " " + row + "\n");
+      this.w.write(row, hasher.getInProgressDigest());
     }
     return row <= this.end;
   }
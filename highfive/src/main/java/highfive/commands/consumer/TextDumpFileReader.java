@@ -0,0 +1,144 @@
+package highfive.commands.consumer;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.logging.Logger;
+
+import highfive.model.Digest;
+import highfive.utils.Utl;
+
+// The text format: a header line followed by one line per row with the hex
+// hash and the row number
+
+public class TextDumpFileReader extends DumpFileReader {
+
+  private static final Logger log = Logger.getLogger(TextDumpFileReader.class.getName());
+
+  private File f;
+  private BufferedReader r;
+
+  private long lineNo;
+  private boolean eof;
+  private boolean error;
+
+  private long row;
+  private String hash;
+
+  public TextDumpFileReader(File f) throws InvalidDumpFileException, DumpFileIOException {
+    log.fine("init");
+    this.f = f;
+    this.lineNo = 0;
+    this.eof = false;
+    this.error = false;
+    this.row = -1;
+    this.hash = null;
+    try {
+      this.r = new BufferedReader(new FileReader(this.f));
+      this.metadata = readHeader();
+    } catch (IOException e) {
+      throw new DumpFileIOException(e);
+    }
+  }
+
+  private DumpFileMetaData readHeader() throws InvalidDumpFileException, DumpFileIOException {
+    String txt;
+    try {
+      txt = this.r.readLine();
+    } catch (IOException e) {
+      throw new DumpFileIOException(e);
+    }
+    if (txt == null) {
+      this.eof = true;
+      throw new InvalidDumpFileException(
+          "Could not read the dump file '" + this.f + "'; it does not have the first comment line.");
+    }
+    this.lineNo++;
+    return DumpFileMetaData.parseHeader(txt);
+  }
+
+  @Override
+  public boolean next() throws InvalidDumpFileException, DumpFileIOException {
+    if (this.eof) {
+      throw new InvalidDumpFileException(
+          "Could not read the baseline file '" + this.f + "'; the end of the file was already reached.");
+    } else if (this.error) {
+      throw new InvalidDumpFileException(
+          "Could not read the baseline file '" + this.f + "'; an error had been previously detected.");
+    } else {
+      String txt;
+      try {
+        txt = this.r.readLine();
+      } catch (IOException e) {
+        throw new DumpFileIOException(e);
+      }
+      if (txt == null) {
+        this.hash = null;
+        this.row = -1;
+        this.eof = true;
+        return false;
+      } else {
+        this.lineNo++;
+        int space = txt.indexOf(' ');
+        if (space < 1 || space == txt.length() - 1) {
+          this.hash = null;
+          this.row = -1;
+          this.error = true;
+          throw new InvalidDumpFileException(
+              "Could not read the file '" + this.f + "'; Invalid format of line #" + this.lineNo + ": " + txt);
+        } else {
+          this.hash = txt.substring(0, space);
+          this.row = Long.parseLong(txt.substring(space + 1));
+          return true;
+        }
+      }
+    }
+  }
+
+  // The text format has no index: the rows before the given one are read
+
+  @Override
+  public boolean seek(final long row) throws InvalidDumpFileException, DumpFileIOException {
+    if (this.eof) {
+      return false;
+    }
+    while (this.row < row) {
+      if (!next()) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  @Override
+  public boolean matches(final byte[] digest) {
+    return Utl.toHex(digest).equals(this.hash);
+  }
+
+  @Override
+  public int getWidth() {
+    return Digest.find(this.metadata.getAlgorithm()).getLength();
+  }
+
+  @Override
+  public boolean atStart() {
+    return this.lineNo == 0;
+  }
+
+  @Override
+  public long getRow() {
+    return row;
+  }
+
+  @Override
+  public String getHash() {
+    return hash;
+  }
+
+  @Override
+  public void close() throws IOException {
+    this.r.close();
+  }
+
+}
@@ -0,0 +1,30 @@
+package highfive.commands.consumer;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+
+import highfive.commands.consumer.DumpFileReader.DumpFileMetaData;
+import highfive.utils.Utl;
+
+public class TextDumpFileWriter extends DumpFileWriter {
+
+  private BufferedWriter w;
+
+  public TextDumpFileWriter(final File f, final DumpFileMetaData m) throws IOException {
+    this.w = new BufferedWriter(new FileWriter(f));
+    this.w.write(m.render() + "\n");
+  }
+
+  @Override
+  public void write(final long row, final byte[] digest) throws IOException {
+    this.w.write(Utl.toHex(digest) + " " + row + "\n");
+  }
+
+  @Override
+  public void close() throws IOException {
+    this.w.close();
+  }
+
+}
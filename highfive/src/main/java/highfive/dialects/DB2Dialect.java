@@ -6,10 +6,15 @@ import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
 
 import highfive.exceptions.InvalidSchemaException;
 import highfive.exceptions.UnsupportedDatabaseTypeException;
+import highfive.exceptions.UnsupportedSQLFeatureException;
+import highfive.model.CatalogColumn;
 import highfive.model.Column;
 import highfive.model.DataSource;
 import highfive.model.Dialect;
@@ -58,9 +63,20 @@ public class DB2Dialect extends Dialect {
     return tables;
   }
 
+  // Unique indexes, without included columns; the key parts that are
+  // expressions have no column
+
+  private static final String UNIQUE_KEYS_SQL = "select i.tabname, i.indname, c.colname, "
+      + "case when c.nulls = 'N' then 0 else 1 end "
+      + "from syscat.indexes i "
+      + "join syscat.indexcoluse u on u.indschema = i.indschema and u.indname = i.indname and u.colrole <> 'I' "
+      + "left join syscat.columns c on c.tabschema = i.tabschema and c.tabname = i.tabname "
+      + "and c.colname = u.colname "
+      + "where i.tabschema = ? and i.uniquerule = 'U'";
+
   @Override
   public Table getTableMetaData(Identifier tn) throws SQLException, UnsupportedDatabaseTypeException {
-    List<Column> columns = new ArrayList<>();
+    List<CatalogColumn> columns = new ArrayList<>();
     String sql = "select name, typename, length, scale, keyseq "
         + "from sysibm.syscolumns where tbcreator = ? and tbname = ?";
     try (PreparedStatement ps = conn.prepareStatement(sql);) {
@@ -68,27 +84,66 @@ public class DB2Dialect extends Dialect {
       ps.setString(2, tn.getCanonicalName());
       try (ResultSet rs = ps.executeQuery();) {
         while (rs.next()) {
-          int col = 1;
-          String name = readString(rs, col++);
-          if (ds.getColumnFilter().accepts(name)) {
-            String type = readString(rs, col++);
-            boolean unsigned = false;
-            Integer precision = readInt(rs, col++);
-            BigInteger length = precision == null ? null : BigInteger.valueOf(precision);
-            Integer scale = readInt(rs, col++);
-            Integer pkPosition = readInt(rs, col++);
-            String renderedType = renderType(name, type, length, precision, scale);
-            Serializer<?> serializer = super.getSerializer(renderedType, tn, name, type, unsigned, length, precision,
-                scale);
-            Column c = new Column(name, type, length, precision, scale, renderedType, pkPosition, serializer);
-            columns.add(c);
-          }
+          columns.add(readColumn(rs, tn.getCanonicalName(), 1));
+        }
+      }
+    }
+    return toTable(tn, addUniqueKeys(tn, columns, UNIQUE_KEYS_SQL + " and i.tabname = ?", ds.getSchema()));
+  }
+
+  @Override
+  protected Map<String, List<CatalogColumn>> readCatalog() throws SQLException {
+    Map<String, List<CatalogColumn>> catalog = new LinkedHashMap<>();
+    String sql = "select tbname, name, typename, length, scale, keyseq "
+        + "from sysibm.syscolumns where tbcreator = ? order by tbname, colno";
+    try (PreparedStatement ps = conn.prepareStatement(sql);) {
+      ps.setString(1, ds.getSchema());
+      try (ResultSet rs = ps.executeQuery();) {
+        while (rs.next()) {
+          String table = readString(rs, 1);
+          catalog.computeIfAbsent(table, t -> new ArrayList<>()).add(readColumn(rs, table, 2));
         }
       }
     }
-    return new Table(tn, columns);
+    addUniqueKeys(catalog, UNIQUE_KEYS_SQL, ds.getSchema());
+    return catalog;
   }
 
+  @Override
+  protected String readSchemaVersion() throws SQLException {
+    String sql = "select count(*), max(alter_time) from syscat.tables where tabschema = ?";
+    try (PreparedStatement ps = conn.prepareStatement(sql);) {
+      ps.setString(1, ds.getSchema());
+      try (ResultSet rs = ps.executeQuery();) {
+        return rs.next() ? rs.getLong(1) + ":" + readString(rs, 2) : "0";
+      }
+    }
+  }
+
+  // card is -1 until RUNSTATS runs on the table
+
+  @Override
+  public Map<String, Long> readRowCountEstimates() throws SQLException {
+    String sql = "select tabname, card from syscat.tables where tabschema = ? and type = 'T'";
+    return readRowCountEstimates(sql, ds.getSchema());
+  }
+
+  private CatalogColumn readColumn(ResultSet rs, String table, int col) throws SQLException {
+    String name = readString(rs, col++);
+    String type = readString(rs, col++);
+    Integer precision = readInt(rs, col++);
+    BigInteger length = precision == null ? null : BigInteger.valueOf(precision);
+    Integer scale = readInt(rs, col++);
+    Integer pkPosition = readInt(rs, col++);
+    return new CatalogColumn(table, name, type, false, length, precision, scale, pkPosition);
+  }
+
+  @Override
+  protected String renderType(CatalogColumn c) {
+    return renderType(c.getName(), c.getType(), c.getLength(), c.getPrecision(), c.getScale());
+  }
+
+
   private String renderType(String name, String type, BigInteger maxLength, Integer precision, Integer scale) {
     if ("CHARACTER".equals(type) || "VARCHAR".equals(type)) {
       return type + "(" + maxLength + ")";
@@ -206,4 +261,70 @@ public class DB2Dialect extends Dialect {
     return nullsFirst ? " nulls first" : " nulls last";
   }
 
+  @Override
+  public boolean sortsNullsHigh() {
+    return true;
+  }
+
+  @Override
+  public boolean supportsRowValueComparison() {
+    return false;
+  }
+
+  @Override
+  public String renderModulo(String dividend, String divisor) {
+    return "mod(" + dividend + ", " + divisor + ")";
+  }
+
+  @Override
+  public String renderCollatedParameter(String collation) {
+    return "COLLATION_KEY_BIT(cast(? as varchar(32672)), '" + collation + "')";
+  }
+
+  @Override
+  public String renderCanonicalText(Column c, String expression) throws UnsupportedSQLFeatureException {
+    String s = c.getSerializer().getName();
+    if ("string".equals(s)) {
+      return expression;
+    } else if ("integer".equals(s) || "long".equals(s) || "biginteger".equals(s)) {
+      return "cast(" + expression + " as varchar(40))";
+    } else if ("bigdecimal".equals(s)) {
+      String text = "cast(" + expression + " as varchar(64))";
+      return "case when locate('.', " + text + ") > 0 then trim(trailing '.' from trim(trailing '0' from " + text
+          + ")) else " + text + " end";
+    } else if ("localdate".equals(s) || "db2localdate".equals(s)) {
+      return "varchar_format(" + expression + ", 'YYYY-MM-DD')";
+    } else if ("localdatetime".equals(s) || "db2localdatetime".equals(s)) {
+      return "varchar_format(" + expression + ", 'YYYY-MM-DD HH24:MI:SS')";
+    } else if ("localtime".equals(s) || "db2localtime".equals(s)) {
+      return "varchar_format(timestamp(current date, " + expression + "), 'HH24:MI:SS') || '.000000000'";
+    } else if ("bytearray".equals(s)) {
+      return "lower(hex(" + expression + "))";
+    }
+    throw unsupportedCanonicalText(c);
+  }
+
+  @Override
+  public String renderConcat(List<String> expressions) {
+    return expressions.stream().collect(Collectors.joining(" || "));
+  }
+
+  @Override
+  public String renderRowHash(String text) {
+    return "lower(hex(hash(" + text + ", 2)))";
+  }
+
+  @Override
+  public String renderHexToNumber(String hex, int start) {
+    return renderHexDigitsSum(hex, start);
+  }
+
+  // SQL0911N/SQL0913N deadlock or timeout, SQL1224N and SQL30081N lost
+  // connection
+
+  @Override
+  protected boolean isTransientError(int errorCode, String sqlState) {
+    return errorCode == -911 || errorCode == -913 || errorCode == -1224 || errorCode == -30081;
+  }
+
 }
@@ -6,6 +6,8 @@ import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
@@ -13,6 +15,7 @@ import java.util.stream.Collectors;
 import highfive.exceptions.InvalidSchemaException;
 import highfive.exceptions.UnsupportedDatabaseTypeException;
 import highfive.exceptions.UnsupportedSQLFeatureException;
+import highfive.model.CatalogColumn;
 import highfive.model.Column;
 import highfive.model.DataSource;
 import highfive.model.Dialect;
@@ -20,6 +23,7 @@ import highfive.model.Identifier;
 import highfive.model.PKColumn;
 import highfive.model.Serializer;
 import highfive.model.Table;
+import highfive.model.TableWriter;
 import highfive.serializers.BigDecimalSerializer;
 import highfive.serializers.BigIntegerSerializer;
 import highfive.serializers.ByteArraySerializer;
@@ -32,6 +36,7 @@ import highfive.serializers.LongSerializer;
 import highfive.serializers.OffsetDateTimeSerializer;
 import highfive.serializers.StringSerializer;
 import highfive.utils.Utl;
+import highfive.writers.LoadDataWriter;
 
 public class MySQLDialect extends Dialect {
 
@@ -66,6 +71,11 @@ public class MySQLDialect extends Dialect {
     return tables;
   }
 
+  // The unique indexes; the column of a functional key part is null
+
+  private static final String UNIQUE_KEYS_SQL = "select table_name, index_name, column_name, nullable = 'YES' "
+      + "from information_schema.statistics where table_schema = ? and non_unique = 0 and index_name <> 'PRIMARY'";
+
   @Override
   public Table getTableMetaData(Identifier tn) throws SQLException, UnsupportedDatabaseTypeException {
 
@@ -73,37 +83,97 @@ public class MySQLDialect extends Dialect {
     Map<String, Integer> pkByName = pkColumns.stream()
         .collect(Collectors.toMap(x -> x.getCanonicalName(), x -> x.getPosition()));
 
-    List<Column> columns = new ArrayList<>();
+    List<CatalogColumn> columns = new ArrayList<>();
+    String database = Utl.coalesce(ds.getCatalog(), ds.getSchema());
     String sql = "select column_name, data_type, character_maximum_length, numeric_precision, numeric_scale, column_type "
         + "from information_schema.columns where table_schema = ? and table_name = ?";
     try (PreparedStatement ps = conn.prepareStatement(sql);) {
-      String database = Utl.coalesce(ds.getCatalog(), ds.getSchema());
       ps.setString(1, database);
       ps.setString(2, tn.getCanonicalName());
       try (ResultSet rs = ps.executeQuery();) {
         while (rs.next()) {
-          int col = 1;
-          String name = readString(rs, col++);
-          if (ds.getColumnFilter().accepts(name)) {
-            String type = readString(rs, col++);
-            BigInteger maxLength = readObject(rs, col++, BigInteger.class);
-            Integer precision = readInt(rs, col++);
-            Integer scale = readInt(rs, col++);
-            String columnType = readString(rs, col++);
-            boolean unsigned = columnType != null && columnType.contains("unsigned");
-            Integer pkPosition = pkByName.get(name);
-            String renderedType = renderType(name, type, unsigned, maxLength, precision, scale);
-            Serializer<?> serializer = super.getSerializer(renderedType, tn, name, type, unsigned, maxLength, precision,
-                scale);
-            Column c = new Column(name, type, maxLength, precision, scale, renderedType, pkPosition, serializer);
-            columns.add(c);
-          }
+          CatalogColumn c = readColumn(rs, tn.getCanonicalName(), 1);
+          columns.add(c.withPKPosition(pkByName.get(c.getName())));
+        }
+      }
+    }
+    return toTable(tn, addUniqueKeys(tn, columns, UNIQUE_KEYS_SQL + " and table_name = ?", database));
+  }
+
+  @Override
+  protected Map<String, List<CatalogColumn>> readCatalog() throws SQLException {
+    String database = Utl.coalesce(ds.getCatalog(), ds.getSchema());
+    Map<String, List<CatalogColumn>> catalog = new LinkedHashMap<>();
+    String sql = "select table_name, column_name, data_type, character_maximum_length, numeric_precision, "
+        + "numeric_scale, column_type "
+        + "from information_schema.columns where table_schema = ? order by table_name, ordinal_position";
+    try (PreparedStatement ps = conn.prepareStatement(sql);) {
+      ps.setString(1, database);
+      try (ResultSet rs = ps.executeQuery();) {
+        while (rs.next()) {
+          String table = readString(rs, 1);
+          catalog.computeIfAbsent(table, t -> new ArrayList<>()).add(readColumn(rs, table, 2));
+        }
+      }
+    }
+    Map<String, Map<String, Integer>> pks = new HashMap<>();
+    sql = "select table_name, column_name, ordinal_position " + "from information_schema.key_column_usage "
+        + "where table_schema = ? and constraint_name = 'PRIMARY'";
+    try (PreparedStatement ps = conn.prepareStatement(sql);) {
+      ps.setString(1, database);
+      try (ResultSet rs = ps.executeQuery();) {
+        while (rs.next()) {
+          pks.computeIfAbsent(readString(rs, 1), t -> new HashMap<>()).put(readString(rs, 2), readInt(rs, 3));
         }
       }
     }
-    return new Table(tn, columns);
+    addPrimaryKeys(catalog, pks);
+    addUniqueKeys(catalog, UNIQUE_KEYS_SQL, database);
+    return catalog;
   }
 
+  // The create time of the tables does not change with all the ALTER TABLE
+  // statements (e.g. instant ADD COLUMN), so the version is a checksum of the
+  // columns, computed by the database
+
+  @Override
+  protected String readSchemaVersion() throws SQLException {
+    String sql = "select count(*), sum(crc32(concat_ws('|', table_name, column_name, column_type, ordinal_position, "
+        + "column_key))) from information_schema.columns where table_schema = ?";
+    try (PreparedStatement ps = conn.prepareStatement(sql);) {
+      ps.setString(1, Utl.coalesce(ds.getCatalog(), ds.getSchema()));
+      try (ResultSet rs = ps.executeQuery();) {
+        return rs.next() ? rs.getLong(1) + ":" + rs.getLong(2) : "0";
+      }
+    }
+  }
+
+  // table_rows is approximate for InnoDB tables
+
+  @Override
+  public Map<String, Long> readRowCountEstimates() throws SQLException {
+    String sql = "select table_name, table_rows from information_schema.tables "
+        + "where table_schema = ? and table_type = 'BASE TABLE'";
+    return readRowCountEstimates(sql, Utl.coalesce(ds.getCatalog(), ds.getSchema()));
+  }
+
+  private CatalogColumn readColumn(ResultSet rs, String table, int col) throws SQLException {
+    String name = readString(rs, col++);
+    String type = readString(rs, col++);
+    BigInteger length = readObject(rs, col++, BigInteger.class);
+    Integer precision = readInt(rs, col++);
+    Integer scale = readInt(rs, col++);
+    String columnType = readString(rs, col++);
+    boolean unsigned = columnType != null && columnType.contains("unsigned");
+    return new CatalogColumn(table, name, type, unsigned, length, precision, scale, null);
+  }
+
+  @Override
+  protected String renderType(CatalogColumn c) {
+    return renderType(c.getName(), c.getType(), c.isUnsigned(), c.getLength(), c.getPrecision(), c.getScale());
+  }
+
+
   private String renderType(String name, String type, boolean unsigned, BigInteger length, Integer precision,
       Integer scale) {
     if ("char".equals(type) || "varchar".equals(type)) {
@@ -212,6 +282,15 @@ public class MySQLDialect extends Dialect {
     return v;
   }
 
+  // LOAD DATA LOCAL INFILE, streamed from memory
+
+  @Override
+  public TableWriter openBulkWriter(final Connection connection, final Identifier table,
+      final List<Column> sources, final List<String> columns, final boolean partitioned) throws SQLException {
+    return LoadDataWriter.open(connection, renderSQLTableIdentifier(table), sources, columns,
+        ds.getInsertBatchSize());
+  }
+
   @Override
   public String escapeIdentifierAsNeeded(String canonicalName) {
     // MySQL case sensitiveness is heavily dependent on the underlying OS --
@@ -251,4 +330,75 @@ public class MySQLDialect extends Dialect {
         "MySQL does not implement NULLS FIRST or NULLS LAST in the ORDER BY clause.");
   }
 
+  @Override
+  public boolean sortsNullsHigh() {
+    return false;
+  }
+
+  @Override
+  public boolean supportsRowValueComparison() {
+    return true;
+  }
+
+  @Override
+  public String renderModulo(String dividend, String divisor) {
+    return "mod(" + dividend + ", " + divisor + ")";
+  }
+
+  @Override
+  public String renderCollatedParameter(String collation) {
+    return "?";
+  }
+
+  @Override
+  public String renderCanonicalText(Column c, String expression) throws UnsupportedSQLFeatureException {
+    String s = c.getSerializer().getName();
+    if ("string".equals(s)) {
+      return expression;
+    } else if ("integer".equals(s) || "long".equals(s) || "biginteger".equals(s)) {
+      return "cast(" + expression + " as char)";
+    } else if ("bigdecimal".equals(s)) {
+      String text = "cast(" + expression + " as char)";
+      return "case when locate('.', " + text + ") > 0 then trim(trailing '.' from trim(trailing '0' from " + text
+          + ")) else " + text + " end";
+    } else if ("boolean".equals(s)) {
+      return "case when " + expression + " <> 0 then 'true' else 'false' end";
+    } else if ("localdate".equals(s)) {
+      return "date_format(" + expression + ", '%Y-%m-%d')";
+    } else if ("localdatetime".equals(s)) {
+      return "date_format(" + expression + ", '%Y-%m-%d %H:%i:%s')";
+    } else if ("localtime".equals(s)) {
+      return "concat(time_format(" + expression + ", '%H:%i:%s.%f'), '000')";
+    } else if ("offsetdatetime".equals(s) || "zoneddatetime".equals(s)) {
+      return "date_format(convert_tz(" + expression + ", @@session.time_zone, '+00:00'), "
+          + "'%Y-%m-%d %H:%i:%s')";
+    } else if ("bytearray".equals(s)) {
+      return "lower(hex(" + expression + "))";
+    }
+    throw unsupportedCanonicalText(c);
+  }
+
+  @Override
+  public String renderConcat(List<String> expressions) {
+    return "concat(" + expressions.stream().collect(Collectors.joining(", ")) + ")";
+  }
+
+  @Override
+  public String renderRowHash(String text) {
+    return "sha2(convert(" + text + " using utf8mb4), 256)";
+  }
+
+  @Override
+  public String renderHexToNumber(String hex, int start) {
+    return "cast(conv(substr(" + hex + ", " + start + ", 15), 16, 10) as unsigned)";
+  }
+
+  // 1205 lock wait timeout, 1213 deadlock, 2006 server has gone away, 2013
+  // lost connection during query
+
+  @Override
+  protected boolean isTransientError(int errorCode, String sqlState) {
+    return errorCode == 1205 || errorCode == 1213 || errorCode == 2006 || errorCode == 2013;
+  }
+
 }
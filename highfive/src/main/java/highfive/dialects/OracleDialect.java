@@ -6,12 +6,16 @@ import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
 
 import highfive.exceptions.InvalidSchemaException;
 import highfive.exceptions.UnsupportedDatabaseTypeException;
+import highfive.exceptions.UnsupportedSQLFeatureException;
+import highfive.model.CatalogColumn;
 import highfive.model.Column;
 import highfive.model.DataSource;
 import highfive.model.Dialect;
@@ -19,6 +23,7 @@ import highfive.model.Identifier;
 import highfive.model.PKColumn;
 import highfive.model.Serializer;
 import highfive.model.Table;
+import highfive.model.TableWriter;
 import highfive.serializers.BigDecimalSerializer;
 import highfive.serializers.BigIntegerSerializer;
 import highfive.serializers.ByteArraySerializer;
@@ -28,6 +33,7 @@ import highfive.serializers.LocalDateTimeSerializer;
 import highfive.serializers.LongSerializer;
 import highfive.serializers.StringSerializer;
 import highfive.serializers.ZonedDateTimeSerializer;
+import highfive.writers.InsertWriter;
 
 public class OracleDialect extends Dialect {
 
@@ -61,6 +67,16 @@ public class OracleDialect extends Dialect {
     return tables;
   }
 
+  // The enabled and validated unique constraints
+
+  private static final String UNIQUE_KEYS_SQL = "select x.table_name, x.constraint_name, c.column_name, "
+      + "case when t.nullable = 'Y' then 1 else 0 end "
+      + "from all_constraints x "
+      + "join all_cons_columns c on c.constraint_name = x.constraint_name and c.owner = x.owner "
+      + "join all_tab_columns t on t.owner = c.owner and t.table_name = c.table_name "
+      + "and t.column_name = c.column_name "
+      + "where x.owner = ? and x.constraint_type = 'U' and x.status = 'ENABLED' and x.validated = 'VALIDATED'";
+
   @Override
   public Table getTableMetaData(Identifier tn) throws SQLException, UnsupportedDatabaseTypeException {
 
@@ -68,7 +84,7 @@ public class OracleDialect extends Dialect {
     Map<String, Integer> pkByName = pkColumns.stream()
         .collect(Collectors.toMap(x -> x.getCanonicalName(), x -> x.getPosition()));
 
-    List<Column> columns = new ArrayList<>();
+    List<CatalogColumn> columns = new ArrayList<>();
     String sql = "select column_name, data_type, data_length, data_precision, data_scale "
         + "from all_tab_columns where owner = ? and table_name = ?";
     try (PreparedStatement ps = conn.prepareStatement(sql);) {
@@ -76,28 +92,80 @@ public class OracleDialect extends Dialect {
       ps.setString(2, tn.getCanonicalName());
       try (ResultSet rs = ps.executeQuery();) {
         while (rs.next()) {
-          int col = 1;
-          String name = readString(rs, col++);
-          if (ds.getColumnFilter().accepts(name)) {
-            String type = readString(rs, col++);
-            boolean unsigned = false;
-            Integer len = readInt(rs, col++);
-            BigInteger length = len == null ? null : BigInteger.valueOf(len);
-            Integer precision = readInt(rs, col++);
-            Integer scale = readInt(rs, col++);
-            Integer pkPosition = pkByName.get(name);
-            String renderedType = renderType(name, type, length, precision, scale);
-            Serializer<?> serializer = super.getSerializer(renderedType, tn, name, type, unsigned, length, precision,
-                scale);
-            Column c = new Column(name, type, length, precision, scale, renderedType, pkPosition, serializer);
-            columns.add(c);
-          }
+          CatalogColumn c = readColumn(rs, tn.getCanonicalName(), 1);
+          columns.add(c.withPKPosition(pkByName.get(c.getName())));
         }
       }
     }
-    return new Table(tn, columns);
+    return toTable(tn, addUniqueKeys(tn, columns, UNIQUE_KEYS_SQL + " and x.table_name = ?", ds.getSchema()));
+  }
+
+  @Override
+  protected Map<String, List<CatalogColumn>> readCatalog() throws SQLException {
+    Map<String, List<CatalogColumn>> catalog = new LinkedHashMap<>();
+    String sql = "select table_name, column_name, data_type, data_length, data_precision, data_scale "
+        + "from all_tab_columns where owner = ? order by table_name, column_id";
+    try (PreparedStatement ps = conn.prepareStatement(sql);) {
+      ps.setString(1, ds.getSchema());
+      try (ResultSet rs = ps.executeQuery();) {
+        while (rs.next()) {
+          String table = readString(rs, 1);
+          catalog.computeIfAbsent(table, t -> new ArrayList<>()).add(readColumn(rs, table, 2));
+        }
+      }
+    }
+    Map<String, Map<String, Integer>> pks = new HashMap<>();
+    sql = "select x.table_name, c.column_name, c.position " + "from all_cons_columns c "
+        + "join all_constraints x on x.constraint_name = c.constraint_name and x.owner = c.owner "
+        + "where x.owner = ? and x.constraint_type = 'P'";
+    try (PreparedStatement ps = conn.prepareStatement(sql);) {
+      ps.setString(1, ds.getSchema());
+      try (ResultSet rs = ps.executeQuery();) {
+        while (rs.next()) {
+          pks.computeIfAbsent(readString(rs, 1), t -> new HashMap<>()).put(readString(rs, 2), readInt(rs, 3));
+        }
+      }
+    }
+    addPrimaryKeys(catalog, pks);
+    addUniqueKeys(catalog, UNIQUE_KEYS_SQL, ds.getSchema());
+    return catalog;
+  }
+
+  @Override
+  protected String readSchemaVersion() throws SQLException {
+    String sql = "select count(*), to_char(max(last_ddl_time), 'YYYYMMDDHH24MISS') from all_objects where owner = ?";
+    try (PreparedStatement ps = conn.prepareStatement(sql);) {
+      ps.setString(1, ds.getSchema());
+      try (ResultSet rs = ps.executeQuery();) {
+        return rs.next() ? rs.getLong(1) + ":" + readString(rs, 2) : "0";
+      }
+    }
+  }
+
+  // num_rows is null until the statistics are gathered
+
+  @Override
+  public Map<String, Long> readRowCountEstimates() throws SQLException {
+    String sql = "select table_name, num_rows from all_tables where owner = ?";
+    return readRowCountEstimates(sql, ds.getSchema());
+  }
+
+  private CatalogColumn readColumn(ResultSet rs, String table, int col) throws SQLException {
+    String name = readString(rs, col++);
+    String type = readString(rs, col++);
+    Integer len = readInt(rs, col++);
+    BigInteger length = len == null ? null : BigInteger.valueOf(len);
+    Integer precision = readInt(rs, col++);
+    Integer scale = readInt(rs, col++);
+    return new CatalogColumn(table, name, type, false, length, precision, scale, null);
+  }
+
+  @Override
+  protected String renderType(CatalogColumn c) {
+    return renderType(c.getName(), c.getType(), c.getLength(), c.getPrecision(), c.getScale());
   }
 
+
   private List<PKColumn> getPrimaryKeyColumns(Connection conn, String schema, Identifier table) throws SQLException {
     List<PKColumn> pk = new ArrayList<>();
     String sql = "select c.column_name, c.position " + "from all_cons_columns c "
@@ -211,6 +279,21 @@ public class OracleDialect extends Dialect {
     return v;
   }
 
+  // Array inserts as direct-path inserts: each batch is written above the
+  // high water mark of the table, bypassing the buffer cache. Oracle runs a
+  // conventional insert instead when the table has triggers or enabled
+  // foreign keys. The session cannot touch the table again until the insert
+  // is committed (ORA-12838), so each batch is committed. A direct-path
+  // insert also locks the whole table, so the partitions of a table, copied
+  // at the same time, use conventional array inserts.
+
+  @Override
+  public TableWriter openBulkWriter(final Connection connection, final Identifier table,
+      final List<Column> sources, final List<String> columns, final boolean partitioned) throws SQLException {
+    return new InsertWriter(connection, renderSQLTableIdentifier(table), sources, columns, ds.getInsertBatchSize(),
+        partitioned ? null : "/*+ APPEND_VALUES */", !partitioned);
+  }
+
   @Override
   public String escapeIdentifierAsNeeded(String canonicalName) {
     if (canonicalName.matches("^[A-Z0-9_]+$")) {
@@ -250,4 +333,90 @@ public class OracleDialect extends Dialect {
     return nullsFirst ? " nulls first" : " nulls last";
   }
 
+  @Override
+  public boolean sortsNullsHigh() {
+    return true;
+  }
+
+  @Override
+  public boolean supportsRowValueComparison() {
+    return false;
+  }
+
+  @Override
+  public String renderModulo(String dividend, String divisor) {
+    return "mod(" + dividend + ", " + divisor + ")";
+  }
+
+  @Override
+  public String renderCollatedParameter(String collation) {
+    return "?";
+  }
+
+  @Override
+  public String renderCanonicalText(Column c, String expression) throws UnsupportedSQLFeatureException {
+    String s = c.getSerializer().getName();
+    if ("string".equals(s)) {
+      return expression;
+    } else if ("integer".equals(s) || "long".equals(s) || "biginteger".equals(s)) {
+      return "to_char(" + expression + ")";
+    } else if ("bigdecimal".equals(s)) {
+      return "rtrim(to_char(" + expression
+          + ", 'FM99999999999999999999999999990.999999999999999999999999999999'), '.')";
+    } else if ("boolean".equals(s)) {
+      return "case when " + expression + " = 1 then 'true' else 'false' end";
+    } else if ("localdate".equals(s)) {
+      return "to_char(" + expression + ", 'YYYY-MM-DD')";
+    } else if ("localdatetime".equals(s)) {
+      return "to_char(" + expression + ", 'YYYY-MM-DD HH24:MI:SS')";
+    } else if ("localtime".equals(s)) {
+      return "to_char(cast(" + expression + " as timestamp(9)), 'HH24:MI:SS.FF9')";
+    } else if ("offsetdatetime".equals(s) || "zoneddatetime".equals(s)) {
+      return "to_char(sys_extract_utc(" + expression + "), 'YYYY-MM-DD HH24:MI:SS')";
+    } else if ("bytearray".equals(s)) {
+      return "lower(rawtohex(" + expression + "))";
+    }
+    throw unsupportedCanonicalText(c);
+  }
+
+  @Override
+  public String renderConcat(List<String> expressions) {
+    return expressions.stream().collect(Collectors.joining(" || "));
+  }
+
+  @Override
+  public String renderRowHash(String text) {
+    return "lower(rawtohex(standard_hash(" + text + ", 'SHA256')))";
+  }
+
+  @Override
+  public String renderHexToNumber(String hex, int start) {
+    return "to_number(substr(" + hex + ", " + start + ", 15), 'xxxxxxxxxxxxxxx')";
+  }
+
+  // ORA-01555 snapshot too old, ORA-00060 deadlock, ORA-08177 cannot serialize
+  // access, ORA-03113/03114/03135 lost connection, ORA-01033/01034/01089
+  // database shutting down or starting up, and the driver's I/O errors
+
+  @Override
+  protected boolean isTransientError(int errorCode, String sqlState) {
+    switch (errorCode) {
+    case 1555:
+    case 60:
+    case 8177:
+    case 3113:
+    case 3114:
+    case 3135:
+    case 1033:
+    case 1034:
+    case 1089:
+    case 17002:
+    case 17008:
+    case 17410:
+      return true;
+    default:
+      return false;
+    }
+  }
+
 }
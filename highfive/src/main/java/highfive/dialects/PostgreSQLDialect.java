@@ -6,7 +6,9 @@ import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -15,6 +17,8 @@ import java.util.stream.Collectors;
 
 import highfive.exceptions.InvalidSchemaException;
 import highfive.exceptions.UnsupportedDatabaseTypeException;
+import highfive.exceptions.UnsupportedSQLFeatureException;
+import highfive.model.CatalogColumn;
 import highfive.model.Column;
 import highfive.model.DataSource;
 import highfive.model.Dialect;
@@ -22,6 +26,7 @@ import highfive.model.Identifier;
 import highfive.model.PKColumn;
 import highfive.model.Serializer;
 import highfive.model.Table;
+import highfive.model.TableWriter;
 import highfive.serializers.BigDecimalSerializer;
 import highfive.serializers.BooleanSerializer;
 import highfive.serializers.ByteArraySerializer;
@@ -33,6 +38,7 @@ import highfive.serializers.LocalTimeSerializer;
 import highfive.serializers.LongSerializer;
 import highfive.serializers.OffsetDateTimeSerializer;
 import highfive.serializers.StringSerializer;
+import highfive.writers.PostgreSQLCopyWriter;
 
 public class PostgreSQLDialect extends Dialect {
 
@@ -69,6 +75,17 @@ public class PostgreSQLDialect extends Dialect {
     return tables;
   }
 
+  // Unique indexes, without predicates or expressions
+
+  private static final String UNIQUE_KEYS_SQL = "select c.relname, x.relname, a.attname, not a.attnotnull " //
+      + "from pg_namespace n " //
+      + "join pg_class c on c.relnamespace = n.oid " //
+      + "join pg_index i on i.indrelid = c.oid " //
+      + "join pg_class x on x.oid = i.indexrelid " //
+      + "join pg_attribute a on a.attrelid = c.oid and a.attnum = any(i.indkey) " //
+      + "where n.nspname = ? and i.indisunique and not i.indisprimary and i.indpred is null "
+      + "and i.indexprs is null";
+
   @Override
   public Table getTableMetaData(Identifier tn) throws SQLException, UnsupportedDatabaseTypeException {
 
@@ -76,7 +93,7 @@ public class PostgreSQLDialect extends Dialect {
     Map<String, Integer> pkByName = pkColumns.stream()
         .collect(Collectors.toMap(x -> x.getCanonicalName(), x -> x.getPosition()));
 
-    List<Column> columns = new ArrayList<>();
+    List<CatalogColumn> columns = new ArrayList<>();
     String sql = "select column_name, data_type, character_maximum_length, numeric_precision, numeric_scale\n"
         + "from information_schema.columns where table_schema = ? and table_name = ?";
     try (PreparedStatement ps = conn.prepareStatement(sql);) {
@@ -84,28 +101,126 @@ public class PostgreSQLDialect extends Dialect {
       ps.setString(2, tn.getCanonicalName());
       try (ResultSet rs = ps.executeQuery();) {
         while (rs.next()) {
-          int col = 1;
-          String name = readString(rs, col++);
-          if (ds.getColumnFilter().accepts(name)) {
-            String type = readString(rs, col++);
-            boolean unsigned = false;
-            Integer len = readInt(rs, col++);
-            BigInteger length = len == null ? null : BigInteger.valueOf(len.longValue());
-            Integer precision = readInt(rs, col++);
-            Integer scale = readInt(rs, col++);
-            Integer pkPosition = pkByName.get(name);
-            String renderedType = renderType(name, type, length, precision, scale);
-            Serializer<?> serializer = super.getSerializer(renderedType, tn, name, type, unsigned, length, precision,
-                scale);
-            Column c = new Column(name, type, length, precision, scale, renderedType, pkPosition, serializer);
-            columns.add(c);
-          }
+          CatalogColumn c = readColumn(rs, tn.getCanonicalName(), 1);
+          columns.add(c.withPKPosition(pkByName.get(c.getName())));
+        }
+      }
+    }
+    return toTable(tn, addUniqueKeys(tn, columns, UNIQUE_KEYS_SQL + " and c.relname = ?", ds.getSchema()));
+  }
+
+  @Override
+  protected Map<String, List<CatalogColumn>> readCatalog() throws SQLException {
+    Map<String, List<CatalogColumn>> catalog = new LinkedHashMap<>();
+    String sql = "select table_name, column_name, data_type, character_maximum_length, numeric_precision, "
+        + "numeric_scale from information_schema.columns where table_schema = ? order by table_name, ordinal_position";
+    try (PreparedStatement ps = conn.prepareStatement(sql);) {
+      ps.setString(1, ds.getSchema());
+      try (ResultSet rs = ps.executeQuery();) {
+        while (rs.next()) {
+          String table = readString(rs, 1);
+          catalog.computeIfAbsent(table, t -> new ArrayList<>()).add(readColumn(rs, table, 2));
+        }
+      }
+    }
+    Map<String, Map<String, Integer>> pks = new HashMap<>();
+    sql = "select c.relname, a.attname, array_position(i.indkey, a.attnum) + 1 as pos " //
+        + "from pg_namespace n " //
+        + "join pg_class c on c.relnamespace = n.oid " //
+        + "join pg_index i on i.indrelid = c.oid " //
+        + "join pg_attribute a on a.attrelid = c.oid and a.attnum = any(i.indkey) " //
+        + "where n.nspname = ? and i.indisprimary";
+    try (PreparedStatement ps = conn.prepareStatement(sql);) {
+      ps.setString(1, ds.getSchema());
+      try (ResultSet rs = ps.executeQuery();) {
+        while (rs.next()) {
+          pks.computeIfAbsent(readString(rs, 1), t -> new HashMap<>()).put(readString(rs, 2), readInt(rs, 3));
         }
       }
     }
-    return new Table(tn, columns);
+    addPrimaryKeys(catalog, pks);
+    addUniqueKeys(catalog, UNIQUE_KEYS_SQL, ds.getSchema());
+    return catalog;
+  }
+
+  // PostgreSQL does not record the time of DDL changes; the catalog rows of
+  // the tables and columns get a new transaction id (xmin) when they change
+
+  @Override
+  protected String readSchemaVersion() throws SQLException {
+    String sql = "select count(*), max(c.xmin::text::bigint), " //
+        + "(select max(a.xmin::text::bigint) from pg_attribute a where a.attrelid in " //
+        + "(select c2.oid from pg_class c2 where c2.relnamespace = n.oid)) " //
+        + "from pg_namespace n join pg_class c on c.relnamespace = n.oid where n.nspname = ? group by n.oid";
+    try (PreparedStatement ps = conn.prepareStatement(sql);) {
+      ps.setString(1, ds.getSchema());
+      try (ResultSet rs = ps.executeQuery();) {
+        return rs.next() ? rs.getLong(1) + ":" + rs.getLong(2) + ":" + rs.getLong(3) : "0";
+      }
+    }
   }
 
+  // reltuples is -1 until the table is vacuumed or analyzed
+
+  @Override
+  public Map<String, Long> readRowCountEstimates() throws SQLException {
+    String sql = "select c.relname, c.reltuples::bigint from pg_class c join pg_namespace n on n.oid = c.relnamespace "
+        + "where n.nspname = ? and c.relkind in ('r', 'p')";
+    return readRowCountEstimates(sql, ds.getSchema());
+  }
+
+  // Ranges of blocks of the ctid. The number of blocks is read from the
+  // statistics, so the last range is left open and also takes the blocks
+  // added since. PostgreSQL 14 and newer only read the blocks of each range.
+
+  @Override
+  public List<String> renderPhysicalRanges(final Identifier table, final int ranges) throws SQLException {
+    String sql = "select c.relpages from pg_class c join pg_namespace n on n.oid = c.relnamespace "
+        + "where n.nspname = ? and c.relname = ?";
+    long pages = 0;
+    try (PreparedStatement ps = conn.prepareStatement(sql);) {
+      ps.setString(1, ds.getSchema());
+      ps.setString(2, table.getCanonicalName());
+      try (ResultSet rs = ps.executeQuery();) {
+        if (rs.next()) {
+          pages = rs.getLong(1);
+        }
+      }
+    }
+    if (ranges < 2 || pages < ranges) {
+      return null;
+    }
+    long step = (pages + ranges - 1) / ranges;
+    List<String> conditions = new ArrayList<>();
+    for (long from = 0; from < pages; from += step) {
+      List<String> c = new ArrayList<>();
+      if (from > 0) {
+        c.add("ctid >= '(" + from + ",0)'::tid");
+      }
+      if (from + step < pages) {
+        c.add("ctid < '(" + (from + step) + ",0)'::tid");
+      }
+      conditions.add(String.join(" and ", c));
+    }
+    return conditions;
+  }
+
+  private CatalogColumn readColumn(ResultSet rs, String table, int col) throws SQLException {
+    String name = readString(rs, col++);
+    String type = readString(rs, col++);
+    Integer len = readInt(rs, col++);
+    BigInteger length = len == null ? null : BigInteger.valueOf(len.longValue());
+    Integer precision = readInt(rs, col++);
+    Integer scale = readInt(rs, col++);
+    return new CatalogColumn(table, name, type, false, length, precision, scale, null);
+  }
+
+  @Override
+  protected String renderType(CatalogColumn c) {
+    return renderType(c.getName(), c.getType(), c.getLength(), c.getPrecision(), c.getScale());
+  }
+
+
 // ASC/DESC is OK
 // UNIQUE only
 // b-tree only
@@ -282,6 +397,15 @@ public class PostgreSQLDialect extends Dialect {
     MUST_ESCAPE.add("case");
   }
 
+  // COPY FROM STDIN, through the CopyManager of the driver
+
+  @Override
+  public TableWriter openBulkWriter(final Connection connection, final Identifier table,
+      final List<Column> sources, final List<String> columns, final boolean partitioned) throws SQLException {
+    return PostgreSQLCopyWriter.open(connection, renderSQLTableIdentifier(table), sources, columns,
+        ds.getInsertBatchSize());
+  }
+
   @Override
   public String escapeIdentifierAsNeeded(String canonicalName) {
     if (canonicalName.matches("^[a-z0-9_]+$") && !MUST_ESCAPE.contains(canonicalName)) {
@@ -321,4 +445,74 @@ public class PostgreSQLDialect extends Dialect {
     return nullsFirst ? " nulls first" : " nulls last";
   }
 
+  @Override
+  public boolean sortsNullsHigh() {
+    return true;
+  }
+
+  @Override
+  public boolean supportsRowValueComparison() {
+    return true;
+  }
+
+  @Override
+  public String renderModulo(String dividend, String divisor) {
+    return "mod(" + dividend + ", " + divisor + ")";
+  }
+
+  @Override
+  public String renderCollatedParameter(String collation) {
+    return "?";
+  }
+
+  @Override
+  public String renderCanonicalText(Column c, String expression) throws UnsupportedSQLFeatureException {
+    String s = c.getSerializer().getName();
+    if ("string".equals(s)) {
+      return expression;
+    } else if ("integer".equals(s) || "long".equals(s) || "biginteger".equals(s)) {
+      return expression + "::text";
+    } else if ("bigdecimal".equals(s)) {
+      return "case when position('.' in " + expression + "::text) > 0 then rtrim(rtrim(" + expression
+          + "::text, '0'), '.') else " + expression + "::text end";
+    } else if ("boolean".equals(s)) {
+      return "case when " + expression + " then 'true' else 'false' end";
+    } else if ("localdate".equals(s)) {
+      return "to_char(" + expression + ", 'YYYY-MM-DD')";
+    } else if ("localdatetime".equals(s)) {
+      return "to_char(" + expression + ", 'YYYY-MM-DD HH24:MI:SS')";
+    } else if ("localtime".equals(s)) {
+      return "to_char(" + expression + ", 'HH24:MI:SS.US') || '000'";
+    } else if ("offsetdatetime".equals(s) || "zoneddatetime".equals(s)) {
+      return "to_char(" + expression + " at time zone 'UTC', 'YYYY-MM-DD HH24:MI:SS')";
+    } else if ("bytearray".equals(s)) {
+      return "encode(" + expression + ", 'hex')";
+    }
+    throw unsupportedCanonicalText(c);
+  }
+
+  @Override
+  public String renderConcat(List<String> expressions) {
+    return expressions.stream().collect(Collectors.joining(" || "));
+  }
+
+  @Override
+  public String renderRowHash(String text) {
+    return "encode(sha256(convert_to(" + text + ", 'UTF8')), 'hex')";
+  }
+
+  @Override
+  public String renderHexToNumber(String hex, int start) {
+    return "('x' || substr(" + hex + ", " + start + ", 15))::bit(60)::bigint";
+  }
+
+  // 57P01-57P03: the server is shutting down or cannot accept connections
+  // yet; 55P03: lock not available
+
+  @Override
+  protected boolean isTransientError(int errorCode, String sqlState) {
+    return "57P01".equals(sqlState) || "57P02".equals(sqlState) || "57P03".equals(sqlState)
+        || "55P03".equals(sqlState);
+  }
+
 }
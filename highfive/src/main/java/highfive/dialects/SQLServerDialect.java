@@ -7,18 +7,23 @@ import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.stream.Collectors;
 
 import highfive.exceptions.InvalidSchemaException;
 import highfive.exceptions.UnsupportedDatabaseTypeException;
 import highfive.exceptions.UnsupportedSQLFeatureException;
+import highfive.model.CatalogColumn;
 import highfive.model.Column;
 import highfive.model.DataSource;
 import highfive.model.Dialect;
 import highfive.model.Identifier;
 import highfive.model.Serializer;
 import highfive.model.Table;
+import highfive.model.TableWriter;
 import highfive.serializers.BigDecimalSerializer;
 import highfive.serializers.ByteArraySerializer;
 import highfive.serializers.DoubleSerializer;
@@ -29,6 +34,7 @@ import highfive.serializers.LocalTimeSerializer;
 import highfive.serializers.LongSerializer;
 import highfive.serializers.OffsetDateTimeSerializer;
 import highfive.serializers.StringSerializer;
+import highfive.writers.SQLServerBulkCopyWriter;
 
 public class SQLServerDialect extends Dialect {
 
@@ -66,46 +72,117 @@ public class SQLServerDialect extends Dialect {
 
   @Override
   public Table getTableMetaData(Identifier tn) throws SQLException, UnsupportedDatabaseTypeException {
-    List<Column> columns = new ArrayList<>();
-    String cat = ds.getCatalog() == null || ds.getCatalog().isEmpty() ? ""
-        : "" + escapeIdentifierAsNeeded(ds.getCatalog()) + ".";
+    List<CatalogColumn> columns = new ArrayList<>();
+    String cat = renderCatalogPrefix();
     String sql = "select c.name, t.name, c.max_length, c.precision, c.scale, ix.key_ordinal\n" //
         + "from " + cat + "sys.columns c\n" //
         + "join " + cat + "sys.types t on c.user_type_id = t.user_type_id\n" //
-        + "outer apply (\n" //
-        + "  select ic.key_ordinal\n" //
-        + "  from " + cat + "sys.index_columns ic\n" //
-        + "  join " + cat + "sys.indexes i on ic.object_id = i.object_id and ic.index_id = i.index_id\n" //
-        + "  where ic.object_id = c.object_id and ic.column_id = c.column_id and i.is_primary_key = 1\n" //
-        + ") ix\n" //
+        + renderPrimaryKeyApply(cat) //
         + "where c.object_id = object_id('" + cat + escapeIdentifierAsNeeded(ds.getSchema()) + "." + tn.renderSQL()
         + "')";
 //    System.out.println("sql=" + sql);
     try (PreparedStatement ps = conn.prepareStatement(sql);) {
       try (ResultSet rs = ps.executeQuery();) {
         while (rs.next()) {
-          int col = 1;
-          String name = readString(rs, col++);
-          if (ds.getColumnFilter().accepts(name)) {
-            String type = readString(rs, col++);
-            boolean unsigned = false;
-            Integer len = readInt(rs, col++);
-            BigInteger length = len == null ? null : BigInteger.valueOf(len.longValue());
-            Integer precision = readInt(rs, col++);
-            Integer scale = readInt(rs, col++);
-            Integer pkPosition = readInt(rs, col++);
-            String renderedType = renderType(name, type, length, precision, scale);
-            Serializer<?> serializer = super.getSerializer(renderedType, tn, name, type, unsigned, length, precision,
-                scale);
-            Column c = new Column(name, type, length, precision, scale, renderedType, pkPosition, serializer);
-            columns.add(c);
-          }
+          columns.add(readColumn(rs, tn.getCanonicalName(), 1));
+        }
+      }
+    }
+    return toTable(tn, addUniqueKeys(tn, columns, renderUniqueKeysQuery(cat) + " and o.name = ?", ds.getSchema()));
+  }
+
+  // Unique constraints and indexes, without filters or included columns
+
+  private String renderUniqueKeysQuery(final String cat) {
+    return "select o.name, i.name, c.name, c.is_nullable\n" //
+        + "from " + cat + "sys.indexes i\n" //
+        + "join " + cat + "sys.tables o on o.object_id = i.object_id\n" //
+        + "join " + cat + "sys.index_columns k on k.object_id = i.object_id and k.index_id = i.index_id "
+        + "and k.is_included_column = 0\n" //
+        + "join " + cat + "sys.columns c on c.object_id = k.object_id and c.column_id = k.column_id\n" //
+        + "where schema_name(o.schema_id) = ? and i.is_unique = 1 and i.is_primary_key = 0 "
+        + "and i.has_filter = 0 and i.is_disabled = 0";
+  }
+
+  @Override
+  protected Map<String, List<CatalogColumn>> readCatalog() throws SQLException {
+    Map<String, List<CatalogColumn>> catalog = new LinkedHashMap<>();
+    String cat = renderCatalogPrefix();
+    String sql = "select o.name, c.name, t.name, c.max_length, c.precision, c.scale, ix.key_ordinal\n" //
+        + "from " + cat + "sys.columns c\n" //
+        + "join " + cat + "sys.tables o on o.object_id = c.object_id\n" //
+        + "join " + cat + "sys.types t on c.user_type_id = t.user_type_id\n" //
+        + renderPrimaryKeyApply(cat) //
+        + "where schema_name(o.schema_id) = ?\n" //
+        + "order by o.name, c.column_id";
+    try (PreparedStatement ps = conn.prepareStatement(sql);) {
+      ps.setString(1, ds.getSchema());
+      try (ResultSet rs = ps.executeQuery();) {
+        while (rs.next()) {
+          String table = readString(rs, 1);
+          catalog.computeIfAbsent(table, t -> new ArrayList<>()).add(readColumn(rs, table, 2));
         }
       }
     }
-    return new Table(tn, columns);
+    addUniqueKeys(catalog, renderUniqueKeysQuery(cat), ds.getSchema());
+    return catalog;
+  }
+
+  @Override
+  protected String readSchemaVersion() throws SQLException {
+    String sql = "select count(*), convert(varchar(30), max(modify_date), 126) from " + renderCatalogPrefix()
+        + "sys.objects where schema_name(schema_id) = ?";
+    try (PreparedStatement ps = conn.prepareStatement(sql);) {
+      ps.setString(1, ds.getSchema());
+      try (ResultSet rs = ps.executeQuery();) {
+        return rs.next() ? rs.getLong(1) + ":" + readString(rs, 2) : "0";
+      }
+    }
+  }
+
+  // The rows of the heap or the clustered index; needs the VIEW DATABASE STATE
+  // permission
+
+  @Override
+  public Map<String, Long> readRowCountEstimates() throws SQLException {
+    String cat = renderCatalogPrefix();
+    String sql = "select t.name, sum(p.row_count) from " + cat + "sys.dm_db_partition_stats p join " + cat
+        + "sys.tables t on t.object_id = p.object_id " //
+        + "where schema_name(t.schema_id) = ? and p.index_id < 2 group by t.name";
+    return readRowCountEstimates(sql, ds.getSchema());
+  }
+
+  private String renderCatalogPrefix() {
+    return ds.getCatalog() == null || ds.getCatalog().isEmpty() ? ""
+        : "" + escapeIdentifierAsNeeded(ds.getCatalog()) + ".";
+  }
+
+  private String renderPrimaryKeyApply(final String cat) {
+    return "outer apply (\n" //
+        + "  select ic.key_ordinal\n" //
+        + "  from " + cat + "sys.index_columns ic\n" //
+        + "  join " + cat + "sys.indexes i on ic.object_id = i.object_id and ic.index_id = i.index_id\n" //
+        + "  where ic.object_id = c.object_id and ic.column_id = c.column_id and i.is_primary_key = 1\n" //
+        + ") ix\n";
+  }
+
+  private CatalogColumn readColumn(ResultSet rs, String table, int col) throws SQLException {
+    String name = readString(rs, col++);
+    String type = readString(rs, col++);
+    Integer len = readInt(rs, col++);
+    BigInteger length = len == null ? null : BigInteger.valueOf(len.longValue());
+    Integer precision = readInt(rs, col++);
+    Integer scale = readInt(rs, col++);
+    Integer pkPosition = readInt(rs, col++);
+    return new CatalogColumn(table, name, type, false, length, precision, scale, pkPosition);
+  }
+
+  @Override
+  protected String renderType(CatalogColumn c) {
+    return renderType(c.getName(), c.getType(), c.getLength(), c.getPrecision(), c.getScale());
   }
 
+
   private String renderType(String name, String type, BigInteger maxLength, Integer precision, Integer scale) {
     if ("varchar".equals(type) || "char".equals(type) || "nvarchar".equals(type) || "nchar".equals(type)
         || "text".equals(type) || "ntext".equals(type) || "sysname".equals(type)) {
@@ -217,6 +294,15 @@ public class SQLServerDialect extends Dialect {
     MUST_ESCAPE.add("case");
   }
 
+  // The batches of inserts are sent through the bulk copy API of the driver
+
+  @Override
+  public TableWriter openBulkWriter(final Connection connection, final Identifier table,
+      final List<Column> sources, final List<String> columns, final boolean partitioned) throws SQLException {
+    return SQLServerBulkCopyWriter.open(connection, renderSQLTableIdentifier(table), sources, columns,
+        ds.getInsertBatchSize());
+  }
+
   @Override
   public String escapeIdentifierAsNeeded(final String canonicalName) {
     if (canonicalName.matches("^[A-Za-z0-9_]+$") && !MUST_ESCAPE.contains(canonicalName)) {
@@ -260,4 +346,98 @@ public class SQLServerDialect extends Dialect {
         "SQL Server does not implement NULLS FIRST or NULLS LAST in the ORDER BY clause.");
   }
 
+  @Override
+  public boolean sortsNullsHigh() {
+    return false;
+  }
+
+  @Override
+  public boolean supportsRowValueComparison() {
+    return false;
+  }
+
+  @Override
+  public String renderModulo(String dividend, String divisor) {
+    return "(" + dividend + " % " + divisor + ")";
+  }
+
+  @Override
+  public String renderCollatedParameter(String collation) {
+    return "?";
+  }
+
+  @Override
+  public String renderCanonicalText(Column c, String expression) throws UnsupportedSQLFeatureException {
+    String s = c.getSerializer().getName();
+    if ("string".equals(s)) {
+      return expression;
+    } else if ("integer".equals(s) || "long".equals(s) || "biginteger".equals(s)) {
+      return "cast(" + expression + " as varchar(40))";
+    } else if ("bigdecimal".equals(s)) {
+      return renderTrimmedDecimal("cast(" + expression + " as varchar(60))");
+    } else if ("boolean".equals(s)) {
+      return "case when " + expression + " = 1 then 'true' else 'false' end";
+    } else if ("localdate".equals(s)) {
+      return "convert(varchar(10), " + expression + ", 23)";
+    } else if ("localdatetime".equals(s)) {
+      return "convert(varchar(19), cast(" + expression + " as datetime2(7)), 120)";
+    } else if ("localtime".equals(s)) {
+      return "cast(cast(" + expression + " as time(7)) as varchar(16)) + '00'";
+    } else if ("offsetdatetime".equals(s) || "zoneddatetime".equals(s)) {
+      return "convert(varchar(19), cast(switchoffset(" + expression + ", '+00:00') as datetime2(7)), 120)";
+    } else if ("bytearray".equals(s)) {
+      return "lower(convert(varchar(max), " + expression + ", 2))";
+    }
+    throw unsupportedCanonicalText(c);
+  }
+
+  // Removes the trailing zeros of the fraction and the trailing point, if any
+
+  private String renderTrimmedDecimal(String text) {
+    String trimmed = "reverse(substring(reverse(" + text + "), patindex('%[^0]%', reverse(" + text + ")), 60))";
+    return "case when charindex('.', " + text + ") = 0 then " + text + " when right(" + trimmed
+        + ", 1) = '.' then left(" + trimmed + ", len(" + trimmed + ") - 1) else " + trimmed + " end";
+  }
+
+  @Override
+  public String renderConcat(List<String> expressions) {
+    return expressions.stream().collect(Collectors.joining(" + "));
+  }
+
+  // The text is converted to UTF-8 using a UTF-8 collation (SQL Server 2019 or
+  // newer)
+
+  @Override
+  public String renderRowHash(String text) {
+    return "lower(convert(varchar(64), hashbytes('SHA2_256', convert(varchar(max), " + text
+        + " collate Latin1_General_100_BIN2_UTF8)), 2))";
+  }
+
+  @Override
+  public String renderHexToNumber(String hex, int start) {
+    return "convert(bigint, convert(varbinary(8), '0' + substring(" + hex + ", " + start + ", 15), 2))";
+  }
+
+  // 1205 deadlock victim, 1222 lock request time out, and the errors of
+  // Azure SQL when a database is moved, busy, or throttled
+
+  @Override
+  protected boolean isTransientError(int errorCode, String sqlState) {
+    switch (errorCode) {
+    case 1205:
+    case 1222:
+    case 10928:
+    case 10929:
+    case 40197:
+    case 40501:
+    case 40613:
+    case 49918:
+    case 49919:
+    case 49920:
+      return true;
+    default:
+      return false;
+    }
+  }
+
 }
@@ -0,0 +1,198 @@
+package highfive.digests;
+
+import java.nio.ByteBuffer;
+
+import highfive.model.Digest;
+
+// BLAKE2b (RFC 7693) with a 256-bit output and no key. The last block is kept
+// buffered until the digest is completed, since it's compressed with the final
+// flag set.
+
+public class Blake2bDigest extends Digest {
+
+  private static final int BLOCK_SIZE = 128;
+  private static final int LENGTH = 32;
+
+  private static final long[] IV = { //
+      0x6a09e667f3bcc908L, 0xbb67ae8584caa73bL, 0x3c6ef372fe94f82bL, 0xa54ff53a5f1d36f1L, //
+      0x510e527fade682d1L, 0x9b05688c2b3e6c1fL, 0x1f83d9abfb41bd6bL, 0x5be0cd19137e2179L };
+
+  private static final byte[][] SIGMA = { //
+      { 0, 1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12, 13, 14, 15 }, //
+      { 14, 10, 4, 8, 9, 15, 13, 6, 1, 12, 0, 2, 11, 7, 5, 3 }, //
+      { 11, 8, 12, 0, 5, 2, 15, 13, 10, 14, 3, 6, 7, 1, 9, 4 }, //
+      { 7, 9, 3, 1, 13, 12, 11, 14, 2, 6, 5, 10, 4, 0, 15, 8 }, //
+      { 9, 0, 5, 7, 2, 4, 10, 15, 14, 1, 11, 12, 6, 8, 3, 13 }, //
+      { 2, 12, 6, 10, 0, 11, 8, 3, 4, 13, 7, 5, 15, 14, 1, 9 }, //
+      { 12, 5, 1, 15, 14, 13, 4, 10, 0, 7, 6, 3, 9, 2, 8, 11 }, //
+      { 13, 11, 7, 14, 12, 1, 3, 9, 5, 0, 15, 4, 8, 6, 2, 10 }, //
+      { 6, 15, 14, 9, 11, 3, 0, 8, 12, 2, 13, 7, 1, 4, 10, 5 }, //
+      { 10, 2, 8, 4, 7, 6, 1, 5, 15, 11, 9, 14, 3, 12, 13, 0 } };
+
+  private long[] h = new long[8];
+  private long[] v = new long[16];
+  private long[] m = new long[16];
+  private byte[] buffer = new byte[BLOCK_SIZE];
+  private int bufferedSize;
+  private long counterLow;
+  private long counterHigh;
+
+  public Blake2bDigest() {
+    this.reset();
+  }
+
+  @Override
+  public String getName() {
+    return "blake2b-256";
+  }
+
+  @Override
+  public int getLength() {
+    return LENGTH;
+  }
+
+  @Override
+  public Digest newInstance() {
+    return new Blake2bDigest();
+  }
+
+  @Override
+  public void reset() {
+    System.arraycopy(IV, 0, this.h, 0, 8);
+    this.h[0] ^= 0x01010000L | LENGTH;
+    this.bufferedSize = 0;
+    this.counterLow = 0;
+    this.counterHigh = 0;
+  }
+
+  @Override
+  public Digest copy() {
+    Blake2bDigest c = new Blake2bDigest();
+    System.arraycopy(this.h, 0, c.h, 0, 8);
+    System.arraycopy(this.buffer, 0, c.buffer, 0, BLOCK_SIZE);
+    c.bufferedSize = this.bufferedSize;
+    c.counterLow = this.counterLow;
+    c.counterHigh = this.counterHigh;
+    return c;
+  }
+
+  @Override
+  public byte[] saveState() {
+    ByteBuffer bb = ByteBuffer.allocate(8 * 8 + BLOCK_SIZE + 4 + 8 + 8);
+    for (long x : this.h) {
+      bb.putLong(x);
+    }
+    bb.put(this.buffer);
+    bb.putInt(this.bufferedSize);
+    bb.putLong(this.counterLow);
+    bb.putLong(this.counterHigh);
+    return bb.array();
+  }
+
+  @Override
+  public void restoreState(final byte[] state) {
+    if (state.length != 8 * 8 + BLOCK_SIZE + 4 + 8 + 8) {
+      throw invalidState();
+    }
+    ByteBuffer bb = ByteBuffer.wrap(state);
+    for (int i = 0; i < 8; i++) {
+      this.h[i] = bb.getLong();
+    }
+    bb.get(this.buffer);
+    this.bufferedSize = bb.getInt();
+    this.counterLow = bb.getLong();
+    this.counterHigh = bb.getLong();
+    if (this.bufferedSize < 0 || this.bufferedSize > BLOCK_SIZE) {
+      this.reset();
+      throw invalidState();
+    }
+  }
+
+  @Override
+  public void update(final byte[] input, final int offset, final int length) {
+    int pos = offset;
+    int end = offset + length;
+    while (pos < end) {
+      if (this.bufferedSize == BLOCK_SIZE) {
+        increment(BLOCK_SIZE);
+        compress(this.buffer, 0, false);
+        this.bufferedSize = 0;
+      }
+      if (this.bufferedSize == 0 && end - pos > BLOCK_SIZE) {
+        increment(BLOCK_SIZE);
+        compress(input, pos, false);
+        pos += BLOCK_SIZE;
+      } else {
+        int load = Math.min(BLOCK_SIZE - this.bufferedSize, end - pos);
+        System.arraycopy(input, pos, this.buffer, this.bufferedSize, load);
+        this.bufferedSize += load;
+        pos += load;
+      }
+    }
+  }
+
+  @Override
+  public byte[] digest() {
+    increment(this.bufferedSize);
+    for (int i = this.bufferedSize; i < BLOCK_SIZE; i++) {
+      this.buffer[i] = 0;
+    }
+    compress(this.buffer, 0, true);
+    byte[] result = new byte[LENGTH];
+    for (int i = 0; i < LENGTH; i++) {
+      result[i] = (byte) (this.h[i >> 3] >>> (8 * (i & 7)));
+    }
+    this.reset();
+    return result;
+  }
+
+  private void increment(final int n) {
+    this.counterLow += n;
+    if (Long.compareUnsigned(this.counterLow, n) < 0) {
+      this.counterHigh++;
+    }
+  }
+
+  private void compress(final byte[] block, final int offset, final boolean last) {
+    for (int i = 0; i < 16; i++) {
+      int p = offset + 8 * i;
+      this.m[i] = (block[p] & 0xFFL) | (block[p + 1] & 0xFFL) << 8 | (block[p + 2] & 0xFFL) << 16
+          | (block[p + 3] & 0xFFL) << 24 | (block[p + 4] & 0xFFL) << 32 | (block[p + 5] & 0xFFL) << 40
+          | (block[p + 6] & 0xFFL) << 48 | (block[p + 7] & 0xFFL) << 56;
+    }
+    System.arraycopy(this.h, 0, this.v, 0, 8);
+    System.arraycopy(IV, 0, this.v, 8, 8);
+    this.v[12] ^= this.counterLow;
+    this.v[13] ^= this.counterHigh;
+    if (last) {
+      this.v[14] = ~this.v[14];
+    }
+    for (int r = 0; r < 12; r++) {
+      byte[] s = SIGMA[r % 10];
+      mix(0, 4, 8, 12, this.m[s[0]], this.m[s[1]]);
+      mix(1, 5, 9, 13, this.m[s[2]], this.m[s[3]]);
+      mix(2, 6, 10, 14, this.m[s[4]], this.m[s[5]]);
+      mix(3, 7, 11, 15, this.m[s[6]], this.m[s[7]]);
+      mix(0, 5, 10, 15, this.m[s[8]], this.m[s[9]]);
+      mix(1, 6, 11, 12, this.m[s[10]], this.m[s[11]]);
+      mix(2, 7, 8, 13, this.m[s[12]], this.m[s[13]]);
+      mix(3, 4, 9, 14, this.m[s[14]], this.m[s[15]]);
+    }
+    for (int i = 0; i < 8; i++) {
+      this.h[i] ^= this.v[i] ^ this.v[i + 8];
+    }
+  }
+
+  private void mix(final int a, final int b, final int c, final int d, final long x, final long y) {
+    long[] w = this.v;
+    w[a] = w[a] + w[b] + x;
+    w[d] = Long.rotateRight(w[d] ^ w[a], 32);
+    w[c] = w[c] + w[d];
+    w[b] = Long.rotateRight(w[b] ^ w[c], 24);
+    w[a] = w[a] + w[b] + y;
+    w[d] = Long.rotateRight(w[d] ^ w[a], 16);
+    w[c] = w[c] + w[d];
+    w[b] = Long.rotateRight(w[b] ^ w[c], 63);
+  }
+
+}
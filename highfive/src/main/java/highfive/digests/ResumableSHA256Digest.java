@@ -0,0 +1,189 @@
+package highfive.digests;
+
+import java.nio.ByteBuffer;
+
+import highfive.model.Digest;
+
+// SHA-256 (FIPS 180-4) in Java. It's slower than the implementation of the
+// JVM, but it can save its state, so a hash can be resumed by another process.
+// Produces the same digests as SHA256Digest.
+
+public class ResumableSHA256Digest extends Digest {
+
+  private static final int BLOCK_SIZE = 64;
+  private static final int STATE_SIZE = 8 * 4 + BLOCK_SIZE + 4 + 8;
+
+  private static final int[] K = { //
+      0x428a2f98, 0x71374491, 0xb5c0fbcf, 0xe9b5dba5, 0x3956c25b, 0x59f111f1, 0x923f82a4, 0xab1c5ed5, //
+      0xd807aa98, 0x12835b01, 0x243185be, 0x550c7dc3, 0x72be5d74, 0x80deb1fe, 0x9bdc06a7, 0xc19bf174, //
+      0xe49b69c1, 0xefbe4786, 0x0fc19dc6, 0x240ca1cc, 0x2de92c6f, 0x4a7484aa, 0x5cb0a9dc, 0x76f988da, //
+      0x983e5152, 0xa831c66d, 0xb00327c8, 0xbf597fc7, 0xc6e00bf3, 0xd5a79147, 0x06ca6351, 0x14292967, //
+      0x27b70a85, 0x2e1b2138, 0x4d2c6dfc, 0x53380d13, 0x650a7354, 0x766a0abb, 0x81c2c92e, 0x92722c85, //
+      0xa2bfe8a1, 0xa81a664b, 0xc24b8b70, 0xc76c51a3, 0xd192e819, 0xd6990624, 0xf40e3585, 0x106aa070, //
+      0x19a4c116, 0x1e376c08, 0x2748774c, 0x34b0bcb5, 0x391c0cb3, 0x4ed8aa4a, 0x5b9cca4f, 0x682e6ff3, //
+      0x748f82ee, 0x78a5636f, 0x84c87814, 0x8cc70208, 0x90befffa, 0xa4506ceb, 0xbef9a3f7, 0xc67178f2 };
+
+  private static final int[] IV = { //
+      0x6a09e667, 0xbb67ae85, 0x3c6ef372, 0xa54ff53a, 0x510e527f, 0x9b05688c, 0x1f83d9ab, 0x5be0cd19 };
+
+  private int[] h = new int[8];
+  private int[] w = new int[64];
+  private byte[] buffer = new byte[BLOCK_SIZE];
+  private int bufferedSize;
+  private long totalLength;
+
+  public ResumableSHA256Digest() {
+    this.reset();
+  }
+
+  @Override
+  public String getName() {
+    return "sha-256";
+  }
+
+  @Override
+  public int getLength() {
+    return 32;
+  }
+
+  @Override
+  public Digest newInstance() {
+    return new ResumableSHA256Digest();
+  }
+
+  @Override
+  public void reset() {
+    System.arraycopy(IV, 0, this.h, 0, 8);
+    this.bufferedSize = 0;
+    this.totalLength = 0;
+  }
+
+  @Override
+  public Digest copy() {
+    ResumableSHA256Digest c = new ResumableSHA256Digest();
+    System.arraycopy(this.h, 0, c.h, 0, 8);
+    System.arraycopy(this.buffer, 0, c.buffer, 0, BLOCK_SIZE);
+    c.bufferedSize = this.bufferedSize;
+    c.totalLength = this.totalLength;
+    return c;
+  }
+
+  @Override
+  public byte[] saveState() {
+    ByteBuffer bb = ByteBuffer.allocate(STATE_SIZE);
+    for (int x : this.h) {
+      bb.putInt(x);
+    }
+    bb.put(this.buffer);
+    bb.putInt(this.bufferedSize);
+    bb.putLong(this.totalLength);
+    return bb.array();
+  }
+
+  @Override
+  public void restoreState(final byte[] state) {
+    if (state.length != STATE_SIZE) {
+      throw invalidState();
+    }
+    ByteBuffer bb = ByteBuffer.wrap(state);
+    for (int i = 0; i < 8; i++) {
+      this.h[i] = bb.getInt();
+    }
+    bb.get(this.buffer);
+    this.bufferedSize = bb.getInt();
+    this.totalLength = bb.getLong();
+    if (this.bufferedSize < 0 || this.bufferedSize >= BLOCK_SIZE || this.totalLength < 0) {
+      this.reset();
+      throw invalidState();
+    }
+  }
+
+  @Override
+  public void update(final byte[] input, final int offset, final int length) {
+    this.totalLength += length;
+    int pos = offset;
+    int end = offset + length;
+    if (this.bufferedSize > 0) {
+      int load = Math.min(BLOCK_SIZE - this.bufferedSize, length);
+      System.arraycopy(input, pos, this.buffer, this.bufferedSize, load);
+      this.bufferedSize += load;
+      pos += load;
+      if (this.bufferedSize < BLOCK_SIZE) {
+        return;
+      }
+      compress(this.buffer, 0);
+      this.bufferedSize = 0;
+    }
+    while (end - pos >= BLOCK_SIZE) {
+      compress(input, pos);
+      pos += BLOCK_SIZE;
+    }
+    System.arraycopy(input, pos, this.buffer, 0, end - pos);
+    this.bufferedSize = end - pos;
+  }
+
+  @Override
+  public byte[] digest() {
+    long bits = this.totalLength * 8;
+    byte[] padding = new byte[(this.bufferedSize < 56 ? 56 : 120) - this.bufferedSize + 8];
+    padding[0] = (byte) 0x80;
+    for (int i = 0; i < 8; i++) {
+      padding[padding.length - 1 - i] = (byte) (bits >>> (8 * i));
+    }
+    this.update(padding, 0, padding.length);
+    byte[] result = new byte[32];
+    for (int i = 0; i < 8; i++) {
+      result[4 * i] = (byte) (this.h[i] >>> 24);
+      result[4 * i + 1] = (byte) (this.h[i] >>> 16);
+      result[4 * i + 2] = (byte) (this.h[i] >>> 8);
+      result[4 * i + 3] = (byte) this.h[i];
+    }
+    this.reset();
+    return result;
+  }
+
+  private void compress(final byte[] block, final int offset) {
+    int[] x = this.w;
+    for (int i = 0; i < 16; i++) {
+      int p = offset + 4 * i;
+      x[i] = (block[p] & 0xFF) << 24 | (block[p + 1] & 0xFF) << 16 | (block[p + 2] & 0xFF) << 8
+          | (block[p + 3] & 0xFF);
+    }
+    for (int i = 16; i < 64; i++) {
+      int s0 = Integer.rotateRight(x[i - 15], 7) ^ Integer.rotateRight(x[i - 15], 18) ^ (x[i - 15] >>> 3);
+      int s1 = Integer.rotateRight(x[i - 2], 17) ^ Integer.rotateRight(x[i - 2], 19) ^ (x[i - 2] >>> 10);
+      x[i] = x[i - 16] + s0 + x[i - 7] + s1;
+    }
+    int a = this.h[0];
+    int b = this.h[1];
+    int c = this.h[2];
+    int d = this.h[3];
+    int e = this.h[4];
+    int f = this.h[5];
+    int g = this.h[6];
+    int hh = this.h[7];
+    for (int i = 0; i < 64; i++) {
+      int t1 = hh + (Integer.rotateRight(e, 6) ^ Integer.rotateRight(e, 11) ^ Integer.rotateRight(e, 25))
+          + ((e & f) ^ (~e & g)) + K[i] + x[i];
+      int t2 = (Integer.rotateRight(a, 2) ^ Integer.rotateRight(a, 13) ^ Integer.rotateRight(a, 22))
+          + ((a & b) ^ (a & c) ^ (b & c));
+      hh = g;
+      g = f;
+      f = e;
+      e = d + t1;
+      d = c;
+      c = b;
+      b = a;
+      a = t1 + t2;
+    }
+    this.h[0] += a;
+    this.h[1] += b;
+    this.h[2] += c;
+    this.h[3] += d;
+    this.h[4] += e;
+    this.h[5] += f;
+    this.h[6] += g;
+    this.h[7] += hh;
+  }
+
+}
@@ -0,0 +1,82 @@
+package highfive.digests;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+import highfive.model.Digest;
+
+// SHA-256 of the JVM, usually faster than a Java implementation since it can
+// use the CPU instructions. It cannot save its state; ResumableSHA256Digest
+// can.
+
+public class SHA256Digest extends Digest {
+
+  private MessageDigest md;
+
+  public SHA256Digest() {
+    try {
+      this.md = MessageDigest.getInstance("SHA-256");
+    } catch (NoSuchAlgorithmException e) {
+      throw new RuntimeException("The SHA-256 algorithm is not available in this JVM.", e);
+    }
+  }
+
+  private SHA256Digest(MessageDigest md) {
+    this.md = md;
+  }
+
+  @Override
+  public String getName() {
+    return "sha-256";
+  }
+
+  @Override
+  public int getLength() {
+    return 32;
+  }
+
+  @Override
+  public Digest newInstance() {
+    return new SHA256Digest();
+  }
+
+  @Override
+  public void update(byte[] input, int offset, int length) {
+    this.md.update(input, offset, length);
+  }
+
+  @Override
+  public byte[] digest() {
+    return this.md.digest();
+  }
+
+  @Override
+  public void reset() {
+    this.md.reset();
+  }
+
+  @Override
+  public Digest copy() {
+    try {
+      return new SHA256Digest((MessageDigest) this.md.clone());
+    } catch (CloneNotSupportedException e) {
+      throw new RuntimeException("The SHA-256 implementation of this JVM cannot be cloned.", e);
+    }
+  }
+
+  @Override
+  public byte[] saveState() {
+    throw new UnsupportedOperationException("The SHA-256 implementation of this JVM cannot save its state.");
+  }
+
+  @Override
+  public void restoreState(final byte[] state) {
+    throw new UnsupportedOperationException("The SHA-256 implementation of this JVM cannot restore a state.");
+  }
+
+  @Override
+  public Digest newResumableInstance() {
+    return new ResumableSHA256Digest();
+  }
+
+}
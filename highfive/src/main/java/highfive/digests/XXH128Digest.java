@@ -0,0 +1,436 @@
+package highfive.digests;
+
+import java.nio.ByteBuffer;
+
+import highfive.model.Digest;
+
+// XXH3 128-bit hash (xxHash 0.8), with seed zero and the default secret. It's
+// a streaming implementation: the input is buffered 256 bytes at a time. The
+// digest is the canonical big-endian representation (high 64 bits first).
+// Not a cryptographic hash.
+
+public class XXH128Digest extends Digest {
+
+  private static final long PRIME32_1 = 0x9E3779B1L;
+  private static final long PRIME32_2 = 0x85EBCA77L;
+  private static final long PRIME32_3 = 0xC2B2AE3DL;
+  private static final long PRIME64_1 = 0x9E3779B185EBCA87L;
+  private static final long PRIME64_2 = 0xC2B2AE3D27D4EB4FL;
+  private static final long PRIME64_3 = 0x165667B19E3779F9L;
+  private static final long PRIME64_4 = 0x85EBCA77C2B2AE63L;
+  private static final long PRIME64_5 = 0x27D4EB2F165667C5L;
+  private static final long PRIME_MX1 = 0x165667919E3779F9L;
+  private static final long PRIME_MX2 = 0x9FB21C651E98DF25L;
+
+  private static final byte[] SECRET = toBytes(new int[] { //
+      0xb8, 0xfe, 0x6c, 0x39, 0x23, 0xa4, 0x4b, 0xbe, 0x7c, 0x01, 0x81, 0x2c, 0xf7, 0x21, 0xad, 0x1c, //
+      0xde, 0xd4, 0x6d, 0xe9, 0x83, 0x90, 0x97, 0xdb, 0x72, 0x40, 0xa4, 0xa4, 0xb7, 0xb3, 0x67, 0x1f, //
+      0xcb, 0x79, 0xe6, 0x4e, 0xcc, 0xc0, 0xe5, 0x78, 0x82, 0x5a, 0xd0, 0x7d, 0xcc, 0xff, 0x72, 0x21, //
+      0xb8, 0x08, 0x46, 0x74, 0xf7, 0x43, 0x24, 0x8e, 0xe0, 0x35, 0x90, 0xe6, 0x81, 0x3a, 0x26, 0x4c, //
+      0x3c, 0x28, 0x52, 0xbb, 0x91, 0xc3, 0x00, 0xcb, 0x88, 0xd0, 0x65, 0x8b, 0x1b, 0x53, 0x2e, 0xa3, //
+      0x71, 0x64, 0x48, 0x97, 0xa2, 0x0d, 0xf9, 0x4e, 0x38, 0x19, 0xef, 0x46, 0xa9, 0xde, 0xac, 0xd8, //
+      0xa8, 0xfa, 0x76, 0x3f, 0xe3, 0x9c, 0x34, 0x3f, 0xf9, 0xdc, 0xbb, 0xc7, 0xc7, 0x0b, 0x4f, 0x1d, //
+      0x8a, 0x51, 0xe0, 0x4b, 0xcd, 0xb4, 0x59, 0x31, 0xc8, 0x9f, 0x7e, 0xc9, 0xd9, 0x78, 0x73, 0x64, //
+      0xea, 0xc5, 0xac, 0x83, 0x34, 0xd3, 0xeb, 0xc3, 0xc5, 0x81, 0xa0, 0xff, 0xfa, 0x13, 0x63, 0xeb, //
+      0x17, 0x0d, 0xdd, 0x51, 0xb7, 0xf0, 0xda, 0x49, 0xd3, 0x16, 0x55, 0x26, 0x29, 0xd4, 0x68, 0x9e, //
+      0x2b, 0x16, 0xbe, 0x58, 0x7d, 0x47, 0xa1, 0xfc, 0x8f, 0xf8, 0xb8, 0xd1, 0x7a, 0xd0, 0x31, 0xce, //
+      0x45, 0xcb, 0x3a, 0x8f, 0x95, 0x16, 0x04, 0x28, 0xaf, 0xd7, 0xfb, 0xca, 0xbb, 0x4b, 0x40, 0x7e });
+
+  private static final int SECRET_SIZE = 192;
+  private static final int STRIPE_LEN = 64;
+  private static final int SECRET_CONSUME_RATE = 8;
+  private static final int STRIPES_PER_BLOCK = (SECRET_SIZE - STRIPE_LEN) / SECRET_CONSUME_RATE;
+  private static final int SECRET_LIMIT = SECRET_SIZE - STRIPE_LEN;
+  private static final int SECRET_LASTACC_START = 7;
+  private static final int SECRET_MERGEACCS_START = 11;
+  private static final int MIDSIZE_MAX = 240;
+  private static final int MIDSIZE_STARTOFFSET = 3;
+  private static final int MIDSIZE_LASTOFFSET = 17;
+  private static final int SECRET_SIZE_MIN = 136;
+  private static final int BUFFER_SIZE = 256;
+  private static final int BUFFER_STRIPES = BUFFER_SIZE / STRIPE_LEN;
+
+  private long[] acc = new long[8];
+  private byte[] buffer = new byte[BUFFER_SIZE];
+  private int bufferedSize;
+  private int stripesSoFar;
+  private long totalLength;
+
+  public XXH128Digest() {
+    this.reset();
+  }
+
+  @Override
+  public String getName() {
+    return "xxh128";
+  }
+
+  @Override
+  public int getLength() {
+    return 16;
+  }
+
+  @Override
+  public Digest newInstance() {
+    return new XXH128Digest();
+  }
+
+  @Override
+  public void reset() {
+    this.acc[0] = PRIME32_3;
+    this.acc[1] = PRIME64_1;
+    this.acc[2] = PRIME64_2;
+    this.acc[3] = PRIME64_3;
+    this.acc[4] = PRIME64_4;
+    this.acc[5] = PRIME32_2;
+    this.acc[6] = PRIME64_5;
+    this.acc[7] = PRIME32_1;
+    this.bufferedSize = 0;
+    this.stripesSoFar = 0;
+    this.totalLength = 0;
+  }
+
+  @Override
+  public Digest copy() {
+    XXH128Digest c = new XXH128Digest();
+    System.arraycopy(this.acc, 0, c.acc, 0, this.acc.length);
+    System.arraycopy(this.buffer, 0, c.buffer, 0, this.buffer.length);
+    c.bufferedSize = this.bufferedSize;
+    c.stripesSoFar = this.stripesSoFar;
+    c.totalLength = this.totalLength;
+    return c;
+  }
+
+  @Override
+  public byte[] saveState() {
+    ByteBuffer bb = ByteBuffer.allocate(8 * 8 + BUFFER_SIZE + 4 + 4 + 8);
+    for (long a : this.acc) {
+      bb.putLong(a);
+    }
+    bb.put(this.buffer);
+    bb.putInt(this.bufferedSize);
+    bb.putInt(this.stripesSoFar);
+    bb.putLong(this.totalLength);
+    return bb.array();
+  }
+
+  @Override
+  public void restoreState(final byte[] state) {
+    if (state.length != 8 * 8 + BUFFER_SIZE + 4 + 4 + 8) {
+      throw invalidState();
+    }
+    ByteBuffer bb = ByteBuffer.wrap(state);
+    for (int i = 0; i < this.acc.length; i++) {
+      this.acc[i] = bb.getLong();
+    }
+    bb.get(this.buffer);
+    this.bufferedSize = bb.getInt();
+    this.stripesSoFar = bb.getInt();
+    this.totalLength = bb.getLong();
+    if (this.bufferedSize < 0 || this.bufferedSize > BUFFER_SIZE || this.totalLength < 0) {
+      this.reset();
+      throw invalidState();
+    }
+  }
+
+  @Override
+  public void update(final byte[] input, final int offset, final int length) {
+    this.totalLength += length;
+    if (this.bufferedSize + length <= BUFFER_SIZE) {
+      System.arraycopy(input, offset, this.buffer, this.bufferedSize, length);
+      this.bufferedSize += length;
+      return;
+    }
+
+    int pos = offset;
+    int end = offset + length;
+
+    if (this.bufferedSize > 0) {
+      int load = BUFFER_SIZE - this.bufferedSize;
+      System.arraycopy(input, pos, this.buffer, this.bufferedSize, load);
+      pos += load;
+      consumeStripes(this.buffer, 0, BUFFER_STRIPES);
+      this.bufferedSize = 0;
+    }
+
+    // Keeps at least one byte buffered, so the last stripe is processed at the
+    // end
+
+    if (end - pos > BUFFER_SIZE) {
+      do {
+        consumeStripes(input, pos, BUFFER_STRIPES);
+        pos += BUFFER_SIZE;
+      } while (end - pos > BUFFER_SIZE);
+      System.arraycopy(input, pos - STRIPE_LEN, this.buffer, BUFFER_SIZE - STRIPE_LEN, STRIPE_LEN);
+    }
+
+    System.arraycopy(input, pos, this.buffer, 0, end - pos);
+    this.bufferedSize = end - pos;
+  }
+
+  @Override
+  public byte[] digest() {
+    long low;
+    long high;
+    if (this.totalLength > MIDSIZE_MAX) {
+      long[] a = this.acc.clone();
+      int stripes = this.stripesSoFar;
+      byte[] last;
+      int lastOffset;
+      if (this.bufferedSize >= STRIPE_LEN) {
+        int n = (this.bufferedSize - 1) / STRIPE_LEN;
+        stripes = consumeStripes(a, stripes, this.buffer, 0, n);
+        last = this.buffer;
+        lastOffset = this.bufferedSize - STRIPE_LEN;
+      } else {
+        last = new byte[STRIPE_LEN];
+        int catchup = STRIPE_LEN - this.bufferedSize;
+        System.arraycopy(this.buffer, BUFFER_SIZE - catchup, last, 0, catchup);
+        System.arraycopy(this.buffer, 0, last, catchup, this.bufferedSize);
+        lastOffset = 0;
+      }
+      accumulate512(a, last, lastOffset, SECRET_LIMIT - SECRET_LASTACC_START);
+      low = mergeAccs(a, SECRET_MERGEACCS_START, this.totalLength * PRIME64_1);
+      high = mergeAccs(a, SECRET_SIZE - 64 - SECRET_MERGEACCS_START, ~(this.totalLength * PRIME64_2));
+    } else {
+      long[] h = hashShort(this.buffer, (int) this.totalLength);
+      low = h[0];
+      high = h[1];
+    }
+    this.reset();
+    byte[] result = new byte[16];
+    for (int i = 0; i < 8; i++) {
+      result[i] = (byte) (high >>> (56 - 8 * i));
+      result[8 + i] = (byte) (low >>> (56 - 8 * i));
+    }
+    return result;
+  }
+
+  // Long inputs
+
+  private void consumeStripes(final byte[] input, final int offset, final int stripes) {
+    this.stripesSoFar = consumeStripes(this.acc, this.stripesSoFar, input, offset, stripes);
+  }
+
+  private static int consumeStripes(final long[] a, final int stripesSoFar, final byte[] input, final int offset,
+      final int stripes) {
+    if (STRIPES_PER_BLOCK - stripesSoFar <= stripes) {
+      int toEndOfBlock = STRIPES_PER_BLOCK - stripesSoFar;
+      int afterBlock = stripes - toEndOfBlock;
+      accumulate(a, input, offset, stripesSoFar * SECRET_CONSUME_RATE, toEndOfBlock);
+      scramble(a, SECRET_LIMIT);
+      accumulate(a, input, offset + toEndOfBlock * STRIPE_LEN, 0, afterBlock);
+      return afterBlock;
+    } else {
+      accumulate(a, input, offset, stripesSoFar * SECRET_CONSUME_RATE, stripes);
+      return stripesSoFar + stripes;
+    }
+  }
+
+  private static void accumulate(final long[] a, final byte[] input, final int offset, final int secretOffset,
+      final int stripes) {
+    for (int n = 0; n < stripes; n++) {
+      accumulate512(a, input, offset + n * STRIPE_LEN, secretOffset + n * SECRET_CONSUME_RATE);
+    }
+  }
+
+  private static void accumulate512(final long[] a, final byte[] input, final int offset, final int secretOffset) {
+    for (int i = 0; i < 8; i++) {
+      long value = readLong(input, offset + 8 * i);
+      long key = value ^ readLong(SECRET, secretOffset + 8 * i);
+      a[i ^ 1] += value;
+      a[i] += (key & 0xFFFFFFFFL) * (key >>> 32);
+    }
+  }
+
+  private static void scramble(final long[] a, final int secretOffset) {
+    for (int i = 0; i < 8; i++) {
+      long v = a[i];
+      v ^= v >>> 47;
+      v ^= readLong(SECRET, secretOffset + 8 * i);
+      v *= PRIME32_1;
+      a[i] = v;
+    }
+  }
+
+  private static long mergeAccs(final long[] a, final int secretOffset, final long start) {
+    long result = start;
+    for (int i = 0; i < 4; i++) {
+      result += mul128Fold64(a[2 * i] ^ readLong(SECRET, secretOffset + 16 * i),
+          a[2 * i + 1] ^ readLong(SECRET, secretOffset + 16 * i + 8));
+    }
+    return avalanche(result);
+  }
+
+  // Short inputs (up to 240 bytes); returns { low, high }
+
+  private static long[] hashShort(final byte[] in, final int len) {
+    if (len <= 16) {
+      if (len > 8) {
+        return len9To16(in, len);
+      } else if (len >= 4) {
+        return len4To8(in, len);
+      } else if (len > 0) {
+        return len1To3(in, len);
+      } else {
+        return new long[] { avalanche64(readLong(SECRET, 64) ^ readLong(SECRET, 72)),
+            avalanche64(readLong(SECRET, 80) ^ readLong(SECRET, 88)) };
+      }
+    } else if (len <= 128) {
+      return len17To128(in, len);
+    } else {
+      return len129To240(in, len);
+    }
+  }
+
+  private static long[] len1To3(final byte[] in, final int len) {
+    int c1 = in[0] & 0xFF;
+    int c2 = in[len >> 1] & 0xFF;
+    int c3 = in[len - 1] & 0xFF;
+    int combinedl = (c1 << 16) | (c2 << 24) | c3 | (len << 8);
+    int combinedh = Integer.rotateLeft(Integer.reverseBytes(combinedl), 13);
+    long bitflipl = (readInt(SECRET, 0) ^ readInt(SECRET, 4)) & 0xFFFFFFFFL;
+    long bitfliph = (readInt(SECRET, 8) ^ readInt(SECRET, 12)) & 0xFFFFFFFFL;
+    long keyedLo = (combinedl & 0xFFFFFFFFL) ^ bitflipl;
+    long keyedHi = (combinedh & 0xFFFFFFFFL) ^ bitfliph;
+    return new long[] { avalanche64(keyedLo), avalanche64(keyedHi) };
+  }
+
+  private static long[] len4To8(final byte[] in, final int len) {
+    long inputLo = readInt(in, 0) & 0xFFFFFFFFL;
+    long inputHi = readInt(in, len - 4) & 0xFFFFFFFFL;
+    long input64 = inputLo + (inputHi << 32);
+    long bitflip = readLong(SECRET, 16) ^ readLong(SECRET, 24);
+    long keyed = input64 ^ bitflip;
+    long m = PRIME64_1 + ((long) len << 2);
+    long low = keyed * m;
+    long high = multiplyHigh(keyed, m);
+    high += low << 1;
+    low ^= high >>> 3;
+    low ^= low >>> 35;
+    low *= PRIME_MX2;
+    low ^= low >>> 28;
+    high = avalanche(high);
+    return new long[] { low, high };
+  }
+
+  private static long[] len9To16(final byte[] in, final int len) {
+    long bitflipl = readLong(SECRET, 32) ^ readLong(SECRET, 40);
+    long bitfliph = readLong(SECRET, 48) ^ readLong(SECRET, 56);
+    long inputLo = readLong(in, 0);
+    long inputHi = readLong(in, len - 8);
+    long k = inputLo ^ inputHi ^ bitflipl;
+    long mLow = k * PRIME64_1;
+    long mHigh = multiplyHigh(k, PRIME64_1);
+    mLow += (long) (len - 1) << 54;
+    inputHi ^= bitfliph;
+    mHigh += inputHi + (inputHi & 0xFFFFFFFFL) * (PRIME32_2 - 1);
+    mLow ^= Long.reverseBytes(mHigh);
+    long hLow = mLow * PRIME64_2;
+    long hHigh = multiplyHigh(mLow, PRIME64_2);
+    hHigh += mHigh * PRIME64_2;
+    return new long[] { avalanche(hLow), avalanche(hHigh) };
+  }
+
+  private static long[] len17To128(final byte[] in, final int len) {
+    long[] a = { len * PRIME64_1, 0 };
+    if (len > 32) {
+      if (len > 64) {
+        if (len > 96) {
+          mix32B(a, in, 48, len - 64, 96);
+        }
+        mix32B(a, in, 32, len - 48, 64);
+      }
+      mix32B(a, in, 16, len - 32, 32);
+    }
+    mix32B(a, in, 0, len - 16, 0);
+    return finish(a, len);
+  }
+
+  private static long[] len129To240(final byte[] in, final int len) {
+    long[] a = { len * PRIME64_1, 0 };
+    for (int i = 32; i < 160; i += 32) {
+      mix32B(a, in, i - 32, i - 16, i - 32);
+    }
+    a[0] = avalanche(a[0]);
+    a[1] = avalanche(a[1]);
+    for (int i = 160; i <= len; i += 32) {
+      mix32B(a, in, i - 32, i - 16, MIDSIZE_STARTOFFSET + i - 160);
+    }
+    mix32B(a, in, len - 16, len - 32, SECRET_SIZE_MIN - MIDSIZE_LASTOFFSET - 16);
+    return finish(a, len);
+  }
+
+  private static long[] finish(final long[] a, final int len) {
+    long low = a[0] + a[1];
+    long high = a[0] * PRIME64_1 + a[1] * PRIME64_4 + len * PRIME64_2;
+    return new long[] { avalanche(low), -avalanche(high) };
+  }
+
+  private static void mix32B(final long[] a, final byte[] in, final int offset1, final int offset2,
+      final int secretOffset) {
+    a[0] += mix16B(in, offset1, secretOffset);
+    a[0] ^= readLong(in, offset2) + readLong(in, offset2 + 8);
+    a[1] += mix16B(in, offset2, secretOffset + 16);
+    a[1] ^= readLong(in, offset1) + readLong(in, offset1 + 8);
+  }
+
+  private static long mix16B(final byte[] in, final int offset, final int secretOffset) {
+    return mul128Fold64(readLong(in, offset) ^ readLong(SECRET, secretOffset),
+        readLong(in, offset + 8) ^ readLong(SECRET, secretOffset + 8));
+  }
+
+  // Arithmetic
+
+  private static long mul128Fold64(final long a, final long b) {
+    return (a * b) ^ multiplyHigh(a, b);
+  }
+
+  // Unsigned 64x64 -> high 64 bits of the 128-bit product
+
+  private static long multiplyHigh(final long a, final long b) {
+    long aLo = a & 0xFFFFFFFFL;
+    long aHi = a >>> 32;
+    long bLo = b & 0xFFFFFFFFL;
+    long bHi = b >>> 32;
+    long lolo = aLo * bLo;
+    long hilo = aHi * bLo;
+    long lohi = aLo * bHi;
+    long cross = (lolo >>> 32) + (hilo & 0xFFFFFFFFL) + lohi;
+    return aHi * bHi + (hilo >>> 32) + (cross >>> 32);
+  }
+
+  private static long avalanche(long h) {
+    h ^= h >>> 37;
+    h *= PRIME_MX1;
+    h ^= h >>> 32;
+    return h;
+  }
+
+  private static long avalanche64(long h) {
+    h ^= h >>> 33;
+    h *= PRIME64_2;
+    h ^= h >>> 29;
+    h *= PRIME64_3;
+    h ^= h >>> 32;
+    return h;
+  }
+
+  private static long readLong(final byte[] b, final int i) {
+    return (b[i] & 0xFFL) | (b[i + 1] & 0xFFL) << 8 | (b[i + 2] & 0xFFL) << 16 | (b[i + 3] & 0xFFL) << 24
+        | (b[i + 4] & 0xFFL) << 32 | (b[i + 5] & 0xFFL) << 40 | (b[i + 6] & 0xFFL) << 48 | (b[i + 7] & 0xFFL) << 56;
+  }
+
+  private static int readInt(final byte[] b, final int i) {
+    return (b[i] & 0xFF) | (b[i + 1] & 0xFF) << 8 | (b[i + 2] & 0xFF) << 16 | (b[i + 3] & 0xFF) << 24;
+  }
+
+  private static byte[] toBytes(final int[] values) {
+    byte[] b = new byte[values.length];
+    for (int i = 0; i < values.length; i++) {
+      b[i] = (byte) values[i];
+    }
+    return b;
+  }
+
+}
@@ -0,0 +1,122 @@
+package highfive.model;
+
+import java.util.Arrays;
+
+// A reusable, growable buffer that receives the canonical bytes of a value, so
+// they can be hashed without allocating a byte array for each value
+
+public class ByteSink {
+
+  private byte[] buffer;
+  private int size;
+
+  public ByteSink() {
+    this(64);
+  }
+
+  public ByteSink(final int capacity) {
+    this.buffer = new byte[capacity];
+    this.size = 0;
+  }
+
+  public void reset() {
+    this.size = 0;
+  }
+
+  public int size() {
+    return size;
+  }
+
+  // The bytes written are in the positions 0 to size() - 1
+
+  public byte[] getBuffer() {
+    return buffer;
+  }
+
+  public byte[] toByteArray() {
+    return Arrays.copyOf(this.buffer, this.size);
+  }
+
+  public void write(final byte b) {
+    ensureCapacity(1);
+    this.buffer[this.size++] = b;
+  }
+
+  public void write(final byte[] b) {
+    this.write(b, 0, b.length);
+  }
+
+  public void write(final byte[] b, final int offset, final int length) {
+    ensureCapacity(length);
+    System.arraycopy(b, offset, this.buffer, this.size, length);
+    this.size += length;
+  }
+
+  // Big-endian, as ByteBuffer
+
+  public void writeInt(final int v) {
+    ensureCapacity(Integer.BYTES);
+    byte[] b = this.buffer;
+    int p = this.size;
+    b[p] = (byte) (v >>> 24);
+    b[p + 1] = (byte) (v >>> 16);
+    b[p + 2] = (byte) (v >>> 8);
+    b[p + 3] = (byte) v;
+    this.size += Integer.BYTES;
+  }
+
+  public void writeLong(final long v) {
+    ensureCapacity(Long.BYTES);
+    byte[] b = this.buffer;
+    int p = this.size;
+    for (int i = 0; i < Long.BYTES; i++) {
+      b[p + i] = (byte) (v >>> (56 - 8 * i));
+    }
+    this.size += Long.BYTES;
+  }
+
+  // The same bytes as String.getBytes(StandardCharsets.UTF_8), including the
+  // replacement of unpaired surrogates with '?'
+
+  public void writeUTF8(final CharSequence s) {
+    int length = s.length();
+    ensureCapacity(length);
+    for (int i = 0; i < length; i++) {
+      char c = s.charAt(i);
+      if (c < 0x80) {
+        if (this.size == this.buffer.length) {
+          ensureCapacity(length - i);
+        }
+        this.buffer[this.size++] = (byte) c;
+      } else {
+        ensureCapacity(4);
+        byte[] b = this.buffer;
+        if (c < 0x800) {
+          b[this.size++] = (byte) (0xC0 | (c >> 6));
+          b[this.size++] = (byte) (0x80 | (c & 0x3F));
+        } else if (Character.isSurrogate(c)) {
+          if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(s.charAt(i + 1))) {
+            int cp = Character.toCodePoint(c, s.charAt(++i));
+            b[this.size++] = (byte) (0xF0 | (cp >> 18));
+            b[this.size++] = (byte) (0x80 | ((cp >> 12) & 0x3F));
+            b[this.size++] = (byte) (0x80 | ((cp >> 6) & 0x3F));
+            b[this.size++] = (byte) (0x80 | (cp & 0x3F));
+          } else {
+            b[this.size++] = '?';
+          }
+        } else {
+          b[this.size++] = (byte) (0xE0 | (c >> 12));
+          b[this.size++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+          b[this.size++] = (byte) (0x80 | (c & 0x3F));
+        }
+      }
+    }
+  }
+
+  private void ensureCapacity(final int extra) {
+    if (this.size + extra > this.buffer.length) {
+      this.buffer = Arrays.copyOf(this.buffer, Math.max(this.buffer.length * 2, this.size + extra));
+    }
+  }
+
+}
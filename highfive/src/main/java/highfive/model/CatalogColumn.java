@@ -0,0 +1,92 @@
+package highfive.model;
+
+import java.math.BigInteger;
+import java.util.Collections;
+import java.util.List;
+
+// A column as read from the catalog of the database, before the column filter
+// and the type rules are applied. The metadata cache keeps these, so the
+// columns are resolved again with the current configuration.
+
+public class CatalogColumn {
+
+  private String table;
+  private String name;
+  private String type;
+  private boolean unsigned;
+  private BigInteger length;
+  private Integer precision;
+  private Integer scale;
+  private Integer pkPosition;
+  private List<String> uniqueKeys;
+
+  public CatalogColumn(final String table, final String name, final String type, final boolean unsigned,
+      final BigInteger length, final Integer precision, final Integer scale, final Integer pkPosition) {
+    this(table, name, type, unsigned, length, precision, scale, pkPosition, Collections.emptyList());
+  }
+
+  public CatalogColumn(final String table, final String name, final String type, final boolean unsigned,
+      final BigInteger length, final Integer precision, final Integer scale, final Integer pkPosition,
+      final List<String> uniqueKeys) {
+    this.table = table;
+    this.name = name;
+    this.type = type;
+    this.unsigned = unsigned;
+    this.length = length;
+    this.precision = precision;
+    this.scale = scale;
+    this.pkPosition = pkPosition;
+    this.uniqueKeys = uniqueKeys;
+  }
+
+  public String getTable() {
+    return table;
+  }
+
+  public String getName() {
+    return name;
+  }
+
+  public String getType() {
+    return type;
+  }
+
+  public boolean isUnsigned() {
+    return unsigned;
+  }
+
+  public BigInteger getLength() {
+    return length;
+  }
+
+  public Integer getPrecision() {
+    return precision;
+  }
+
+  public Integer getScale() {
+    return scale;
+  }
+
+  public Integer getPKPosition() {
+    return pkPosition;
+  }
+
+  // The names of the unique keys of the table that include this column
+
+  public List<String> getUniqueKeys() {
+    return uniqueKeys;
+  }
+
+  // The bulk queries read the primary keys and the unique keys separately
+
+  public CatalogColumn withPKPosition(final Integer pkPosition) {
+    return new CatalogColumn(this.table, this.name, this.type, this.unsigned, this.length, this.precision, this.scale,
+        pkPosition, this.uniqueKeys);
+  }
+
+  public CatalogColumn withUniqueKeys(final List<String> uniqueKeys) {
+    return new CatalogColumn(this.table, this.name, this.type, this.unsigned, this.length, this.precision, this.scale,
+        this.pkPosition, uniqueKeys);
+  }
+
+}
@@ -27,6 +27,11 @@ public class Column implements Comparable<Column> {
     this.serializer = serializer;
   }
 
+  public Column duplicate() {
+    return new Column(this.canonicalName, this.type, this.length, this.precision, this.scale, this.renderedType,
+        this.pkPosition, this.serializer == null ? null : this.serializer.newInstance());
+  }
+
   public String getName() {
     return name;
   }
@@ -54,9 +54,35 @@ public class DataSource {
   private boolean logSQL;
   private long insertBatchSize;
   private LinkedHashMap<String, TableHashingOrdering> hashingOrderings;
+  private int hashingThreads = 1;
+  private Long hashingPartitionRows;
+  private Long hashingKeysetRows;
+  private Long hashingCheckpointRows;
+  private int hashingRetries = 3;
+  private HashingMode hashingMode = HashingMode.ORDERED;
+  private String hashingAlgorithm = Digest.DEFAULT;
+  private boolean hashingPipeline = false;
+  private Set<String> hashingOrderingCheck = new HashSet<>();
+  private int drillRows = 100;
+  private int progressInterval = 10;
+  private HashingMode hashDumpMode = HashingMode.ORDERED;
+  private boolean hashDumpBinary = false;
+  private int hashDumpWidth = 0;
+  private boolean metaDataCache = false;
+  private RowCountMode rowCountMode = RowCountMode.EXACT;
+  private LinkedHashMap<String, RowCountMode> rowCountModes = new LinkedHashMap<>();
+  private int rowCountThreads = 1;
+  private int copyThreads = 1;
+  private Long copyPartitionRows;
+  private boolean copyPipeline = false;
+  private int copyPipelineBatches = 4;
+  private int copyPipelineMemory = 64;
+  private boolean copyBulk = false;
 
   private String hashFileName;
   private String hashDumpFileName;
+  private String diffFileName;
+  private String metaDataFileName;
 
   private Dialect dialect;
   private Connection conn;
@@ -92,6 +118,8 @@ public class DataSource {
 
     this.hashFileName = name + ".hash";
     this.hashDumpFileName = name + ".dump";
+    this.diffFileName = name + ".diff";
+    this.metaDataFileName = name + ".metadata";
 
     // 1. Load the JDBC driver jar file
 
@@ -386,10 +414,281 @@ public class DataSource {
       }
     }
 
-    return new DataSource(name, driverJAR, driverClass, url, username, password, catalog, schema, removeTablePrefix,
-        declaredSelectAutoCommit, selectFetchSize, readOnly, tableFilter, columnFilter, maxRows, hashingCollation,
-        logSQL, insertBatchSize, solver, hashingOrderings);
+    // Hashing Threads
 
+    int hashingThreads = readPositiveInteger(props, name + ".hashing.threads", 1);
+
+    // Hashing Partition Rows
+
+    Long hashingPartitionRows = readPositiveLong(props, name + ".hashing.partition.rows");
+
+    // Hashing Keyset Rows
+
+    Long hashingKeysetRows = readPositiveLong(props, name + ".hashing.keyset.rows");
+
+    // Hashing Checkpoint Rows
+
+    Long hashingCheckpointRows = readPositiveLong(props, name + ".hashing.checkpoint.rows");
+
+    // Hashing Retries
+
+    int hashingRetries = readNonNegativeInteger(props, name + ".hashing.retries", 3);
+
+    // Hashing Mode
+
+    HashingMode hashingMode = HashingMode.ORDERED;
+    String sHashingMode = props.getProperty(name + ".hashing.mode");
+    if (!Utl.empty(sHashingMode)) {
+      hashingMode = HashingMode.find(sHashingMode);
+      if (hashingMode == null || hashingMode == HashingMode.CHAINED) {
+        throw new InvalidConfigurationException("If the property '" + name + ".hashing.mode"
+            + "' is specified, it must be 'ordered' or 'unordered', but found '" + sHashingMode + "'.");
+      }
+    }
+
+    // Hashing Algorithm
+
+    String hashingAlgorithm = Digest.DEFAULT;
+    String sHashingAlgorithm = props.getProperty(name + ".hashing.algorithm");
+    if (!Utl.empty(sHashingAlgorithm)) {
+      hashingAlgorithm = sHashingAlgorithm.trim().toLowerCase();
+      if (!Digest.getNames().contains(hashingAlgorithm)) {
+        throw new InvalidConfigurationException("If the property '" + name + ".hashing.algorithm"
+            + "' is specified, it must be one of " + Digest.getNames() + ", but found '" + sHashingAlgorithm + "'.");
+      }
+    }
+
+    // Hashing Pipeline
+
+    boolean hashingPipeline = false;
+    String sHashingPipeline = props.getProperty(name + ".hashing.pipeline");
+    if (Utl.empty(sHashingPipeline)) {
+      // leave default value
+    } else if ("false".equals(sHashingPipeline)) {
+      hashingPipeline = false;
+    } else if ("true".equals(sHashingPipeline)) {
+      hashingPipeline = true;
+    } else {
+      throw new InvalidConfigurationException("If the property '" + name + ".hashing.pipeline"
+          + "' is specified it must be either 'true' or 'false', but found '" + sHashingPipeline + "'.");
+    }
+
+    // Hashing Ordering Check
+
+    Set<String> hashingOrderingCheck = new HashSet<>();
+    String sHashingOrderingCheck = props.getProperty(name + ".hashing.ordering.check");
+    if (!Utl.empty(sHashingOrderingCheck)) {
+      hashingOrderingCheck = Arrays.stream(sHashingOrderingCheck.split(",")).map(t -> Name.lower(t.trim()))
+          .collect(Collectors.toSet());
+    }
+
+    // Drill Rows
+
+    int drillRows = readPositiveInteger(props, name + ".drill.rows", 100);
+
+    // Progress Interval
+
+    int progressInterval = readPositiveInteger(props, name + ".progress.interval", 10);
+
+    // Hash Dump Format
+
+    boolean hashDumpBinary = false;
+    String sHashDumpFormat = props.getProperty(name + ".hashdump.format");
+    if (Utl.empty(sHashDumpFormat)) {
+      // leave default value
+    } else if ("text".equals(sHashDumpFormat.trim())) {
+      hashDumpBinary = false;
+    } else if ("binary".equals(sHashDumpFormat.trim())) {
+      hashDumpBinary = true;
+    } else {
+      throw new InvalidConfigurationException("If the property '" + name + ".hashdump.format"
+          + "' is specified it must be either 'text' or 'binary', but found '" + sHashDumpFormat + "'.");
+    }
+
+    // Hash Dump Mode
+
+    HashingMode hashDumpMode = HashingMode.ORDERED;
+    String sHashDumpMode = props.getProperty(name + ".hashdump.mode");
+    if (!Utl.empty(sHashDumpMode)) {
+      hashDumpMode = HashingMode.find(sHashDumpMode);
+      if (hashDumpMode == null || hashDumpMode == HashingMode.UNORDERED) {
+        throw new InvalidConfigurationException("If the property '" + name + ".hashdump.mode"
+            + "' is specified, it must be 'ordered' or 'chained', but found '" + sHashDumpMode + "'.");
+      }
+    }
+
+    // Hash Dump Width
+
+    int digestLength = Digest.find(hashingAlgorithm).getLength();
+    int hashDumpWidth = readPositiveInteger(props, name + ".hashdump.width", digestLength);
+    if (hashDumpWidth > digestLength) {
+      throw new InvalidConfigurationException("If the property '" + name + ".hashdump.width"
+          + "' is specified, it must be at most " + digestLength + " (the length in bytes of a " + hashingAlgorithm
+          + " digest), but found '" + hashDumpWidth + "'.");
+    }
+
+    // Metadata Cache
+
+    boolean metaDataCache = false;
+    String sMetaDataCache = props.getProperty(name + ".metadata.cache");
+    if (Utl.empty(sMetaDataCache)) {
+      // leave default value
+    } else if ("false".equals(sMetaDataCache)) {
+      metaDataCache = false;
+    } else if ("true".equals(sMetaDataCache)) {
+      metaDataCache = true;
+    } else {
+      throw new InvalidConfigurationException("If the property '" + name + ".metadata.cache"
+          + "' is specified it must be either 'true' or 'false', but found '" + sMetaDataCache + "'.");
+    }
+
+    // Row Count: a mode, and/or a semicolon-separated list of <command>:<mode>
+
+    RowCountMode rowCountMode = RowCountMode.EXACT;
+    LinkedHashMap<String, RowCountMode> rowCountModes = new LinkedHashMap<>();
+    String sRowCount = props.getProperty(name + ".row.count");
+    if (!Utl.empty(sRowCount)) {
+      for (String rule : sRowCount.split(";")) {
+        int idx = rule.indexOf(":");
+        String command = idx == -1 ? null : rule.substring(0, idx).trim().toLowerCase();
+        RowCountMode mode = RowCountMode.find(rule.substring(idx + 1));
+        if (mode == null || "".equals(command)) {
+          throw new InvalidConfigurationException("If the property '" + name + ".row.count"
+              + "' is specified, it must be a semicolon-separated list of rules '<mode>' or '<command>:<mode>', "
+              + "where the mode is 'exact' or 'estimate', but found '" + sRowCount + "'.");
+        }
+        if (command == null) {
+          rowCountMode = mode;
+        } else {
+          rowCountModes.put(command, mode);
+        }
+      }
+    }
+
+    int rowCountThreads = readPositiveInteger(props, name + ".row.count.threads", 1);
+
+    int copyThreads = readPositiveInteger(props, name + ".copy.threads", 1);
+    Long copyPartitionRows = readPositiveLong(props, name + ".copy.partition.rows");
+
+    // Copy Pipeline
+
+    boolean copyPipeline = false;
+    String sCopyPipeline = props.getProperty(name + ".copy.pipeline");
+    if (Utl.empty(sCopyPipeline)) {
+      // leave default value
+    } else if ("false".equals(sCopyPipeline)) {
+      copyPipeline = false;
+    } else if ("true".equals(sCopyPipeline)) {
+      copyPipeline = true;
+    } else {
+      throw new InvalidConfigurationException("If the property '" + name + ".copy.pipeline"
+          + "' is specified it must be either 'true' or 'false', but found '" + sCopyPipeline + "'.");
+    }
+    int copyPipelineBatches = readPositiveInteger(props, name + ".copy.pipeline.batches", 4);
+    int copyPipelineMemory = readPositiveInteger(props, name + ".copy.pipeline.memory", 64);
+
+    // Copy Bulk Load
+
+    boolean copyBulk = false;
+    String sCopyBulk = props.getProperty(name + ".copy.bulk");
+    if (Utl.empty(sCopyBulk)) {
+      // leave default value
+    } else if ("false".equals(sCopyBulk)) {
+      copyBulk = false;
+    } else if ("true".equals(sCopyBulk)) {
+      copyBulk = true;
+    } else {
+      throw new InvalidConfigurationException("If the property '" + name + ".copy.bulk"
+          + "' is specified it must be either 'true' or 'false', but found '" + sCopyBulk + "'.");
+    }
+
+    DataSource ds = new DataSource(name, driverJAR, driverClass, url, username, password, catalog, schema,
+        removeTablePrefix, declaredSelectAutoCommit, selectFetchSize, readOnly, tableFilter, columnFilter, maxRows,
+        hashingCollation, logSQL, insertBatchSize, solver, hashingOrderings);
+    ds.hashingThreads = hashingThreads;
+    ds.hashingPartitionRows = hashingPartitionRows;
+    ds.hashingKeysetRows = hashingKeysetRows;
+    ds.hashingCheckpointRows = hashingCheckpointRows;
+    ds.hashingRetries = hashingRetries;
+    ds.hashingMode = hashingMode;
+    ds.hashingAlgorithm = hashingAlgorithm;
+    ds.hashingPipeline = hashingPipeline;
+    ds.hashingOrderingCheck = hashingOrderingCheck;
+    ds.drillRows = drillRows;
+    ds.progressInterval = progressInterval;
+    ds.hashDumpMode = hashDumpMode;
+    ds.hashDumpBinary = hashDumpBinary;
+    ds.hashDumpWidth = hashDumpWidth == digestLength ? 0 : hashDumpWidth;
+    ds.metaDataCache = metaDataCache;
+    ds.rowCountMode = rowCountMode;
+    ds.rowCountModes = rowCountModes;
+    ds.rowCountThreads = rowCountThreads;
+    ds.copyThreads = copyThreads;
+    ds.copyPartitionRows = copyPartitionRows;
+    ds.copyPipeline = copyPipeline;
+    ds.copyPipelineBatches = copyPipelineBatches;
+    ds.copyPipelineMemory = copyPipelineMemory;
+    ds.copyBulk = copyBulk;
+    return ds;
+
+  }
+
+  private static Long readPositiveLong(final Properties props, final String name)
+      throws InvalidConfigurationException {
+    String value = props.getProperty(name);
+    if (Utl.empty(value)) {
+      return null;
+    }
+    try {
+      long v = Long.parseLong(value.trim());
+      if (v < 1) {
+        throw new InvalidConfigurationException("If the property '" + name
+            + "' is specified, if must be an integer number greater than zero, but found '" + value + "'.");
+      }
+      return v;
+    } catch (NumberFormatException e) {
+      throw new InvalidConfigurationException("If the property '" + name
+          + "' is specified, if must be an integer number greater than zero, but found '" + value + "'.");
+    }
+  }
+
+  private static int readPositiveInteger(final Properties props, final String name, final int defaultValue)
+      throws InvalidConfigurationException {
+    String value = props.getProperty(name);
+    if (Utl.empty(value)) {
+      return defaultValue;
+    }
+    try {
+      int v = Integer.parseInt(value.trim());
+      if (v < 1) {
+        throw new InvalidConfigurationException("If the property '" + name
+            + "' is specified, if must be an integer number greater than zero, but found '" + value + "'.");
+      }
+      return v;
+    } catch (NumberFormatException e) {
+      throw new InvalidConfigurationException("If the property '" + name
+          + "' is specified, if must be an integer number greater than zero, but found '" + value + "'.");
+    }
+  }
+
+  private static int readNonNegativeInteger(final Properties props, final String name, final int defaultValue)
+      throws InvalidConfigurationException {
+    String value = props.getProperty(name);
+    if (Utl.empty(value)) {
+      return defaultValue;
+    }
+    try {
+      int v = Integer.parseInt(value.trim());
+      if (v < 0) {
+        throw new InvalidConfigurationException("If the property '" + name
+            + "' is specified, if must be an integer number greater than or equal to zero, but found '" + value
+            + "'.");
+      }
+      return v;
+    } catch (NumberFormatException e) {
+      throw new InvalidConfigurationException("If the property '" + name
+          + "' is specified, if must be an integer number greater than or equal to zero, but found '" + value + "'.");
+    }
   }
 
   private static TableHashingMember parseOrderingMember(String dsName, String table, String s)
@@ -485,10 +784,72 @@ public class DataSource {
     }
     if (forInserting) {
       info("  insert batch size: " + this.insertBatchSize);
+      if (this.copyThreads > 1) {
+        info("  copy threads: " + this.copyThreads);
+      }
+      if (this.copyPartitionRows != null) {
+        info("  copy partition rows: " + this.copyPartitionRows);
+      }
+      if (this.copyPipeline) {
+        info("  copy pipeline: " + this.copyPipelineBatches + " batches, up to " + this.copyPipelineMemory + " MB");
+      }
+      if (this.copyBulk) {
+        info("  copy bulk load: " + this.copyBulk);
+      }
     }
     info("  select autocommit: " + this.selectAutoCommit);
     info("  select fetch size: " + (this.selectFetchSize == null ? "--" : "" + this.selectFetchSize));
     info("  hashing collation: " + (this.hashingCollation == null ? "--" : this.hashingCollation));
+    if (this.hashingThreads > 1) {
+      info("  hashing threads: " + this.hashingThreads);
+    }
+    if (this.hashingPartitionRows != null) {
+      info("  hashing partition rows: " + this.hashingPartitionRows);
+    }
+    if (this.hashingKeysetRows != null) {
+      info("  hashing keyset rows: " + this.hashingKeysetRows);
+    }
+    if (this.hashingCheckpointRows != null) {
+      info("  hashing checkpoint rows: " + this.hashingCheckpointRows);
+    }
+    if (this.hashingRetries != 3) {
+      info("  hashing retries: " + this.hashingRetries);
+    }
+    if (this.hashingMode != HashingMode.ORDERED) {
+      info("  hashing mode: " + this.hashingMode.getName());
+    }
+    if (!Digest.DEFAULT.equals(this.hashingAlgorithm)) {
+      info("  hashing algorithm: " + this.hashingAlgorithm);
+    }
+    if (this.hashingPipeline) {
+      info("  hashing pipeline: " + this.hashingPipeline);
+    }
+    if (!this.hashingOrderingCheck.isEmpty()) {
+      info("  hashing ordering check: " + this.hashingOrderingCheck.stream().sorted().collect(Collectors.joining(", ")));
+    }
+    if (this.drillRows != 100) {
+      info("  drill rows: " + this.drillRows);
+    }
+    if (this.progressInterval != 10) {
+      info("  progress interval: " + this.progressInterval + " s");
+    }
+    if (this.hashDumpMode != HashingMode.ORDERED) {
+      info("  hash dump mode: " + this.hashDumpMode.getName());
+    }
+    if (this.hashDumpBinary) {
+      info("  hash dump format: binary"
+          + (this.hashDumpWidth == 0 ? "" : ", " + this.hashDumpWidth + " bytes per hash"));
+    }
+    if (this.metaDataCache) {
+      info("  metadata cache: " + this.metaDataFileName);
+    }
+    if (this.rowCountMode != RowCountMode.EXACT || !this.rowCountModes.isEmpty()) {
+      info("  row count: " + this.rowCountMode.getName() + this.rowCountModes.entrySet().stream()
+          .map(e -> "; " + e.getKey() + ":" + e.getValue().getName()).collect(Collectors.joining()));
+    }
+    if (this.rowCountThreads > 1) {
+      info("  row count threads: " + this.rowCountThreads);
+    }
 
   }
 
@@ -566,6 +927,14 @@ public class DataSource {
     return hashDumpFileName;
   }
 
+  public String getDiffFileName() {
+    return diffFileName;
+  }
+
+  public String getMetaDataFileName() {
+    return metaDataFileName;
+  }
+
   public Dialect getDialect() {
     return dialect;
   }
@@ -586,6 +955,107 @@ public class DataSource {
     return hashingOrderings;
   }
 
+  public int getHashingThreads() {
+    return hashingThreads;
+  }
+
+  public Long getHashingPartitionRows() {
+    return hashingPartitionRows;
+  }
+
+  public Long getHashingKeysetRows() {
+    return hashingKeysetRows;
+  }
+
+  public Long getHashingCheckpointRows() {
+    return hashingCheckpointRows;
+  }
+
+  public int getHashingRetries() {
+    return hashingRetries;
+  }
+
+  public HashingMode getHashingMode() {
+    return hashingMode;
+  }
+
+  public String getHashingAlgorithm() {
+    return hashingAlgorithm;
+  }
+
+  public boolean getHashingPipeline() {
+    return hashingPipeline;
+  }
+
+  public Set<String> getHashingOrderingCheck() {
+    return hashingOrderingCheck;
+  }
+
+  public int getDrillRows() {
+    return drillRows;
+  }
+
+  public int getProgressInterval() {
+    return progressInterval;
+  }
+
+  public HashingMode getHashDumpMode() {
+    return hashDumpMode;
+  }
+
+  public boolean isHashDumpBinary() {
+    return hashDumpBinary;
+  }
+
+  // The number of bytes of each digest kept in a binary dump file; zero for
+  // the whole digest
+
+  public int getHashDumpWidth() {
+    return hashDumpWidth;
+  }
+
+  public boolean getMetaDataCache() {
+    return metaDataCache;
+  }
+
+  // The mode of the command (e.g. 'hash', 'copy'), or else the default mode
+
+  public RowCountMode getRowCountMode(final String command) {
+    RowCountMode mode = rowCountModes.get(command);
+    return mode == null ? rowCountMode : mode;
+  }
+
+  public int getRowCountThreads() {
+    return rowCountThreads;
+  }
+
+  public int getCopyThreads() {
+    return copyThreads;
+  }
+
+  public Long getCopyPartitionRows() {
+    return copyPartitionRows;
+  }
+
+  public boolean getCopyPipeline() {
+    return copyPipeline;
+  }
+
+  public int getCopyPipelineBatches() {
+    return copyPipelineBatches;
+  }
+
+  // The memory of the rows queued by the pipeline of each table (or
+  // partition) copied, in MB
+
+  public int getCopyPipelineMemory() {
+    return copyPipelineMemory;
+  }
+
+  public boolean getCopyBulk() {
+    return copyBulk;
+  }
+
   public String getDatabase() {
     return database;
   }
@@ -600,6 +1070,27 @@ public class DataSource {
     return conn;
   }
 
+  // Replaces the main connection after a connection failure; the old one is
+  // closed, if still possible
+
+  public Connection reconnect() throws SQLException {
+    try {
+      this.conn.close();
+    } catch (SQLException e) {
+      // ignore; the connection is probably broken already
+    }
+    this.conn = openConnection();
+    this.dialect.conn = this.conn;
+    return this.conn;
+  }
+
+  // Opens an additional connection to the database, for the exclusive use of a
+  // worker thread. The caller must close it.
+
+  public Connection openConnection() throws SQLException {
+    return DriverManager.getConnection(this.url, this.username, this.password);
+  }
+
   private static final SimpleDateFormat DF = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss.SSS");
 
   protected static void info(final String s) {
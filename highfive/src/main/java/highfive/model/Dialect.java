@@ -1,9 +1,23 @@
 package highfive.model;
 
+import java.io.IOException;
 import java.math.BigInteger;
 import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.SQLRecoverableException;
+import java.sql.SQLTransientException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.logging.Logger;
+import java.util.stream.Collectors;
 
 import highfive.exceptions.InvalidSchemaException;
 import highfive.exceptions.UnsupportedDatabaseTypeException;
@@ -11,6 +25,8 @@ import highfive.exceptions.UnsupportedSQLFeatureException;
 
 public abstract class Dialect {
 
+  private static final Logger log = Logger.getLogger(Dialect.class.getName());
+
   protected DataSource ds;
   protected Connection conn;
 
@@ -35,6 +51,199 @@ public abstract class Dialect {
 
   public abstract Table getTableMetaData(Identifier table) throws SQLException, UnsupportedDatabaseTypeException;
 
+  // Bulk introspection: the columns, primary keys and unique keys of all the
+  // tables of the schema are read with one catalog query each (see
+  // readCatalog()), instead
+  // of two queries per table. Only a few tables are still read one by one, as
+  // are the tables of the dialects that do not read the whole catalog. With
+  // <datasource>.metadata.cache the catalog is saved to a file and reused
+  // while the schema version (see readSchemaVersion()) does not change.
+
+  private static final int BULK_TABLES = 20;
+
+  public List<Table> getTablesMetaData(final List<Identifier> tables)
+      throws SQLException, UnsupportedDatabaseTypeException {
+    Map<String, List<CatalogColumn>> catalog = tables.size() < BULK_TABLES && !ds.getMetaDataCache() ? null
+        : loadCatalog();
+    List<Table> result = new ArrayList<>();
+    for (Identifier tn : tables) {
+      List<CatalogColumn> columns = catalog == null ? null : catalog.get(tn.getCanonicalName());
+      result.add(columns == null ? getTableMetaData(tn) : toTable(tn, columns));
+    }
+    return result;
+  }
+
+  private Map<String, List<CatalogColumn>> loadCatalog() throws SQLException {
+    String version = ds.getMetaDataCache() ? readSchemaVersion() : null;
+    if (version == null) {
+      return readCatalog();
+    }
+    List<String> key = Arrays.asList(getName(), ds.getURL(), ds.getCatalog(), ds.getSchema(), version);
+    MetaDataCache cache = new MetaDataCache(ds.getMetaDataFileName());
+    Map<String, List<CatalogColumn>> catalog = cache.load(key);
+    if (catalog == null) {
+      catalog = readCatalog();
+      if (catalog != null) {
+        try {
+          cache.save(key, catalog);
+        } catch (IOException e) {
+          log.warning("Could not save the metadata cache file '" + cache.getFileName() + "': " + e.getMessage());
+        }
+      }
+    }
+    return catalog;
+  }
+
+  // The columns of all the tables of the schema, by table name; null when the
+  // dialect does not support it
+
+  protected Map<String, List<CatalogColumn>> readCatalog() throws SQLException {
+    return null;
+  }
+
+  // A text that changes when the tables of the schema change, e.g. the number
+  // of tables and the time of the last DDL change; null when the dialect
+  // cannot tell, and then the catalog is never cached
+
+  protected String readSchemaVersion() throws SQLException {
+    return null;
+  }
+
+  // The row counts of the tables of the schema estimated from the statistics
+  // of the database, by table name; null when the dialect does not support
+  // it. The tables without statistics are left out.
+
+  public Map<String, Long> readRowCountEstimates() throws SQLException {
+    return null;
+  }
+
+  // Splits the physical storage of a table into about the given number of
+  // disjoint ranges that cover all of it, as SQL conditions; null when the
+  // dialect does not support it or the table is too small
+
+  public List<String> renderPhysicalRanges(final Identifier table, final int ranges) throws SQLException {
+    return null;
+  }
+
+  // The bulk-load writer of the database for the copy command, on the given
+  // connection; null when the dialect does not have one or the driver does
+  // not support it, and then the rows are inserted in batches. A partitioned
+  // table can be loaded by several writers at the same time.
+
+  public TableWriter openBulkWriter(final Connection connection, final Identifier table, final List<Column> sources,
+      final List<String> columns, final boolean partitioned) throws SQLException {
+    return null;
+  }
+
+  // Runs a query that returns the table names and their estimates, for the
+  // schema in the parameter; negative estimates mean no statistics
+
+  protected Map<String, Long> readRowCountEstimates(final String sql, final String schema) throws SQLException {
+    Map<String, Long> estimates = new HashMap<>();
+    try (PreparedStatement ps = conn.prepareStatement(sql);) {
+      ps.setString(1, schema);
+      try (ResultSet rs = ps.executeQuery();) {
+        while (rs.next()) {
+          long rows = rs.getLong(2);
+          if (!rs.wasNull() && rows >= 0) {
+            estimates.put(rs.getString(1), rows);
+          }
+        }
+      }
+    }
+    return estimates;
+  }
+
+  protected Table toTable(final Identifier tn, final List<CatalogColumn> catalogColumns)
+      throws UnsupportedDatabaseTypeException {
+    List<Column> columns = new ArrayList<>();
+    Map<String, List<String>> uniqueKeys = new LinkedHashMap<>();
+    for (CatalogColumn cc : catalogColumns) {
+      for (String key : cc.getUniqueKeys()) {
+        uniqueKeys.computeIfAbsent(key, k -> new ArrayList<>()).add(cc.getName());
+      }
+      if (ds.getColumnFilter().accepts(cc.getName())) {
+        String renderedType = renderType(cc);
+        Serializer<?> serializer = getSerializer(renderedType, tn, cc.getName(), cc.getType(), cc.isUnsigned(),
+            cc.getLength(), cc.getPrecision(), cc.getScale());
+        columns.add(new Column(cc.getName(), cc.getType(), cc.getLength(), cc.getPrecision(), cc.getScale(),
+            renderedType, cc.getPKPosition(), serializer));
+      }
+    }
+    return new Table(tn, columns, new ArrayList<>(uniqueKeys.values()));
+  }
+
+  protected String renderType(final CatalogColumn cc) {
+    return cc.getType();
+  }
+
+  // Adds the primary key positions, read by a separate query, to the columns
+
+  protected static void addPrimaryKeys(final Map<String, List<CatalogColumn>> catalog,
+      final Map<String, Map<String, Integer>> pks) {
+    for (Map.Entry<String, List<CatalogColumn>> e : catalog.entrySet()) {
+      Map<String, Integer> pk = pks.get(e.getKey());
+      if (pk != null) {
+        e.setValue(e.getValue().stream().map(c -> c.withPKPosition(pk.get(c.getName()))).collect(Collectors.toList()));
+      }
+    }
+  }
+
+  // Adds the unique keys, read by a separate query, to the columns. The query
+  // returns the table, the unique constraint or index, the column, and whether
+  // the column is nullable, for the schema in the parameter. The keys with
+  // nullable columns, or with expressions (no column), are left out: they can
+  // admit several rows with the same values.
+
+  protected void addUniqueKeys(final Map<String, List<CatalogColumn>> catalog, final String sql, final String schema)
+      throws SQLException {
+    addUniqueKeys(catalog, sql, new String[] { schema });
+  }
+
+  // The same, for the columns of a single table read by getTableMetaData();
+  // the query takes the table name as a second parameter
+
+  protected List<CatalogColumn> addUniqueKeys(final Identifier tn, final List<CatalogColumn> columns,
+      final String sql, final String schema) throws SQLException {
+    Map<String, List<CatalogColumn>> catalog = new HashMap<>();
+    catalog.put(tn.getCanonicalName(), columns);
+    addUniqueKeys(catalog, sql, new String[] { schema, tn.getCanonicalName() });
+    return catalog.get(tn.getCanonicalName());
+  }
+
+  private void addUniqueKeys(final Map<String, List<CatalogColumn>> catalog, final String sql,
+      final String[] parameters) throws SQLException {
+    Map<String, Map<String, Set<String>>> keys = new HashMap<>();
+    Set<List<String>> nullable = new HashSet<>();
+    try (PreparedStatement ps = conn.prepareStatement(sql);) {
+      for (int i = 0; i < parameters.length; i++) {
+        ps.setString(i + 1, parameters[i]);
+      }
+      try (ResultSet rs = ps.executeQuery();) {
+        while (rs.next()) {
+          String table = rs.getString(1);
+          String key = rs.getString(2);
+          String column = rs.getString(3);
+          boolean isNullable = rs.getBoolean(4);
+          keys.computeIfAbsent(table, t -> new LinkedHashMap<>()).computeIfAbsent(key, k -> new HashSet<>())
+              .add(column);
+          if (column == null || isNullable) {
+            nullable.add(Arrays.asList(table, key));
+          }
+        }
+      }
+    }
+    for (Map.Entry<String, List<CatalogColumn>> e : catalog.entrySet()) {
+      Map<String, Set<String>> tableKeys = keys.getOrDefault(e.getKey(), new HashMap<>());
+      tableKeys.keySet().removeIf(k -> nullable.contains(Arrays.asList(e.getKey(), k)));
+      if (!tableKeys.isEmpty()) {
+        e.setValue(e.getValue().stream().map(c -> c.withUniqueKeys(tableKeys.entrySet().stream()
+            .filter(k -> k.getValue().contains(c.getName())).map(k -> k.getKey()).collect(Collectors.toList())))
+            .collect(Collectors.toList()));
+      }
+    }
+  }
+
   protected abstract Serializer<?> getDefaultSerializer(Identifier table, String name, String type, boolean unsigned,
       BigInteger maxLength, Integer precision, Integer scale) throws UnsupportedDatabaseTypeException;
 
@@ -52,4 +261,89 @@ public abstract class Dialect {
 
   public abstract String renderNullsOrdering(boolean nullsFirst) throws UnsupportedSQLFeatureException;
 
+  // Key range predicates
+
+  public abstract boolean sortsNullsHigh();
+
+  public abstract boolean supportsRowValueComparison();
+
+  public abstract String renderModulo(String dividend, String divisor);
+
+  public abstract String renderCollatedParameter(String collation);
+
+  // Pushdown hashing. The database renders each non-null value as canonical
+  // text, the same in all databases:
+  //
+  // - integer, long, biginteger: digits, with a leading minus sign if negative
+  // - bigdecimal: plain notation, with no trailing zeros in the fraction and no
+  //   trailing point: -0.5, 12, 1234.25
+  // - boolean: true, false
+  // - localdate: YYYY-MM-DD
+  // - localdatetime: YYYY-MM-DD HH:MI:SS, the fractional seconds truncated, as
+  //   the serializers hash them (whole epoch seconds); a sub-second
+  //   difference is ignored
+  // - localtime: HH:MI:SS.FFFFFFFFF (nanoseconds, as hashed)
+  // - offsetdatetime, zoneddatetime: as localdatetime, in UTC
+  // - bytearray: lowercase hex digits
+  // - string: the value itself
+  //
+  // Floating point values have no portable text rendering and are not
+  // supported. The text of a row is hashed with SHA-256, as lowercase hex.
+
+  public abstract String renderCanonicalText(Column c, String expression) throws UnsupportedSQLFeatureException;
+
+  public abstract String renderConcat(List<String> expressions);
+
+  public abstract String renderRowHash(String text);
+
+  // The number represented by the 15 hex digits (60 bits) that start at the
+  // position (1-based) of the text
+
+  public abstract String renderHexToNumber(String hex, int start);
+
+  // Transient errors: reading again, possibly on a new connection, can succeed.
+  // These are connection errors (SQLState class 08), rolled back transactions
+  // (class 40: serialization failures, deadlocks), and the vendor errors
+  // recognized by each dialect.
+
+  public boolean isTransient(final SQLException e) {
+    for (SQLException x = e; x != null; x = x.getNextException()) {
+      if (x instanceof SQLTransientException || x instanceof SQLRecoverableException) {
+        return true;
+      }
+      String state = x.getSQLState();
+      if (state != null && (state.startsWith("08") || state.startsWith("40"))) {
+        return true;
+      }
+      if (isTransientError(x.getErrorCode(), state)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  protected boolean isTransientError(final int errorCode, final String sqlState) {
+    return false;
+  }
+
+  protected UnsupportedSQLFeatureException unsupportedCanonicalText(final Column c) {
+    return new UnsupportedSQLFeatureException("Pushdown hashing is not supported for the column '"
+        + c.getCanonicalName() + "' of type '" + c.getRenderedType() + "' (serializer '" + c.getSerializer().getName()
+        + "') in the database " + getName() + ".");
+  }
+
+  // For databases with no hex conversion: adds up the value of each digit
+
+  protected String renderHexDigitsSum(final String hex, final int start) {
+    StringBuilder sb = new StringBuilder();
+    for (int i = 0; i < 15; i++) {
+      if (i > 0) {
+        sb.append(" + ");
+      }
+      sb.append("cast(locate(substr(" + hex + ", " + (start + i) + ", 1), '0123456789abcdef') - 1 as bigint) * "
+          + (1L << (4 * (14 - i))));
+    }
+    return "(" + sb.toString() + ")";
+  }
+
 }
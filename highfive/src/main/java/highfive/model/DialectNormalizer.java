@@ -1,9 +1,11 @@
 package highfive.model;
 
 import java.math.BigInteger;
+import java.sql.Connection;
 import java.sql.SQLException;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 
 import highfive.exceptions.InvalidSchemaException;
 import highfive.exceptions.UnsupportedDatabaseTypeException;
@@ -37,6 +39,31 @@ public class DialectNormalizer extends Dialect {
     return t;
   }
 
+  @Override
+  public List<Table> getTablesMetaData(List<Identifier> tables) throws SQLException, UnsupportedDatabaseTypeException {
+    List<Table> result = this.dialect.getTablesMetaData(tables);
+    for (Table t : result) {
+      t.sortColumns();
+    }
+    return result;
+  }
+
+  @Override
+  public Map<String, Long> readRowCountEstimates() throws SQLException {
+    return this.dialect.readRowCountEstimates();
+  }
+
+  @Override
+  public List<String> renderPhysicalRanges(Identifier table, int ranges) throws SQLException {
+    return this.dialect.renderPhysicalRanges(table, ranges);
+  }
+
+  @Override
+  public TableWriter openBulkWriter(Connection connection, Identifier table, List<Column> sources, List<String> columns,
+      boolean partitioned) throws SQLException {
+    return this.dialect.openBulkWriter(connection, table, sources, columns, partitioned);
+  }
+
   @Override
   public String escapeIdentifierAsNeeded(String identifier) {
     return this.dialect.escapeIdentifierAsNeeded(identifier);
@@ -78,4 +105,44 @@ public class DialectNormalizer extends Dialect {
     return this.dialect.renderNullsOrdering(nullsFirst);
   }
 
+  @Override
+  public boolean sortsNullsHigh() {
+    return this.dialect.sortsNullsHigh();
+  }
+
+  @Override
+  public boolean supportsRowValueComparison() {
+    return this.dialect.supportsRowValueComparison();
+  }
+
+  @Override
+  public String renderModulo(String dividend, String divisor) {
+    return this.dialect.renderModulo(dividend, divisor);
+  }
+
+  @Override
+  public String renderCollatedParameter(String collation) {
+    return this.dialect.renderCollatedParameter(collation);
+  }
+
+  @Override
+  public String renderCanonicalText(Column c, String expression) throws UnsupportedSQLFeatureException {
+    return this.dialect.renderCanonicalText(c, expression);
+  }
+
+  @Override
+  public String renderConcat(List<String> expressions) {
+    return this.dialect.renderConcat(expressions);
+  }
+
+  @Override
+  public String renderRowHash(String text) {
+    return this.dialect.renderRowHash(text);
+  }
+
+  @Override
+  public String renderHexToNumber(String hex, int start) {
+    return this.dialect.renderHexToNumber(hex, start);
+  }
+
 }
@@ -0,0 +1,94 @@
+package highfive.model;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import highfive.digests.Blake2bDigest;
+import highfive.digests.SHA256Digest;
+import highfive.digests.XXH128Digest;
+
+public abstract class Digest {
+
+  public static final String DEFAULT = "sha-256";
+
+  private static Map<String, Digest> ALL = new LinkedHashMap<>();
+
+  private static void add(final Digest... digests) {
+    for (Digest d : digests) {
+      ALL.put(d.getName(), d);
+    }
+  }
+
+  static {
+    add(new SHA256Digest(), //
+        new XXH128Digest(), //
+        new Blake2bDigest());
+  }
+
+  // Returns a new digest, or null if the algorithm is not supported
+
+  public static Digest find(final String name) {
+    if (name == null) {
+      return null;
+    }
+    Digest d = ALL.get(name.trim().toLowerCase());
+    return d == null ? null : d.newInstance();
+  }
+
+  // Same, but the digest can save its state
+
+  public static Digest findResumable(final String name) {
+    Digest d = find(name);
+    return d == null ? null : d.newResumableInstance();
+  }
+
+  public static List<String> getNames() {
+    return new ArrayList<>(ALL.keySet());
+  }
+
+  public abstract String getName();
+
+  // Length of the digest, in bytes
+
+  public abstract int getLength();
+
+  public abstract Digest newInstance();
+
+  public abstract void update(byte[] input, int offset, int length);
+
+  public void update(final byte[] input) {
+    this.update(input, 0, input.length);
+  }
+
+  // Completes the digest and resets this instance
+
+  public abstract byte[] digest();
+
+  public abstract void reset();
+
+  // An independent copy of the current state, used to produce in-progress
+  // digests
+
+  public abstract Digest copy();
+
+  // The current state as bytes, so the digest can be resumed by another
+  // process (e.g. after a failure) with restoreState()
+
+  public abstract byte[] saveState();
+
+  public abstract void restoreState(byte[] state);
+
+  // An instance of the same algorithm that can save its state, for the
+  // implementations that cannot
+
+  public Digest newResumableInstance() {
+    return this.newInstance();
+  }
+
+  protected IllegalArgumentException invalidState() {
+    return new IllegalArgumentException("Invalid saved state for the " + this.getName() + " digest.");
+  }
+
+}
@@ -8,16 +8,21 @@ import java.io.FileReader;
 import java.io.FileWriter;
 import java.io.IOException;
 import java.io.Writer;
-import java.text.DecimalFormat;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.logging.Logger;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
+import java.util.stream.Collectors;
 
 import highfive.exceptions.InvalidHashFileException;
+import highfive.utils.NumberFormat;
 import highfive.utils.Utl;
 
 public class HashFile {
@@ -26,26 +31,75 @@ public class HashFile {
   private static final Logger log = Logger.getLogger(HashFile.class.getName());
 
   private Map<String, TableHash> map = new LinkedHashMap<>();
+  private HashingMode mode = HashingMode.ORDERED;
+  private String algorithm = Digest.DEFAULT;
+
+  public HashingMode getMode() {
+    return mode;
+  }
+
+  public void setMode(HashingMode mode) {
+    this.mode = mode;
+  }
+
+  public String getAlgorithm() {
+    return algorithm;
+  }
+
+  public void setAlgorithm(String algorithm) {
+    this.algorithm = algorithm;
+  }
 
   public void add(String hash, boolean nonDeterministic, boolean failed, long rowCount, String table)
       throws InvalidHashFileException {
+    this.add(table, new TableHash(hash, nonDeterministic, failed, rowCount));
+  }
+
+  public void add(String table, TableHash h) throws InvalidHashFileException {
     if (this.map.containsKey(table)) {
       throw new InvalidHashFileException("Duplicate table '" + table + "'.");
     }
-    this.map.put(table, new TableHash(hash, nonDeterministic, failed, rowCount));
+    this.map.put(table, h);
+  }
+
+  public TableHash get(String table) {
+    return this.map.get(table);
   }
 
+  // Version 1 files list one line per table. Version 2 files start with a
+  // header line, that can include options (e.g. mode=unordered,
+  // algorithm=xxh128), and can
+  // follow a table line with the hashes of its key ranges, indented by two
+  // spaces; a version 1 file is still written when no table is partitioned
+  // and all options have their default values.
+
+  private static final String HEADER = "# highfive-hash version=";
+
   public void saveTo(final String file) throws IOException {
+    boolean partitioned = this.map.values().stream().anyMatch(h -> h.isPartitioned());
     try (Writer w = new BufferedWriter(new FileWriter(new File(file)))) {
+      boolean defaultAlgorithm = Digest.DEFAULT.equals(this.algorithm);
+      if (partitioned || this.mode != HashingMode.ORDERED || !defaultAlgorithm) {
+        w.write(HEADER + "2" + (this.mode != HashingMode.ORDERED ? " mode=" + this.mode.getName() : "")
+            + (defaultAlgorithm ? "" : " algorithm=" + this.algorithm) + "\n");
+      }
       for (String table : this.map.keySet()) {
         TableHash h = this.map.get(table);
         w.write(h.getHash() + (h.isNonDeterministic() ? "*" : "") + (h.isFailed() ? "!" : "") + " " + h.getRowCount()
             + " " + table + "\n");
+        if (h.isPartitioned()) {
+          for (RangeHash rh : h.getRanges()) {
+            w.write("  " + rh.getHash() + (rh.isNonDeterministic() ? "*" : "") + (rh.isFailed() ? "!" : "") + " "
+                + rh.getRowCount() + (rh.getUpTo() == null ? "" : " " + rh.getUpTo()) + "\n");
+          }
+        }
       }
     }
   }
 
-  private static final Pattern LINE_PATTERN = Pattern.compile("^([0-9a-f]{64})(\\*?)(\\!?) ([0-9]+) (.+)$");
+  private static final Pattern LINE_PATTERN = Pattern.compile("^([0-9a-f]+)(\\*?)(\\!?) ([0-9]+) (.+)$");
+
+  private static final Pattern RANGE_PATTERN = Pattern.compile("^  ([0-9a-f]+)(\\*?)(\\!?) ([0-9]+)(?: (\\S+))?$");
 
   public static HashFile loadFrom(final String file)
       throws FileNotFoundException, IOException, InvalidHashFileException {
@@ -53,16 +107,55 @@ public class HashFile {
     try (BufferedReader r = new BufferedReader(new FileReader(new File(file)))) {
       String line;
       int lineNumber = 1;
+      int version = 1;
+      String table = null;
+      TableHash th = null;
+      List<RangeHash> ranges = null;
       while ((line = r.readLine()) != null) {
+        if (lineNumber == 1 && line.startsWith(HEADER)) {
+          String[] options = line.substring(HEADER.length()).trim().split(" +");
+          version = parseVersion(options[0]);
+          for (int i = 1; i < options.length; i++) {
+            parseOption(hf, options[i]);
+          }
+          lineNumber++;
+          continue;
+        }
+        Matcher rm = RANGE_PATTERN.matcher(line);
+        if (version >= 2 && rm.matches()) {
+          if (th == null) {
+            throw new InvalidHashFileException("Line #" + lineNumber + " has a key range without a preceding table.");
+          }
+          String upTo = rm.group(5);
+          if (upTo != null && !RowKey.isValid(upTo)) {
+            throw new InvalidHashFileException("Line #" + lineNumber + " has an invalid key '" + upTo + "'.");
+          }
+          if (ranges == null) {
+            ranges = new ArrayList<>();
+          } else if (ranges.get(ranges.size() - 1).getUpTo() == null) {
+            throw new InvalidHashFileException(
+                "Line #" + lineNumber + " has a key range after the last key range of the table '" + table + "'.");
+          }
+          validateLength(hf, rm.group(1), lineNumber);
+          ranges.add(new RangeHash(rm.group(1), rm.group(2).equals("*"), rm.group(3).equals("!"),
+              Long.parseLong(rm.group(4)), upTo));
+          lineNumber++;
+          continue;
+        }
         Matcher m = LINE_PATTERN.matcher(line);
         if (!m.matches()) {
           throw new InvalidHashFileException("Line #" + lineNumber //
-              + " has an invalid hash format. Must be a 64-char hexa value, " //
+              + " has an invalid hash format. Must be a hexa value, " //
               + "optionally followed by a star, " //
               + "optionally followed by an exclamation point, " //
               + "then a space and a table name (in lower case).");
         } else {
+          if (th != null) {
+            hf.add(table, withRanges(th, ranges, table));
+          }
+
           String hash = m.group(1); // hash
+          validateLength(hf, hash, lineNumber);
 
           String star = m.group(2); // non-deterministic
           boolean nonDeterministic = star.equals("*");
@@ -73,16 +166,69 @@ public class HashFile {
           String srows = m.group(4); // row count
           long rowCount = Long.parseLong(srows);
 
-          String table = m.group(5); // table name
+          table = m.group(5); // table name
 
-          hf.add(hash, nonDeterministic, failed, rowCount, table);
+          th = new TableHash(hash, nonDeterministic, failed, rowCount);
+          ranges = null;
           lineNumber++;
         }
       }
+      if (th != null) {
+        hf.add(table, withRanges(th, ranges, table));
+      }
     }
     return hf;
   }
 
+  private static int parseVersion(final String text) throws InvalidHashFileException {
+    String v = text.trim();
+    if (!v.equals("1") && !v.equals("2")) {
+      throw new InvalidHashFileException(
+          "Unsupported hash file version '" + v + "'; this version of HighFive supports hash file versions 1 and 2.");
+    }
+    return Integer.parseInt(v);
+  }
+
+  private static void parseOption(final HashFile hf, final String option) throws InvalidHashFileException {
+    if (option.startsWith("mode=")) {
+      HashingMode mode = HashingMode.find(option.substring("mode=".length()));
+      if (mode == null || mode == HashingMode.CHAINED) {
+        throw new InvalidHashFileException("Unsupported hashing mode in the hash file header: '" + option + "'.");
+      }
+      hf.mode = mode;
+    } else if (option.startsWith("algorithm=")) {
+      String algorithm = option.substring("algorithm=".length());
+      if (!Digest.getNames().contains(algorithm)) {
+        throw new InvalidHashFileException("Unsupported hashing algorithm in the hash file header: '" + option + "'.");
+      }
+      hf.algorithm = algorithm;
+    } else {
+      throw new InvalidHashFileException("Unsupported option in the hash file header: '" + option + "'.");
+    }
+  }
+
+  // The options come first in the file, so the algorithm is already known
+
+  private static void validateLength(final HashFile hf, final String hash, final int lineNumber)
+      throws InvalidHashFileException {
+    int length = Digest.find(hf.algorithm).getLength() * 2;
+    if (hash.length() != length) {
+      throw new InvalidHashFileException("Line #" + lineNumber + " has an invalid hash format. Must be a " + length
+          + "-char hexa value for the " + hf.algorithm + " hashing algorithm.");
+    }
+  }
+
+  private static TableHash withRanges(final TableHash h, final List<RangeHash> ranges, final String table)
+      throws InvalidHashFileException {
+    if (ranges == null) {
+      return h;
+    }
+    if (ranges.get(ranges.size() - 1).getUpTo() != null) {
+      throw new InvalidHashFileException("The key ranges of the table '" + table + "' do not reach the end of the table.");
+    }
+    return new TableHash(h.getHash(), h.isNonDeterministic(), h.isFailed(), h.getRowCount(), ranges);
+  }
+
   public static class ComparisonResult {
 
     private int matched = 0;
@@ -115,12 +261,24 @@ public class HashFile {
 
   }
 
-  private static final DecimalFormat DF = new DecimalFormat("#,##0");
+  private static final NumberFormat DF = new NumberFormat("#,##0");
 
   public ComparisonResult compareTo(final HashFile other, final String thisName, final String otherName) {
 
     ComparisonResult r = new ComparisonResult();
 
+    if (this.mode != other.mode) {
+      r.addError("The " + thisName + " was computed using the '" + this.mode.getName() + "' hashing mode, but the "
+          + otherName + " was computed using the '" + other.mode.getName() + "' hashing mode; they cannot be compared.");
+      return r;
+    }
+
+    if (!this.algorithm.equals(other.algorithm)) {
+      r.addError("The " + thisName + " was computed using the '" + this.algorithm + "' hashing algorithm, but the "
+          + otherName + " was computed using the '" + other.algorithm + "' hashing algorithm; they cannot be compared.");
+      return r;
+    }
+
     for (String table : this.map.keySet()) {
       TableHash h = this.map.get(table);
       if (!other.map.containsKey(table)) {
@@ -139,12 +297,20 @@ public class HashFile {
               : "the live table";
           r.addError("Failed to compare hashes for the table '" + table
               + "' in the databases; the hashing ordering is non-deterministic in " + where + ".");
-        } else if (h.getRowCount() != o.getRowCount()) {
+        } else if (h.getRowCount() != o.getRowCount() && !(h.isPartitioned() && o.isPartitioned())) {
           r.addError("Failed to compare hashes for the table '" + table + "'; the current table has "
               + DF.format(h.getRowCount()) + " row(s) while the baseline table has " + DF.format(o.getRowCount())
               + " row(s).");
+        } else if (h.isPartitioned() != o.isPartitioned()) {
+          r.addError("Failed to compare hashes for the table '" + table + "'; it was hashed by key ranges in the "
+              + (h.isPartitioned() ? thisName : otherName) + ", but as a whole in the "
+              + (h.isPartitioned() ? otherName : thisName) + ".");
         } else if (Utl.distinct(h.getHash(), o.getHash())) {
-          r.addError("Different hash values found for table '" + table + "' in the databases.");
+          if (h.isPartitioned()) {
+            compareRanges(table, h, o, thisName, otherName, r);
+          } else {
+            r.addError("Different hash values found for table '" + table + "' in the databases.");
+          }
         } else {
           r.addMatched();
         }
@@ -165,6 +331,178 @@ public class HashFile {
 
   }
 
+  // Partitioned tables: point at the key ranges that differ
+
+  private void compareRanges(final String table, final TableHash h, final TableHash o, final String thisName,
+      final String otherName, final ComparisonResult r) {
+    List<RangeHash> hr = h.getRanges();
+    List<RangeHash> or = o.getRanges();
+    boolean sameRanges = hr.size() == or.size();
+    for (int i = 0; sameRanges && i < hr.size(); i++) {
+      sameRanges = !Utl.distinct(hr.get(i).getUpTo(), or.get(i).getUpTo());
+    }
+    if (!sameRanges) {
+      r.addError("Failed to compare hashes for the table '" + table + "'; it was split into different key ranges in the "
+          + thisName + " and in the " + otherName + ".");
+      return;
+    }
+    String after = null;
+    for (int i = 0; i < hr.size(); i++) {
+      RangeHash a = hr.get(i);
+      RangeHash b = or.get(i);
+      String range = "key range #" + (i + 1) + "/" + hr.size() + " of the table '" + table + "' -- after "
+          + (after == null ? "(start of table)" : RowKey.render(after)) + " up to " + RowKey.render(a.getUpTo());
+      if (a.getRowCount() != b.getRowCount()) {
+        r.addError("Different row counts found in the " + range + "; it has " + DF.format(a.getRowCount())
+            + " row(s) in the " + thisName + " and " + DF.format(b.getRowCount()) + " row(s) in the " + otherName
+            + ".");
+      } else if (Utl.distinct(a.getHash(), b.getHash())) {
+        r.addError("Different hash values found in the " + range + " (" + DF.format(a.getRowCount()) + " row(s)).");
+      }
+      after = a.getUpTo();
+    }
+  }
+
+  // N-way comparison: each table is compared across all the hash files at
+  // once, and the files with the same hash are grouped together, so the
+  // database that differs from the rest stands out
+
+  public static ComparisonResult compareAll(final List<String> names, final List<HashFile> files) {
+
+    ComparisonResult r = new ComparisonResult();
+
+    HashFile first = files.get(0);
+    for (int i = 1; i < files.size(); i++) {
+      HashFile f = files.get(i);
+      if (first.mode != f.mode) {
+        r.addError("The hash file of " + names.get(0) + " was computed using the '" + first.mode.getName()
+            + "' hashing mode, but the hash file of " + names.get(i) + " was computed using the '" + f.mode.getName()
+            + "' hashing mode; they cannot be compared.");
+        return r;
+      }
+      if (!first.algorithm.equals(f.algorithm)) {
+        r.addError("The hash file of " + names.get(0) + " was computed using the '" + first.algorithm
+            + "' hashing algorithm, but the hash file of " + names.get(i) + " was computed using the '" + f.algorithm
+            + "' hashing algorithm; they cannot be compared.");
+        return r;
+      }
+    }
+
+    Set<String> tables = new LinkedHashSet<>();
+    for (HashFile f : files) {
+      tables.addAll(f.map.keySet());
+    }
+
+    for (String table : tables) {
+      List<TableHash> hashes = new ArrayList<>();
+      List<String> found = new ArrayList<>();
+      List<String> missing = new ArrayList<>();
+      List<String> failed = new ArrayList<>();
+      List<String> nonDeterministic = new ArrayList<>();
+      List<String> partitioned = new ArrayList<>();
+      List<String> whole = new ArrayList<>();
+      for (int i = 0; i < files.size(); i++) {
+        TableHash h = files.get(i).map.get(table);
+        hashes.add(h);
+        if (h == null) {
+          missing.add(names.get(i));
+          continue;
+        }
+        found.add(names.get(i));
+        if (h.isFailed()) {
+          failed.add(names.get(i));
+        }
+        if (h.isNonDeterministic()) {
+          nonDeterministic.add(names.get(i));
+        }
+        (h.isPartitioned() ? partitioned : whole).add(names.get(i));
+      }
+
+      if (!missing.isEmpty()) {
+        r.addError("Table '" + table + "' found in " + String.join(", ", found) + ", but not in "
+            + String.join(", ", missing) + ".");
+      } else if (!failed.isEmpty()) {
+        r.addError("Failed to compare hashes for the table '" + table + "'; failed to read and inspect the table in "
+            + String.join(", ", failed) + ".");
+      } else if (!nonDeterministic.isEmpty()) {
+        r.addError("Failed to compare hashes for the table '" + table
+            + "'; the hashing ordering is non-deterministic in " + String.join(", ", nonDeterministic) + ".");
+      } else if (!partitioned.isEmpty() && !whole.isEmpty()) {
+        r.addError("Failed to compare hashes for the table '" + table + "'; it was hashed by key ranges in "
+            + String.join(", ", partitioned) + ", but as a whole in " + String.join(", ", whole) + ".");
+      } else {
+        List<Long> rowCounts = hashes.stream().map(h -> h.getRowCount()).collect(Collectors.toList());
+        List<String> keys = hashes.stream().map(h -> h.getRowCount() + " " + h.getHash()).collect(Collectors.toList());
+        if (new HashSet<>(keys).size() == 1) {
+          r.addMatched();
+        } else if (partitioned.isEmpty()) {
+          r.addError("Different hash values found for table '" + table + "'; the databases grouped by matching hash: "
+              + renderGroups(names, keys, rowCounts) + ".");
+        } else {
+          compareRanges(table, names, hashes, r);
+        }
+      }
+    }
+
+    for (HashFile f : files) {
+      if (f.isNonDeterministic()) {
+        r.setNonDeterministic();
+      }
+    }
+
+    return r;
+
+  }
+
+  private static void compareRanges(final String table, final List<String> names, final List<TableHash> hashes,
+      final ComparisonResult r) {
+    List<RangeHash> fr = hashes.get(0).getRanges();
+    for (int i = 1; i < hashes.size(); i++) {
+      List<RangeHash> or = hashes.get(i).getRanges();
+      boolean sameRanges = fr.size() == or.size();
+      for (int j = 0; sameRanges && j < fr.size(); j++) {
+        sameRanges = !Utl.distinct(fr.get(j).getUpTo(), or.get(j).getUpTo());
+      }
+      if (!sameRanges) {
+        r.addError("Failed to compare hashes for the table '" + table + "'; it was split into different key ranges in "
+            + names.get(0) + " and in " + names.get(i) + ".");
+        return;
+      }
+    }
+    String after = null;
+    for (int j = 0; j < fr.size(); j++) {
+      List<Long> rowCounts = new ArrayList<>();
+      List<String> keys = new ArrayList<>();
+      for (TableHash h : hashes) {
+        RangeHash rh = h.getRanges().get(j);
+        rowCounts.add(rh.getRowCount());
+        keys.add(rh.getRowCount() + " " + rh.getHash());
+      }
+      if (new HashSet<>(keys).size() > 1) {
+        r.addError("Different hash values found in the key range #" + (j + 1) + "/" + fr.size() + " of the table '"
+            + table + "' -- after " + (after == null ? "(start of table)" : RowKey.render(after)) + " up to "
+            + RowKey.render(fr.get(j).getUpTo()) + "; the databases grouped by matching hash: "
+            + renderGroups(names, keys, rowCounts) + ".");
+      }
+      after = fr.get(j).getUpTo();
+    }
+  }
+
+  // The groups of databases with the same row count and hash, largest first
+
+  private static String renderGroups(final List<String> names, final List<String> keys, final List<Long> rowCounts) {
+    Map<String, List<Integer>> groups = new LinkedHashMap<>();
+    for (int i = 0; i < keys.size(); i++) {
+      groups.computeIfAbsent(keys.get(i), k -> new ArrayList<>()).add(i);
+    }
+    List<List<Integer>> sorted = new ArrayList<>(groups.values());
+    Collections.sort(sorted, (a, b) -> Integer.compare(b.size(), a.size()));
+    return sorted.stream()
+        .map(g -> "[" + g.stream().map(i -> names.get(i)).collect(Collectors.joining(", ")) + ": "
+            + DF.format(rowCounts.get(g.get(0))) + " row(s)]")
+        .collect(Collectors.joining(", "));
+  }
+
   public boolean isNonDeterministic() {
     for (TableHash h : this.map.values()) {
       if (h.isNonDeterministic()) {
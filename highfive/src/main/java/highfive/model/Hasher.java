@@ -1,6 +1,6 @@
 package highfive.model;
 
-import java.security.MessageDigest;
+import java.nio.ByteBuffer;
 import java.security.NoSuchAlgorithmException;
 
 import highfive.utils.Utl;
@@ -9,12 +9,87 @@ public class Hasher {
 
   private static final byte[] NULL = { 123 };
 
-  private MessageDigest digest;
+  private Digest digest;
   private boolean active;
 
+  // Unordered mode: each row is digested on its own and the row digests are
+  // added up as unsigned integers of the digest length (modulo 2^bits). The sum
+  // does not depend on the order of the rows, and duplicate rows still count.
+
+  private boolean unordered;
+  private long[] sum;
+  private long rows;
+
+  // Chained mode: each row is digested on its own, and the accumulator (of the
+  // digest length) becomes acc * K + digest (modulo 2^bits). K is odd, so a
+  // different row always changes the accumulator of that row and all the
+  // following ones; the rows are processed as 32-bit words, most significant
+  // first, as the digest bytes.
+
+  private static final long K = 0x85EBCA77L;
+
+  private boolean chained;
+  private int[] chain;
+  private byte[] rowDigest;
+
   public Hasher() throws NoSuchAlgorithmException {
-    this.digest = MessageDigest.getInstance("SHA-256");
+    this(HashingMode.ORDERED);
+  }
+
+  public Hasher(final HashingMode mode) throws NoSuchAlgorithmException {
+    this(mode, Digest.DEFAULT);
+  }
+
+  public Hasher(final HashingMode mode, final String algorithm) throws NoSuchAlgorithmException {
+    this(mode, algorithm, false);
+  }
+
+  // A resumable hasher can save its state between rows
+
+  public Hasher(final HashingMode mode, final String algorithm, final boolean resumable)
+      throws NoSuchAlgorithmException {
+    this.digest = resumable ? Digest.findResumable(algorithm) : Digest.find(algorithm);
+    if (this.digest == null) {
+      throw new NoSuchAlgorithmException("Unsupported hashing algorithm '" + algorithm + "'.");
+    }
     this.active = true;
+    this.unordered = mode == HashingMode.UNORDERED;
+    if (this.unordered) {
+      this.sum = new long[this.digest.getLength() / 8];
+      this.rows = 0;
+    }
+    this.chained = mode == HashingMode.CHAINED;
+    if (this.chained) {
+      this.chain = new int[this.digest.getLength() / 4];
+      this.rows = 0;
+    }
+  }
+
+  // An independent hasher in the same state, e.g. to read rows again after a
+  // failure
+
+  public Hasher copy() {
+    Hasher c = new Hasher(this.digest.copy(), this.unordered, this.chained);
+    c.active = this.active;
+    if (this.unordered) {
+      c.sum = this.sum.clone();
+      c.rows = this.rows;
+    }
+    if (this.chained) {
+      c.chain = this.chain.clone();
+      c.rows = this.rows;
+    }
+    return c;
+  }
+
+  private Hasher(final Digest digest, final boolean unordered, final boolean chained) {
+    this.digest = digest;
+    this.unordered = unordered;
+    this.chained = chained;
+  }
+
+  public String getAlgorithm() {
+    return this.digest.getName();
   }
 
   public void apply(final byte[] v) {
@@ -24,8 +99,48 @@ public class Hasher {
     this.digest.update(v == null ? NULL : v);
   }
 
+  // A null sink stands for a null value
+
+  public void apply(final ByteSink s) {
+    if (!this.active) {
+      throw new RuntimeException("Hasher is already closed.");
+    }
+    if (s == null) {
+      this.digest.update(NULL);
+    } else {
+      this.digest.update(s.getBuffer(), 0, s.size());
+    }
+  }
+
+  public void endRow() {
+    if (this.unordered) {
+      add(this.sum, this.digest.digest());
+      this.rows++;
+    } else if (this.chained) {
+      this.rowDigest = this.digest.digest();
+      chain(this.chain, this.rowDigest);
+      this.rows++;
+    }
+  }
+
+  // In the chained mode, the digest of the last row on its own
+
+  public byte[] getRowDigest() {
+    return this.rowDigest;
+  }
+
+  // In the chained mode, the accumulator after the last row: no digest is
+  // copied or finalized
+
   public byte[] getInProgressDigest() throws CloneNotSupportedException {
-    MessageDigest c = (MessageDigest) this.digest.clone();
+    if (this.chained) {
+      return toBytes(this.chain);
+    }
+    Digest c = this.digest.copy();
+    if (this.unordered) {
+      c.reset();
+      return aggregate(c);
+    }
     return c.digest();
   }
 
@@ -38,7 +153,119 @@ public class Hasher {
       throw new RuntimeException("Hasher is already closed.");
     }
     this.active = false;
+    if (this.unordered || this.chained) {
+      this.digest.reset();
+      return aggregate(this.digest);
+    }
     return this.digest.digest();
   }
 
+  // The state after the last row: the row count and the sum (unordered mode)
+  // or the accumulator (chained mode), followed by the state of the digest
+
+  public byte[] saveState() {
+    byte[] ds = this.digest.saveState();
+    int words = this.unordered ? this.sum.length : 0;
+    int links = this.chained ? this.chain.length : 0;
+    ByteBuffer bb = ByteBuffer.allocate(8 + 8 * words + 4 * links + ds.length);
+    bb.putLong(this.unordered || this.chained ? this.rows : 0);
+    for (int i = 0; i < words; i++) {
+      bb.putLong(this.sum[i]);
+    }
+    for (int i = 0; i < links; i++) {
+      bb.putInt(this.chain[i]);
+    }
+    bb.put(ds);
+    return bb.array();
+  }
+
+  public void restoreState(final byte[] state) {
+    int words = this.unordered ? this.sum.length : 0;
+    int links = this.chained ? this.chain.length : 0;
+    if (state.length < 8 + 8 * words + 4 * links) {
+      throw new IllegalArgumentException("Invalid saved state for the hasher.");
+    }
+    ByteBuffer bb = ByteBuffer.wrap(state);
+    long r = bb.getLong();
+    long[] s = new long[words];
+    for (int i = 0; i < words; i++) {
+      s[i] = bb.getLong();
+    }
+    int[] c = new int[links];
+    for (int i = 0; i < links; i++) {
+      c[i] = bb.getInt();
+    }
+    byte[] ds = new byte[bb.remaining()];
+    bb.get(ds);
+    this.digest.restoreState(ds);
+    if (this.unordered) {
+      this.rows = r;
+      this.sum = s;
+    }
+    if (this.chained) {
+      this.rows = r;
+      this.chain = c;
+    }
+  }
+
+  // The final value covers the row count as well as the sum (or the chained
+  // accumulator)
+
+  private byte[] aggregate(final Digest d) {
+    if (this.chained) {
+      ByteBuffer bb = ByteBuffer.allocate(8 + 4 * this.chain.length);
+      bb.putLong(this.rows);
+      bb.put(toBytes(this.chain));
+      d.update(bb.array());
+      return d.digest();
+    }
+    ByteBuffer bb = ByteBuffer.allocate(8 + 8 * this.sum.length);
+    bb.putLong(this.rows);
+    for (long w : this.sum) {
+      bb.putLong(w);
+    }
+    d.update(bb.array());
+    return d.digest();
+  }
+
+  // acc = acc * K + d, from the least significant word; each step fits in an
+  // unsigned 64-bit value
+
+  private static void chain(final int[] acc, final byte[] d) {
+    long carry = 0;
+    for (int i = acc.length - 1; i >= 0; i--) {
+      int p = i * 4;
+      long w = ((d[p] & 0xFFL) << 24) | ((d[p + 1] & 0xFFL) << 16) | ((d[p + 2] & 0xFFL) << 8) | (d[p + 3] & 0xFFL);
+      long v = (acc[i] & 0xFFFFFFFFL) * K + w + carry;
+      acc[i] = (int) v;
+      carry = v >>> 32;
+    }
+  }
+
+  private static byte[] toBytes(final int[] words) {
+    byte[] b = new byte[words.length * 4];
+    for (int i = 0; i < words.length; i++) {
+      int w = words[i];
+      b[i * 4] = (byte) (w >>> 24);
+      b[i * 4 + 1] = (byte) (w >>> 16);
+      b[i * 4 + 2] = (byte) (w >>> 8);
+      b[i * 4 + 3] = (byte) w;
+    }
+    return b;
+  }
+
+  private static void add(final long[] sum, final byte[] d) {
+    ByteBuffer bb = ByteBuffer.wrap(d);
+    long carry = 0;
+    for (int i = sum.length - 1; i >= 0; i--) {
+      long w = bb.getLong(i * 8);
+      long s = sum[i] + w;
+      long c1 = Long.compareUnsigned(s, sum[i]) < 0 ? 1 : 0;
+      long s2 = s + carry;
+      long c2 = carry != 0 && s2 == 0 ? 1 : 0;
+      sum[i] = s2;
+      carry = c1 | c2;
+    }
+  }
+
 }
@@ -0,0 +1,36 @@
+package highfive.model;
+
+public enum HashingMode {
+
+  // Rows are read and hashed in the hashing ordering
+  ORDERED("ordered"),
+
+  // Rows are read in any order; their hashes are combined with a commutative
+  // aggregate, so the hash does not depend on the order of the rows
+  UNORDERED("unordered"),
+
+  // Dump files only: each row is digested on its own and the row digests are
+  // chained into an accumulator that depends on the order of the rows, so the
+  // hash after each row costs one digest
+  CHAINED("chained");
+
+  private String name;
+
+  private HashingMode(String name) {
+    this.name = name;
+  }
+
+  public String getName() {
+    return name;
+  }
+
+  public static HashingMode find(final String name) {
+    for (HashingMode m : values()) {
+      if (m.name.equalsIgnoreCase(name.trim())) {
+        return m;
+      }
+    }
+    return null;
+  }
+
+}
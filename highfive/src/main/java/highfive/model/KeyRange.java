@@ -0,0 +1,51 @@
+package highfive.model;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// A contiguous slice of a table in its hashing ordering: the rows strictly
+// after the lower key, up to and including the upper key. A null key leaves
+// that side unbounded.
+
+public class KeyRange {
+
+  private RowKey after;
+  private RowKey upTo;
+  private int index;
+  private int count;
+
+  public KeyRange(RowKey after, RowKey upTo, int index, int count) {
+    this.after = after;
+    this.upTo = upTo;
+    this.index = index;
+    this.count = count;
+  }
+
+  public RowKey getAfter() {
+    return after;
+  }
+
+  public RowKey getUpTo() {
+    return upTo;
+  }
+
+  public int getIndex() {
+    return index;
+  }
+
+  public int getCount() {
+    return count;
+  }
+
+  public static List<KeyRange> split(final List<RowKey> boundaries) {
+    List<KeyRange> ranges = new ArrayList<>();
+    RowKey after = null;
+    for (int i = 0; i <= boundaries.size(); i++) {
+      RowKey upTo = i < boundaries.size() ? boundaries.get(i) : null;
+      ranges.add(new KeyRange(after, upTo, i, boundaries.size() + 1));
+      after = upTo;
+    }
+    return ranges;
+  }
+
+}
@@ -0,0 +1,103 @@
+package highfive.model;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.math.BigInteger;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import highfive.exceptions.InvalidHashFileException;
+
+// The catalog of a schema saved to a file, so the next runs do not read it
+// again while the schema does not change. The file records a key: the
+// database, the schema, and the schema version read from the database (e.g.
+// the time of its last DDL change). A file with a different key, or that
+// cannot be read, is ignored and replaced.
+//
+// Format: a header line, the key, and one line per column; the key and the
+// columns are encoded as the keys of the hash files (see RowKey). The names of
+// the unique keys of a column are encoded the same way, in a single field.
+
+public class MetaDataCache {
+
+  private static final String HEADER = "# highfive-metadata version=2";
+
+  private String fileName;
+
+  public MetaDataCache(final String fileName) {
+    this.fileName = fileName;
+  }
+
+  public String getFileName() {
+    return fileName;
+  }
+
+  // Returns null when there is no valid cache for this key
+
+  public Map<String, List<CatalogColumn>> load(final List<String> key) {
+    File f = new File(this.fileName);
+    if (!f.exists()) {
+      return null;
+    }
+    try (BufferedReader r = new BufferedReader(new FileReader(f))) {
+      if (!HEADER.equals(r.readLine()) || !RowKey.encodeTexts(key).equals(r.readLine())) {
+        return null;
+      }
+      Map<String, List<CatalogColumn>> catalog = new LinkedHashMap<>();
+      String line;
+      while ((line = r.readLine()) != null) {
+        List<String> v = RowKey.decodeTexts(line);
+        if (v.size() != 9) {
+          return null;
+        }
+        CatalogColumn c = new CatalogColumn(v.get(0), v.get(1), v.get(2), "true".equals(v.get(3)),
+            v.get(4) == null ? null : new BigInteger(v.get(4)), toInteger(v.get(5)), toInteger(v.get(6)),
+            toInteger(v.get(7)), v.get(8) == null ? Collections.emptyList() : RowKey.decodeTexts(v.get(8)));
+        catalog.computeIfAbsent(c.getTable(), t -> new ArrayList<>()).add(c);
+      }
+      return catalog;
+    } catch (IOException | InvalidHashFileException | RuntimeException e) {
+      return null;
+    }
+  }
+
+  // Written to a temporary file first, so a failed write does not leave a
+  // partial cache
+
+  public void save(final List<String> key, final Map<String, List<CatalogColumn>> catalog) throws IOException {
+    File f = new File(this.fileName);
+    File tmp = new File(this.fileName + ".tmp");
+    try (Writer w = new BufferedWriter(new FileWriter(tmp))) {
+      w.write(HEADER + "\n");
+      w.write(RowKey.encodeTexts(key) + "\n");
+      for (List<CatalogColumn> columns : catalog.values()) {
+        for (CatalogColumn c : columns) {
+          w.write(RowKey.encodeTexts(Arrays.asList(c.getTable(), c.getName(), c.getType(), "" + c.isUnsigned(),
+              toText(c.getLength()), toText(c.getPrecision()), toText(c.getScale()), toText(c.getPKPosition()),
+              c.getUniqueKeys().isEmpty() ? null : RowKey.encodeTexts(c.getUniqueKeys()))) + "\n");
+        }
+      }
+    }
+    Files.move(tmp.toPath(), f.toPath(), StandardCopyOption.REPLACE_EXISTING);
+  }
+
+  private static Integer toInteger(final String text) {
+    return text == null ? null : Integer.valueOf(text);
+  }
+
+  private static String toText(final Object value) {
+    return value == null ? null : value.toString();
+  }
+
+}
@@ -0,0 +1,71 @@
+package highfive.model;
+
+import java.math.BigDecimal;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import highfive.exceptions.UnsupportedSQLFeatureException;
+
+// The checksum of a chunk of rows computed by the database (pushdown hashing).
+// Each row is rendered as canonical text and hashed with SHA-256; the checksum
+// is the row count and the sums of two 60-bit slices of the row hashes. The
+// sums do not depend on the order of the rows, so the rows are not sorted.
+
+public class PushdownChecksum {
+
+  private long rowCount;
+  private BigDecimal sum1;
+  private BigDecimal sum2;
+
+  private PushdownChecksum(long rowCount, BigDecimal sum1, BigDecimal sum2) {
+    this.rowCount = rowCount;
+    this.sum1 = sum1;
+    this.sum2 = sum2;
+  }
+
+  // The text of a row: the values separated by '|'; each one is 'n' for a
+  // null, or 'v' followed by the canonical text. In strings '~' and '|' are
+  // escaped as '~~' and '~!'.
+
+  public static String renderSQL(final Dialect dialect, final Table t, final String where)
+      throws UnsupportedSQLFeatureException {
+    List<String> parts = new ArrayList<>();
+    for (Column c : t.getColumns()) {
+      if (!parts.isEmpty()) {
+        parts.add("'|'");
+      }
+      String name = dialect.escapeIdentifierAsNeeded(c.getCanonicalName());
+      String text = dialect.renderCanonicalText(c, name);
+      if ("string".equals(c.getSerializer().getName())) {
+        text = "replace(replace(" + text + ", '~', '~~'), '|', '~!')";
+      }
+      parts.add("case when " + name + " is null then 'n' else " + dialect.renderConcat(Arrays.asList("'v'", text))
+          + " end");
+    }
+    String rowHash = dialect.renderRowHash(dialect.renderConcat(parts));
+    return "select count(*), sum(cast(" + dialect.renderHexToNumber("hf_h", 1) + " as decimal(31, 0))), sum(cast("
+        + dialect.renderHexToNumber("hf_h", 16) + " as decimal(31, 0))) from (select " + rowHash + " as hf_h from "
+        + dialect.renderSQLTableIdentifier(t.getIdentifier()) + (where == null ? "" : " where " + where) + ") x";
+  }
+
+  public static PushdownChecksum read(final ResultSet rs) throws SQLException {
+    long rowCount = rs.getLong(1);
+    BigDecimal sum1 = rs.getBigDecimal(2);
+    BigDecimal sum2 = rs.getBigDecimal(3);
+    return new PushdownChecksum(rowCount, sum1 == null ? BigDecimal.ZERO : sum1,
+        sum2 == null ? BigDecimal.ZERO : sum2);
+  }
+
+  public long getRowCount() {
+    return rowCount;
+  }
+
+  public boolean matches(final PushdownChecksum other) {
+    return this.rowCount == other.rowCount && this.sum1.compareTo(other.sum1) == 0
+        && this.sum2.compareTo(other.sum2) == 0;
+  }
+
+}
@@ -0,0 +1,42 @@
+package highfive.model;
+
+public class RangeHash {
+
+  private String hash;
+  private boolean nonDeterministic;
+  private boolean failed;
+  private long rowCount;
+  private String upTo;
+
+  public RangeHash(String hash, boolean nonDeterministic, boolean failed, long rowCount, String upTo) {
+    super();
+    this.hash = hash;
+    this.nonDeterministic = nonDeterministic;
+    this.failed = failed;
+    this.rowCount = rowCount;
+    this.upTo = upTo;
+  }
+
+  public String getHash() {
+    return hash;
+  }
+
+  public boolean isNonDeterministic() {
+    return nonDeterministic;
+  }
+
+  public boolean isFailed() {
+    return failed;
+  }
+
+  public long getRowCount() {
+    return rowCount;
+  }
+
+  // The encoded upper key (inclusive) of the range; null for the last range
+
+  public String getUpTo() {
+    return upTo;
+  }
+
+}
@@ -0,0 +1,32 @@
+package highfive.model;
+
+public enum RowCountMode {
+
+  // A "select count(*)" per table
+  EXACT("exact"),
+
+  // Read at once from the statistics of the database; they can be stale, so
+  // they only size the work (progress, key ranges, chunks). A table without
+  // statistics is counted exactly.
+  ESTIMATE("estimate");
+
+  private String name;
+
+  private RowCountMode(String name) {
+    this.name = name;
+  }
+
+  public String getName() {
+    return name;
+  }
+
+  public static RowCountMode find(final String name) {
+    for (RowCountMode m : values()) {
+      if (m.name.equalsIgnoreCase(name.trim())) {
+        return m;
+      }
+    }
+    return null;
+  }
+
+}
@@ -0,0 +1,140 @@
+package highfive.model;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.logging.Logger;
+
+// Counts the rows of the tables of a datasource. The estimates are read at
+// once from the statistics of the database (see
+// Dialect.readRowCountEstimates()); the exact counts run a "select count(*)"
+// per table, on <datasource>.row.count.threads connections at the same time.
+// When only the emptiness of a table matters, a probe reads one row at most.
+
+public class RowCounter {
+
+  private static final Logger log = Logger.getLogger(RowCounter.class.getName());
+
+  private DataSource ds;
+  private Set<String> estimated = new HashSet<>();
+
+  public RowCounter(final DataSource ds) {
+    this.ds = ds;
+  }
+
+  // The row counts by generic table name. In the estimate mode the tables
+  // without statistics are counted exactly.
+
+  public Map<String, Long> count(final List<Identifier> tables, final RowCountMode mode) throws SQLException {
+    this.estimated.clear();
+    Map<String, Long> estimates = mode == RowCountMode.ESTIMATE ? readEstimates() : null;
+    Map<String, Long> counts = new HashMap<>();
+    List<Identifier> pending = new ArrayList<>();
+    for (Identifier t : tables) {
+      Long e = estimates == null ? null : estimates.get(t.getCanonicalName());
+      if (e == null) {
+        pending.add(t);
+      } else {
+        counts.put(t.getGenericName(), e);
+        this.estimated.add(t.getGenericName());
+      }
+    }
+    int threads = Math.min(this.ds.getRowCountThreads(), pending.size());
+    if (threads > 1) {
+      counts.putAll(countInParallel(pending, threads));
+    } else {
+      for (Identifier t : pending) {
+        counts.put(t.getGenericName(), countRows(this.ds.getConnection(), t));
+      }
+    }
+    return counts;
+  }
+
+  public boolean isEstimated(final String genericName) {
+    return this.estimated.contains(genericName);
+  }
+
+  public boolean isEmpty(final Identifier table) throws SQLException {
+    Dialect d = this.ds.getDialect();
+    String sql = "select" + d.renderHeadLimit(1L) + " 1 from " + d.renderSQLTableIdentifier(table)
+        + d.renderTailLimit(1L);
+    try (PreparedStatement ps = this.ds.getConnection().prepareStatement(sql); ResultSet rs = ps.executeQuery();) {
+      return !rs.next();
+    }
+  }
+
+  // The statistics may not be readable (e.g. missing privileges); then all
+  // the tables are counted
+
+  private Map<String, Long> readEstimates() {
+    try {
+      return this.ds.getDialect().readRowCountEstimates();
+    } catch (SQLException e) {
+      log.warning("Could not read the row count estimates of the datasource '" + this.ds.getName() + "': "
+          + e.getMessage());
+      return null;
+    }
+  }
+
+  private Map<String, Long> countInParallel(final List<Identifier> tables, final int threads) throws SQLException {
+    Queue<Identifier> pending = new ConcurrentLinkedQueue<>(tables);
+    Map<String, Long> counts = new ConcurrentHashMap<>();
+    ExecutorService executor = Executors.newFixedThreadPool(threads);
+    List<Future<Void>> workers = new ArrayList<>();
+    for (int i = 0; i < threads; i++) {
+      workers.add(executor.submit(() -> {
+        try (Connection conn = this.ds.openConnection();) {
+          Identifier t;
+          while ((t = pending.poll()) != null) {
+            counts.put(t.getGenericName(), countRows(conn, t));
+          }
+        }
+        return null;
+      }));
+    }
+    executor.shutdown();
+
+    Throwable failure = null;
+    for (Future<Void> w : workers) {
+      try {
+        w.get();
+      } catch (ExecutionException e) {
+        pending.clear();
+        if (failure == null) {
+          failure = e.getCause();
+        }
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        failure = e;
+      }
+    }
+    if (failure instanceof SQLException) {
+      throw (SQLException) failure;
+    } else if (failure != null) {
+      throw new SQLException("Could not count the rows: " + failure.getMessage(), failure);
+    }
+    return counts;
+  }
+
+  private long countRows(final Connection conn, final Identifier table) throws SQLException {
+    String sql = "select count(*) from " + this.ds.getDialect().renderSQLTableIdentifier(table);
+    try (PreparedStatement ps = conn.prepareStatement(sql); ResultSet rs = ps.executeQuery();) {
+      return rs.next() ? rs.getLong(1) : 0;
+    }
+  }
+
+}
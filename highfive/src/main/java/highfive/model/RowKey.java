@@ -0,0 +1,157 @@
+package highfive.model;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import highfive.exceptions.InvalidHashFileException;
+
+public class RowKey {
+
+  private Object[] values;
+
+  public RowKey(Object[] values) {
+    this.values = values;
+  }
+
+  public Object[] getValues() {
+    return values;
+  }
+
+  // Text encoding: one entry per value, separated by commas. A null is
+  // encoded as '~', any other value as '=' followed by its percent-encoded
+  // text. E.g. (12, 'New York', null) is encoded as: =12,=New%20York,~
+
+  public String encode(final List<Serializer<?>> serializers) {
+    StringBuilder sb = new StringBuilder();
+    for (int i = 0; i < this.values.length; i++) {
+      if (i > 0) {
+        sb.append(",");
+      }
+      if (this.values[i] == null) {
+        sb.append("~");
+      } else {
+        sb.append("=");
+        escape(serializers.get(i).toText(this.values[i]), sb);
+      }
+    }
+    return sb.toString();
+  }
+
+  public static RowKey decode(final String encoded, final List<Serializer<?>> serializers)
+      throws InvalidHashFileException {
+    List<String> texts = split(encoded);
+    if (texts.size() != serializers.size()) {
+      throw new InvalidHashFileException("Invalid key '" + encoded + "'; expected " + serializers.size()
+          + " value(s) but found " + texts.size() + ".");
+    }
+    Object[] values = new Object[texts.size()];
+    for (int i = 0; i < values.length; i++) {
+      String text = texts.get(i);
+      try {
+        values[i] = text == null ? null : serializers.get(i).fromText(text);
+      } catch (RuntimeException e) {
+        throw new InvalidHashFileException("Invalid key '" + encoded + "'; could not read the value '" + text
+            + "' as a '" + serializers.get(i).getName() + "' value.");
+      }
+    }
+    return new RowKey(values);
+  }
+
+  // Human-readable form of an encoded key, e.g. (12, New York, null)
+
+  public static String render(final String encoded) {
+    if (encoded == null) {
+      return "(end of table)";
+    }
+    try {
+      List<String> texts = split(encoded);
+      StringBuilder sb = new StringBuilder("(");
+      for (int i = 0; i < texts.size(); i++) {
+        sb.append(i == 0 ? "" : ", ").append(texts.get(i) == null ? "null" : texts.get(i));
+      }
+      return sb.append(")").toString();
+    } catch (InvalidHashFileException e) {
+      return encoded;
+    }
+  }
+
+  public static boolean isValid(final String encoded) {
+    try {
+      split(encoded);
+      return true;
+    } catch (InvalidHashFileException e) {
+      return false;
+    }
+  }
+
+  // The same encoding for a list of texts, e.g. the lines of the metadata
+  // cache
+
+  static String encodeTexts(final List<String> texts) {
+    StringBuilder sb = new StringBuilder();
+    for (int i = 0; i < texts.size(); i++) {
+      if (i > 0) {
+        sb.append(",");
+      }
+      if (texts.get(i) == null) {
+        sb.append("~");
+      } else {
+        sb.append("=");
+        escape(texts.get(i), sb);
+      }
+    }
+    return sb.toString();
+  }
+
+  static List<String> decodeTexts(final String encoded) throws InvalidHashFileException {
+    return split(encoded);
+  }
+
+  private static List<String> split(final String encoded) throws InvalidHashFileException {
+    List<String> texts = new ArrayList<>();
+    for (String part : encoded.split(",", -1)) {
+      if (part.equals("~")) {
+        texts.add(null);
+      } else if (part.startsWith("=")) {
+        texts.add(unescape(part.substring(1)));
+      } else {
+        throw new InvalidHashFileException("Invalid key value '" + part + "'; must be '~' or start with '='.");
+      }
+    }
+    return texts;
+  }
+
+  private static void escape(final String text, final StringBuilder sb) {
+    for (byte b : text.getBytes(StandardCharsets.UTF_8)) {
+      int v = b & 0xFF;
+      if (v <= 0x20 || v >= 0x7f || v == '%' || v == ',') {
+        sb.append('%').append(Character.toUpperCase(Character.forDigit(v >>> 4, 16)))
+            .append(Character.toUpperCase(Character.forDigit(v & 0x0F, 16)));
+      } else {
+        sb.append((char) v);
+      }
+    }
+  }
+
+  private static String unescape(final String text) throws InvalidHashFileException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream(text.length());
+    for (int i = 0; i < text.length(); i++) {
+      char c = text.charAt(i);
+      if (c == '%') {
+        int hi = i + 2 < text.length() ? Character.digit(text.charAt(i + 1), 16) : -1;
+        int lo = i + 2 < text.length() ? Character.digit(text.charAt(i + 2), 16) : -1;
+        if (hi < 0 || lo < 0) {
+          throw new InvalidHashFileException("Invalid escape sequence in key value '" + text + "'.");
+        }
+        out.write((hi << 4) | lo);
+        i += 2;
+      } else {
+        out.write(c);
+      }
+    }
+    return new String(out.toByteArray(), StandardCharsets.UTF_8);
+  }
+
+}
@@ -0,0 +1,372 @@
+package highfive.model;
+
+import java.math.BigDecimal;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import highfive.exceptions.CouldNotHashException;
+import highfive.exceptions.InvalidConfigurationException;
+import highfive.exceptions.InvalidHashFileException;
+import highfive.exceptions.UnsupportedSQLFeatureException;
+
+// The ordering used to hash a table: the declared hashing ordering or, by
+// default, the primary key
+
+public class RowOrdering {
+
+  private Dialect dialect;
+  private String collation;
+  private List<Member> members;
+  private boolean primaryKey;
+  private boolean unique;
+  private boolean includesPrimaryKey;
+  private String orderBy;
+
+  private RowOrdering(Dialect dialect, String collation, List<Member> members, boolean primaryKey, boolean unique,
+      boolean includesPrimaryKey, String orderBy) {
+    this.dialect = dialect;
+    this.collation = collation;
+    this.members = members;
+    this.primaryKey = primaryKey;
+    this.unique = unique;
+    this.includesPrimaryKey = includesPrimaryKey;
+    this.orderBy = orderBy;
+  }
+
+  public static class Member {
+
+    private Column column;
+    private int ordinal;
+    private boolean ascending;
+    private Boolean nullsFirst;
+
+    Member(Column column, int ordinal, boolean ascending, Boolean nullsFirst) {
+      this.column = column;
+      this.ordinal = ordinal;
+      this.ascending = ascending;
+      this.nullsFirst = nullsFirst;
+    }
+
+    public Column getColumn() {
+      return column;
+    }
+
+    public int getOrdinal() {
+      return ordinal;
+    }
+
+    public boolean isAscending() {
+      return ascending;
+    }
+
+    public Boolean getNullsFirst() {
+      return nullsFirst;
+    }
+
+  }
+
+  public static RowOrdering of(final DataSource ds, final Table t) throws CouldNotHashException {
+    Dialect dialect = ds.getDialect();
+    String collation = ds.getHashingCollation();
+    List<Member> members = new ArrayList<>();
+    boolean primaryKey = false;
+
+    TableHashingOrdering tho = ds.getHashingOrderings().get(t.getIdentifier().getGenericName());
+    if (tho != null) {
+
+      try {
+        tho.validate(ds, t);
+      } catch (InvalidConfigurationException e) {
+        throw new CouldNotHashException(e.getMessage());
+      }
+
+      Collection<TableHashingMember> thms = tho.getMembers().values();
+
+      if (thms.isEmpty()) { // declared: *
+        for (Column c : t.getColumns()) {
+          members.add(new Member(c, t.getColumns().indexOf(c) + 1, true, null));
+        }
+      } else { // declared: columns
+        for (TableHashingMember m : thms) {
+          Column col = t.findColumn(m.getGenericColumnName());
+          if (col == null) {
+            throw new CouldNotHashException("Could not find column '" + m.getGenericColumnName()
+                + "' specified in the hashing ordering in the table '" + t.getIdentifier().getCanonicalName() + "'.");
+          }
+          members.add(new Member(col, t.getColumns().indexOf(col) + 1, m.isAscending(), m.getNullsFirst()));
+        }
+      }
+
+    } else { // primary key
+
+      List<Column> pkColumns = t.getPKColumns();
+      if (pkColumns.isEmpty()) {
+        throw new CouldNotHashException(
+            "The schema is not supported since the table '" + t.getIdentifier().getGenericName()
+                + "' has no primary key and no hashing ordering was declared using the property '" + ds.getName()
+                + ".hashing.ordering'.");
+      }
+      for (Column c : pkColumns) {
+        members.add(new Member(c, t.getColumns().indexOf(c) + 1, true, null));
+      }
+      primaryKey = true;
+
+    }
+
+    return of(dialect, collation, t, members, primaryKey);
+  }
+
+  static RowOrdering of(final Dialect dialect, final String collation, final Table t, final List<Member> members,
+      final boolean primaryKey) throws CouldNotHashException {
+
+    // Two rows cannot tie when the ordering includes the primary key, a unique
+    // key, or all the columns of the table; in the latter case tied rows are
+    // duplicates
+
+    List<Column> orderingColumns = members.stream().map(m -> m.column).collect(Collectors.toList());
+    List<Column> keyColumns = t.getPKColumns();
+    boolean includesPrimaryKey = !keyColumns.isEmpty() && orderingColumns.containsAll(keyColumns);
+    List<String> orderingNames = orderingColumns.stream().map(c -> c.getCanonicalName()).collect(Collectors.toList());
+    boolean unique = includesPrimaryKey || orderingColumns.containsAll(t.getColumns())
+        || t.getUniqueKeys().stream().anyMatch(k -> orderingNames.containsAll(k));
+
+    StringBuilder sb = new StringBuilder();
+    for (Member m : members) {
+      if (sb.length() > 0) {
+        sb.append(", ");
+      }
+      sb.append(renderExpression(dialect, collation, m));
+      if (!m.ascending) {
+        sb.append(" desc");
+      }
+      if (m.nullsFirst != null) {
+        try {
+          sb.append(dialect.renderNullsOrdering(m.nullsFirst));
+        } catch (UnsupportedSQLFeatureException e) {
+          throw new CouldNotHashException(
+              "The schema is not supported since the table '" + t.getIdentifier().getGenericName()
+                  + "' ordering includes NULLS FIRST or NULLS LAST and this is not supported by this database.");
+        }
+      }
+    }
+
+    return new RowOrdering(dialect, collation, members, primaryKey, unique, includesPrimaryKey, sb.toString());
+  }
+
+  public List<Member> getMembers() {
+    return members;
+  }
+
+  public boolean isPrimaryKey() {
+    return primaryKey;
+  }
+
+  public boolean isUnique() {
+    return unique;
+  }
+
+  // Each key identifies a single row
+
+  public boolean includesPrimaryKey() {
+    return includesPrimaryKey;
+  }
+
+  public String renderOrderBy() {
+    return this.orderBy;
+  }
+
+  public String renderColumns() {
+    return this.members.stream().map(m -> this.dialect.escapeIdentifierAsNeeded(m.column.getCanonicalName()))
+        .collect(Collectors.joining(", "));
+  }
+
+  public List<Serializer<?>> getSerializers() {
+    return this.members.stream().map(m -> m.column.getSerializer()).collect(Collectors.toList());
+  }
+
+  // Keys
+
+  public RowKey readKey(final ResultSet rs, final int firstOrdinal) throws SQLException {
+    Object[] values = new Object[this.members.size()];
+    for (int i = 0; i < values.length; i++) {
+      Serializer<?> s = this.members.get(i).column.getSerializer();
+      s.read(rs, firstOrdinal + i);
+      values[i] = s.getValue();
+    }
+    return new RowKey(values);
+  }
+
+  // Compares two keys as the database sorts them: each member in its direction,
+  // and the nulls where the database places them. Strings are compared by
+  // their characters, so it only agrees with the database when the hashing
+  // collation (or the default one) is binary.
+
+  public int compare(final RowKey a, final RowKey b) {
+    Object[] x = a.getValues();
+    Object[] y = b.getValues();
+    for (int i = 0; i < this.members.size(); i++) {
+      Member m = this.members.get(i);
+      if (x[i] == null || y[i] == null) {
+        if (x[i] != y[i]) {
+          return (x[i] == null) == isNullsFirst(m) ? -1 : 1;
+        }
+        continue;
+      }
+      int c = compareValues(x[i], y[i]);
+      if (c != 0) {
+        return m.ascending ? c : -c;
+      }
+    }
+    return 0;
+  }
+
+  @SuppressWarnings({ "unchecked", "rawtypes" })
+  private static int compareValues(final Object x, final Object y) {
+    if (x instanceof byte[] && y instanceof byte[]) {
+      byte[] bx = (byte[]) x;
+      byte[] by = (byte[]) y;
+      for (int i = 0; i < Math.min(bx.length, by.length); i++) {
+        int c = Integer.compare(bx[i] & 0xFF, by[i] & 0xFF);
+        if (c != 0) {
+          return c;
+        }
+      }
+      return Integer.compare(bx.length, by.length);
+    }
+    if (x.getClass() != y.getClass() && x instanceof Number && y instanceof Number) {
+      return new BigDecimal(x.toString()).compareTo(new BigDecimal(y.toString()));
+    }
+    if (x.getClass() == y.getClass() && x instanceof Comparable) {
+      return ((Comparable) x).compareTo(y);
+    }
+    return x.toString().compareTo(y.toString());
+  }
+
+  public String encode(final RowKey key) {
+    return key == null ? null : key.encode(getSerializers());
+  }
+
+  public RowKey decode(final String encoded) throws InvalidHashFileException {
+    return encoded == null ? null : RowKey.decode(encoded, getSerializers());
+  }
+
+  // Key range predicates. They only combine comparisons with AND and OR, so a
+  // comparison against a null column evaluates as false; nulls are matched
+  // explicitly according to the position they take in the ordering.
+
+  public String renderRange(final KeyRange range, final List<Object> params) {
+    List<String> conditions = new ArrayList<>();
+    if (range.getAfter() != null) {
+      conditions.add(renderComparison(range.getAfter(), true, params));
+    }
+    if (range.getUpTo() != null) {
+      conditions.add(renderComparison(range.getUpTo(), false, params));
+    }
+    return conditions.isEmpty() ? null : conditions.stream().collect(Collectors.joining(" and "));
+  }
+
+  public static void bind(final PreparedStatement ps, final List<Object> params) throws SQLException {
+    for (int i = 0; i < params.size(); i++) {
+      ps.setObject(i + 1, params.get(i));
+    }
+  }
+
+  private String renderComparison(final RowKey key, final boolean after, final List<Object> params) {
+    Object[] values = key.getValues();
+
+    if (this.primaryKey && this.members.size() > 1 && this.dialect.supportsRowValueComparison()) {
+      StringBuilder left = new StringBuilder();
+      StringBuilder right = new StringBuilder();
+      for (int i = 0; i < this.members.size(); i++) {
+        Member m = this.members.get(i);
+        left.append(i == 0 ? "" : ", ").append(renderExpression(this.dialect, this.collation, m));
+        right.append(i == 0 ? "" : ", ").append(renderParameter(m));
+        params.add(values[i]);
+      }
+      return "(" + left + ") " + (after ? ">" : "<=") + " (" + right + ")";
+    }
+
+    List<String> disjuncts = new ArrayList<>();
+    List<String> prefix = new ArrayList<>();
+    List<Object> prefixParams = new ArrayList<>();
+    for (int i = 0; i < this.members.size(); i++) {
+      Member m = this.members.get(i);
+      List<Object> strictParams = new ArrayList<>();
+      String strict = renderStrict(m, values[i], after, strictParams);
+      if (strict != null) {
+        List<String> conjuncts = new ArrayList<>(prefix);
+        conjuncts.add(strict);
+        disjuncts.add(conjuncts.stream().collect(Collectors.joining(" and ")));
+        params.addAll(prefixParams);
+        params.addAll(strictParams);
+      }
+      prefix.add(renderEquals(m, values[i], prefixParams));
+    }
+    if (!after) {
+      disjuncts.add(prefix.stream().collect(Collectors.joining(" and ")));
+      params.addAll(prefixParams);
+    }
+
+    if (disjuncts.isEmpty()) {
+      return "1 = 0";
+    } else if (disjuncts.size() == 1) {
+      return "(" + disjuncts.get(0) + ")";
+    } else {
+      return "(" + disjuncts.stream().map(d -> "(" + d + ")").collect(Collectors.joining(" or ")) + ")";
+    }
+  }
+
+  // Rows strictly after (or before) the value in this member; null when no
+  // row can satisfy it
+
+  private String renderStrict(final Member m, final Object value, final boolean after, final List<Object> params) {
+    String column = this.dialect.escapeIdentifierAsNeeded(m.column.getCanonicalName());
+    boolean nullsFirst = isNullsFirst(m);
+    if (value == null) {
+      return nullsFirst == after ? column + " is not null" : null;
+    }
+    String comparison = renderExpression(this.dialect, this.collation, m) + (after == m.ascending ? " > " : " < ")
+        + renderParameter(m);
+    params.add(value);
+    if (!this.primaryKey && nullsFirst != after) {
+      return "(" + comparison + " or " + column + " is null)";
+    }
+    return comparison;
+  }
+
+  private String renderEquals(final Member m, final Object value, final List<Object> params) {
+    if (value == null) {
+      return this.dialect.escapeIdentifierAsNeeded(m.column.getCanonicalName()) + " is null";
+    }
+    params.add(value);
+    return renderExpression(this.dialect, this.collation, m) + " = " + renderParameter(m);
+  }
+
+  private boolean isNullsFirst(final Member m) {
+    if (m.nullsFirst != null) {
+      return m.nullsFirst;
+    }
+    return m.ascending != this.dialect.sortsNullsHigh();
+  }
+
+  private String renderParameter(final Member m) {
+    if (m.column.getSerializer().canUseACollation() && this.collation != null) {
+      return this.dialect.renderCollatedParameter(this.collation);
+    }
+    return "?";
+  }
+
+  private static String renderExpression(final Dialect dialect, final String collation, final Member m) {
+    String cm = dialect.escapeIdentifierAsNeeded(m.column.getCanonicalName());
+    if (m.column.getSerializer().canUseACollation() && collation != null) {
+      cm = dialect.addCollation(cm, collation);
+    }
+    return cm;
+  }
+
+}
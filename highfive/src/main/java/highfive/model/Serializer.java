@@ -62,6 +62,19 @@ public abstract class Serializer<T> {
     return ALL.get(name.toLowerCase());
   }
 
+  // Serializers keep the last value read and reuse their buffers; each reader
+  // thread must own its instances
+
+  public Serializer<T> newInstance() {
+    try {
+      @SuppressWarnings("unchecked")
+      Serializer<T> s = this.getClass().getConstructor().newInstance();
+      return s;
+    } catch (ReflectiveOperationException e) {
+      throw new RuntimeException("Could not instantiate serializer " + this.getClass().getName(), e);
+    }
+  }
+
   public String getName() {
     return name;
   }
@@ -74,6 +87,53 @@ public abstract class Serializer<T> {
 
   public abstract byte[] read(ResultSet rs, int ordinal) throws SQLException;
 
-  public abstract void set(PreparedStatement ps, int ordinal) throws SQLException;
+  // The two steps of read(), for the pipelined hashing: fetch() only reads the
+  // value (null for a SQL null) and can run in a different thread than
+  // serialize(), that produces its canonical bytes. Neither one changes the
+  // current value.
+
+  public abstract T fetch(ResultSet rs, int ordinal) throws SQLException;
+
+  public abstract byte[] serialize(T value);
+
+  @SuppressWarnings("unchecked")
+  public byte[] serializeValue(final Object value) {
+    return value == null ? null : this.serialize((T) value);
+  }
+
+  // Same as read(), but it appends the canonical bytes to the sink and returns
+  // false for a null. Serializers override it to avoid allocating memory on
+  // each value.
+
+  public boolean readInto(final ResultSet rs, final int ordinal, final ByteSink sink) throws SQLException {
+    byte[] bytes = this.read(rs, ordinal);
+    if (bytes == null) {
+      return false;
+    }
+    sink.write(bytes);
+    return true;
+  }
+
+  public void set(final PreparedStatement ps, final int ordinal) throws SQLException {
+    this.set(ps, ordinal, this.getValue());
+  }
+
+  // Sets a value fetched before (see fetch()), for the pipelined copy; null
+  // for a SQL null. It does not change the current value.
+
+  public abstract void set(PreparedStatement ps, int ordinal, T value) throws SQLException;
+
+  @SuppressWarnings("unchecked")
+  public void setValue(final PreparedStatement ps, final int ordinal, final Object value) throws SQLException {
+    this.set(ps, ordinal, (T) value);
+  }
+
+  // Text form of a (non null) value, used to record key values in hash files
+
+  public String toText(final Object value) {
+    return value.toString();
+  }
+
+  public abstract T fromText(String text);
 
 }
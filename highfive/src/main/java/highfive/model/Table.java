@@ -8,10 +8,16 @@ public class Table {
 
   private Identifier identifier;
   private List<Column> columns;
+  private List<List<String>> uniqueKeys;
 
   public Table(Identifier identifier, List<Column> columns) {
+    this(identifier, columns, Collections.emptyList());
+  }
+
+  public Table(Identifier identifier, List<Column> columns, List<List<String>> uniqueKeys) {
     this.identifier = identifier;
     this.columns = columns;
+    this.uniqueKeys = uniqueKeys;
 //    System.out
 //        .println("### columns=" + columns.stream().map(c -> c.getCanonicalName()).collect(Collectors.joining(", ")));
   }
@@ -24,8 +30,20 @@ public class Table {
     return columns;
   }
 
+  // The canonical names of the columns of each unique key, besides the primary
+  // key; only the keys of NOT NULL columns, so each one identifies a row
+
+  public List<List<String>> getUniqueKeys() {
+    return uniqueKeys;
+  }
+
   // Utilities
 
+  public Table duplicate() {
+    return new Table(this.identifier, this.columns.stream().map(c -> c.duplicate()).collect(Collectors.toList()),
+        this.uniqueKeys);
+  }
+
   void sortColumns() {
     Collections.sort(this.columns);
   }
@@ -1,18 +1,26 @@
 package highfive.model;
 
+import java.util.List;
+
 public class TableHash {
 
   private String hash;
   private boolean nonDeterministic;
   private boolean failed;
   private long rowCount;
+  private List<RangeHash> ranges;
 
   public TableHash(String hash, boolean nonDeterministic, boolean failed, long rowCount) {
+    this(hash, nonDeterministic, failed, rowCount, null);
+  }
+
+  public TableHash(String hash, boolean nonDeterministic, boolean failed, long rowCount, List<RangeHash> ranges) {
     super();
     this.hash = hash;
     this.nonDeterministic = nonDeterministic;
     this.failed = failed;
     this.rowCount = rowCount;
+    this.ranges = ranges;
   }
 
   public String getHash() {
@@ -31,4 +39,15 @@ public class TableHash {
     return rowCount;
   }
 
+  // The key ranges of a partitioned table; null when the table was hashed as a
+  // whole
+
+  public List<RangeHash> getRanges() {
+    return ranges;
+  }
+
+  public boolean isPartitioned() {
+    return ranges != null;
+  }
+
 }
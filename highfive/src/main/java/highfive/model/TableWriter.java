@@ -0,0 +1,109 @@
+package highfive.model;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.OffsetDateTime;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+
+// Writes the rows copied into a destination table. The values of each row are
+// the ones fetched by the serializers of the source columns (see
+// Serializer.fetch()), null for a SQL null; a writer does not keep the row
+// after write() returns. The default writer runs batches of inserts (see
+// InsertWriter); with <datasource>.copy.bulk the dialects can provide the
+// bulk-load path of their database (see Dialect.openBulkWriter()).
+
+public abstract class TableWriter implements AutoCloseable {
+
+  private static final DateTimeFormatter DATE_TIME = DateTimeFormatter.ofPattern("uuuu-MM-dd HH:mm:ss.SSSSSS");
+  private static final DateTimeFormatter TIME = DateTimeFormatter.ofPattern("HH:mm:ss.SSSSSS");
+  private static final DateTimeFormatter OFFSET_DATE_TIME = DateTimeFormatter
+      .ofPattern("uuuu-MM-dd HH:mm:ss.SSSSSSxxx");
+
+  protected Connection conn;
+  protected String table;
+  protected Column[] sources;
+  protected List<String> columns;
+  protected long batchSize;
+
+  protected TableWriter(final Connection conn, final String table, final List<Column> sources,
+      final List<String> columns, final long batchSize) {
+    this.conn = conn;
+    this.table = table;
+    this.sources = sources.toArray(new Column[0]);
+    this.columns = columns;
+    this.batchSize = batchSize;
+  }
+
+  // A short description for the log, e.g. "batched inserts"
+
+  public abstract String getName();
+
+  // The SQL statement that loads the rows, to report errors
+
+  public abstract String getStatement();
+
+  public abstract void write(Object[] values) throws SQLException;
+
+  // Writes the rows still pending; the copy of the table ends here
+
+  public abstract void finish() throws SQLException;
+
+  @Override
+  public void close() throws SQLException {
+  }
+
+  // The text form of a (non null) value for the text formats of the bulk
+  // loads, that the databases parse as they parse SQL literals. The times keep
+  // the microseconds, the precision of PostgreSQL and MySQL.
+
+  protected String renderText(final int column, final Object value) {
+    if (value instanceof Boolean) {
+      return ((Boolean) value) ? "1" : "0";
+    } else if (value instanceof LocalDateTime) {
+      return DATE_TIME.format((LocalDateTime) value);
+    } else if (value instanceof LocalTime) {
+      return TIME.format((LocalTime) value);
+    } else if (value instanceof OffsetDateTime) {
+      return OFFSET_DATE_TIME.format((OffsetDateTime) value);
+    } else if (value instanceof ZonedDateTime) {
+      return OFFSET_DATE_TIME.format(((ZonedDateTime) value).toOffsetDateTime());
+    } else {
+      return this.sources[column].getSerializer().toText(value);
+    }
+  }
+
+  // The bulk-load APIs are not part of JDBC; they are called by reflection
+  // since the drivers are loaded from their jar files at runtime. Returns null
+  // when the driver does not have the method.
+
+  protected static Method findMethod(final Object target, final String className, final String name,
+      final Class<?>... parameterTypes) {
+    try {
+      Class<?> c = Class.forName(className, false, target.getClass().getClassLoader());
+      return c.isInstance(target) ? c.getMethod(name, parameterTypes) : null;
+    } catch (ClassNotFoundException | NoSuchMethodException e) {
+      return null;
+    }
+  }
+
+  protected static Object invoke(final Method method, final Object target, final Object... args)
+      throws SQLException {
+    try {
+      return method.invoke(target, args);
+    } catch (InvocationTargetException e) {
+      if (e.getCause() instanceof SQLException) {
+        throw (SQLException) e.getCause();
+      }
+      throw new SQLException("Could not call " + method.getName() + "(): " + e.getCause(), e.getCause());
+    } catch (IllegalAccessException e) {
+      throw new SQLException("Could not call " + method.getName() + "(): " + e.getMessage(), e);
+    }
+  }
+
+}
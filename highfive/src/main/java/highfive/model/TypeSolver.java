@@ -29,7 +29,8 @@ public class TypeSolver {
     if (renderedType == null) {
       return null;
     }
-    return this.rules.get(renderedType.toLowerCase());
+    Serializer<?> s = this.rules.get(renderedType.toLowerCase());
+    return s == null ? null : s.newInstance();
   }
 
 }
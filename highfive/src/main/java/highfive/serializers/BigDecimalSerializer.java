@@ -1,11 +1,13 @@
 package highfive.serializers;
 
 import java.math.BigDecimal;
+import java.math.BigInteger;
 import java.nio.charset.StandardCharsets;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 
+import highfive.model.ByteSink;
 import highfive.model.Serializer;
 
 public class BigDecimalSerializer extends Serializer<BigDecimal> {
@@ -16,14 +18,95 @@ public class BigDecimalSerializer extends Serializer<BigDecimal> {
 
   private BigDecimal value;
 
+  // The digits of the unscaled value, filled from the end
+  private final byte[] digits = new byte[20];
+
   @Override
   public byte[] read(ResultSet rs, int ordinal) throws SQLException {
-    this.value = rs.getBigDecimal(ordinal);
-    if (rs.wasNull()) {
-      this.value = null;
-      return null;
+    this.value = fetch(rs, ordinal);
+    return this.value == null ? null : serialize(this.value);
+  }
+
+  @Override
+  public boolean readInto(ResultSet rs, int ordinal, ByteSink sink) throws SQLException {
+    this.value = fetch(rs, ordinal);
+    if (this.value == null) {
+      return false;
     }
-    return this.value.toString().getBytes(StandardCharsets.UTF_8);
+    writeCanonical(this.value, sink);
+    return true;
+  }
+
+  // Writes the same characters as BigDecimal.toString(), without building
+  // the string. Unscaled values of more than 63 bits still go through it.
+
+  private void writeCanonical(final BigDecimal v, final ByteSink sink) {
+    BigInteger unscaled = v.unscaledValue();
+    if (unscaled.bitLength() >= Long.SIZE) {
+      sink.writeUTF8(v.toString());
+      return;
+    }
+    long u = unscaled.longValue();
+    if (u < 0) {
+      sink.write((byte) '-');
+    }
+    int length = fillDigits(u);
+    int offset = this.digits.length - length;
+    int scale = v.scale();
+    long adjusted = -(long) scale + (length - 1);
+    if (scale == 0) {
+      sink.write(this.digits, offset, length);
+    } else if (scale > 0 && adjusted >= -6) {
+      int padding = scale - length;
+      if (padding >= 0) {
+        sink.write((byte) '0');
+        sink.write((byte) '.');
+        for (int i = 0; i < padding; i++) {
+          sink.write((byte) '0');
+        }
+        sink.write(this.digits, offset, length);
+      } else {
+        sink.write(this.digits, offset, length - scale);
+        sink.write((byte) '.');
+        sink.write(this.digits, offset + length - scale, scale);
+      }
+    } else {
+      sink.write(this.digits[offset]);
+      if (length > 1) {
+        sink.write((byte) '.');
+        sink.write(this.digits, offset + 1, length - 1);
+      }
+      if (adjusted != 0) {
+        sink.write((byte) 'E');
+        sink.write((byte) (adjusted > 0 ? '+' : '-'));
+        length = fillDigits(adjusted);
+        sink.write(this.digits, this.digits.length - length, length);
+      }
+    }
+  }
+
+  // The decimal digits of the absolute value, computed on the negative value
+  // so Long.MIN_VALUE does not overflow
+
+  private int fillDigits(final long v) {
+    long r = v < 0 ? v : -v;
+    int p = this.digits.length;
+    do {
+      this.digits[--p] = (byte) ('0' - (r % 10));
+      r /= 10;
+    } while (r != 0);
+    return this.digits.length - p;
+  }
+
+  @Override
+  public BigDecimal fetch(ResultSet rs, int ordinal) throws SQLException {
+    BigDecimal v = rs.getBigDecimal(ordinal);
+    return rs.wasNull() ? null : v;
+  }
+
+  @Override
+  public byte[] serialize(BigDecimal value) {
+    return value.toString().getBytes(StandardCharsets.UTF_8);
   }
 
   @Override
@@ -32,8 +115,13 @@ public class BigDecimalSerializer extends Serializer<BigDecimal> {
   }
 
   @Override
-  public void set(PreparedStatement ps, int ordinal) throws SQLException {
+  public void set(PreparedStatement ps, int ordinal, BigDecimal value) throws SQLException {
     ps.setBigDecimal(ordinal, value);
   }
 
+  @Override
+  public BigDecimal fromText(String text) {
+    return new BigDecimal(text);
+  }
+
 }
@@ -17,12 +17,19 @@ public class BigIntegerSerializer extends Serializer<BigInteger> {
 
   @Override
   public byte[] read(ResultSet rs, int ordinal) throws SQLException {
-    this.value = rs.getObject(ordinal, BigInteger.class);
-    if (rs.wasNull()) {
-      this.value = null;
-      return null;
-    }
-    return this.value.toByteArray();
+    this.value = fetch(rs, ordinal);
+    return this.value == null ? null : serialize(this.value);
+  }
+
+  @Override
+  public BigInteger fetch(ResultSet rs, int ordinal) throws SQLException {
+    BigInteger v = rs.getObject(ordinal, BigInteger.class);
+    return rs.wasNull() ? null : v;
+  }
+
+  @Override
+  public byte[] serialize(BigInteger value) {
+    return value.toByteArray();
   }
 
   @Override
@@ -31,8 +38,13 @@ public class BigIntegerSerializer extends Serializer<BigInteger> {
   }
 
   @Override
-  public void set(PreparedStatement ps, int ordinal) throws SQLException {
+  public void set(PreparedStatement ps, int ordinal, BigInteger value) throws SQLException {
     ps.setObject(ordinal, value);
   }
 
+  @Override
+  public BigInteger fromText(String text) {
+    return new BigInteger(text);
+  }
+
 }
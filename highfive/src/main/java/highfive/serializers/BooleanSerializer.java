@@ -19,12 +19,19 @@ public class BooleanSerializer extends Serializer<Boolean> {
 
   @Override
   public byte[] read(ResultSet rs, int ordinal) throws SQLException {
-    this.value = rs.getBoolean(ordinal);
-    if (rs.wasNull()) {
-      this.value = null;
-      return null;
-    }
-    return this.value ? TRUE : FALSE;
+    this.value = fetch(rs, ordinal);
+    return this.value == null ? null : serialize(this.value);
+  }
+
+  @Override
+  public Boolean fetch(ResultSet rs, int ordinal) throws SQLException {
+    Boolean v = rs.getBoolean(ordinal);
+    return rs.wasNull() ? null : v;
+  }
+
+  @Override
+  public byte[] serialize(Boolean value) {
+    return value ? TRUE : FALSE;
   }
 
   @Override
@@ -33,8 +40,13 @@ public class BooleanSerializer extends Serializer<Boolean> {
   }
 
   @Override
-  public void set(PreparedStatement ps, int ordinal) throws SQLException {
+  public void set(PreparedStatement ps, int ordinal, Boolean value) throws SQLException {
     ps.setBoolean(ordinal, value);
   }
 
+  @Override
+  public Boolean fromText(String text) {
+    return Boolean.valueOf(text);
+  }
+
 }
@@ -5,6 +5,7 @@ import java.sql.ResultSet;
 import java.sql.SQLException;
 
 import highfive.model.Serializer;
+import highfive.utils.Utl;
 
 public class ByteArraySerializer extends Serializer<byte[]> {
 
@@ -16,12 +17,19 @@ public class ByteArraySerializer extends Serializer<byte[]> {
 
   @Override
   public byte[] read(ResultSet rs, int ordinal) throws SQLException {
-    this.value = rs.getBytes(ordinal);
-    if (rs.wasNull()) {
-      this.value = null;
-      return null;
-    }
-    return this.value;
+    this.value = fetch(rs, ordinal);
+    return this.value == null ? null : serialize(this.value);
+  }
+
+  @Override
+  public byte[] fetch(ResultSet rs, int ordinal) throws SQLException {
+    byte[] v = rs.getBytes(ordinal);
+    return rs.wasNull() ? null : v;
+  }
+
+  @Override
+  public byte[] serialize(byte[] value) {
+    return value;
   }
 
   @Override
@@ -30,8 +38,18 @@ public class ByteArraySerializer extends Serializer<byte[]> {
   }
 
   @Override
-  public void set(PreparedStatement ps, int ordinal) throws SQLException {
+  public void set(PreparedStatement ps, int ordinal, byte[] value) throws SQLException {
     ps.setBytes(ordinal, value);
   }
 
+  @Override
+  public byte[] fromText(String text) {
+    return Utl.fromHex(text);
+  }
+
+  @Override
+  public String toText(Object value) {
+    return Utl.toHex((byte[]) value);
+  }
+
 }
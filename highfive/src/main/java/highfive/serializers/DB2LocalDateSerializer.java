@@ -10,7 +10,7 @@ import highfive.model.Serializer;
 
 public class DB2LocalDateSerializer extends Serializer<LocalDate> {
 
-  private static ByteBuffer LB = ByteBuffer.allocate(Long.BYTES);
+  private final ByteBuffer lb = ByteBuffer.allocate(Long.BYTES);
 
   private LocalDate value;
 
@@ -20,14 +20,23 @@ public class DB2LocalDateSerializer extends Serializer<LocalDate> {
 
   @Override
   public byte[] read(ResultSet rs, int ordinal) throws SQLException {
+    this.value = fetch(rs, ordinal);
+    return this.value == null ? null : serialize(this.value);
+  }
+
+  @Override
+  public LocalDate fetch(ResultSet rs, int ordinal) throws SQLException {
     rs.getObject(ordinal); // deals with the DB2 JDBC driver that doesn't handle nulls properly
     if (rs.wasNull()) {
-      this.value = null;
       return null;
     }
-    this.value = rs.getObject(ordinal, LocalDate.class);
-    LB.putLong(0, this.value.toEpochDay());
-    return LB.array();
+    return rs.getObject(ordinal, LocalDate.class);
+  }
+
+  @Override
+  public byte[] serialize(LocalDate value) {
+    this.lb.putLong(0, value.toEpochDay());
+    return this.lb.array();
   }
 
   @Override
@@ -36,8 +45,13 @@ public class DB2LocalDateSerializer extends Serializer<LocalDate> {
   }
 
   @Override
-  public void set(PreparedStatement ps, int ordinal) throws SQLException {
+  public void set(PreparedStatement ps, int ordinal, LocalDate value) throws SQLException {
     ps.setObject(ordinal, value);
   }
 
+  @Override
+  public LocalDate fromText(String text) {
+    return LocalDate.parse(text);
+  }
+
 }
@@ -11,7 +11,7 @@ import highfive.model.Serializer;
 
 public class DB2LocalDateTimeSerializer extends Serializer<LocalDateTime> {
 
-  private static ByteBuffer LB = ByteBuffer.allocate(Long.BYTES);
+  private final ByteBuffer lb = ByteBuffer.allocate(Long.BYTES);
 
   private LocalDateTime value;
 
@@ -21,14 +21,23 @@ public class DB2LocalDateTimeSerializer extends Serializer<LocalDateTime> {
 
   @Override
   public byte[] read(ResultSet rs, int ordinal) throws SQLException {
+    this.value = fetch(rs, ordinal);
+    return this.value == null ? null : serialize(this.value);
+  }
+
+  @Override
+  public LocalDateTime fetch(ResultSet rs, int ordinal) throws SQLException {
     rs.getObject(ordinal); // deals with the DB2 JDBC driver that doesn't handle nulls properly
     if (rs.wasNull()) {
-      this.value = null;
       return null;
     }
-    this.value = rs.getObject(ordinal, LocalDateTime.class);
-    LB.putLong(0, this.value.toEpochSecond(ZoneOffset.UTC));
-    return LB.array();
+    return rs.getObject(ordinal, LocalDateTime.class);
+  }
+
+  @Override
+  public byte[] serialize(LocalDateTime value) {
+    this.lb.putLong(0, value.toEpochSecond(ZoneOffset.UTC));
+    return this.lb.array();
   }
 
   @Override
@@ -37,8 +46,13 @@ public class DB2LocalDateTimeSerializer extends Serializer<LocalDateTime> {
   }
 
   @Override
-  public void set(PreparedStatement ps, int ordinal) throws SQLException {
+  public void set(PreparedStatement ps, int ordinal, LocalDateTime value) throws SQLException {
     ps.setObject(ordinal, value);
   }
 
+  @Override
+  public LocalDateTime fromText(String text) {
+    return LocalDateTime.parse(text);
+  }
+
 }
@@ -10,7 +10,7 @@ import highfive.model.Serializer;
 
 public class DB2LocalTimeSerializer extends Serializer<LocalTime> {
 
-  private static ByteBuffer LB = ByteBuffer.allocate(Long.BYTES);
+  private final ByteBuffer lb = ByteBuffer.allocate(Long.BYTES);
 
   private LocalTime value;
 
@@ -20,14 +20,23 @@ public class DB2LocalTimeSerializer extends Serializer<LocalTime> {
 
   @Override
   public byte[] read(ResultSet rs, int ordinal) throws SQLException {
+    this.value = fetch(rs, ordinal);
+    return this.value == null ? null : serialize(this.value);
+  }
+
+  @Override
+  public LocalTime fetch(ResultSet rs, int ordinal) throws SQLException {
     rs.getObject(ordinal); // deals with the DB2 JDBC driver that doesn't handle nulls properly
     if (rs.wasNull()) {
-      this.value = null;
       return null;
     }
-    this.value = rs.getObject(ordinal, LocalTime.class);
-    LB.putLong(0, this.value.toNanoOfDay());
-    return LB.array();
+    return rs.getObject(ordinal, LocalTime.class);
+  }
+
+  @Override
+  public byte[] serialize(LocalTime value) {
+    this.lb.putLong(0, value.toNanoOfDay());
+    return this.lb.array();
   }
 
   @Override
@@ -36,8 +45,13 @@ public class DB2LocalTimeSerializer extends Serializer<LocalTime> {
   }
 
   @Override
-  public void set(PreparedStatement ps, int ordinal) throws SQLException {
+  public void set(PreparedStatement ps, int ordinal, LocalTime value) throws SQLException {
     ps.setObject(ordinal, value);
   }
 
+  @Override
+  public LocalTime fromText(String text) {
+    return LocalTime.parse(text);
+  }
+
 }
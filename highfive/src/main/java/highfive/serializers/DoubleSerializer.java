@@ -5,13 +5,18 @@ import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 
+import highfive.model.ByteSink;
 import highfive.model.Serializer;
 
 public class DoubleSerializer extends Serializer<Double> {
 
-  private static ByteBuffer LB = ByteBuffer.allocate(Long.BYTES);
+  private final ByteBuffer lb = ByteBuffer.allocate(Long.BYTES);
+
+  // Values read with readInto() are boxed only when requested
 
   private Double value;
+  private double primitive;
+  private boolean boxed = true;
 
   public DoubleSerializer() {
     super(false);
@@ -19,23 +24,54 @@ public class DoubleSerializer extends Serializer<Double> {
 
   @Override
   public byte[] read(ResultSet rs, int ordinal) throws SQLException {
-    this.value = rs.getDouble(ordinal);
+    this.value = fetch(rs, ordinal);
+    this.boxed = true;
+    return this.value == null ? null : serialize(this.value);
+  }
+
+  @Override
+  public boolean readInto(ResultSet rs, int ordinal, ByteSink sink) throws SQLException {
+    double v = rs.getDouble(ordinal);
     if (rs.wasNull()) {
       this.value = null;
-      return null;
+      this.boxed = true;
+      return false;
     }
-    LB.putLong(0, Double.doubleToLongBits(this.value));
-    return LB.array();
+    this.primitive = v;
+    this.boxed = false;
+    sink.writeLong(Double.doubleToLongBits(v));
+    return true;
+  }
+
+  @Override
+  public Double fetch(ResultSet rs, int ordinal) throws SQLException {
+    Double v = rs.getDouble(ordinal);
+    return rs.wasNull() ? null : v;
+  }
+
+  @Override
+  public byte[] serialize(Double value) {
+    this.lb.putLong(0, Double.doubleToLongBits(value));
+    return this.lb.array();
   }
 
   @Override
   public Double getValue() {
+    if (!this.boxed) {
+      this.value = this.primitive;
+      this.boxed = true;
+    }
     return this.value;
   }
 
   @Override
-  public void set(PreparedStatement ps, int ordinal) throws SQLException {
+  public void set(PreparedStatement ps, int ordinal, Double value) throws SQLException {
     ps.setDouble(ordinal, value);
   }
 
+  @Override
+  public Double fromText(String text) {
+    return Double.valueOf(text);
+  }
+
 }
@@ -6,13 +6,18 @@ import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Types;
 
+import highfive.model.ByteSink;
 import highfive.model.Serializer;
 
 public class IntegerSerializer extends Serializer<Integer> {
 
-  private static ByteBuffer IB = ByteBuffer.allocate(Integer.BYTES);
+  private final ByteBuffer ib = ByteBuffer.allocate(Integer.BYTES);
+
+  // Values read with readInto() are boxed only when requested
 
   private Integer value;
+  private int primitive;
+  private boolean boxed = true;
 
   public IntegerSerializer() {
     super(false);
@@ -20,22 +25,48 @@ public class IntegerSerializer extends Serializer<Integer> {
 
   @Override
   public byte[] read(ResultSet rs, int ordinal) throws SQLException {
-    this.value = rs.getInt(ordinal);
+    this.value = fetch(rs, ordinal);
+    this.boxed = true;
+    return this.value == null ? null : serialize(this.value);
+  }
+
+  @Override
+  public boolean readInto(ResultSet rs, int ordinal, ByteSink sink) throws SQLException {
+    int v = rs.getInt(ordinal);
     if (rs.wasNull()) {
       this.value = null;
-      return null;
+      this.boxed = true;
+      return false;
     }
-    IB.putInt(0, this.value);
-    return IB.array();
+    this.primitive = v;
+    this.boxed = false;
+    sink.writeInt(v);
+    return true;
+  }
+
+  @Override
+  public Integer fetch(ResultSet rs, int ordinal) throws SQLException {
+    Integer v = rs.getInt(ordinal);
+    return rs.wasNull() ? null : v;
+  }
+
+  @Override
+  public byte[] serialize(Integer value) {
+    this.ib.putInt(0, value);
+    return this.ib.array();
   }
 
   @Override
   public Integer getValue() {
+    if (!this.boxed) {
+      this.value = this.primitive;
+      this.boxed = true;
+    }
     return this.value;
   }
 
   @Override
-  public void set(PreparedStatement ps, int ordinal) throws SQLException {
+  public void set(PreparedStatement ps, int ordinal, Integer value) throws SQLException {
     if (value == null) {
       ps.setNull(ordinal, Types.INTEGER);
     } else {
@@ -43,4 +74,9 @@ public class IntegerSerializer extends Serializer<Integer> {
     }
   }
 
+  @Override
+  public Integer fromText(String text) {
+    return Integer.valueOf(text);
+  }
+
 }
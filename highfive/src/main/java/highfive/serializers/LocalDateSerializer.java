@@ -10,7 +10,7 @@ import highfive.model.Serializer;
 
 public class LocalDateSerializer extends Serializer<LocalDate> {
 
-  private static ByteBuffer LB = ByteBuffer.allocate(Long.BYTES);
+  private final ByteBuffer lb = ByteBuffer.allocate(Long.BYTES);
 
   private LocalDate value;
 
@@ -20,13 +20,20 @@ public class LocalDateSerializer extends Serializer<LocalDate> {
 
   @Override
   public byte[] read(ResultSet rs, int ordinal) throws SQLException {
-    this.value = rs.getObject(ordinal, LocalDate.class);
-    if (rs.wasNull()) {
-      this.value = null;
-      return null;
-    }
-    LB.putLong(0, this.value.toEpochDay());
-    return LB.array();
+    this.value = fetch(rs, ordinal);
+    return this.value == null ? null : serialize(this.value);
+  }
+
+  @Override
+  public LocalDate fetch(ResultSet rs, int ordinal) throws SQLException {
+    LocalDate v = rs.getObject(ordinal, LocalDate.class);
+    return rs.wasNull() ? null : v;
+  }
+
+  @Override
+  public byte[] serialize(LocalDate value) {
+    this.lb.putLong(0, value.toEpochDay());
+    return this.lb.array();
   }
 
   @Override
@@ -35,8 +42,13 @@ public class LocalDateSerializer extends Serializer<LocalDate> {
   }
 
   @Override
-  public void set(PreparedStatement ps, int ordinal) throws SQLException {
+  public void set(PreparedStatement ps, int ordinal, LocalDate value) throws SQLException {
     ps.setObject(ordinal, value);
   }
 
+  @Override
+  public LocalDate fromText(String text) {
+    return LocalDate.parse(text);
+  }
+
 }
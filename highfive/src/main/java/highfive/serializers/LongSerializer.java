@@ -6,13 +6,18 @@ import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Types;
 
+import highfive.model.ByteSink;
 import highfive.model.Serializer;
 
 public class LongSerializer extends Serializer<Long> {
 
-  private static ByteBuffer LB = ByteBuffer.allocate(Long.BYTES);
+  private final ByteBuffer lb = ByteBuffer.allocate(Long.BYTES);
+
+  // Values read with readInto() are boxed only when requested
 
   private Long value;
+  private long primitive;
+  private boolean boxed = true;
 
   public LongSerializer() {
     super(false);
@@ -20,27 +25,58 @@ public class LongSerializer extends Serializer<Long> {
 
   @Override
   public byte[] read(ResultSet rs, int ordinal) throws SQLException {
-    this.value = rs.getLong(ordinal);
+    this.value = fetch(rs, ordinal);
+    this.boxed = true;
+    return this.value == null ? null : serialize(this.value);
+  }
+
+  @Override
+  public boolean readInto(ResultSet rs, int ordinal, ByteSink sink) throws SQLException {
+    long v = rs.getLong(ordinal);
     if (rs.wasNull()) {
       this.value = null;
-      return null;
+      this.boxed = true;
+      return false;
     }
-    LB.putLong(0, this.value);
-    return LB.array();
+    this.primitive = v;
+    this.boxed = false;
+    sink.writeLong(v);
+    return true;
+  }
+
+  @Override
+  public Long fetch(ResultSet rs, int ordinal) throws SQLException {
+    Long v = rs.getLong(ordinal);
+    return rs.wasNull() ? null : v;
+  }
+
+  @Override
+  public byte[] serialize(Long value) {
+    this.lb.putLong(0, value);
+    return this.lb.array();
   }
 
   @Override
   public Long getValue() {
+    if (!this.boxed) {
+      this.value = this.primitive;
+      this.boxed = true;
+    }
     return this.value;
   }
 
   @Override
-  public void set(PreparedStatement ps, int ordinal) throws SQLException {
-    if (this.value == null) {
+  public void set(PreparedStatement ps, int ordinal, Long value) throws SQLException {
+    if (value == null) {
       ps.setNull(ordinal, Types.BIGINT);
     } else {
       ps.setLong(ordinal, value);
     }
   }
 
+  @Override
+  public Long fromText(String text) {
+    return Long.valueOf(text);
+  }
+
 }
@@ -10,7 +10,7 @@ import highfive.model.Serializer;
 
 public class OffsetDateTimeSerializer extends Serializer<OffsetDateTime> {
 
-  private static ByteBuffer LB = ByteBuffer.allocate(Long.BYTES);
+  private final ByteBuffer lb = ByteBuffer.allocate(Long.BYTES);
 
   private OffsetDateTime value;
 
@@ -20,13 +20,20 @@ public class OffsetDateTimeSerializer extends Serializer<OffsetDateTime> {
 
   @Override
   public byte[] read(ResultSet rs, int ordinal) throws SQLException {
-    this.value = rs.getObject(ordinal, OffsetDateTime.class);
-    if (rs.wasNull()) {
-      this.value = null;
-      return null;
-    }
-    LB.putLong(0, this.value.toEpochSecond());
-    return LB.array();
+    this.value = fetch(rs, ordinal);
+    return this.value == null ? null : serialize(this.value);
+  }
+
+  @Override
+  public OffsetDateTime fetch(ResultSet rs, int ordinal) throws SQLException {
+    OffsetDateTime v = rs.getObject(ordinal, OffsetDateTime.class);
+    return rs.wasNull() ? null : v;
+  }
+
+  @Override
+  public byte[] serialize(OffsetDateTime value) {
+    this.lb.putLong(0, value.toEpochSecond());
+    return this.lb.array();
   }
 
   @Override
@@ -35,8 +42,13 @@ public class OffsetDateTimeSerializer extends Serializer<OffsetDateTime> {
   }
 
   @Override
-  public void set(PreparedStatement ps, int ordinal) throws SQLException {
+  public void set(PreparedStatement ps, int ordinal, OffsetDateTime value) throws SQLException {
     ps.setObject(ordinal, value);
   }
 
+  @Override
+  public OffsetDateTime fromText(String text) {
+    return OffsetDateTime.parse(text);
+  }
+
 }
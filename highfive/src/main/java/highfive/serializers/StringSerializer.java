@@ -5,6 +5,7 @@ import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 
+import highfive.model.ByteSink;
 import highfive.model.Serializer;
 
 public class StringSerializer extends Serializer<String> {
@@ -17,12 +18,29 @@ public class StringSerializer extends Serializer<String> {
 
   @Override
   public byte[] read(ResultSet rs, int ordinal) throws SQLException {
-    this.value = rs.getString(ordinal);
-    if (rs.wasNull()) {
-      this.value = null;
-      return null;
+    this.value = fetch(rs, ordinal);
+    return this.value == null ? null : serialize(this.value);
+  }
+
+  @Override
+  public boolean readInto(ResultSet rs, int ordinal, ByteSink sink) throws SQLException {
+    this.value = fetch(rs, ordinal);
+    if (this.value == null) {
+      return false;
     }
-    return this.value.getBytes(StandardCharsets.UTF_8);
+    sink.writeUTF8(this.value);
+    return true;
+  }
+
+  @Override
+  public String fetch(ResultSet rs, int ordinal) throws SQLException {
+    String v = rs.getString(ordinal);
+    return rs.wasNull() ? null : v;
+  }
+
+  @Override
+  public byte[] serialize(String value) {
+    return value.getBytes(StandardCharsets.UTF_8);
   }
 
   @Override
@@ -31,8 +49,13 @@ public class StringSerializer extends Serializer<String> {
   }
 
   @Override
-  public void set(PreparedStatement ps, int ordinal) throws SQLException {
+  public void set(PreparedStatement ps, int ordinal, String value) throws SQLException {
     ps.setString(ordinal, value);
   }
 
+  @Override
+  public String fromText(String text) {
+    return text;
+  }
+
 }
@@ -10,7 +10,7 @@ import highfive.model.Serializer;
 
 public class ZonedDateTimeSerializer extends Serializer<ZonedDateTime> {
 
-  private static ByteBuffer LB = ByteBuffer.allocate(Long.BYTES);
+  private final ByteBuffer lb = ByteBuffer.allocate(Long.BYTES);
 
   private ZonedDateTime value;
 
@@ -20,13 +20,20 @@ public class ZonedDateTimeSerializer extends Serializer<ZonedDateTime> {
 
   @Override
   public byte[] read(ResultSet rs, int ordinal) throws SQLException {
-    this.value = rs.getObject(ordinal, ZonedDateTime.class);
-    if (rs.wasNull()) {
-      this.value = null;
-      return null;
-    }
-    LB.putLong(0, this.value.toEpochSecond());
-    return LB.array();
+    this.value = fetch(rs, ordinal);
+    return this.value == null ? null : serialize(this.value);
+  }
+
+  @Override
+  public ZonedDateTime fetch(ResultSet rs, int ordinal) throws SQLException {
+    ZonedDateTime v = rs.getObject(ordinal, ZonedDateTime.class);
+    return rs.wasNull() ? null : v;
+  }
+
+  @Override
+  public byte[] serialize(ZonedDateTime value) {
+    this.lb.putLong(0, value.toEpochSecond());
+    return this.lb.array();
   }
 
   @Override
@@ -35,8 +42,13 @@ public class ZonedDateTimeSerializer extends Serializer<ZonedDateTime> {
   }
 
   @Override
-  public void set(PreparedStatement ps, int ordinal) throws SQLException {
+  public void set(PreparedStatement ps, int ordinal, ZonedDateTime value) throws SQLException {
     ps.setObject(ordinal, value);
   }
 
+  @Override
+  public ZonedDateTime fromText(String text) {
+    return ZonedDateTime.parse(text);
+  }
+
 }
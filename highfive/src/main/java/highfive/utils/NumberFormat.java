@@ -0,0 +1,29 @@
+package highfive.utils;
+
+import java.text.DecimalFormat;
+
+// A DecimalFormat that can be shared by threads: DecimalFormat is not
+// thread-safe, and the worker threads format the numbers of their messages
+// before logging them. Each thread uses its own instance.
+
+public class NumberFormat {
+
+  private ThreadLocal<DecimalFormat> format;
+
+  public NumberFormat(final String pattern) {
+    this.format = ThreadLocal.withInitial(() -> new DecimalFormat(pattern));
+  }
+
+  public String format(final long number) {
+    return this.format.get().format(number);
+  }
+
+  public String format(final double number) {
+    return this.format.get().format(number);
+  }
+
+  public String format(final Object number) {
+    return this.format.get().format(number);
+  }
+
+}
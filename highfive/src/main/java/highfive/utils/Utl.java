@@ -28,6 +28,25 @@ public class Utl {
     return new String(result);
   }
 
+  public static byte[] fromHex(final String hex) {
+    if (hex == null) {
+      return null;
+    }
+    if (hex.length() % 2 != 0) {
+      throw new IllegalArgumentException("Invalid hexadecimal value: odd number of digits.");
+    }
+    byte[] result = new byte[hex.length() / 2];
+    for (int j = 0; j < result.length; j++) {
+      int hi = Character.digit(hex.charAt(j * 2), 16);
+      int lo = Character.digit(hex.charAt(j * 2 + 1), 16);
+      if (hi < 0 || lo < 0) {
+        throw new IllegalArgumentException("Invalid hexadecimal value: '" + hex + "'.");
+      }
+      result[j] = (byte) ((hi << 4) | lo);
+    }
+    return result;
+  }
+
   public static String coalesce(final String... strings) {
     for (String s : strings) {
       if (s != null) {
@@ -0,0 +1,80 @@
+package highfive.writers;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import highfive.model.Column;
+import highfive.model.TableWriter;
+
+// Inserts the rows one by one, sent to the database in batches of
+// <datasource>.insert.batch.size rows. The drivers send each batch as an array
+// of parameters when they can. The hint, if any, is added after the insert
+// keyword (e.g. Oracle's direct-path insert). When the batches must be
+// committed one by one, each one is committed even without autocommit.
+
+public class InsertWriter extends TableWriter {
+
+  private String insert;
+  protected PreparedStatement ps;
+  private long currentBatch;
+  private boolean commitBatches;
+
+  public InsertWriter(final Connection conn, final String table, final List<Column> sources,
+      final List<String> columns, final long batchSize, final String hint, final boolean commitBatches)
+      throws SQLException {
+    super(conn, table, sources, columns, batchSize);
+    this.commitBatches = commitBatches;
+    this.insert = "insert " + (hint == null ? "" : hint + " ") + "into " + table + " (" + String.join(", ", columns)
+        + ") values (" + columns.stream().map(x -> "?").collect(Collectors.joining(", ")) + ")";
+    this.ps = conn.prepareStatement(this.insert, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+    this.currentBatch = 0;
+  }
+
+  @Override
+  public String getName() {
+    return "batched inserts";
+  }
+
+  @Override
+  public String getStatement() {
+    return this.insert;
+  }
+
+  @Override
+  public void write(final Object[] values) throws SQLException {
+    for (int i = 0; i < this.sources.length; i++) {
+      this.sources[i].getSerializer().setValue(this.ps, i + 1, values[i]);
+    }
+    this.ps.addBatch();
+    this.currentBatch++;
+    if (this.currentBatch >= this.batchSize) {
+      this.currentBatch = 0;
+      executeBatch();
+    }
+  }
+
+  @Override
+  public void finish() throws SQLException {
+    if (this.currentBatch > 0) {
+      this.currentBatch = 0;
+      executeBatch();
+    }
+  }
+
+  private void executeBatch() throws SQLException {
+    this.ps.executeBatch();
+    if (this.commitBatches && !this.conn.getAutoCommit()) {
+      this.conn.commit();
+    }
+  }
+
+  @Override
+  public void close() throws SQLException {
+    this.ps.close();
+  }
+
+}
@@ -0,0 +1,159 @@
+package highfive.writers;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.lang.reflect.Method;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLWarning;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+import highfive.model.Column;
+import highfive.model.TableWriter;
+import highfive.serializers.ByteArraySerializer;
+
+// Loads the rows with MySQL's and MariaDB's "LOAD DATA LOCAL INFILE", a batch
+// at a time, streamed from memory instead of a file. The rows are sent as
+// tab-separated text; the binary values are sent in hex and decoded by the
+// statement. The connection must allow it (e.g. allowLoadLocalInfile=true in
+// the URL of MySQL Connector/J), as well as the server (local_infile).
+//
+// A LOCAL load turns the conversion errors and the duplicate keys into
+// warnings; here any warning, or a row not loaded, fails the copy.
+
+public class LoadDataWriter extends TableWriter {
+
+  private static final String[] STATEMENT_CLASSES = { "com.mysql.cj.jdbc.JdbcStatement",
+      "org.mariadb.jdbc.Statement", "org.mariadb.jdbc.MariaDbStatement" };
+
+  private String load;
+  private Statement st;
+  private Method setLocalInfileInputStream;
+
+  private StringBuilder buffer = new StringBuilder();
+  private long currentBatch;
+
+  private LoadDataWriter(final Connection conn, final String table, final List<Column> sources,
+      final List<String> columns, final long batchSize) {
+    super(conn, table, sources, columns, batchSize);
+    List<String> targets = new ArrayList<>();
+    List<String> decoded = new ArrayList<>();
+    for (int i = 0; i < columns.size(); i++) {
+      if (this.sources[i].getSerializer() instanceof ByteArraySerializer) {
+        targets.add("@h" + (i + 1));
+        decoded.add(columns.get(i) + " = unhex(@h" + (i + 1) + ")");
+      } else {
+        targets.add(columns.get(i));
+      }
+    }
+    this.load = "load data local infile 'highfive.tsv' into table " + table + " character set utf8mb4"
+        + " fields terminated by '\\t' escaped by '\\\\' lines terminated by '\\n' (" + String.join(", ", targets)
+        + ")" + (decoded.isEmpty() ? "" : " set " + String.join(", ", decoded));
+  }
+
+  // Returns null when the driver cannot stream the data of a load
+
+  public static TableWriter open(final Connection conn, final String table, final List<Column> sources,
+      final List<String> columns, final long batchSize) throws SQLException {
+    LoadDataWriter w = new LoadDataWriter(conn, table, sources, columns, batchSize);
+    w.st = conn.createStatement();
+    for (String c : STATEMENT_CLASSES) {
+      w.setLocalInfileInputStream = findMethod(w.st, c, "setLocalInfileInputStream", InputStream.class);
+      if (w.setLocalInfileInputStream != null) {
+        return w;
+      }
+    }
+    w.st.close();
+    return null;
+  }
+
+  @Override
+  public String getName() {
+    return "LOAD DATA LOCAL INFILE";
+  }
+
+  @Override
+  public String getStatement() {
+    return this.load;
+  }
+
+  @Override
+  public void write(final Object[] values) throws SQLException {
+    for (int i = 0; i < this.sources.length; i++) {
+      if (i > 0) {
+        this.buffer.append('\t');
+      }
+      Object v = values[i];
+      if (v == null) {
+        this.buffer.append("\\N");
+      } else if (v instanceof String) {
+        escape((String) v);
+      } else {
+        this.buffer.append(renderText(i, v));
+      }
+    }
+    this.buffer.append('\n');
+    this.currentBatch++;
+    if (this.currentBatch >= this.batchSize) {
+      flush();
+    }
+  }
+
+  private void escape(final String s) {
+    for (int i = 0; i < s.length(); i++) {
+      char c = s.charAt(i);
+      switch (c) {
+      case '\\':
+        this.buffer.append("\\\\");
+        break;
+      case '\t':
+        this.buffer.append("\\t");
+        break;
+      case '\n':
+        this.buffer.append("\\n");
+        break;
+      case '\r':
+        this.buffer.append("\\r");
+        break;
+      case '\0':
+        this.buffer.append("\\0");
+        break;
+      default:
+        this.buffer.append(c);
+      }
+    }
+  }
+
+  private void flush() throws SQLException {
+    byte[] bytes = this.buffer.toString().getBytes(StandardCharsets.UTF_8);
+    invoke(this.setLocalInfileInputStream, this.st, new ByteArrayInputStream(bytes));
+    int rows = this.st.executeUpdate(this.load);
+    SQLWarning w = this.st.getWarnings();
+    if (w != null) {
+      throw new SQLException("The load of " + this.currentBatch + " row(s) into " + this.table
+          + " produced warnings; the first one: " + w.getMessage(), w);
+    }
+    if (rows != this.currentBatch) {
+      throw new SQLException(
+          "Only " + rows + " row(s) of " + this.currentBatch + " were loaded into " + this.table + ".");
+    }
+    this.buffer.setLength(0);
+    this.currentBatch = 0;
+  }
+
+  @Override
+  public void finish() throws SQLException {
+    if (this.currentBatch > 0) {
+      flush();
+    }
+  }
+
+  @Override
+  public void close() throws SQLException {
+    this.st.close();
+  }
+
+}
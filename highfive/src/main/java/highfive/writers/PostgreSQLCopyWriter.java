@@ -0,0 +1,118 @@
+package highfive.writers;
+
+import java.lang.reflect.Method;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.List;
+
+import highfive.model.Column;
+import highfive.model.TableWriter;
+
+// Loads the rows with PostgreSQL's "COPY ... FROM STDIN", through the
+// CopyManager of the driver. The rows are sent in CSV, a batch at a time: a
+// string is always quoted, so an empty string is not taken as a null, and a
+// bytea value is sent as \x<hex>. The whole table (or partition) is loaded by
+// one COPY, that is one transaction.
+
+public class PostgreSQLCopyWriter extends TableWriter {
+
+  private String copy;
+  private Object copyIn;
+  private Method writeToCopy;
+  private Method endCopy;
+  private Method isActive;
+  private Method cancelCopy;
+
+  private StringBuilder buffer = new StringBuilder();
+  private long currentBatch;
+
+  private PostgreSQLCopyWriter(final Connection conn, final String table, final List<Column> sources,
+      final List<String> columns, final long batchSize) {
+    super(conn, table, sources, columns, batchSize);
+    this.copy = "copy " + table + " (" + String.join(", ", columns) + ") from stdin (format csv)";
+  }
+
+  // Returns null when the driver does not have the CopyManager
+
+  public static TableWriter open(final Connection conn, final String table, final List<Column> sources,
+      final List<String> columns, final long batchSize) throws SQLException {
+    Method getCopyAPI = findMethod(conn, "org.postgresql.PGConnection", "getCopyAPI");
+    if (getCopyAPI == null) {
+      return null;
+    }
+    Object copyManager = invoke(getCopyAPI, conn);
+    Method copyIn = findMethod(copyManager, "org.postgresql.copy.CopyManager", "copyIn", String.class);
+    if (copyIn == null) {
+      return null;
+    }
+    PostgreSQLCopyWriter w = new PostgreSQLCopyWriter(conn, table, sources, columns, batchSize);
+    w.copyIn = invoke(copyIn, copyManager, w.copy);
+    String ci = "org.postgresql.copy.CopyIn";
+    w.writeToCopy = findMethod(w.copyIn, ci, "writeToCopy", byte[].class, int.class, int.class);
+    w.endCopy = findMethod(w.copyIn, ci, "endCopy");
+    w.isActive = findMethod(w.copyIn, ci, "isActive");
+    w.cancelCopy = findMethod(w.copyIn, ci, "cancelCopy");
+    return w;
+  }
+
+  @Override
+  public String getName() {
+    return "COPY FROM STDIN";
+  }
+
+  @Override
+  public String getStatement() {
+    return this.copy;
+  }
+
+  @Override
+  public void write(final Object[] values) throws SQLException {
+    for (int i = 0; i < this.sources.length; i++) {
+      if (i > 0) {
+        this.buffer.append(',');
+      }
+      Object v = values[i];
+      if (v == null) {
+        // an unquoted empty value is a null
+      } else if (v instanceof String) {
+        this.buffer.append('"').append(((String) v).replace("\"", "\"\"")).append('"');
+      } else if (v instanceof byte[]) {
+        this.buffer.append("\\x").append(renderText(i, v));
+      } else {
+        this.buffer.append(renderText(i, v));
+      }
+    }
+    this.buffer.append('\n');
+    this.currentBatch++;
+    if (this.currentBatch >= this.batchSize) {
+      flush();
+    }
+  }
+
+  private void flush() throws SQLException {
+    byte[] bytes = this.buffer.toString().getBytes(StandardCharsets.UTF_8);
+    invoke(this.writeToCopy, this.copyIn, bytes, 0, bytes.length);
+    this.buffer.setLength(0);
+    this.currentBatch = 0;
+  }
+
+  @Override
+  public void finish() throws SQLException {
+    if (this.currentBatch > 0) {
+      flush();
+    }
+    invoke(this.endCopy, this.copyIn);
+  }
+
+  // A COPY that did not finish is cancelled, so the connection can be used
+  // again
+
+  @Override
+  public void close() throws SQLException {
+    if ((Boolean) invoke(this.isActive, this.copyIn)) {
+      invoke(this.cancelCopy, this.copyIn);
+    }
+  }
+
+}
@@ -0,0 +1,43 @@
+package highfive.writers;
+
+import java.lang.reflect.Method;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.List;
+
+import highfive.model.Column;
+import highfive.model.TableWriter;
+
+// Loads the rows with SQL Server's bulk copy: the batches of inserts are sent
+// by the driver through its bulk copy API (SQLServerBulkCopy) instead of as
+// parameterized inserts (mssql-jdbc 9.2 and newer). The driver still runs the
+// inserts it cannot bulk copy.
+
+public class SQLServerBulkCopyWriter extends InsertWriter {
+
+  private SQLServerBulkCopyWriter(final Connection conn, final String table, final List<Column> sources,
+      final List<String> columns, final long batchSize) throws SQLException {
+    super(conn, table, sources, columns, batchSize, null, false);
+  }
+
+  // Returns null when the driver does not have the bulk copy for batches
+
+  public static TableWriter open(final Connection conn, final String table, final List<Column> sources,
+      final List<String> columns, final long batchSize) throws SQLException {
+    SQLServerBulkCopyWriter w = new SQLServerBulkCopyWriter(conn, table, sources, columns, batchSize);
+    Method m = findMethod(w.ps, "com.microsoft.sqlserver.jdbc.SQLServerPreparedStatement",
+        "setUseBulkCopyForBatchInsert", boolean.class);
+    if (m == null) {
+      w.close();
+      return null;
+    }
+    invoke(m, w.ps, true);
+    return w;
+  }
+
+  @Override
+  public String getName() {
+    return "bulk copy";
+  }
+
+}
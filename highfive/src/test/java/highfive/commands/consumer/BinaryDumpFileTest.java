@@ -0,0 +1,156 @@
+package highfive.commands.consumer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import highfive.commands.consumer.DumpFileReader.DumpFileIOException;
+import highfive.commands.consumer.DumpFileReader.DumpFileMetaData;
+import highfive.commands.consumer.DumpFileReader.DumpFileType;
+import highfive.commands.consumer.DumpFileReader.InvalidDumpFileException;
+import highfive.commands.consumer.DumpFileWriter.DumpFileFormat;
+import highfive.model.HashingMode;
+import highfive.utils.Utl;
+
+public class BinaryDumpFileTest {
+
+  // More than two blocks, with gaps between the row numbers
+
+  private static final int ROWS = BinaryDumpFileReader.BLOCK_ROWS * 2 + 100;
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  @Test
+  public void roundTrip() throws IOException, InvalidDumpFileException, DumpFileIOException {
+    long[] rows = rows();
+    byte[][] digests = digests(32, false);
+    File f = write(new DumpFileFormat("blake2b-256", HashingMode.CHAINED, true, 0),
+        new DumpFileMetaData("invoice", 5, 90000), rows, digests);
+
+    DumpFileReader r = DumpFileReader.open(f);
+    try {
+      assertTrue(r instanceof BinaryDumpFileReader);
+      DumpFileMetaData m = r.getMetadata();
+      assertEquals(DumpFileType.RANGED, m.getType());
+      assertEquals("invoice", m.getTable());
+      assertEquals(Long.valueOf(5), m.getStart());
+      assertEquals(Long.valueOf(90000), m.getEnd());
+      assertEquals("blake2b-256", m.getAlgorithm());
+      assertEquals(HashingMode.CHAINED, m.getMode());
+      assertEquals(32, r.getWidth());
+      assertTrue(r.atStart());
+      for (int i = 0; i < ROWS; i++) {
+        assertTrue(r.next());
+        assertEquals(rows[i], r.getRow());
+        assertEquals(Utl.toHex(digests[i]), r.getHash());
+        assertTrue(r.matches(digests[i]));
+      }
+      assertFalse(r.next());
+    } finally {
+      r.close();
+    }
+  }
+
+  // The digests are truncated to the width; random digests are stored
+  // without compression, repeated ones are deflated
+
+  @Test
+  public void truncatedDigests() throws IOException, InvalidDumpFileException, DumpFileIOException {
+    for (boolean repeated : new boolean[] { false, true }) {
+      long[] rows = rows();
+      byte[][] digests = digests(32, repeated);
+      DumpFileReader r = DumpFileReader
+          .open(write(new DumpFileFormat("sha-256", HashingMode.ORDERED, true, 8), new DumpFileMetaData("t"), rows,
+              digests));
+      try {
+        assertEquals(8, r.getWidth());
+        for (int i = 0; i < ROWS; i++) {
+          assertTrue(r.next());
+          assertEquals(rows[i], r.getRow());
+          assertEquals(Utl.toHex(Arrays.copyOf(digests[i], 8)), r.getHash());
+        }
+        assertFalse(r.next());
+      } finally {
+        r.close();
+      }
+    }
+  }
+
+  @Test
+  public void seek() throws IOException, InvalidDumpFileException, DumpFileIOException {
+    long[] rows = rows();
+    byte[][] digests = digests(16, false);
+    DumpFileReader r = DumpFileReader.open(write(new DumpFileFormat("xxh128", HashingMode.ORDERED, true, 0),
+        new DumpFileMetaData("t", 1, 3, 1), rows, digests));
+    try {
+      int i = ROWS / 2 + 3;
+      assertTrue(r.seek(rows[i - 1] + 1));
+      assertEquals(rows[i], r.getRow());
+      assertEquals(Utl.toHex(digests[i]), r.getHash());
+      assertTrue(r.seek(rows[i]));
+      assertEquals(rows[i], r.getRow());
+      assertTrue(r.seek(rows[ROWS - 1]));
+      assertEquals(Utl.toHex(digests[ROWS - 1]), r.getHash());
+      assertFalse(r.seek(rows[ROWS - 1] + 1));
+    } finally {
+      r.close();
+    }
+  }
+
+  @Test(expected = IOException.class)
+  public void rowsMustIncrease() throws IOException {
+    DumpFileWriter w = new BinaryDumpFileWriter(folder.newFile(), new DumpFileMetaData("t"), 0);
+    try {
+      w.write(5, new byte[32]);
+      w.write(5, new byte[32]);
+    } finally {
+      w.close();
+    }
+  }
+
+  private File write(final DumpFileFormat format, final DumpFileMetaData m, final long[] rows,
+      final byte[][] digests) throws IOException {
+    File f = folder.newFile();
+    try (DumpFileWriter w = format.open(f, m)) {
+      for (int i = 0; i < rows.length; i++) {
+        w.write(rows[i], digests[i]);
+      }
+    }
+    return f;
+  }
+
+  private static long[] rows() {
+    Random r = new Random(3);
+    long[] rows = new long[ROWS];
+    long row = 1;
+    for (int i = 0; i < ROWS; i++) {
+      rows[i] = row;
+      row += 1 + (r.nextInt(10) == 0 ? r.nextInt(100000) : 0);
+    }
+    return rows;
+  }
+
+  private static byte[][] digests(final int length, final boolean repeated) {
+    Random r = new Random(5);
+    byte[][] digests = new byte[ROWS][length];
+    for (int i = 0; i < ROWS; i++) {
+      if (repeated) {
+        Arrays.fill(digests[i], (byte) (i % 3));
+      } else {
+        r.nextBytes(digests[i]);
+      }
+    }
+    return digests;
+  }
+
+}
@@ -0,0 +1,131 @@
+package highfive.commands.consumer;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import highfive.commands.consumer.CheckpointJournal.Checkpoint;
+import highfive.commands.consumer.CheckpointJournal.Done;
+import highfive.commands.consumer.CheckpointJournal.Progress;
+import highfive.exceptions.InvalidHashFileException;
+import highfive.model.HashingMode;
+
+public class CheckpointJournalTest {
+
+  private static final byte[] STATE = { 0, 1, 2, (byte) 0xfe, (byte) 0xff };
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  private CheckpointJournal journal;
+
+  @Before
+  public void setUp() throws IOException {
+    this.journal = new CheckpointJournal(new File(folder.getRoot(), "db.hash").getPath());
+  }
+
+  @Test
+  public void roundTrip() throws IOException, InvalidHashFileException {
+    this.journal.open(false, HashingMode.UNORDERED, "xxh128");
+    this.journal.ranges("invoice", Arrays.asList("=100", "=200,=a%20b", null));
+    this.journal.chunk("invoice", 0, new Checkpoint(50, STATE, "=50"));
+    this.journal.done("invoice", 0, "abcd", true, 100);
+    this.journal.chunk("invoice", 1, new Checkpoint(30, STATE, "=130,=x"));
+    this.journal.chunk("client", null, new Checkpoint(10_000_000_000L, STATE, "=1,~"));
+    this.journal.done("product", null, "0123", false, 7);
+    this.journal.close();
+    assertTrue(this.journal.exists());
+
+    Progress p = this.journal.load(HashingMode.UNORDERED, "xxh128");
+    assertEquals(Arrays.asList("=100", "=200,=a%20b", null), p.getRanges("invoice"));
+    assertNull(p.getRanges("client"));
+
+    Done d = p.getDone("invoice", 0);
+    assertEquals("abcd", d.getHash());
+    assertTrue(d.isNonDeterministic());
+    assertEquals(100, d.getRowCount());
+    assertNull(p.getCheckpoint("invoice", 0));
+
+    Checkpoint c = p.getCheckpoint("invoice", 1);
+    assertEquals(30, c.getRowCount());
+    assertArrayEquals(STATE, c.getState());
+    assertEquals("=130,=x", c.getKey());
+
+    c = p.getCheckpoint("client", null);
+    assertEquals(10_000_000_000L, c.getRowCount());
+    assertEquals("=1,~", c.getKey());
+
+    d = p.getDone("product", null);
+    assertEquals("0123", d.getHash());
+    assertFalse(d.isNonDeterministic());
+    assertNull(p.getDone("product", 0));
+
+    this.journal.delete();
+    assertFalse(this.journal.exists());
+  }
+
+  // The last line may have been cut by an interruption
+
+  @Test
+  public void incompleteLastLine() throws IOException, InvalidHashFileException {
+    this.journal.open(false, HashingMode.ORDERED, "sha-256");
+    this.journal.done("t1", null, "aa", false, 3);
+    this.journal.close();
+    append("chunk - 12 00ff");
+
+    Progress p = this.journal.load(HashingMode.ORDERED, "sha-256");
+    assertEquals(3, p.getDone("t1", null).getRowCount());
+    assertNull(p.getCheckpoint("t2", null));
+  }
+
+  @Test(expected = InvalidHashFileException.class)
+  public void invalidLine() throws IOException, InvalidHashFileException {
+    this.journal.open(false, HashingMode.ORDERED, "sha-256");
+    this.journal.close();
+    append("chunk - 12 00ff =1 t1", "done - zz 3 t1", "done - aa 3 t2");
+    this.journal.load(HashingMode.ORDERED, "sha-256");
+  }
+
+  @Test(expected = InvalidHashFileException.class)
+  public void invalidKey() throws IOException, InvalidHashFileException {
+    this.journal.open(false, HashingMode.ORDERED, "sha-256");
+    this.journal.close();
+    append("chunk - 12 00ff 1 t1", "done - aa 3 t2");
+    this.journal.load(HashingMode.ORDERED, "sha-256");
+  }
+
+  @Test(expected = InvalidHashFileException.class)
+  public void differentAlgorithm() throws IOException, InvalidHashFileException {
+    this.journal.open(false, HashingMode.ORDERED, "sha-256");
+    this.journal.close();
+    this.journal.load(HashingMode.ORDERED, "xxh128");
+  }
+
+  @Test(expected = InvalidHashFileException.class)
+  public void differentMode() throws IOException, InvalidHashFileException {
+    this.journal.open(false, HashingMode.ORDERED, "sha-256");
+    this.journal.close();
+    this.journal.load(HashingMode.UNORDERED, "sha-256");
+  }
+
+  private void append(final String... lines) throws IOException {
+    List<String> l = Arrays.asList(lines);
+    Files.write(new File(this.journal.getFileName()).toPath(), l, StandardCharsets.UTF_8, StandardOpenOption.APPEND);
+  }
+
+}
@@ -0,0 +1,118 @@
+package highfive.commands.consumer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+
+import org.junit.Test;
+
+import highfive.dialects.PostgreSQLDialect;
+import highfive.model.Hasher;
+import highfive.model.HashingMode;
+import highfive.model.KeyPredicates;
+import highfive.model.RowKey;
+import highfive.model.RowOrdering;
+
+public class LockstepComparatorTest {
+
+  // Each row is { a, b, value }, the key being (a, b)
+
+  @Test
+  public void countPairsTheRowsByKey() throws Exception {
+    int[][] source = { { 1, 1, 0 }, { 1, 2, 0 }, { 2, 1, 0 }, { 3, 1, 0 }, { 3, 2, 0 } };
+    int[][] target = { { 1, 1, 0 }, { 2, 1, 0 }, { 2, 2, 0 }, { 3, 1, 9 }, { 3, 2, 0 }, { 4, 1, 0 } };
+    LockstepComparator c = compare(true, source, target);
+    assertFalse(c.isFailed());
+    assertEquals(4, c.getDifferences()); // (1, 2) missing, (2, 2) and (4, 1) extra, (3, 1) changed
+    assertEquals(2, c.getFirstDifference());
+    assertEquals("row #2 with key (1, 2) is missing in the target table", c.getFirstReason());
+    assertEquals(5, c.getSourceRows());
+    assertEquals(Long.valueOf(6), c.getTargetRows());
+  }
+
+  @Test
+  public void countMatchingTables() throws Exception {
+    int[][] rows = { { 1, 1, 0 }, { 1, 1, 0 }, { 2, 1, 5 } };
+    LockstepComparator c = compare(true, rows, rows);
+    assertFalse(c.isFailed());
+    assertEquals(0, c.getDifferences());
+    assertEquals(-1, c.getFirstDifference());
+  }
+
+  @Test
+  public void stopsAtTheFirstDifferentRow() throws Exception {
+    int[][] source = { { 1, 1, 0 }, { 1, 2, 0 }, { 2, 1, 0 } };
+    int[][] target = { { 1, 1, 0 }, { 2, 1, 0 } };
+    LockstepComparator c = compare(false, source, target);
+    assertEquals(1, c.getDifferences());
+    assertEquals("row #2 has different values", c.getFirstReason());
+  }
+
+  // A side that does not return the rows in the order of the key, e.g. with a
+  // non binary collation, fails the comparison
+
+  @Test
+  public void targetOutOfOrder() throws Exception {
+    int[][] source = { { 1, 1, 0 }, { 2, 1, 0 }, { 3, 1, 0 } };
+    int[][] target = { { 1, 1, 0 }, { 3, 1, 0 }, { 2, 1, 0 } };
+    LockstepComparator c = compare(true, source, target);
+    assertTrue(c.isFailed());
+    assertEquals("the target database sorts the key (2, 1) after the key (3, 1)", c.getOrderingError());
+  }
+
+  @Test
+  public void sourceOutOfOrder() throws Exception {
+    int[][] source = { { 2, 1, 0 }, { 1, 1, 0 } };
+    int[][] target = { { 1, 1, 0 }, { 2, 1, 0 } };
+    LockstepComparator c = compare(true, source, target);
+    assertTrue(c.isFailed());
+    assertEquals("the source database sorts the key (1, 1) after the key (2, 1)", c.getOrderingError());
+  }
+
+  @Test
+  public void positionalWithoutCount() throws Exception {
+    int[][] rows = { { 1, 1, 0 } };
+    LockstepComparator c = compare(false, rows, rows);
+    assertFalse(c.needsRowKeys());
+    assertNull(c.getOrderingError());
+    assertEquals(0, c.getDifferences());
+  }
+
+  private static LockstepComparator compare(final boolean countAll, final int[][] source, final int[][] target)
+      throws Exception {
+    RowOrdering o = KeyPredicates.ordering(new PostgreSQLDialect(null, null), true, null, null);
+    LockstepComparator c = new LockstepComparator(countAll, o);
+    Thread t = new Thread(() -> {
+      try {
+        feed(c.getFeeder(), target);
+      } catch (Exception e) {
+        c.getFeeder().end(false, true, 0);
+      }
+    });
+    t.start();
+    feed(c, source);
+    t.join();
+    return c;
+  }
+
+  private static void feed(final HashConsumer consumer, final int[][] rows) throws Exception {
+    Hasher h = new Hasher(HashingMode.CHAINED);
+    long row = 0;
+    for (int[] r : rows) {
+      row++;
+      h.apply(("" + r[0] + "," + r[1] + "," + r[2]).getBytes(StandardCharsets.UTF_8));
+      h.endRow();
+      if (consumer.needsRowKeys()) {
+        consumer.consumeRowKey(row, new RowKey(new Object[] { r[0], r[1] }));
+      }
+      if (!consumer.consumeRow(row, h)) {
+        break;
+      }
+    }
+    consumer.consumeTable("t", false, false, row);
+  }
+
+}
@@ -0,0 +1,96 @@
+package highfive.digests;
+
+import static org.junit.Assert.assertEquals;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import org.junit.Test;
+
+import highfive.model.Digest;
+import highfive.utils.Utl;
+
+public class DigestVectorsTest {
+
+  // XXH3 128-bit, seed 0: the sanity check vectors of the reference
+  // implementation (xxhsum), on its generated buffer
+
+  private static final Object[][] XXH128 = { //
+      { 0, "99aa06d3014798d86001c324468d497f" }, //
+      { 1, "a6cd5e9392000f6ac44bdff4074eecdb" }, //
+      { 6, "9694e719a50d5bbab3670d4e3433079c" }, //
+      { 12, "f0d757519daa69f3ac713755e669b3aa" }, //
+      { 24, "38b743e62d36c245e0cd03a55c67fb66" }, //
+      { 48, "902509d02be4612138c21d9ab227c26d" }, //
+      { 81, "d5fddd61807d22084bab2c1e4bf338b7" }, //
+      { 222, "ea0841ae8af2731164769720b0bd6eb1" }, //
+      { 403, "21a8a2f2d52dcdb88f23b428730c6887" }, //
+      { 512, "3abf5ea6711e29682670a49459b231da" }, //
+      { 2048, "4d222afea62ca9448c9a8e3f25d392d6" }, //
+      { 2240, "b14de1856769c469644826e2b5fafeae" }, //
+      { 2367, "fe8465c7bb2ec02cd4771b3a18e7f2fe" } };
+
+  // BLAKE2b with a 32-byte output and no key, on the bytes 0, 1, ..., 255, 0,
+  // 1, ... (as the RFC 7693 test inputs), across the block boundaries
+
+  private static final Object[][] BLAKE2B_256 = { //
+      { 0, "0e5751c026e543b2e8ab2eb06099daa1d1e5df47778f7787faab45cdf12fe3a8" }, //
+      { 1, "03170a2e7597b7b7e3d84c05391d139a62b157e78786d8c082f29dcf4c111314" }, //
+      { 3, "3d8c3d594928271f44aad7a04b177154806867bcf918e1549c0bc16f9da2b09b" }, //
+      { 127, "f2fe67ff342e21b8f45e8f2e0bcd1d9243245d50ee6c78042e9c491388791c72" }, //
+      { 128, "c3582f71ebb2be66fa5dd750f80baae97554f3b015663c8be377cfcb2488c1d1" }, //
+      { 129, "f7f3c46ba2564ff4c4c162da1f5b605f9f1c4aa6a20652a9f9a337c1a2f5b9c9" }, //
+      { 256, "39a7eb9fedc19aabc83425c6755dd90e6f9d0c804964a1f4aaeea3b9fb599835" }, //
+      { 1000, "c636324d47d89f2b2434dc2c994100663fbbaea880ff020fc5de89dd0f77a1ec" } };
+
+  @Test
+  public void xxh128() {
+    byte[] buffer = new byte[2367];
+    long generator = 2654435761L;
+    for (int i = 0; i < buffer.length; i++) {
+      buffer[i] = (byte) (generator >>> 56);
+      generator *= 0x9E3779B185EBCA87L;
+    }
+    assertVectors("xxh128", buffer, XXH128);
+  }
+
+  @Test
+  public void blake2b256() {
+    byte[] buffer = new byte[1000];
+    for (int i = 0; i < buffer.length; i++) {
+      buffer[i] = (byte) i;
+    }
+    assertVectors("blake2b-256", buffer, BLAKE2B_256);
+    assertEquals("bddd813c634239723171ef3fee98579b94964e3bb1cb3e427262c8c068d52319",
+        Utl.toHex(digest(Digest.find("blake2b-256"), "abc".getBytes(StandardCharsets.UTF_8), 3)));
+  }
+
+  // Each input is digested at once, in pieces of several sizes, and resuming
+  // from the state saved halfway
+
+  private static void assertVectors(final String algorithm, final byte[] buffer, final Object[][] vectors) {
+    for (Object[] v : vectors) {
+      int length = (Integer) v[0];
+      String expected = (String) v[1];
+      byte[] input = Arrays.copyOf(buffer, length);
+      for (int piece : new int[] { length == 0 ? 1 : length, 1, 7, 64, 200 }) {
+        assertEquals(algorithm + " of " + length + " bytes, in pieces of " + piece, expected,
+            Utl.toHex(digest(Digest.find(algorithm), input, piece)));
+      }
+      Digest d = Digest.findResumable(algorithm);
+      d.update(input, 0, length / 2);
+      Digest resumed = Digest.findResumable(algorithm);
+      resumed.restoreState(d.saveState());
+      resumed.update(input, length / 2, length - length / 2);
+      assertEquals(algorithm + " of " + length + " bytes, resumed", expected, Utl.toHex(resumed.digest()));
+    }
+  }
+
+  private static byte[] digest(final Digest d, final byte[] input, final int piece) {
+    for (int offset = 0; offset < input.length; offset += piece) {
+      d.update(input, offset, Math.min(piece, input.length - offset));
+    }
+    return d.digest();
+  }
+
+}
@@ -0,0 +1,67 @@
+package highfive.model;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class ByteSinkTest {
+
+  @Test
+  public void writeUTF8MatchesGetBytes() {
+    String[] texts = { "", "abc", "año", "€ 100", "😀 smile", "\uD800", "x\uDC00y", "\uDBFF\uDFFF",
+        "tail \uD83D" };
+    for (String t : texts) {
+      assertUTF8(t);
+    }
+  }
+
+  @Test
+  public void writeUTF8MatchesGetBytesOnRandomTexts() {
+    Random r = new Random(1);
+    for (int i = 0; i < 2000; i++) {
+      char[] chars = new char[r.nextInt(300)];
+      for (int j = 0; j < chars.length; j++) {
+        switch (r.nextInt(4)) {
+        case 0:
+          chars[j] = (char) r.nextInt(0x80);
+          break;
+        case 1:
+          chars[j] = (char) r.nextInt(0x800);
+          break;
+        case 2:
+          chars[j] = (char) (0xD800 + r.nextInt(0x800));
+          break;
+        default:
+          chars[j] = (char) r.nextInt(0x10000);
+        }
+      }
+      assertUTF8(new String(chars));
+    }
+  }
+
+  // A small sink grows while writing, and keeps the bytes written before
+
+  @Test
+  public void writeUTF8Appends() {
+    ByteSink s = new ByteSink(2);
+    s.writeInt(7);
+    s.writeUTF8("été 😀");
+    byte[] text = "été 😀".getBytes(StandardCharsets.UTF_8);
+    assertEquals(4 + text.length, s.size());
+    byte[] all = s.toByteArray();
+    assertArrayEquals(new byte[] { 0, 0, 0, 7 }, Arrays.copyOf(all, 4));
+    assertArrayEquals(text, Arrays.copyOfRange(all, 4, all.length));
+  }
+
+  private static void assertUTF8(final String text) {
+    ByteSink s = new ByteSink(1);
+    s.writeUTF8(text);
+    assertArrayEquals(text, text.getBytes(StandardCharsets.UTF_8), s.toByteArray());
+  }
+
+}
@@ -0,0 +1,120 @@
+package highfive.model;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import highfive.exceptions.InvalidHashFileException;
+
+public class HashFileTest {
+
+  private static final String H1 = "0123456789abcdef0123456789abcdef";
+  private static final String H2 = "fedcba9876543210fedcba9876543210";
+  private static final String H3 = "00000000000000000000000000000001";
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  @Test
+  public void version2RoundTrip() throws IOException, InvalidHashFileException {
+    HashFile hf = new HashFile();
+    hf.setMode(HashingMode.UNORDERED);
+    hf.setAlgorithm("xxh128");
+    hf.add(H1, false, false, 1200, "client");
+    hf.add("invoice", new TableHash(H2, true, false, 300, Arrays.asList( //
+        new RangeHash(H3, false, false, 100, "=100,=a%20b"), //
+        new RangeHash(H1, true, true, 200, null))));
+    hf.add(H3, false, true, 0, "empty_table");
+
+    String file = folder.newFile("v2.hash").getPath();
+    hf.saveTo(file);
+    List<String> lines = Files.readAllLines(new File(file).toPath(), StandardCharsets.UTF_8);
+    assertEquals("# highfive-hash version=2 mode=unordered algorithm=xxh128", lines.get(0));
+    assertEquals("  " + H3 + " 100 =100,=a%20b", lines.get(3));
+
+    HashFile loaded = HashFile.loadFrom(file);
+    assertEquals(HashingMode.UNORDERED, loaded.getMode());
+    assertEquals("xxh128", loaded.getAlgorithm());
+    assertTableHash(H1, false, false, 1200, loaded.get("client"));
+    assertFalse(loaded.get("client").isPartitioned());
+    assertTableHash(H3, false, true, 0, loaded.get("empty_table"));
+
+    TableHash invoice = loaded.get("invoice");
+    assertTableHash(H2, true, false, 300, invoice);
+    assertTrue(invoice.isPartitioned());
+    assertEquals(2, invoice.getRanges().size());
+    RangeHash r1 = invoice.getRanges().get(0);
+    assertEquals(H3, r1.getHash());
+    assertEquals(100, r1.getRowCount());
+    assertEquals("=100,=a%20b", r1.getUpTo());
+    RangeHash r2 = invoice.getRanges().get(1);
+    assertEquals(H1, r2.getHash());
+    assertTrue(r2.isNonDeterministic());
+    assertTrue(r2.isFailed());
+    assertNull(r2.getUpTo());
+  }
+
+  // The default options, without key ranges, are still written as version 1
+
+  @Test
+  public void version1RoundTrip() throws IOException, InvalidHashFileException {
+    String hash = H1 + H2;
+    HashFile hf = new HashFile();
+    hf.add(hash, true, false, 5, "t1");
+    String file = folder.newFile("v1.hash").getPath();
+    hf.saveTo(file);
+    assertEquals(Arrays.asList(hash + "* 5 t1"), Files.readAllLines(new File(file).toPath(), StandardCharsets.UTF_8));
+
+    HashFile loaded = HashFile.loadFrom(file);
+    assertEquals(HashingMode.ORDERED, loaded.getMode());
+    assertEquals(Digest.DEFAULT, loaded.getAlgorithm());
+    assertTableHash(hash, true, false, 5, loaded.get("t1"));
+  }
+
+  @Test(expected = InvalidHashFileException.class)
+  public void rangesMustReachTheEnd() throws IOException, InvalidHashFileException {
+    load("# highfive-hash version=2 algorithm=xxh128", H1 + " 10 t1", "  " + H2 + " 10 =5");
+  }
+
+  @Test(expected = InvalidHashFileException.class)
+  public void invalidKey() throws IOException, InvalidHashFileException {
+    load("# highfive-hash version=2 algorithm=xxh128", H1 + " 10 t1", "  " + H2 + " 10 5", "  " + H3 + " 10");
+  }
+
+  @Test(expected = InvalidHashFileException.class)
+  public void hashLengthMustMatchTheAlgorithm() throws IOException, InvalidHashFileException {
+    load("# highfive-hash version=2 algorithm=xxh128", H1 + H2 + " 10 t1");
+  }
+
+  @Test(expected = InvalidHashFileException.class)
+  public void unsupportedVersion() throws IOException, InvalidHashFileException {
+    load("# highfive-hash version=3", H1 + H2 + " 10 t1");
+  }
+
+  private HashFile load(final String... lines) throws IOException, InvalidHashFileException {
+    File f = folder.newFile();
+    Files.write(f.toPath(), Arrays.asList(lines), StandardCharsets.UTF_8);
+    return HashFile.loadFrom(f.getPath());
+  }
+
+  private static void assertTableHash(final String hash, final boolean nonDeterministic, final boolean failed,
+      final long rowCount, final TableHash h) {
+    assertEquals(hash, h.getHash());
+    assertEquals(nonDeterministic, h.isNonDeterministic());
+    assertEquals(failed, h.isFailed());
+    assertEquals(rowCount, h.getRowCount());
+  }
+
+}
@@ -0,0 +1,98 @@
+package highfive.model;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertFalse;
+
+import java.nio.charset.StandardCharsets;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class HasherTest {
+
+  private static final int ROWS = 50;
+
+  // A hasher restored from the state saved after any row ends with the same
+  // hash as the hasher that read all the rows
+
+  @Test
+  public void unorderedStateRoundTrip() throws NoSuchAlgorithmException {
+    assertStateRoundTrip(HashingMode.UNORDERED);
+  }
+
+  @Test
+  public void chainedStateRoundTrip() throws NoSuchAlgorithmException {
+    assertStateRoundTrip(HashingMode.CHAINED);
+  }
+
+  @Test
+  public void orderedStateRoundTrip() throws NoSuchAlgorithmException {
+    assertStateRoundTrip(HashingMode.ORDERED);
+  }
+
+  @Test
+  public void unorderedIgnoresTheRowOrder() throws NoSuchAlgorithmException {
+    for (String algorithm : Digest.getNames()) {
+      List<byte[][]> rows = rows();
+      byte[] expected = hash(HashingMode.UNORDERED, algorithm, rows);
+      Collections.shuffle(rows, new Random(7));
+      assertArrayEquals(algorithm, expected, hash(HashingMode.UNORDERED, algorithm, rows));
+    }
+  }
+
+  @Test
+  public void chainedDependsOnTheRowOrder() throws NoSuchAlgorithmException {
+    for (String algorithm : Digest.getNames()) {
+      List<byte[][]> rows = rows();
+      byte[] expected = hash(HashingMode.CHAINED, algorithm, rows);
+      Collections.swap(rows, 3, 4);
+      assertFalse(algorithm, Arrays.equals(expected, hash(HashingMode.CHAINED, algorithm, rows)));
+    }
+  }
+
+  private static void assertStateRoundTrip(final HashingMode mode) throws NoSuchAlgorithmException {
+    List<byte[][]> rows = rows();
+    for (String algorithm : Digest.getNames()) {
+      byte[] expected = hash(mode, algorithm, rows);
+      for (int stop : new int[] { 0, 1, ROWS / 2, ROWS }) {
+        Hasher h = new Hasher(mode, algorithm, true);
+        apply(h, rows.subList(0, stop));
+        byte[] state = h.saveState();
+        Hasher resumed = new Hasher(mode, algorithm, true);
+        resumed.restoreState(state);
+        apply(resumed, rows.subList(stop, ROWS));
+        assertArrayEquals(mode.getName() + " " + algorithm + " after row " + stop, expected, resumed.close());
+      }
+    }
+  }
+
+  private static byte[] hash(final HashingMode mode, final String algorithm, final List<byte[][]> rows)
+      throws NoSuchAlgorithmException {
+    Hasher h = new Hasher(mode, algorithm);
+    apply(h, rows);
+    return h.close();
+  }
+
+  private static void apply(final Hasher h, final List<byte[][]> rows) {
+    for (byte[][] row : rows) {
+      for (byte[] v : row) {
+        h.apply(v);
+      }
+      h.endRow();
+    }
+  }
+
+  private static List<byte[][]> rows() {
+    List<byte[][]> rows = new ArrayList<>();
+    for (int i = 0; i < ROWS; i++) {
+      rows.add(new byte[][] { ("" + i).getBytes(StandardCharsets.UTF_8), i % 5 == 0 ? null : new byte[i * 7] });
+    }
+    return rows;
+  }
+
+}
@@ -0,0 +1,228 @@
+package highfive.model;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import highfive.exceptions.CouldNotHashException;
+import highfive.serializers.IntegerSerializer;
+
+// Orderings on the integer columns a and b, their keys, and an evaluator of
+// the key range predicates on a row, with the three-valued logic of SQL: a
+// comparison with a null is unknown, and only a true predicate matches
+
+public class KeyPredicates {
+
+  private static final Pattern TOKEN = Pattern.compile("\\s*(<=|>=|[(),<>=?]|[0-9]+|[A-Za-z_]+|`[^`]+`|\"[^\"]+\")");
+
+  private List<String> tokens;
+  private int pos;
+  private List<Object> params;
+  private int param;
+  private Object[] row;
+
+  private KeyPredicates(final String sql, final List<Object> params, final Object[] row) {
+    this.tokens = new ArrayList<>();
+    Matcher m = TOKEN.matcher(sql);
+    int end = 0;
+    while (m.lookingAt()) {
+      this.tokens.add(m.group(1));
+      end = m.end();
+      m.region(end, sql.length());
+    }
+    assertEquals("unexpected text in: " + sql, sql.length(), end);
+    this.pos = 0;
+    this.params = params;
+    this.param = 0;
+    this.row = row;
+  }
+
+  // The members are ascending unless listed in descending, and sort the nulls
+  // as the dialect does unless listed in nullsFirst
+
+  public static RowOrdering ordering(final Dialect dialect, final boolean primaryKey, final boolean[] descending,
+      final Boolean[] nullsFirst) throws CouldNotHashException {
+    List<Column> columns = new ArrayList<>();
+    List<RowOrdering.Member> members = new ArrayList<>();
+    for (int i = 0; i < 2; i++) {
+      Column c = new Column(i == 0 ? "a" : "b", "integer", null, null, null, "integer", primaryKey ? i + 1 : null,
+          new IntegerSerializer());
+      columns.add(c);
+      members.add(new RowOrdering.Member(c, i + 1, descending == null || !descending[i],
+          nullsFirst == null ? null : nullsFirst[i]));
+    }
+    Table t = new Table(new Identifier("t", null, dialect), columns);
+    return RowOrdering.of(dialect, null, t, members, primaryKey);
+  }
+
+  // All the keys of 1..3 and, when nullable, null
+
+  static List<RowKey> keys(final boolean nullable) {
+    List<Object> values = new ArrayList<>();
+    if (nullable) {
+      values.add(null);
+    }
+    for (int v = 1; v <= 3; v++) {
+      values.add(v);
+    }
+    List<RowKey> keys = new ArrayList<>();
+    for (Object a : values) {
+      for (Object b : values) {
+        keys.add(new RowKey(new Object[] { a, b }));
+      }
+    }
+    return keys;
+  }
+
+  static boolean matches(final RowOrdering ordering, final KeyRange range, final RowKey row) {
+    List<Object> params = new ArrayList<>();
+    String sql = ordering.renderRange(range, params);
+    if (sql == null) {
+      return true;
+    }
+    KeyPredicates p = new KeyPredicates(sql, params, row.getValues());
+    Boolean result = p.parseOr();
+    assertEquals("trailing tokens in: " + sql, p.tokens.size(), p.pos);
+    assertEquals("unbound parameters in: " + sql, params.size(), p.param);
+    return Boolean.TRUE.equals(result);
+  }
+
+  static boolean inRange(final RowOrdering ordering, final KeyRange range, final RowKey row) {
+    return (range.getAfter() == null || ordering.compare(range.getAfter(), row) < 0)
+        && (range.getUpTo() == null || ordering.compare(row, range.getUpTo()) <= 0);
+  }
+
+  private Boolean parseOr() {
+    Boolean v = parseAnd();
+    while (peek("or")) {
+      this.pos++;
+      v = or(v, parseAnd());
+    }
+    return v;
+  }
+
+  private Boolean parseAnd() {
+    Boolean v = parseAtom();
+    while (peek("and")) {
+      this.pos++;
+      v = and(v, parseAtom());
+    }
+    return v;
+  }
+
+  private Boolean parseAtom() {
+    if (peek("(")) {
+      if (this.tokens.get(this.pos + 2).equals(",")) {
+        return parseRowValueComparison();
+      }
+      this.pos++;
+      Boolean v = parseOr();
+      expect(")");
+      return v;
+    }
+    Object left = parseOperand();
+    if (peek("is")) {
+      this.pos++;
+      boolean not = peek("not");
+      if (not) {
+        this.pos++;
+      }
+      expect("null");
+      return (left == null) != not;
+    }
+    String op = this.tokens.get(this.pos++);
+    return compare(left, op, parseOperand());
+  }
+
+  // (x1, x2) > (y1, y2) is x1 > y1 or (x1 = y1 and x2 > y2); <= is the
+  // negation of >
+
+  private Boolean parseRowValueComparison() {
+    List<Object> left = parseList();
+    String op = this.tokens.get(this.pos++);
+    List<Object> right = parseList();
+    Boolean greater = false;
+    Boolean equal = true;
+    for (int i = 0; i < left.size(); i++) {
+      greater = or(greater, and(equal, compare(left.get(i), ">", right.get(i))));
+      equal = and(equal, compare(left.get(i), "=", right.get(i)));
+    }
+    if (op.equals(">")) {
+      return greater;
+    }
+    assertEquals("<=", op);
+    return greater == null ? null : !greater;
+  }
+
+  private List<Object> parseList() {
+    List<Object> values = new ArrayList<>();
+    expect("(");
+    values.add(parseOperand());
+    while (peek(",")) {
+      this.pos++;
+      values.add(parseOperand());
+    }
+    expect(")");
+    return values;
+  }
+
+  private Object parseOperand() {
+    String t = this.tokens.get(this.pos++);
+    if (t.equals("?")) {
+      return this.params.get(this.param++);
+    }
+    if (Character.isDigit(t.charAt(0))) {
+      return Integer.valueOf(t);
+    }
+    String name = t.replaceAll("[`\"]", "").toLowerCase();
+    assertEquals("unknown column " + t, 1, name.length());
+    return this.row[name.charAt(0) - 'a'];
+  }
+
+  private static Boolean compare(final Object x, final String op, final Object y) {
+    if (x == null || y == null) {
+      return null;
+    }
+    int c = ((Integer) x).compareTo((Integer) y);
+    switch (op) {
+    case "=":
+      return c == 0;
+    case "<":
+      return c < 0;
+    case ">":
+      return c > 0;
+    case "<=":
+      return c <= 0;
+    case ">=":
+      return c >= 0;
+    default:
+      throw new AssertionError("unknown operator " + op);
+    }
+  }
+
+  private static Boolean and(final Boolean x, final Boolean y) {
+    if (Boolean.FALSE.equals(x) || Boolean.FALSE.equals(y)) {
+      return false;
+    }
+    return x == null || y == null ? null : true;
+  }
+
+  private static Boolean or(final Boolean x, final Boolean y) {
+    if (Boolean.TRUE.equals(x) || Boolean.TRUE.equals(y)) {
+      return true;
+    }
+    return x == null || y == null ? null : false;
+  }
+
+  private boolean peek(final String token) {
+    return this.pos < this.tokens.size() && this.tokens.get(this.pos).equalsIgnoreCase(token);
+  }
+
+  private void expect(final String token) {
+    assertEquals(token, this.tokens.get(this.pos++).toLowerCase());
+  }
+
+}
@@ -0,0 +1,86 @@
+package highfive.model;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+import highfive.dialects.OracleDialect;
+import highfive.dialects.PostgreSQLDialect;
+import highfive.dialects.SQLServerDialect;
+import highfive.exceptions.CouldNotHashException;
+
+public class KeyRangeTest {
+
+  @Test
+  public void noBoundaries() {
+    List<KeyRange> ranges = KeyRange.split(new ArrayList<>());
+    assertEquals(1, ranges.size());
+    assertNull(ranges.get(0).getAfter());
+    assertNull(ranges.get(0).getUpTo());
+    assertEquals(1, ranges.get(0).getCount());
+  }
+
+  // The ranges are numbered, unbounded at both ends, and each one starts at
+  // the boundary where the previous one ends
+
+  @Test
+  public void adjacentRanges() {
+    List<RowKey> boundaries = Arrays.asList(key(1, 1), key(2, 2), key(3, 3));
+    List<KeyRange> ranges = KeyRange.split(boundaries);
+    assertEquals(4, ranges.size());
+    assertNull(ranges.get(0).getAfter());
+    assertNull(ranges.get(3).getUpTo());
+    for (int i = 0; i < ranges.size(); i++) {
+      assertEquals(i, ranges.get(i).getIndex());
+      assertEquals(4, ranges.get(i).getCount());
+      if (i > 0) {
+        assertSame(ranges.get(i - 1).getUpTo(), ranges.get(i).getAfter());
+      }
+    }
+  }
+
+  // Every row falls in exactly one range, with the rendered predicates, for
+  // any boundaries taken from the rows, nulls included
+
+  @Test
+  public void rangesCoverTheKeySpaceWithoutOverlap() throws CouldNotHashException {
+    Dialect[] dialects = { new PostgreSQLDialect(null, null), new OracleDialect(null, null),
+        new SQLServerDialect(null, null) };
+    for (Dialect d : dialects) {
+      assertPartition(KeyPredicates.ordering(d, true, null, null), KeyPredicates.keys(false));
+      assertPartition(KeyPredicates.ordering(d, false, new boolean[] { true, false }, null), KeyPredicates.keys(true));
+    }
+  }
+
+  private static void assertPartition(final RowOrdering o, final List<RowKey> keys) {
+    List<RowKey> sorted = new ArrayList<>(keys);
+    sorted.sort(o::compare);
+    for (int step = 1; step <= 5; step++) {
+      List<RowKey> boundaries = new ArrayList<>();
+      for (int i = step - 1; i < sorted.size(); i += step) {
+        boundaries.add(sorted.get(i));
+      }
+      List<KeyRange> ranges = KeyRange.split(boundaries);
+      for (RowKey row : keys) {
+        int matches = 0;
+        for (KeyRange r : ranges) {
+          if (KeyPredicates.matches(o, r, row)) {
+            matches++;
+          }
+        }
+        assertEquals(Arrays.toString(row.getValues()) + " with boundaries every " + step + " rows", 1, matches);
+      }
+    }
+  }
+
+  private static RowKey key(final Integer a, final Integer b) {
+    return new RowKey(new Object[] { a, b });
+  }
+
+}
@@ -0,0 +1,76 @@
+package highfive.model;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+import highfive.exceptions.InvalidHashFileException;
+import highfive.serializers.BigDecimalSerializer;
+import highfive.serializers.IntegerSerializer;
+import highfive.serializers.LocalDateTimeSerializer;
+import highfive.serializers.StringSerializer;
+
+public class RowKeyTest {
+
+  private static final List<Serializer<?>> SERIALIZERS = Arrays.asList(new IntegerSerializer(),
+      new StringSerializer(), new BigDecimalSerializer(), new LocalDateTimeSerializer());
+
+  @Test
+  public void encode() {
+    RowKey k = new RowKey(new Object[] { 12, "New York", null, LocalDateTime.of(2024, 2, 29, 10, 5, 1, 5000) });
+    assertEquals("=12,=New%20York,~,=2024-02-29T10:05:01.000005", k.encode(SERIALIZERS));
+  }
+
+  @Test
+  public void roundTrip() throws InvalidHashFileException {
+    Object[][] keys = { //
+        { 0, "", new BigDecimal("0.00"), LocalDateTime.of(1, 1, 1, 0, 0) }, //
+        { -7, "a,b=c%d~e", new BigDecimal("-1E+3"), null }, //
+        { null, "tab\tnew line\n año 😀", null, LocalDateTime.of(9999, 12, 31, 23, 59, 59, 999999999) }, //
+        { Integer.MAX_VALUE, "~", new BigDecimal("123456789012345678901234567890.123"), null } };
+    for (Object[] values : keys) {
+      String encoded = new RowKey(values).encode(SERIALIZERS);
+      assertFalse(encoded, encoded.contains(" "));
+      assertTrue(RowKey.isValid(encoded));
+      assertArrayEquals(values, RowKey.decode(encoded, SERIALIZERS).getValues());
+    }
+  }
+
+  @Test(expected = InvalidHashFileException.class)
+  public void decodeWrongValueCount() throws InvalidHashFileException {
+    RowKey.decode("=1,=a", SERIALIZERS);
+  }
+
+  @Test(expected = InvalidHashFileException.class)
+  public void decodeInvalidValue() throws InvalidHashFileException {
+    RowKey.decode("=x,=a,~,~", SERIALIZERS);
+  }
+
+  @Test
+  public void invalidKeys() {
+    assertFalse(RowKey.isValid("12"));
+    assertFalse(RowKey.isValid("=1,"));
+    assertFalse(RowKey.isValid("=%4"));
+  }
+
+  @Test
+  public void render() {
+    assertEquals("(12, New York, null)", RowKey.render("=12,=New%20York,~"));
+    assertEquals("(end of table)", RowKey.render(null));
+  }
+
+  @Test
+  public void textsRoundTrip() throws InvalidHashFileException {
+    List<String> texts = Arrays.asList("a", null, "", "x,y", RowKey.encodeTexts(Arrays.asList("k1", "k 2")));
+    assertEquals(texts, RowKey.decodeTexts(RowKey.encodeTexts(texts)));
+  }
+
+}
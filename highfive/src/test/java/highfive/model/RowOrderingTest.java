@@ -0,0 +1,208 @@
+package highfive.model;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+import highfive.dialects.DB2Dialect;
+import highfive.dialects.MariaDBDialect;
+import highfive.dialects.MySQLDialect;
+import highfive.dialects.OracleDialect;
+import highfive.dialects.PostgreSQLDialect;
+import highfive.dialects.SQLServerDialect;
+import highfive.exceptions.CouldNotHashException;
+import highfive.serializers.StringSerializer;
+
+public class RowOrderingTest {
+
+  private static final Dialect[] DIALECTS = { new PostgreSQLDialect(null, null), new OracleDialect(null, null),
+      new DB2Dialect(null, null), new MySQLDialect(null, null), new MariaDBDialect(null, null),
+      new SQLServerDialect(null, null) };
+
+  private static final Dialect POSTGRESQL = DIALECTS[0];
+  private static final Dialect ORACLE = DIALECTS[1];
+  private static final Dialect MYSQL = DIALECTS[3];
+
+  private static final boolean[] ASC_DESC = { false, true };
+  private static final boolean[] DESC_ASC = { true, false };
+
+  // Primary keys use a row value comparison where the database supports it
+
+  @Test
+  public void rowValueComparison() throws CouldNotHashException {
+    RowOrdering o = KeyPredicates.ordering(POSTGRESQL, true, null, null);
+    List<Object> params = new ArrayList<>();
+    assertEquals("(a, b) > (?, ?) and (a, b) <= (?, ?)", o.renderRange(range(key(1, 2), key(3, 4)), params));
+    assertEquals(Arrays.asList(1, 2, 3, 4), params);
+  }
+
+  @Test
+  public void rowValueComparisonEmulation() throws CouldNotHashException {
+    RowOrdering o = KeyPredicates.ordering(ORACLE, true, null, null);
+    List<Object> params = new ArrayList<>();
+    assertEquals("((\"a\" > ?) or (\"a\" = ? and \"b\" > ?))", o.renderRange(range(key(1, 2), null), params));
+    assertEquals(Arrays.asList(1, 1, 2), params);
+
+    params.clear();
+    assertEquals("((\"a\" < ?) or (\"a\" = ? and \"b\" < ?) or (\"a\" = ? and \"b\" = ?))",
+        o.renderRange(range(null, key(3, 4)), params));
+    assertEquals(Arrays.asList(3, 3, 4, 3, 4), params);
+  }
+
+  // A descending member with a null bound; PostgreSQL sorts the nulls high, so
+  // first in a descending member
+
+  @Test
+  public void nullBoundOnADescendingMember() throws CouldNotHashException {
+    RowOrdering o = KeyPredicates.ordering(POSTGRESQL, false, DESC_ASC, null);
+    List<Object> params = new ArrayList<>();
+    assertEquals("((a is not null) or (a is null and (b > ? or b is null)))",
+        o.renderRange(range(key(null, 2), null), params));
+    assertEquals(Arrays.asList(2), params);
+
+    params.clear();
+    assertEquals("(((a > ? or a is null)) or (a = ? and b < ?) or (a = ? and b = ?))",
+        o.renderRange(range(null, key(5, 6)), params));
+    assertEquals(Arrays.asList(5, 5, 6, 5, 6), params);
+  }
+
+  @Test
+  public void collatedParameters() throws CouldNotHashException {
+    Dialect db2 = DIALECTS[2];
+    Column c = new Column("S", "varchar", null, null, null, "varchar", 1, new StringSerializer());
+    Table t = new Table(new Identifier("T", null, db2), Arrays.asList(c));
+    RowOrdering o = RowOrdering.of(db2, "UCA", t, Arrays.asList(new RowOrdering.Member(c, 1, true, null)), true);
+    List<Object> params = new ArrayList<>();
+    assertEquals("(COLLATION_KEY_BIT(S, 'UCA') > COLLATION_KEY_BIT(cast(? as varchar(32672)), 'UCA'))",
+        o.renderRange(range(new RowKey(new Object[] { "x" }), null), params));
+    assertEquals(Arrays.asList("x"), params);
+  }
+
+  @Test
+  public void unboundedRange() throws CouldNotHashException {
+    RowOrdering o = KeyPredicates.ordering(POSTGRESQL, true, null, null);
+    List<Object> params = new ArrayList<>();
+    assertNull(o.renderRange(range(null, null), params));
+    assertTrue(params.isEmpty());
+  }
+
+  @Test
+  public void nullsPlacement() throws CouldNotHashException {
+    for (Dialect d : DIALECTS) {
+      RowOrdering o = KeyPredicates.ordering(d, false, ASC_DESC, null);
+      int high = d.sortsNullsHigh() ? 1 : -1;
+      assertEquals(d.getName(), high, Integer.signum(o.compare(key(null, 1), key(1, 1))));
+      assertEquals(d.getName(), -high, Integer.signum(o.compare(key(1, null), key(1, 1))));
+    }
+    boolean[] asc = { false, false };
+    RowOrdering o = KeyPredicates.ordering(POSTGRESQL, false, asc, new Boolean[] { true, false });
+    assertEquals(-1, Integer.signum(o.compare(key(null, 1), key(1, 1))));
+    assertEquals(1, Integer.signum(o.compare(key(1, null), key(1, 1))));
+  }
+
+  // Each (after, upTo] range of keys, including the unbounded ones, selects
+  // the same rows as the ordering: in each dialect, for the primary key (always
+  // ascending), with descending members, with nulls, and with the declared
+  // nulls placement
+
+  @Test
+  public void rangesMatchTheOrdering() throws CouldNotHashException {
+    for (Dialect d : DIALECTS) {
+      assertRangesMatch(KeyPredicates.ordering(d, true, null, null), KeyPredicates.keys(false));
+      assertRangesMatch(KeyPredicates.ordering(d, false, DESC_ASC, null), KeyPredicates.keys(false));
+      assertRangesMatch(KeyPredicates.ordering(d, false, null, null), KeyPredicates.keys(true));
+      assertRangesMatch(KeyPredicates.ordering(d, false, ASC_DESC, null), KeyPredicates.keys(true));
+    }
+    for (Dialect d : new Dialect[] { POSTGRESQL, ORACLE, DIALECTS[2] }) {
+      for (Boolean[] nullsFirst : new Boolean[][] { { true, false }, { false, true } }) {
+        assertRangesMatch(KeyPredicates.ordering(d, false, DESC_ASC, nullsFirst), KeyPredicates.keys(true));
+      }
+    }
+  }
+
+  // Reading chunks after the last key of the previous one, as the keyset
+  // cursor does, returns each row once and in order
+
+  @Test
+  public void keysetChunks() throws CouldNotHashException {
+    for (Dialect d : new Dialect[] { POSTGRESQL, ORACLE, MYSQL }) {
+      assertKeysetChunks(KeyPredicates.ordering(d, true, null, null), KeyPredicates.keys(false), null);
+      RowOrdering o = KeyPredicates.ordering(d, false, ASC_DESC, null);
+      List<RowKey> keys = sorted(o, KeyPredicates.keys(true));
+      assertKeysetChunks(o, keys, null);
+      assertKeysetChunks(o, keys, keys.get(keys.size() - 4));
+    }
+  }
+
+  private static void assertRangesMatch(final RowOrdering o, final List<RowKey> keys) {
+    List<RowKey> bounds = new ArrayList<>(keys);
+    bounds.add(null);
+    for (RowKey after : bounds) {
+      for (RowKey upTo : bounds) {
+        KeyRange r = range(after, upTo);
+        for (RowKey row : keys) {
+          boolean expected = KeyPredicates.inRange(o, r, row);
+          if (KeyPredicates.matches(o, r, row) != expected) {
+            fail(describe(o, r, row) + " should be " + expected);
+          }
+        }
+      }
+    }
+  }
+
+  private static void assertKeysetChunks(final RowOrdering o, final List<RowKey> keys, final RowKey upTo) {
+    List<RowKey> sorted = sorted(o, keys);
+    List<RowKey> expected = upTo == null ? sorted : sorted.subList(0, sorted.indexOf(upTo) + 1);
+    int chunkRows = 3;
+    List<RowKey> read = new ArrayList<>();
+    RowKey lastKey = null;
+    int chunk;
+    do {
+      KeyRange r = new KeyRange(lastKey, upTo, 0, 1);
+      chunk = 0;
+      for (RowKey row : sorted) {
+        if (chunk < chunkRows && KeyPredicates.matches(o, r, row)) {
+          read.add(row);
+          lastKey = row;
+          chunk++;
+        }
+      }
+    } while (chunk == chunkRows);
+    assertEquals(render(expected), render(read));
+  }
+
+  private static List<RowKey> sorted(final RowOrdering o, final List<RowKey> keys) {
+    List<RowKey> sorted = new ArrayList<>(keys);
+    sorted.sort(o::compare);
+    return sorted;
+  }
+
+  private static String describe(final RowOrdering o, final KeyRange r, final RowKey row) {
+    List<Object> params = new ArrayList<>();
+    return o.renderRange(r, params) + " " + params + " on " + Arrays.toString(row.getValues());
+  }
+
+  private static String render(final List<RowKey> keys) {
+    StringBuilder sb = new StringBuilder();
+    for (RowKey k : keys) {
+      sb.append(Arrays.toString(k.getValues()));
+    }
+    return sb.toString();
+  }
+
+  private static KeyRange range(final RowKey after, final RowKey upTo) {
+    return new KeyRange(after, upTo, 0, 1);
+  }
+
+  private static RowKey key(final Integer a, final Integer b) {
+    return new RowKey(new Object[] { a, b });
+  }
+
+}
@@ -0,0 +1,51 @@
+package highfive.serializers;
+
+import static org.junit.Assert.assertEquals;
+
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Random;
+
+import org.junit.Test;
+
+import highfive.model.ByteSink;
+
+public class BigDecimalSerializerTest {
+
+  // readInto() writes the same bytes as BigDecimal.toString(), as serialize()
+
+  @Test
+  public void readIntoMatchesToString() throws SQLException {
+    String[] values = { "0", "0.00", "0E+3", "-0.000001", "1E-7", "123E-10", "12.5", "-9223372036854775808",
+        "-9223372036854.775808", "9223372036854775807E+40", "123456789012345678901234567890.12345" };
+    for (String v : values) {
+      assertReadInto(new BigDecimal(v));
+    }
+    Random r = new Random(11);
+    for (int i = 0; i < 20000; i++) {
+      long unscaled = r.nextBoolean() ? r.nextLong() : r.nextInt(2000) - 1000;
+      assertReadInto(new BigDecimal(BigInteger.valueOf(unscaled), r.nextInt(60) - 30));
+    }
+  }
+
+  private static void assertReadInto(final BigDecimal value) throws SQLException {
+    ResultSet rs = (ResultSet) Proxy.newProxyInstance(ResultSet.class.getClassLoader(),
+        new Class<?>[] { ResultSet.class }, (proxy, method, args) -> {
+          if (method.getName().equals("getBigDecimal")) {
+            return value;
+          }
+          if (method.getName().equals("wasNull")) {
+            return false;
+          }
+          throw new UnsupportedOperationException(method.getName());
+        });
+    ByteSink sink = new ByteSink();
+    new BigDecimalSerializer().readInto(rs, 1, sink);
+    assertEquals(value.toString(), new String(sink.toByteArray(), StandardCharsets.UTF_8));
+  }
+
+}
@@ -15,7 +15,7 @@ public class TM {
   }
 
   public static void main(String[] args) throws InvalidDumpFileException, DumpFileIOException {
-    DumpFileReader r = new DumpFileReader(new File("ss.dump"));
+    DumpFileReader r = DumpFileReader.open(new File("ss.dump"));
     System.out.println("File: " + r.getMetadata());
     while (r.next()) {
       System.out.println(" - row #" + r.getRow() + " - " + r.getHash());